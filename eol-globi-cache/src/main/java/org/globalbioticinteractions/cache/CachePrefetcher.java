@@ -0,0 +1,248 @@
+package org.globalbioticinteractions.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.service.ResourceService;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetRegistry;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Populates the content addressed cache with remote dataset resources ahead of time,
+ * so that downloads overlap with the (cpu-bound) import of datasets that were already fetched.
+ * <p>
+ * Resources of a namespace are fetched concurrently, with a limit on the total number of connections and on the number
+ * of connections per host. Consumers may wait for the resources of a single namespace using {@link #awaitNamespace(String)}.
+ */
+
+public class CachePrefetcher implements AutoCloseable {
+    private final static Logger LOG = LoggerFactory.getLogger(CachePrefetcher.class);
+
+    private final String cachePath;
+    private final ResourceService resourceService;
+    private final int maxConnectionsPerHost;
+    private final Semaphore connections;
+
+    private final ExecutorService namespaceExecutor;
+    private final Map<String, ExecutorService> hostExecutors = new ConcurrentHashMap<>();
+    private final Map<String, List<Future<?>>> pending = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> scheduledNamespaces = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong bytesCached = new AtomicLong(0);
+
+    private PrefetchListener listener = new PrefetchListener() {
+    };
+
+    public CachePrefetcher(String cachePath,
+                           ResourceService resourceService,
+                           int maxConnections,
+                           int maxConnectionsPerHost) {
+        this.cachePath = cachePath;
+        this.resourceService = resourceService;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connections = new Semaphore(maxConnections);
+        this.namespaceExecutor = Executors.newFixedThreadPool(maxConnections);
+    }
+
+    public void setListener(PrefetchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules the remote resources of all namespaces in the registry for prefetching, in the order in which the
+     * registry lists the namespaces. Returns without waiting for the downloads to complete.
+     */
+
+    public void prefetch(DatasetRegistry registry) throws DatasetRegistryException {
+        registry.findNamespaces(namespace -> prefetch(registry, namespace));
+    }
+
+    /**
+     * Schedules the remote resources of provided namespace for prefetching, without waiting for the dataset
+     * configuration of the namespace to be retrieved. Namespaces are scheduled once, so later calls for the same
+     * namespace have no effect.
+     */
+
+    public void prefetch(DatasetRegistry registry, String namespace) {
+        scheduledNamespaces.computeIfAbsent(namespace, ns -> {
+            Future<?> scheduled = namespaceExecutor.submit(() -> {
+                try {
+                    prefetch(registry.datasetFor(ns));
+                } catch (DatasetRegistryException e) {
+                    LOG.warn("failed to prefetch resources for namespace [" + ns + "]", e);
+                }
+            });
+            pendingFor(ns).add(scheduled);
+            return scheduled;
+        });
+    }
+
+    public void prefetch(Dataset dataset) {
+        for (URI resource : remoteResourcesFor(dataset)) {
+            prefetch(dataset.getNamespace(), resource);
+        }
+    }
+
+    public void prefetch(String namespace, URI resource) {
+        ExecutorService hostExecutor = hostExecutors.computeIfAbsent(
+                StringUtils.defaultString(resource.getHost()),
+                host -> Executors.newFixedThreadPool(maxConnectionsPerHost));
+        submitted.incrementAndGet();
+        pendingFor(namespace).add(hostExecutor.submit(() -> {
+            fetch(namespace, resource);
+            return null;
+        }));
+    }
+
+    /**
+     * Blocks until the resources of provided namespace are cached.
+     *
+     * @throws IOException if one or more resources could not be cached
+     */
+
+    public void awaitNamespace(String namespace) throws IOException {
+        List<Future<?>> futures = pendingFor(namespace);
+        // resources may be added while waiting for the dataset configuration of the namespace
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for namespace [" + namespace + "]", e);
+            } catch (ExecutionException e) {
+                throw new IOException("failed to prefetch resources of namespace [" + namespace + "]", e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        namespaceExecutor.shutdown();
+        awaitTermination(namespaceExecutor);
+        for (ExecutorService hostExecutor : hostExecutors.values()) {
+            hostExecutor.shutdown();
+            awaitTermination(hostExecutor);
+        }
+        LOG.info("prefetched [" + completed.get() + "] of [" + submitted.get() + "] resources ([" + failed.get() + "] failed, [" + bytesCached.get() + "] bytes cached)");
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Future<?>> pendingFor(String namespace) {
+        return pending.computeIfAbsent(namespace, ns -> new CopyOnWriteArrayList<>());
+    }
+
+    private void fetch(String namespace, URI resource) throws IOException, InterruptedException {
+        connections.acquire();
+        try {
+            listener.onStarted(namespace, resource);
+            ContentProvenance provenance = CacheLocalReadonly.getContentProvenance(resource, cachePath, namespace);
+            if (provenance == null) {
+                provenance = new CachePullThrough(namespace, cachePath, resourceService).cacheResource(resource);
+                bytesCached.addAndGet(new File(provenance.getLocalURI()).length());
+            }
+            completed.incrementAndGet();
+            listener.onCompleted(namespace, resource, provenance);
+            LOG.info("prefetched [" + resource + "] in namespace [" + namespace + "] ([" + completed.get() + "] of [" + submitted.get() + "] resources)");
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            listener.onFailed(namespace, resource, e);
+            throw e;
+        } finally {
+            connections.release();
+        }
+    }
+
+    static Collection<URI> remoteResourcesFor(Dataset dataset) {
+        Set<String> candidates = new TreeSet<>();
+        if (dataset.getArchiveURI() != null) {
+            candidates.add(dataset.getArchiveURI().toString());
+        }
+        JsonNode config = dataset.getConfig();
+        if (config != null) {
+            addTextValue(candidates, config.get("url"));
+            JsonNode tables = config.get("tables");
+            if (tables != null && tables.isArray()) {
+                for (JsonNode table : tables) {
+                    addTextValue(candidates, table.get("url"));
+                }
+            }
+            JsonNode resources = config.get("resources");
+            if (resources != null && resources.isObject()) {
+                Iterator<JsonNode> values = resources.elements();
+                while (values.hasNext()) {
+                    addTextValue(candidates, values.next());
+                }
+            }
+        }
+
+        List<URI> remoteResources = new ArrayList<>();
+        for (String candidate : candidates) {
+            try {
+                URI resource = URI.create(candidate);
+                if (isRemote(resource)) {
+                    remoteResources.add(resource);
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.warn("ignoring malformed resource [" + candidate + "] in namespace [" + dataset.getNamespace() + "]");
+            }
+        }
+        return remoteResources;
+    }
+
+    private static void addTextValue(Collection<String> candidates, JsonNode value) {
+        if (value != null && value.isTextual() && StringUtils.isNotBlank(value.asText())) {
+            candidates.add(StringUtils.trim(value.asText()));
+        }
+    }
+
+    private static boolean isRemote(URI resource) {
+        String scheme = resource.getScheme();
+        return StringUtils.equalsIgnoreCase(scheme, "http")
+                || StringUtils.equalsIgnoreCase(scheme, "https")
+                || StringUtils.startsWithIgnoreCase(scheme, "ftp");
+    }
+
+    public interface PrefetchListener {
+        default void onStarted(String namespace, URI resource) {
+        }
+
+        default void onCompleted(String namespace, URI resource, ContentProvenance provenance) {
+        }
+
+        default void onFailed(String namespace, URI resource, IOException cause) {
+        }
+    }
+
+}
@@ -25,7 +25,7 @@ public class CachePullThrough implements Cache {
         return CacheUtil.cache(sourceURI, cacheDir, resourceService);
     }
 
-    private ContentProvenance getContentProvenance(URI resourceName, ResourceService resourceService) throws IOException {
+    ContentProvenance cacheResource(URI resourceName) throws IOException {
         File cacheDirForNamespace = CacheUtil.findOrMakeCacheDirForNamespace(cachePath, namespace);
         ContentProvenance localResourceLocation
                 = cache(resourceName,
@@ -51,7 +51,7 @@ public class CachePullThrough implements Cache {
 
     @Override
     public InputStream retrieve(URI resourceURI) throws IOException {
-        ContentProvenance provenance = getContentProvenance(resourceURI, resourceService);
+        ContentProvenance provenance = cacheResource(resourceURI);
         URI localURI = provenance.getLocalURI();
         return localURI == null
                 ? null
@@ -4,7 +4,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.service.ResourceService;
+import org.eol.globi.util.ContentHashUtil;
 import org.eol.globi.util.DateUtil;
+import org.eol.globi.util.InputStreamFactory;
+import org.eol.globi.util.ResourceServiceLocal;
+import org.eol.globi.util.ResourceServiceLocalAndRemote;
+import org.eol.globi.util.TempFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +18,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -29,6 +37,19 @@ public final class CacheUtil {
         return new CacheProxy(Arrays.asList(readOnlyCache, pullThroughCache));
     }
 
+    /**
+     * Creates a cache that pulls remote resources of the namespace into its cache dir. Local copies of remote content,
+     * including interrupted downloads, are kept in the same dir, so that they are renamed into the cache once complete.
+     */
+
+    public static Cache cacheFor(String namespace, String cacheDir, InputStreamFactory factory) {
+        File spoolDir = findCacheDirForNamespace(cacheDir, namespace);
+        return cacheFor(namespace,
+                cacheDir,
+                new ResourceServiceLocalAndRemote(factory, spoolDir),
+                new ResourceServiceLocal(factory));
+    }
+
     public static File findOrMakeCacheDirForNamespace(String cachePath, String namespace) throws IOException {
         File directory = findCacheDirForNamespace(cachePath, namespace);
         FileUtils.forceMkdir(directory);
@@ -44,19 +65,19 @@ public final class CacheUtil {
     public static ContentProvenance cacheStream(InputStream inputStream, File cacheDir) throws IOException {
         File destinationFile = null;
 
-        try (InputStream sourceStream = inputStream) {
-            destinationFile = File.createTempFile("archive", "tmp", cacheDir);
-            try {
-                OutputStream os = FileUtils.openOutputStream(destinationFile);
-                String sha256 = calculateContentHash(sourceStream, os);
-                File destFile = new File(cacheDir, sha256);
-                if (!destFile.exists()) {
-                    FileUtils.moveFile(destinationFile, destFile);
-                }
-                return new ContentProvenance(null, null, destFile.toURI(), sha256, DateUtil.nowDateString());
-            } catch (NoSuchAlgorithmException e) {
-                throw new IOException("failed to access hash/digest algorithm", e);
+        try (InputStream sourceStream = inputStream;
+             TempFileInputStream spooled = sourceStream instanceof TempFileInputStream
+                     ? (TempFileInputStream) sourceStream
+                     : TempFileInputStream.spool(sourceStream, cacheDir)) {
+            destinationFile = spooled.getFile();
+            String sha256 = spooled.getSha256() == null
+                    ? ContentHashUtil.sha256(spooled)
+                    : spooled.getSha256();
+            File destFile = new File(cacheDir, sha256);
+            if (!destFile.exists()) {
+                moveFile(destinationFile, destFile);
             }
+            return new ContentProvenance(null, null, destFile.toURI(), sha256, DateUtil.nowDateString());
         } finally {
             if (destinationFile != null && destinationFile.exists()) {
                 FileUtils.deleteQuietly(destinationFile);
@@ -64,12 +85,27 @@ public final class CacheUtil {
         }
     }
 
+    private static void moveFile(File srcFile, File destFile) throws IOException {
+        try {
+            Files.move(srcFile.toPath(), destFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            // source lives on another file store, so copy into the cache dir first
+            File tmpFile = File.createTempFile("archive", "tmp", destFile.getParentFile());
+            try {
+                Files.copy(srcFile.toPath(), tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmpFile.toPath(), destFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                FileUtils.deleteQuietly(tmpFile);
+            }
+        }
+    }
+
     public static String calculateContentHash(InputStream sourceStream, OutputStream os) throws NoSuchAlgorithmException, IOException {
         MessageDigest md = MessageDigest.getInstance("SHA-256");
         try (DigestInputStream digestInputStream = new DigestInputStream(sourceStream, md)) {
             IOUtils.copy(digestInputStream, os);
         }
-        return String.format("%064x", new java.math.BigInteger(1, md.digest()));
+        return ContentHashUtil.toHexString(md);
     }
 
     public static ContentProvenance cache(URI sourceURI, File cacheDir, ResourceService resourceService) throws IOException {
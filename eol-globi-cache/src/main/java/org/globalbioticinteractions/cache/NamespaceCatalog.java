@@ -0,0 +1,258 @@
+package org.globalbioticinteractions.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.util.CSVTSVUtil;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.FileVisitResult.CONTINUE;
+import static java.nio.file.FileVisitResult.SKIP_SIBLINGS;
+
+/**
+ * Keeps a list of the provenance logs in the cache directory in a single tab-separated file in the root of the cache
+ * directory, so that namespaces can be listed without parsing every provenance log in the cache.
+ * <p>
+ * For each provenance log, the catalog records its namespace, the archive of the dataset in the namespace (if any)
+ * with the archive's sha256 hash, and the length of the log. Provenance logs are only appended to, so the catalog
+ * is stale once a log was added, or a log changed length since the catalog was written.
+ */
+
+public class NamespaceCatalog {
+    private final static Logger LOG = LoggerFactory.getLogger(NamespaceCatalog.class);
+
+    public final static String NAMESPACE_CATALOG_FILENAME = "namespaces.tsv";
+
+    public static final class Entry {
+        private final String archiveURI;
+        private final String archiveSha256;
+        private final long provenanceLogLength;
+
+        public Entry(String archiveURI, String archiveSha256, long provenanceLogLength) {
+            this.archiveURI = StringUtils.defaultString(archiveURI);
+            this.archiveSha256 = StringUtils.defaultString(archiveSha256);
+            this.provenanceLogLength = provenanceLogLength;
+        }
+
+        /**
+         * @return source of the latest dataset configuration in the namespace, or empty if the namespace has none
+         */
+
+        public String getArchiveURI() {
+            return archiveURI;
+        }
+
+        /**
+         * @return latest sha256 hash of the archive, or empty if unknown
+         */
+
+        public String getArchiveSha256() {
+            return archiveSha256;
+        }
+
+        public long getProvenanceLogLength() {
+            return provenanceLogLength;
+        }
+
+        public boolean isDataset() {
+            return StringUtils.isNotBlank(archiveURI);
+        }
+    }
+
+    public static File findCatalogFile(String cacheDir) {
+        return new File(cacheDir, NAMESPACE_CATALOG_FILENAME);
+    }
+
+    public static List<File> findProvenanceLogFiles(File cacheDir) throws IOException {
+        List<File> accessFiles = new ArrayList<>();
+        Files.walkFileTree(
+                cacheDir.toPath(),
+                EnumSet.of(FOLLOW_LINKS),
+                3,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file,
+                                                     BasicFileAttributes attrs) {
+                        FileVisitResult result = CONTINUE;
+                        if (file.endsWith(ProvenanceLog.PROVENANCE_LOG_FILENAME)) {
+                            accessFiles.add(file.toFile());
+                            result = SKIP_SIBLINGS;
+                        }
+                        return result;
+                    }
+                });
+        return accessFiles;
+    }
+
+    public static String namespaceOf(File cacheDir, File provenanceLog) {
+        Path namespaceDir = provenanceLog.getAbsoluteFile().getParentFile().toPath().normalize();
+        Path relativePath = cacheDir.getAbsoluteFile().toPath().normalize().relativize(namespaceDir);
+        return StringUtils.replace(relativePath.toString(), File.separator, "/");
+    }
+
+    /**
+     * Derives the catalog entry of a provenance log, reading the log from its most recent entries.
+     */
+
+    public static Entry entryOf(File provenanceLog) throws DatasetRegistryException {
+        // taken before reading, so that entries appended meanwhile leave the catalog stale instead of unnoticed
+        long length = provenanceLog.length();
+        AtomicReference<String> archiveURI = new AtomicReference<>();
+        Map<String, String> latestHashes = new HashMap<>();
+        ProvenanceLog.parseProvenanceLogFile(provenanceLog, new ProvenanceLog.ProvenanceEntryListener() {
+            @Override
+            public void onValues(String[] values) {
+                if (values.length >= 3 && StringUtils.isNotBlank(values[2])) {
+                    latestHashes.putIfAbsent(StringUtils.trim(values[1]), StringUtils.trim(values[2]));
+                }
+                if (archiveURI.get() == null
+                        && values.length >= 5
+                        && StringUtils.equals(StringUtils.trim(values[4]), CacheUtil.MIME_TYPE_GLOBI)) {
+                    archiveURI.set(StringUtils.trim(values[1]));
+                }
+            }
+
+            @Override
+            public boolean shouldContinue() {
+                return archiveURI.get() == null || !latestHashes.containsKey(archiveURI.get());
+            }
+        }, new ReverseLineReaderFactoryImpl());
+        return new Entry(archiveURI.get(), latestHashes.get(archiveURI.get()), length);
+    }
+
+    /**
+     * @return true if catalog is missing, or if provenance logs were added or appended to after the catalog was written.
+     */
+
+    public static boolean isStale(String cacheDir) throws IOException {
+        File catalog = findCatalogFile(cacheDir);
+        boolean isStale = !catalog.exists();
+        if (!isStale) {
+            // listing provenance logs is much cheaper than parsing them
+            Map<String, Entry> entries = readEntries(cacheDir);
+            for (File provenanceLog : findProvenanceLogFiles(new File(cacheDir))) {
+                Entry entry = entries.get(namespaceOf(new File(cacheDir), provenanceLog));
+                if (entry == null || entry.getProvenanceLogLength() != provenanceLog.length()) {
+                    isStale = true;
+                    break;
+                }
+            }
+        }
+        return isStale;
+    }
+
+    /**
+     * @return namespaces of datasets mapped to the sha256 hash of their latest archive (empty if unknown), sorted by namespace
+     */
+
+    public static Map<String, String> read(String cacheDir) throws IOException {
+        return archiveHashesOf(readEntries(cacheDir));
+    }
+
+    public static Map<String, String> archiveHashesOf(Map<String, Entry> entries) {
+        Map<String, String> archiveHashes = new TreeMap<>();
+        entries.forEach((namespace, entry) -> {
+            if (entry.isDataset()) {
+                archiveHashes.put(namespace, entry.getArchiveSha256());
+            }
+        });
+        return archiveHashes;
+    }
+
+    /**
+     * @return entries of all provenance logs in the catalog, sorted by namespace
+     */
+
+    public static Map<String, Entry> readEntries(String cacheDir) throws IOException {
+        Map<String, Entry> entries = new TreeMap<>();
+        File catalog = findCatalogFile(cacheDir);
+        if (catalog.exists()) {
+            List<String> lines = FileUtils.readLines(catalog, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                String[] values = CSVTSVUtil.splitTSV(line);
+                if (values.length > 0 && StringUtils.isNotBlank(values[0])) {
+                    String length = values.length > 3 ? StringUtils.trim(values[3]) : null;
+                    entries.put(values[0], new Entry(
+                            values.length > 1 ? StringUtils.trim(values[1]) : null,
+                            values.length > 2 ? StringUtils.trim(values[2]) : null,
+                            StringUtils.isNumeric(length) ? Long.parseLong(length) : -1L));
+                }
+            }
+        }
+        return entries;
+    }
+
+    public static synchronized void write(String cacheDir, Map<String, Entry> entries) throws IOException {
+        File catalog = findCatalogFile(cacheDir);
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : new TreeMap<>(entries).entrySet()) {
+            lines.add(entry.getKey()
+                    + "\t" + entry.getValue().getArchiveURI()
+                    + "\t" + entry.getValue().getArchiveSha256()
+                    + "\t" + entry.getValue().getProvenanceLogLength());
+        }
+        File tmpCatalog = File.createTempFile(NAMESPACE_CATALOG_FILENAME, "tmp", catalog.getParentFile());
+        try {
+            FileUtils.writeLines(tmpCatalog, StandardCharsets.UTF_8.name(), lines, "\n");
+            Files.move(tmpCatalog.toPath(), catalog.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(tmpCatalog);
+        }
+    }
+
+    /**
+     * Records the provenance log of the provided provenance, just appended to, in an existing catalog. The archive of
+     * a namespace is looked up in the log when a dataset configuration is appended; the hash of an already known
+     * archive is taken from the appended provenance. Missing catalogs are left alone: they are created on the next
+     * namespace scan.
+     */
+
+    static synchronized void update(File cacheDir, ContentProvenance contentProvenance) {
+        String cachePath = cacheDir.getAbsolutePath();
+        File catalog = findCatalogFile(cachePath);
+        String namespace = contentProvenance.getNamespace();
+        if (catalog.exists() && StringUtils.isNotBlank(namespace)) {
+            try {
+                Map<String, Entry> entries = readEntries(cachePath);
+                File provenanceLog = ProvenanceLog.findProvenanceLogFile(namespace, cachePath);
+                Entry entry = entries.get(namespace);
+                boolean isDatasetConfig = StringUtils.equals(contentProvenance.getType(), CacheUtil.MIME_TYPE_GLOBI);
+                if (entry == null || isDatasetConfig) {
+                    entry = entryOf(provenanceLog);
+                } else {
+                    String sha256 = contentProvenance.getSha256();
+                    boolean isArchive = StringUtils.isNotBlank(sha256)
+                            && contentProvenance.getSourceURI() != null
+                            && StringUtils.equals(entry.getArchiveURI(), contentProvenance.getSourceURI().toString());
+                    entry = new Entry(entry.getArchiveURI(),
+                            isArchive ? sha256 : entry.getArchiveSha256(),
+                            provenanceLog.length());
+                }
+                entries.put(namespace, entry);
+                write(cachePath, entries);
+            } catch (IOException | DatasetRegistryException e) {
+                LOG.warn("failed to update namespace catalog [" + catalog.getAbsolutePath() + "]", e);
+            }
+        }
+    }
+
+}
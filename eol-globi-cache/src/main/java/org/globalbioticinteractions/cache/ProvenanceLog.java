@@ -20,6 +20,7 @@ public class ProvenanceLog {
     public static void appendProvenanceLog(File cacheDir, ContentProvenance contentProvenance) throws IOException {
         if (needsCaching(contentProvenance, cacheDir)) {
             appendProvenanceLog(contentProvenance, cacheDir);
+            NamespaceCatalog.update(cacheDir, contentProvenance);
         }
     }
 
@@ -1,11 +1,11 @@
 package org.globalbioticinteractions.dataset;
 
-import jdk.nashorn.internal.ir.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.service.ResourceService;
 import org.globalbioticinteractions.cache.CacheFactory;
 import org.globalbioticinteractions.cache.CacheUtil;
 import org.globalbioticinteractions.cache.LineReaderFactory;
+import org.globalbioticinteractions.cache.NamespaceCatalog;
 import org.globalbioticinteractions.cache.ProvenanceLog;
 import org.globalbioticinteractions.cache.ReverseLineReaderFactoryImpl;
 import org.slf4j.Logger;
@@ -14,27 +14,22 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
-import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.FileVisitResult.SKIP_SIBLINGS;
-
 public class DatasetRegistryLocal implements DatasetRegistry {
     private final static Logger LOG = LoggerFactory.getLogger(DatasetRegistryLocal.class);
+    // provenance logs often live on network storage, so scan more logs than there are cores
+    private final static int SCAN_THREADS = 4 * Runtime.getRuntime().availableProcessors();
     private final String cacheDir;
     private final CacheFactory cacheFactory;
     private ResourceService resourceService;
@@ -57,76 +52,78 @@ public class DatasetRegistryLocal implements DatasetRegistry {
     @Override
     public void findNamespaces(Consumer<String> namespaceConsumer) throws DatasetRegistryException {
         File directory = new File(cacheDir);
-        Collection<String> namespaces = Collections.emptyList();
         if (directory.exists() && directory.isDirectory()) {
-            namespaces = collectNamespaces(directory, namespaceConsumer);
+            Map<String, NamespaceCatalog.Entry> catalog = isCatalogStale()
+                    ? rebuildCatalog(directory)
+                    : readCatalog();
+            NamespaceCatalog.archiveHashesOf(catalog).keySet().forEach(namespaceConsumer);
         } else {
             LOG.warn("Directory [" + cacheDir + "] does not exist.");
         }
     }
 
-
-    private Collection<String> collectNamespaces(File directory, Consumer<String> namespaceConsumer) throws DatasetRegistryException {
-
+    private boolean isCatalogStale() throws DatasetRegistryException {
         try {
-            Collection<String> namespaces = new TreeSet<>();
-
-            Files.walkFileTree(
-                    directory.toPath(),
-                    EnumSet.of(FOLLOW_LINKS),
-                    3,
-                    new SimpleFileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult visitFile(Path file,
-                                                         BasicFileAttributes attrs) {
-                            FileVisitResult result = CONTINUE;
-                            if (file.endsWith(ProvenanceLog.PROVENANCE_LOG_FILENAME)) {
-                                try {
-                                    addNamespace(namespaces, file.toFile(), namespaceConsumer);
-                                    result = SKIP_SIBLINGS;
-                                } catch (DatasetRegistryException e) {
-                                    LOG.warn("failed to process [" + file.toFile().getAbsolutePath() + "]");
-                                }
-                            }
-                            return result;
-                        }
-                    });
-            return namespaces;
+            return NamespaceCatalog.isStale(cacheDir);
         } catch (IOException e) {
-            throw new DatasetRegistryException("failed to traverse directory tree starting at [" + directory.getAbsolutePath() + "]");
+            throw new DatasetRegistryException("failed to check namespace catalog in [" + cacheDir + "]", e);
         }
+    }
 
-
+    private Map<String, NamespaceCatalog.Entry> readCatalog() throws DatasetRegistryException {
+        try {
+            return NamespaceCatalog.readEntries(cacheDir);
+        } catch (IOException e) {
+            throw new DatasetRegistryException("failed to read namespace catalog in [" + cacheDir + "]", e);
+        }
     }
 
-    private void addNamespace(Collection<String> namespaces, File accessFile, Consumer<String> consumer) throws DatasetRegistryException {
+    private Map<String, NamespaceCatalog.Entry> rebuildCatalog(File directory) throws DatasetRegistryException {
+        Map<String, NamespaceCatalog.Entry> catalog = collectNamespaces(directory);
         try {
-            LineReaderFactory lineReaderFactory = new ReverseLineReaderFactoryImpl();
-            final ProvenanceLog.ProvenanceEntryListener lineListener = new ProvenanceLog.ProvenanceEntryListener() {
-                AtomicBoolean foundNamespace = new AtomicBoolean(false);
+            NamespaceCatalog.write(cacheDir, catalog);
+        } catch (IOException e) {
+            LOG.warn("failed to write namespace catalog in [" + cacheDir + "]", e);
+        }
+        return catalog;
+    }
 
-                @Override
-                public void onValues(String[] values) {
-                    if (values.length >= 5
-                            && StringUtils.equals(values[4], CacheUtil.MIME_TYPE_GLOBI)) {
-                        namespaces.add(values[0]);
-                        consumer.accept(values[0]);
-                        foundNamespace.set(true);
+    private Map<String, NamespaceCatalog.Entry> collectNamespaces(File directory) throws DatasetRegistryException {
+        List<File> accessFiles = findProvenanceLogFiles(directory);
+        Map<String, NamespaceCatalog.Entry> namespaces = new ConcurrentSkipListMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(accessFiles.size(), SCAN_THREADS)));
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (File accessFile : accessFiles) {
+                scans.add(executor.submit(() -> {
+                    try {
+                        namespaces.put(NamespaceCatalog.namespaceOf(directory, accessFile), NamespaceCatalog.entryOf(accessFile));
+                    } catch (DatasetRegistryException e) {
+                        LOG.warn("failed to process [" + accessFile.getAbsolutePath() + "]");
                     }
-                }
-
-                @Override
-                public boolean shouldContinue() {
-                    return !foundNamespace.get();
-                }
-            };
-
-            ProvenanceLog.parseProvenanceLogFile(accessFile, lineListener, lineReaderFactory);
-        } catch (DatasetRegistryException e) {
-            throw new DatasetRegistryException("failed to access [" + accessFile.getAbsolutePath() + "]", e);
+                }));
+            }
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatasetRegistryException("interrupted while scanning namespaces in [" + directory.getAbsolutePath() + "]", e);
+        } catch (ExecutionException e) {
+            throw new DatasetRegistryException("failed to scan namespaces in [" + directory.getAbsolutePath() + "]", e);
+        } finally {
+            executor.shutdownNow();
         }
+        return namespaces;
     }
 
+    private List<File> findProvenanceLogFiles(File directory) throws DatasetRegistryException {
+        try {
+            return NamespaceCatalog.findProvenanceLogFiles(directory);
+        } catch (IOException e) {
+            throw new DatasetRegistryException("failed to traverse directory tree starting at [" + directory.getAbsolutePath() + "]");
+        }
+    }
 
     private URI findLastCachedDatasetURI(String namespace) throws DatasetRegistryException {
         AtomicReference<URI> sourceURI = new AtomicReference<>();
@@ -1,35 +1,75 @@
 package org.globalbioticinteractions.dataset;
 
 import org.globalbioticinteractions.cache.CacheFactory;
+import org.globalbioticinteractions.cache.CachePrefetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.function.Consumer;
 
 public class DatasetRegistryWithCache implements DatasetRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetRegistryWithCache.class);
+
     private final DatasetRegistry registry;
 
     private final CacheFactory cacheFactory;
 
+    private final CachePrefetcher prefetcher;
+
     public DatasetRegistryWithCache(DatasetRegistry registry, CacheFactory factory) {
+        this(registry, factory, null);
+    }
+
+    /**
+     * @param prefetcher populates the cache with the remote resources of found namespaces ahead of their use, or null
+     *                   to retrieve remote resources on first access only
+     */
+
+    public DatasetRegistryWithCache(DatasetRegistry registry, CacheFactory factory, CachePrefetcher prefetcher) {
         this.registry = registry;
         this.cacheFactory = factory;
+        this.prefetcher = prefetcher;
     }
 
     public Iterable<String> findNamespaces() throws DatasetRegistryException {
-        return getRegistry().findNamespaces();
+        Iterable<String> namespaces = getRegistry().findNamespaces();
+        for (String namespace : namespaces) {
+            prefetch(namespace);
+        }
+        return namespaces;
     }
 
     @Override
     public void findNamespaces(Consumer<String> namespaceConsumer) throws DatasetRegistryException {
-        for (String namespace : getRegistry().findNamespaces()) {
+        for (String namespace : findNamespaces()) {
             namespaceConsumer.accept(namespace);
         }
     }
 
     public Dataset datasetFor(String namespace) throws DatasetRegistryException {
+        awaitPrefetch(namespace);
         Dataset dataset = getRegistry().datasetFor(namespace);
         return new DatasetWithCache(dataset, getCacheFactory().cacheFor(dataset));
     }
 
+    private void prefetch(String namespace) {
+        if (prefetcher != null) {
+            prefetcher.prefetch(getRegistry(), namespace);
+        }
+    }
+
+    private void awaitPrefetch(String namespace) {
+        if (prefetcher != null) {
+            try {
+                prefetcher.awaitNamespace(namespace);
+            } catch (IOException e) {
+                // resources that failed to prefetch are retrieved on first access instead
+                LOG.warn("failed to prefetch resources of namespace [" + namespace + "]", e);
+            }
+        }
+    }
+
     private DatasetRegistry getRegistry() {
         return this.registry;
     }
@@ -39,4 +79,4 @@ public class DatasetRegistryWithCache implements DatasetRegistry {
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package org.globalbioticinteractions.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eol.globi.util.ResourceServiceHTTPResumable;
+import org.eol.globi.util.ResourceServiceLocal;
+import org.globalbioticinteractions.dataset.Dataset;
+import org.globalbioticinteractions.dataset.DatasetImpl;
+import org.globalbioticinteractions.dataset.DatasetRegistry;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.globalbioticinteractions.dataset.DatasetRegistryWithCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class CachePrefetcherTest {
+
+    private HttpServer server;
+    private File cacheDir;
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+    private final AtomicInteger activeRequests = new AtomicInteger(0);
+    private final AtomicInteger maxActiveRequests = new AtomicInteger(0);
+
+    @Before
+    public void init() throws IOException {
+        cacheDir = new File("target/prefetch-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(cacheDir);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            int active = activeRequests.incrementAndGet();
+            maxActiveRequests.accumulateAndGet(active, Math::max);
+            try {
+                requestedPaths.add(exchange.getRequestURI().getPath());
+                Thread.sleep(50);
+                byte[] content = ("content of " + exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(content);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                activeRequests.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    private String baseURI() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private Dataset createDataset(String namespace) throws IOException {
+        Dataset dataset = new DatasetImpl(namespace, new ResourceServiceLocal(in -> in), URI.create(baseURI() + "/" + namespace + "/archive.zip"));
+        dataset.setConfig(new ObjectMapper().readTree("{ \"tables\": [ " +
+                "{ \"url\": \"" + baseURI() + "/" + namespace + "/interactions.tsv\" }, " +
+                "{ \"url\": \"relative/path.tsv\" } ], " +
+                "\"resources\": { \"references.tsv\": \"" + baseURI() + "/" + namespace + "/references.tsv\" } }"));
+        return dataset;
+    }
+
+    private CachePrefetcher createPrefetcher(int maxConnectionsPerHost) {
+        return new CachePrefetcher(
+                cacheDir.getAbsolutePath(),
+                new ResourceServiceHTTPResumable(in -> in, cacheDir),
+                8,
+                maxConnectionsPerHost);
+    }
+
+    @Test
+    public void remoteResources() throws IOException {
+        Collection<URI> resources = CachePrefetcher.remoteResourcesFor(createDataset("some/namespace"));
+        assertThat(resources, containsInAnyOrder(
+                URI.create(baseURI() + "/some/namespace/archive.zip"),
+                URI.create(baseURI() + "/some/namespace/interactions.tsv"),
+                URI.create(baseURI() + "/some/namespace/references.tsv")
+        ));
+    }
+
+    private DatasetRegistry createRegistry() {
+        return new DatasetRegistry() {
+            @Override
+            public Iterable<String> findNamespaces() {
+                return Arrays.asList("some/namespace", "other/namespace");
+            }
+
+            @Override
+            public void findNamespaces(Consumer<String> namespaceConsumer) {
+                findNamespaces().forEach(namespaceConsumer);
+            }
+
+            @Override
+            public Dataset datasetFor(String namespace) throws DatasetRegistryException {
+                try {
+                    return createDataset(namespace);
+                } catch (IOException e) {
+                    throw new DatasetRegistryException(e);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void prefetchRegistry() throws IOException, DatasetRegistryException {
+        DatasetRegistry registry = createRegistry();
+
+        List<URI> completed = new CopyOnWriteArrayList<>();
+        try (CachePrefetcher prefetcher = createPrefetcher(2)) {
+            prefetcher.setListener(new CachePrefetcher.PrefetchListener() {
+                @Override
+                public void onCompleted(String namespace, URI resource, ContentProvenance provenance) {
+                    completed.add(resource);
+                }
+            });
+            prefetcher.prefetch(registry);
+            prefetcher.awaitNamespace("some/namespace");
+
+            CacheLocalReadonly cache = new CacheLocalReadonly("some/namespace", cacheDir.getAbsolutePath(), new ResourceServiceLocal(in -> in));
+            InputStream is = cache.retrieve(URI.create(baseURI() + "/some/namespace/interactions.tsv"));
+            assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("content of /some/namespace/interactions.tsv"));
+        }
+
+        assertThat(completed.size(), is(6));
+        assertThat(requestedPaths.size(), is(6));
+        assertThat(maxActiveRequests.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void prefetchFoundNamespaces() throws IOException, DatasetRegistryException {
+        try (CachePrefetcher prefetcher = createPrefetcher(2)) {
+            // read-only caches only provide resources that were prefetched
+            DatasetRegistry registry = new DatasetRegistryWithCache(
+                    createRegistry(),
+                    dataset -> new CacheLocalReadonly(dataset.getNamespace(), cacheDir.getAbsolutePath(), new ResourceServiceLocal(in -> in)),
+                    prefetcher);
+
+            assertThat(registry.findNamespaces(), contains("some/namespace", "other/namespace"));
+
+            Dataset dataset = registry.datasetFor("other/namespace");
+            try (InputStream is = dataset.retrieve(URI.create(baseURI() + "/other/namespace/references.tsv"))) {
+                assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("content of /other/namespace/references.tsv"));
+            }
+        }
+        assertThat(requestedPaths.size(), is(6));
+    }
+
+    @Test
+    public void prefetchNamespacesOnce() throws IOException, DatasetRegistryException {
+        AtomicInteger datasetRequests = new AtomicInteger(0);
+        DatasetRegistry registry = createRegistry();
+        try (CachePrefetcher prefetcher = createPrefetcher(2)) {
+            DatasetRegistry registryWithCache = new DatasetRegistryWithCache(new DatasetRegistry() {
+                @Override
+                public Iterable<String> findNamespaces() throws DatasetRegistryException {
+                    return registry.findNamespaces();
+                }
+
+                @Override
+                public void findNamespaces(Consumer<String> namespaceConsumer) throws DatasetRegistryException {
+                    registry.findNamespaces(namespaceConsumer);
+                }
+
+                @Override
+                public Dataset datasetFor(String namespace) throws DatasetRegistryException {
+                    datasetRequests.incrementAndGet();
+                    return registry.datasetFor(namespace);
+                }
+            }, dataset -> new CacheLocalReadonly(dataset.getNamespace(), cacheDir.getAbsolutePath(), new ResourceServiceLocal(in -> in)), prefetcher);
+
+            registryWithCache.findNamespaces();
+            registryWithCache.findNamespaces(namespace -> {
+            });
+            prefetcher.prefetch(registryWithCache);
+            prefetcher.awaitNamespace("some/namespace");
+            prefetcher.awaitNamespace("other/namespace");
+        }
+        assertThat(datasetRequests.get(), is(2));
+        assertThat(requestedPaths.size(), is(6));
+    }
+
+    @Test
+    public void skipCachedResources() throws IOException {
+        Dataset dataset = createDataset("some/namespace");
+        try (CachePrefetcher prefetcher = createPrefetcher(4)) {
+            prefetcher.prefetch(dataset);
+            prefetcher.awaitNamespace("some/namespace");
+        }
+        assertThat(requestedPaths.size(), is(3));
+
+        try (CachePrefetcher prefetcher = createPrefetcher(4)) {
+            prefetcher.prefetch(dataset);
+            prefetcher.awaitNamespace("some/namespace");
+        }
+        assertThat(requestedPaths.size(), is(3));
+    }
+
+    @Test(expected = IOException.class)
+    public void failedPrefetch() throws IOException {
+        try (CachePrefetcher prefetcher = createPrefetcher(1)) {
+            prefetcher.prefetch("some/namespace", URI.create("http://localhost:" + unusedPort() + "/missing.zip"));
+            prefetcher.awaitNamespace("some/namespace");
+        }
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.globalbioticinteractions.cache;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.eol.globi.util.TempFileInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class CacheUtilTest {
+
+    private static final String HELLO_SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    private File cacheDir;
+
+    @Before
+    public void init() throws IOException {
+        cacheDir = new File("target/cache-util-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(cacheDir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Test
+    public void cacheStream() throws IOException {
+        ContentProvenance provenance = CacheUtil.cacheStream(IOUtils.toInputStream("hello", StandardCharsets.UTF_8), cacheDir);
+
+        assertThat(provenance.getSha256(), is(HELLO_SHA256));
+        File cachedFile = new File(provenance.getLocalURI());
+        assertThat(cachedFile, is(new File(cacheDir, HELLO_SHA256).getAbsoluteFile()));
+        assertThat(FileUtils.readFileToString(cachedFile, StandardCharsets.UTF_8), is("hello"));
+        assertThat(cacheDir.list().length, is(1));
+    }
+
+    @Test
+    public void cacheStreamLargerThanTransferBuffer() throws IOException, NoSuchAlgorithmException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        ContentProvenance provenance = CacheUtil.cacheStream(new ByteArrayInputStream(content), cacheDir);
+
+        String expectedHash = CacheUtil.calculateContentHash(new ByteArrayInputStream(content), NullOutputStream.NULL_OUTPUT_STREAM);
+        assertThat(provenance.getSha256(), is(expectedHash));
+        assertThat(FileUtils.readFileToByteArray(new File(provenance.getLocalURI())), is(content));
+    }
+
+    @Test
+    public void cacheTempFileStreamByMovingFile() throws Exception {
+        File tempFile = File.createTempFile("globiRemote", "tmp", cacheDir);
+        FileUtils.writeStringToFile(tempFile, "hello", StandardCharsets.UTF_8);
+
+        ContentProvenance provenance = CacheUtil.cacheStream(new TempFileInputStream(tempFile), cacheDir);
+
+        assertThat(provenance.getSha256(), is(HELLO_SHA256));
+        assertThat(FileUtils.readFileToString(new File(provenance.getLocalURI()), StandardCharsets.UTF_8), is("hello"));
+        assertThat(tempFile.exists(), is(false));
+        assertThat(cacheDir.list().length, is(1));
+    }
+
+    @Test
+    public void cacheStreamSpooledIntoCacheDir() throws Exception {
+        TempFileInputStream spooled = TempFileInputStream.spool(IOUtils.toInputStream("hello", StandardCharsets.UTF_8), cacheDir);
+        assertThat(spooled.getSha256(), is(HELLO_SHA256));
+        File spooledFile = spooled.getFile();
+        assertThat(spooledFile.getParentFile(), is(cacheDir));
+
+        ContentProvenance provenance = CacheUtil.cacheStream(spooled, cacheDir);
+
+        assertThat(provenance.getSha256(), is(HELLO_SHA256));
+        assertThat(FileUtils.readFileToString(new File(provenance.getLocalURI()), StandardCharsets.UTF_8), is("hello"));
+        assertThat(spooledFile.exists(), is(false));
+        assertThat(cacheDir.list().length, is(1));
+    }
+
+    @Test
+    public void cacheTempFileStreamOfKnownHashWithoutReadingIt() throws Exception {
+        File tempFile = File.createTempFile("globiRemote", "tmp", cacheDir);
+        FileUtils.writeStringToFile(tempFile, "hello", StandardCharsets.UTF_8);
+
+        TempFileInputStream unreadable = new TempFileInputStream(tempFile, HELLO_SHA256) {
+            @Override
+            public int read(byte[] b, int off, int len) {
+                throw new AssertionError("content of known hash should not be read again");
+            }
+        };
+        ContentProvenance provenance = CacheUtil.cacheStream(unreadable, cacheDir);
+
+        assertThat(provenance.getSha256(), is(HELLO_SHA256));
+        assertThat(tempFile.exists(), is(false));
+        assertThat(cacheDir.list().length, is(1));
+    }
+
+    @Test
+    public void cacheTempFileStreamAlreadyCached() throws Exception {
+        CacheUtil.cacheStream(IOUtils.toInputStream("hello", StandardCharsets.UTF_8), cacheDir);
+        File tempFile = File.createTempFile("globiRemote", "tmp", cacheDir);
+        FileUtils.writeStringToFile(tempFile, "hello", StandardCharsets.UTF_8);
+
+        ContentProvenance provenance = CacheUtil.cacheStream(new TempFileInputStream(tempFile), cacheDir);
+
+        assertThat(provenance.getSha256(), is(HELLO_SHA256));
+        assertThat(tempFile.exists(), is(false));
+        assertThat(cacheDir.list().length, is(1));
+    }
+
+    @Test
+    public void cacheRemoteResourceSpooledIntoNamespaceDir() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(content);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            URI resource = URI.create("http://localhost:" + server.getAddress().getPort() + "/hello.txt");
+            Cache cache = CacheUtil.cacheFor("some/namespace", cacheDir.getAbsolutePath(), is -> is);
+            try (InputStream is = cache.retrieve(resource)) {
+                assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello"));
+            }
+        } finally {
+            server.stop(0);
+        }
+
+        File namespaceDir = CacheUtil.findCacheDirForNamespace(cacheDir.getAbsolutePath(), "some/namespace");
+        assertThat(namespaceDir.list(), arrayContainingInAnyOrder(ProvenanceLog.PROVENANCE_LOG_FILENAME, HELLO_SHA256));
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.globalbioticinteractions.cache;
+
+import org.apache.commons.io.FileUtils;
+import org.globalbioticinteractions.dataset.DatasetRegistryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NamespaceCatalogTest {
+
+    private File tempDirectory;
+
+    @Before
+    public void init() throws IOException {
+        tempDirectory = new File("target/catalog-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(tempDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDirectory);
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        Map<String, NamespaceCatalog.Entry> entries = new TreeMap<>();
+        entries.put("some/namespace", new NamespaceCatalog.Entry("http://example.com/archive.zip", "1234", 42L));
+        entries.put("another/namespace", new NamespaceCatalog.Entry("", "", 7L));
+        NamespaceCatalog.write(tempDirectory.getAbsolutePath(), entries);
+
+        String catalog = FileUtils.readFileToString(NamespaceCatalog.findCatalogFile(tempDirectory.getAbsolutePath()), StandardCharsets.UTF_8);
+        assertThat(catalog, is("another/namespace\t\t\t7\nsome/namespace\thttp://example.com/archive.zip\t1234\t42\n"));
+        Map<String, NamespaceCatalog.Entry> read = NamespaceCatalog.readEntries(tempDirectory.getAbsolutePath());
+        assertThat(read.keySet(), is(entries.keySet()));
+        assertThat(read.get("some/namespace").getProvenanceLogLength(), is(42L));
+        assertThat(NamespaceCatalog.read(tempDirectory.getAbsolutePath()), is(Collections.singletonMap("some/namespace", "1234")));
+    }
+
+    @Test
+    public void missingCatalogIsStale() throws IOException {
+        assertTrue(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+    }
+
+    @Test
+    public void newProvenanceLogMakesCatalogStale() throws IOException {
+        NamespaceCatalog.write(tempDirectory.getAbsolutePath(), new TreeMap<>());
+        assertFalse(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+
+        FileUtils.writeStringToFile(ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath()),
+                "some/namespace\thttp://example.com/archive.zip\t1234\t1970-01-01T00:00:00Z",
+                StandardCharsets.UTF_8);
+        assertTrue(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+    }
+
+    @Test
+    public void appendToProvenanceLogMakesCatalogStale() throws IOException {
+        File provenanceLog = ProvenanceLog.findProvenanceLogFile("some/namespace", tempDirectory.getAbsolutePath());
+        FileUtils.writeStringToFile(provenanceLog, "some/namespace\thttp://example.com/archive.zip\t1234\t1970-01-01T00:00:00Z", StandardCharsets.UTF_8);
+        Map<String, NamespaceCatalog.Entry> entries = new TreeMap<>();
+        entries.put("some/namespace", new NamespaceCatalog.Entry("", "", provenanceLog.length()));
+        NamespaceCatalog.write(tempDirectory.getAbsolutePath(), entries);
+        assertFalse(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+
+        // appended within the same file system time tick as the catalog was written
+        long lastModified = provenanceLog.lastModified();
+        FileUtils.writeStringToFile(provenanceLog, "\nsome/namespace\thttp://example.com/archive.zip\t5678\t1970-01-01T00:00:00Z", StandardCharsets.UTF_8, true);
+        provenanceLog.setLastModified(lastModified);
+        assertTrue(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+    }
+
+    @Test
+    public void entryOfProvenanceLogWithArchiveHash() throws DatasetRegistryException, URISyntaxException {
+        File provenanceLog = new File(getClass().getResource("/test-cache/globalbioticinteractions/template-dataset/access.tsv").toURI());
+
+        NamespaceCatalog.Entry entry = NamespaceCatalog.entryOf(provenanceLog);
+
+        assertThat(entry.getArchiveURI(), is("https://github.com/globalbioticinteractions/template-dataset/archive/8abd2ba18457288f33527193299504015fae6def.zip"));
+        // resources cached after the archive have other hashes
+        assertThat(entry.getArchiveSha256(), is("6bfc17b8717e6e8e478552f12404bc8887d691a155ffd9cd9bfc80cb6747c5d2"));
+        assertThat(entry.getProvenanceLogLength(), is(provenanceLog.length()));
+    }
+
+    @Test
+    public void updateOnAppendToProvenanceLog() throws IOException {
+        NamespaceCatalog.write(tempDirectory.getAbsolutePath(), new TreeMap<>());
+
+        ContentProvenance archive = new ContentProvenance("some/namespace",
+                URI.create("http://example.com/archive.zip"),
+                URI.create("cached:archive.zip"), "1234",
+                "1970-01-01T00:00:00Z");
+        ProvenanceLog.appendProvenanceLog(tempDirectory, archive);
+
+        assertTrue(NamespaceCatalog.read(tempDirectory.getAbsolutePath()).isEmpty());
+
+        ContentProvenance config = new ContentProvenance("some/namespace",
+                URI.create("http://example.com/archive.zip"),
+                URI.create("cached:globi.json"), "",
+                "1970-01-01T00:00:00Z");
+        config.setType(CacheUtil.MIME_TYPE_GLOBI);
+        ProvenanceLog.appendProvenanceLog(tempDirectory, config);
+
+        assertThat(NamespaceCatalog.read(tempDirectory.getAbsolutePath()).get("some/namespace"), is("1234"));
+
+        ContentProvenance resource = new ContentProvenance("some/namespace",
+                URI.create("http://example.com/other.tsv"),
+                URI.create("cached:other.tsv"), "5678",
+                "1970-01-01T00:00:00Z");
+        ProvenanceLog.appendProvenanceLog(tempDirectory, resource);
+
+        assertThat(NamespaceCatalog.read(tempDirectory.getAbsolutePath()).get("some/namespace"), is("1234"));
+
+        ContentProvenance updatedArchive = new ContentProvenance("some/namespace",
+                URI.create("http://example.com/archive.zip"),
+                URI.create("cached:archive.zip"), "9012",
+                "1970-01-01T00:00:00Z");
+        ProvenanceLog.appendProvenanceLog(tempDirectory, updatedArchive);
+
+        assertThat(NamespaceCatalog.read(tempDirectory.getAbsolutePath()).get("some/namespace"), is("9012"));
+        assertFalse(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+    }
+
+    @Test
+    public void ignoreUnknownNamespaceWithoutDatasetConfig() throws IOException {
+        NamespaceCatalog.write(tempDirectory.getAbsolutePath(), new TreeMap<>());
+
+        ContentProvenance archive = new ContentProvenance("some/namespace",
+                URI.create("http://example.com/archive.zip"),
+                URI.create("cached:archive.zip"), "1234",
+                "1970-01-01T00:00:00Z");
+        ProvenanceLog.appendProvenanceLog(tempDirectory, archive);
+
+        assertTrue(NamespaceCatalog.read(tempDirectory.getAbsolutePath()).isEmpty());
+        assertFalse(NamespaceCatalog.isStale(tempDirectory.getAbsolutePath()));
+    }
+
+}
@@ -6,6 +6,7 @@ import org.eol.globi.util.ResourceServiceLocal;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.cache.CacheLocalReadonly;
 import org.globalbioticinteractions.cache.CacheUtil;
+import org.globalbioticinteractions.cache.NamespaceCatalog;
 import org.junit.Test;
 
 import java.io.File;
@@ -20,6 +21,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
@@ -47,6 +49,31 @@ public class DatasetRegistryLocalTest {
                 hasItem("globalbioticinteractions/template-dataset"));
     }
 
+    @Test
+    public void findNamespacesFromCatalog() throws DatasetRegistryException, URISyntaxException, IOException {
+        Path testCacheDir = Files.createTempDirectory(Paths.get("target/"), "test");
+        File localDatasetDir = new File(getClass().getResource("/test-dataset-local/globi.json").toURI()).getParentFile();
+        createLocalCacheDir(testCacheDir, localDatasetDir);
+
+        String cacheDir = testCacheDir.toFile().getAbsolutePath();
+        DatasetRegistry registry = new DatasetRegistryLocal(cacheDir,
+                dataset -> CacheUtil.cacheFor(
+                        dataset.getNamespace(),
+                        cacheDir,
+                        new ResourceServiceLocalAndRemote(inStream -> inStream), new ResourceServiceLocal(inStream -> inStream)), new ResourceServiceLocal(inStream -> inStream));
+
+        assertThat(registry.findNamespaces(), contains("local"));
+
+        // archive of local dataset is its directory, so no archive hash is known
+        assertThat(NamespaceCatalog.read(cacheDir).get("local"), is(""));
+
+        Map<String, NamespaceCatalog.Entry> catalog = NamespaceCatalog.readEntries(cacheDir);
+        catalog.put("cataloged", new NamespaceCatalog.Entry("https://example.org/cataloged.zip", "", 0L));
+        NamespaceCatalog.write(cacheDir, catalog);
+
+        assertThat(registry.findNamespaces(), contains("cataloged", "local"));
+    }
+
     @Test
     public void dataset() throws DatasetRegistryException, URISyntaxException {
         Dataset actual = createDatasetRegistry().datasetFor("globalbioticinteractions/template-dataset");
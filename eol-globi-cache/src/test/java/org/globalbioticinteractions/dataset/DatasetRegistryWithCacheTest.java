@@ -59,7 +59,7 @@ public class DatasetRegistryWithCacheTest {
         Dataset dataset = Mockito.mock(Dataset.class);
         when(dataset.getNamespace()).thenReturn("some/namespace");
         when(dataset.getArchiveURI()).thenReturn(getClass().getResource("archive.zip").toURI());
-        Cache cache = CacheUtil.cacheFor("some/namespace", cachePath, new ResourceServiceLocalAndRemote(inStream -> inStream), new ResourceServiceLocal(inStream -> inStream));
+        Cache cache = CacheUtil.cacheFor("some/namespace", cachePath, new ResourceServiceLocalAndRemote(inStream -> inStream, CacheUtil.findCacheDirForNamespace(cachePath, "some/namespace")), new ResourceServiceLocal(inStream -> inStream));
         return new DatasetWithCache(dataset, cache);
     }
 }
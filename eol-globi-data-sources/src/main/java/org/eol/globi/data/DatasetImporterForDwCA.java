@@ -146,6 +146,39 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     }};
 
 
+    // keywords that must be present in occurrence remarks for the remarks parsers to find an interaction
+    private static final KeywordMatcher REMARKS_KEYWORDS = new KeywordMatcher(
+            "found in", "pellet",
+            "cat kill", "dog kill", "attack",
+            "window strike", "window kill",
+            "hit by car",
+            "hit by vehicle", "hbv", "road kill", "dead on road",
+            "euthanized",
+            "high voltage", "hvt"
+    );
+    private static final long OWL_PELLET_KEYWORDS = REMARKS_KEYWORDS.maskFor("found in", "pellet");
+    private static final long CAT_KEYWORDS = REMARKS_KEYWORDS.maskFor("cat kill");
+    private static final long DOG_KEYWORDS = REMARKS_KEYWORDS.maskFor("dog kill");
+    private static final long ATTACK_KEYWORDS = REMARKS_KEYWORDS.maskFor("attack");
+    private static final long WINDOW_KEYWORDS = REMARKS_KEYWORDS.maskFor("window strike", "window kill");
+    private static final long CAR_KEYWORDS = REMARKS_KEYWORDS.maskFor("hit by car");
+    private static final long VEHICLE_KEYWORDS = REMARKS_KEYWORDS.maskFor("hit by vehicle", "hbv", "road kill", "dead on road");
+    private static final long EUTHANIZED_KEYWORDS = REMARKS_KEYWORDS.maskFor("euthanized");
+    private static final long HIGH_VOLTAGE_KEYWORDS = REMARKS_KEYWORDS.maskFor("high voltage", "hvt");
+    private static final long KILLED_BY_KEYWORDS = CAT_KEYWORDS | DOG_KEYWORDS | ATTACK_KEYWORDS
+            | WINDOW_KEYWORDS | CAR_KEYWORDS | VEHICLE_KEYWORDS | EUTHANIZED_KEYWORDS | HIGH_VOLTAGE_KEYWORDS;
+
+    private static final RemarksParser ATTACK_REMARKS_PARSER = new AttackRemarksParser();
+
+    private static final Pattern OWL_PELLET_REMARKS = Pattern.compile("^(found in)(.*)(pellet).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern KILLED_BY_DOG = Pattern.compile(".*(dog kill).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern KILLED_BY_HIGH_VOLTAGE = Pattern.compile(".*(high voltage|hvt|high voltage trauma).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HIT_BY_VEHICLE = Pattern.compile("(hit by vehicle|hbv|road kill|dead on road).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HIT_BY_CAR = Pattern.compile(".*(hit by car).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern KILLED_BY_WINDOW = Pattern.compile(".*(window strike|window kill).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern KILLED_BY_CAT = Pattern.compile(".*(cat kill).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EUTHANIZED = Pattern.compile(".*(euthanized).*", Pattern.CASE_INSENSITIVE);
+
     public DatasetImporterForDwCA(ParserFactory parserFactory, NodeFactory nodeFactory) {
         super(parserFactory, nodeFactory);
     }
@@ -161,15 +194,9 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     }
 
     public static Map<String, String> parseKilledByDog(String occurrenceRemarks) {
-        final Pattern KILLED_BY_WINDOW
-                = Pattern.compile(
-                ".*(dog kill).*",
-                Pattern.CASE_INSENSITIVE
-        );
-
         Map<String, String> properties = new TreeMap<>();
 
-        if (KILLED_BY_WINDOW.matcher(occurrenceRemarks).matches()) {
+        if (KILLED_BY_DOG.matcher(occurrenceRemarks).matches()) {
             properties.put(TaxonUtil.TARGET_TAXON_NAME, "dog");
 
             properties.put(INTERACTION_TYPE_NAME, InteractType.KILLED_BY.getLabel());
@@ -188,15 +215,9 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     }
 
     public static Map<String, String> parseHighVoltageRemarks(String occurrenceRemarks) {
-        final Pattern EUTHANIZED_PATTERN
-                = Pattern.compile(
-                ".*(high voltage|hvt|high voltage trauma).*",
-                Pattern.CASE_INSENSITIVE
-        );
-
         Map<String, String> properties = new TreeMap<>();
 
-        if (EUTHANIZED_PATTERN.matcher(occurrenceRemarks).matches()) {
+        if (KILLED_BY_HIGH_VOLTAGE.matcher(occurrenceRemarks).matches()) {
             properties.put(TaxonUtil.TARGET_TAXON_NAME, "high voltage");
 
             properties.put(INTERACTION_TYPE_NAME, InteractType.KILLED_BY.getLabel());
@@ -207,15 +228,9 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     }
 
     public static Map<String, String> parseHitByVehicleRemarks(String occurrenceRemarks) {
-        final Pattern HIT_BY_VEHICLE_NOTATION
-                = Pattern.compile(
-                "(hit by vehicle|hbv|road kill|dead on road).*",
-                Pattern.CASE_INSENSITIVE
-        );
-
         Map<String, String> properties = new TreeMap<>();
 
-        if (HIT_BY_VEHICLE_NOTATION.matcher(occurrenceRemarks).matches()) {
+        if (HIT_BY_VEHICLE.matcher(occurrenceRemarks).matches()) {
             properties.put(TaxonUtil.TARGET_TAXON_NAME, "vehicle");
 
             properties.put(INTERACTION_TYPE_NAME, InteractType.KILLED_BY.getLabel());
@@ -412,63 +427,61 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
 
     static void addCandidatesFromRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) throws IOException {
         if (StringUtils.isNotBlank(occurrenceRemarks)) {
-            addUSNMStyleHostOccurrenceRemarks(interactionCandidates, occurrenceRemarks);
-            addRoyalSaskatchewanMuseumOwlPelletCollectionStyleRemarks(interactionCandidates, occurrenceRemarks);
-            String[] remarks = StringUtils.split(occurrenceRemarks, ";,.\":\'");
-            for (String remark : remarks) {
-                addKilledByPetsRemarks(interactionCandidates, remark);
-                addKilledByHumansRemarks(interactionCandidates, remark);
+            if (StringUtils.contains(occurrenceRemarks, '{')) {
+                addUSNMStyleHostOccurrenceRemarks(interactionCandidates, occurrenceRemarks);
+            }
+            long keywordsFound = REMARKS_KEYWORDS.find(occurrenceRemarks);
+            if ((keywordsFound & OWL_PELLET_KEYWORDS) == OWL_PELLET_KEYWORDS) {
+                addRoyalSaskatchewanMuseumOwlPelletCollectionStyleRemarks(interactionCandidates, occurrenceRemarks);
+            }
+            if ((keywordsFound & KILLED_BY_KEYWORDS) != 0) {
+                String[] remarks = StringUtils.split(occurrenceRemarks, ";,.\":\'");
+                for (String remark : remarks) {
+                    long keywordsInRemark = REMARKS_KEYWORDS.find(remark);
+                    if ((keywordsInRemark & KILLED_BY_KEYWORDS) != 0) {
+                        addKilledByPetsRemarks(interactionCandidates, remark, keywordsInRemark);
+                        addKilledByHumansRemarks(interactionCandidates, remark, keywordsInRemark);
+                    }
+                }
             }
         }
     }
 
-    private static void addKilledByHumansRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) {
-        Map<String, String> properties = parseKilledByWindow(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+    private static void addKilledByHumansRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks, long keywordsFound) {
+        if ((keywordsFound & WINDOW_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseKilledByWindow(occurrenceRemarks));
         }
-        properties = parseHitByCarRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if ((keywordsFound & CAR_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseHitByCarRemarks(occurrenceRemarks));
         }
-        properties = parseHitByVehicleRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if ((keywordsFound & VEHICLE_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseHitByVehicleRemarks(occurrenceRemarks));
         }
-        properties = parseEuthanizedRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if ((keywordsFound & EUTHANIZED_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseEuthanizedRemarks(occurrenceRemarks));
         }
-        properties = parseHighVoltageRemarks(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if ((keywordsFound & HIGH_VOLTAGE_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseHighVoltageRemarks(occurrenceRemarks));
         }
-
-
     }
 
-    private static void addKilledByPetsRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks) {
-        Map<String, String> properties = parseKilledByCat(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+    private static void addKilledByPetsRemarks(List<Map<String, String>> interactionCandidates, String occurrenceRemarks, long keywordsFound) {
+        if ((keywordsFound & CAT_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseKilledByCat(occurrenceRemarks));
         }
-        properties = parseKilledByDog(occurrenceRemarks);
-        if (MapUtils.isNotEmpty(properties)) {
-            appendResourceType(properties, DwcTerm.occurrenceRemarks);
-            interactionCandidates.add(properties);
+        if ((keywordsFound & DOG_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, parseKilledByDog(occurrenceRemarks));
+        }
+        if ((keywordsFound & ATTACK_KEYWORDS) != 0) {
+            addRemarksCandidate(interactionCandidates, ATTACK_REMARKS_PARSER.parse(occurrenceRemarks));
         }
-        properties = new AttackRemarksParser().parse(occurrenceRemarks);
+    }
+
+    private static void addRemarksCandidate(List<Map<String, String>> interactionCandidates, Map<String, String> properties) {
         if (MapUtils.isNotEmpty(properties)) {
             appendResourceType(properties, DwcTerm.occurrenceRemarks);
             interactionCandidates.add(properties);
         }
-
     }
 
     private boolean isDependency() {
@@ -486,7 +499,7 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     static Map<String, String> parseRoyalSaskatchewanMuseumOwlPelletCollectionStyleRemarks(String occurrenceRemarks) {
         Map<String, String> properties = Collections.emptyMap();
 
-        Matcher matcher = Pattern.compile("^(found in)(.*)(pellet).*", Pattern.CASE_INSENSITIVE).matcher(StringUtils.trim(occurrenceRemarks));
+        Matcher matcher = OWL_PELLET_REMARKS.matcher(StringUtils.trim(occurrenceRemarks));
         if (matcher.matches()) {
             properties = new TreeMap<String, String>() {{
                 put(TARGET_TAXON_NAME, StringUtils.trim(matcher.group(2)));
@@ -1245,15 +1258,9 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     private static class CarRemarksParser implements RemarksParser {
         @Override
         public Map<String, String> parse(String occurrenceRemarks) {
-            final Pattern HIT_BY_CAR_NOTATION
-                    = Pattern.compile(
-                    ".*(hit by car).*",
-                    Pattern.CASE_INSENSITIVE
-            );
-
             Map<String, String> properties = new TreeMap<>();
 
-            if (HIT_BY_CAR_NOTATION.matcher(occurrenceRemarks).matches()) {
+            if (HIT_BY_CAR.matcher(occurrenceRemarks).matches()) {
                 properties.put(TaxonUtil.TARGET_TAXON_NAME, "car");
                 properties.put(INTERACTION_TYPE_NAME, InteractType.KILLED_BY.getLabel());
                 properties.put(INTERACTION_TYPE_ID, InteractType.KILLED_BY.getIRI());
@@ -1265,12 +1272,6 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
     private static class WindowRemarksParser implements RemarksParser {
         @Override
         public Map<String, String> parse(String remarks) {
-            final Pattern KILLED_BY_WINDOW
-                    = Pattern.compile(
-                    ".*(window strike|window kill).*",
-                    Pattern.CASE_INSENSITIVE
-            );
-
             Map<String, String> properties = new TreeMap<>();
 
             if (KILLED_BY_WINDOW.matcher(remarks).matches()) {
@@ -1289,12 +1290,6 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
 
         @Override
         public Map<String, String> parse(String remarks) {
-            final Pattern KILLED_BY_CAT
-                    = Pattern.compile(
-                    ".*(cat kill).*",
-                    Pattern.CASE_INSENSITIVE
-            );
-
             Map<String, String> properties = new TreeMap<>();
 
             if (KILLED_BY_CAT.matcher(remarks).matches()) {
@@ -1318,15 +1313,9 @@ public class DatasetImporterForDwCA extends DatasetImporterWithListener {
 
         @Override
         public Map<String, String> parse(String remarks) {
-            final Pattern EUTHANIZED_PATTERN
-                    = Pattern.compile(
-                    ".*(euthanized).*",
-                    Pattern.CASE_INSENSITIVE
-            );
-
             Map<String, String> properties = new TreeMap<>();
 
-            if (EUTHANIZED_PATTERN.matcher(occurrenceRemarks).matches()) {
+            if (EUTHANIZED.matcher(occurrenceRemarks).matches()) {
                 properties.put(TaxonUtil.TARGET_TAXON_NAME, "euthanasia");
 
                 properties.put(INTERACTION_TYPE_NAME, InteractType.KILLED_BY.getLabel());
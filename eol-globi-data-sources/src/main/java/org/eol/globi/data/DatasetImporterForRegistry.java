@@ -10,6 +10,7 @@ import org.globalbioticinteractions.dataset.DatasetFactory;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import org.globalbioticinteractions.dataset.DatasetRegistryException;
 import org.eol.globi.service.StudyImporterFactoryImpl;
+import org.eol.globi.util.DatasetImportUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -86,7 +87,7 @@ public class DatasetImporterForRegistry extends NodeBasedImporter {
             if (getGeoNamesService() != null) {
                 importer.setGeoNamesService(getGeoNamesService());
             }
-            importer.importStudy();
+            DatasetImportUtil.importStudy(importer);
         }
     }
 
@@ -32,6 +32,16 @@ public abstract class DatasetImporterWithListener extends NodeBasedImporter {
         this.interactionListener = interactionListener;
     }
 
+    /**
+     * imports the interactions held back by the listener, see {@link org.eol.globi.util.DatasetImportUtil#importStudy}
+     */
+
+    public void flushInteractions() throws StudyImporterException {
+        if (interactionListener != null) {
+            interactionListener.flush();
+        }
+    }
+
     @Override
     public void setLogger(ImportLogger importLogger) {
         super.setLogger(importLogger);
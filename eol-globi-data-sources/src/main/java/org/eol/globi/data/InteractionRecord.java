@@ -0,0 +1,55 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.Study;
+
+/**
+ * Interaction of a source and target specimen, with resolved interaction type, taxa and terms,
+ * to be created by {@link NodeFactory#createInteractions(java.util.List)}.
+ * <p>
+ * Study and (optional) location are created by the node factory, if they do not exist yet.
+ */
+
+public class InteractionRecord {
+
+    private final Study study;
+    private final SpecimenRecord source;
+    private final SpecimenRecord target;
+    private final InteractType interactType;
+    private final Location location;
+
+    public InteractionRecord(Study study, SpecimenRecord source, SpecimenRecord target, InteractType interactType, Location location) {
+        this.study = study;
+        this.source = source;
+        this.target = target;
+        this.interactType = interactType;
+        this.location = location;
+    }
+
+    public Study getStudy() {
+        return study;
+    }
+
+    public SpecimenRecord getSource() {
+        return source;
+    }
+
+    public SpecimenRecord getTarget() {
+        return target;
+    }
+
+    public InteractType getInteractType() {
+        return interactType;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + source.getTaxon().getName() + "] [" + interactType + "] [" + target.getTaxon().getName() + "] in study [" + study.getTitle() + "]";
+    }
+
+}
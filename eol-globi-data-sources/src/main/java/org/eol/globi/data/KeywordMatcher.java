@@ -0,0 +1,147 @@
+package org.eol.globi.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds which of up to 64 (US-ASCII) keywords occur in a text in a single pass, ignoring US-ASCII case
+ * (like {@link java.util.regex.Pattern#CASE_INSENSITIVE}).
+ * <p>
+ * Keywords are compiled into an Aho-Corasick automaton, so the cost of a scan does not depend on the number of keywords.
+ * Matches are reported as a bit mask, with bit i set if the i-th keyword was found.
+ */
+
+public class KeywordMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] keywords;
+    private final int[] alphabet = new int[128];
+    private final int[][] transitions;
+    private final long[] matches;
+
+    public KeywordMatcher(String... keywords) {
+        if (keywords.length > Long.SIZE) {
+            throw new IllegalArgumentException("cannot match more than [" + Long.SIZE + "] keywords, but got [" + keywords.length + "]");
+        }
+        this.keywords = Arrays.copyOf(keywords, keywords.length);
+
+        Arrays.fill(alphabet, -1);
+        int alphabetSize = 0;
+        for (String keyword : keywords) {
+            for (char c : keyword.toCharArray()) {
+                if (c >= alphabet.length) {
+                    throw new IllegalArgumentException("keyword [" + keyword + "] contains non US-ASCII characters");
+                }
+                char lowerCase = toLowerCase(c);
+                if (alphabet[lowerCase] == -1) {
+                    alphabet[lowerCase] = alphabetSize++;
+                }
+            }
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            alphabet[c] = alphabet[toLowerCase(c)];
+        }
+
+        List<int[]> trie = new ArrayList<>();
+        List<Long> outputs = new ArrayList<>();
+        trie.add(newState(alphabetSize));
+        outputs.add(0L);
+        for (int i = 0; i < keywords.length; i++) {
+            int state = ROOT;
+            for (char c : keywords[i].toCharArray()) {
+                int symbol = alphabet[c];
+                if (trie.get(state)[symbol] == -1) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState(alphabetSize));
+                    outputs.add(0L);
+                }
+                state = trie.get(state)[symbol];
+            }
+            outputs.set(state, outputs.get(state) | (1L << i));
+        }
+
+        this.transitions = trie.toArray(new int[trie.size()][]);
+        this.matches = new long[outputs.size()];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = outputs.get(i);
+        }
+        compileFailureTransitions(alphabetSize);
+    }
+
+    // turns the trie into a deterministic automaton by following failure links breadth-first
+    private void compileFailureTransitions(int alphabetSize) {
+        int[] failure = new int[transitions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int next = transitions[ROOT][symbol];
+            if (next == -1) {
+                transitions[ROOT][symbol] = ROOT;
+            } else {
+                failure[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matches[state] |= matches[failure[state]];
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = transitions[state][symbol];
+                if (next == -1) {
+                    transitions[state][symbol] = transitions[failure[state]][symbol];
+                } else {
+                    failure[next] = transitions[failure[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bit mask of keywords found in text, or 0 if none were found
+     */
+
+    public long find(CharSequence text) {
+        long found = 0L;
+        if (text != null) {
+            int state = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                int symbol = c < alphabet.length ? alphabet[c] : -1;
+                state = symbol == -1 ? ROOT : transitions[state][symbol];
+                found |= matches[state];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return bit mask for provided keywords, for use with {@link #find(CharSequence)}
+     */
+
+    public long maskFor(String... keywordsOfInterest) {
+        long mask = 0L;
+        for (String keyword : keywordsOfInterest) {
+            int index = Arrays.asList(keywords).indexOf(keyword);
+            if (index == -1) {
+                throw new IllegalArgumentException("unknown keyword [" + keyword + "]");
+            }
+            mask |= 1L << index;
+        }
+        return mask;
+    }
+
+    private static int[] newState(int alphabetSize) {
+        int[] state = new int[alphabetSize];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+}
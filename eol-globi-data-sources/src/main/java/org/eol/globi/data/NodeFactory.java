@@ -55,4 +55,10 @@ public interface NodeFactory extends AutoCloseable {
     Dataset getOrCreateDataset(Dataset dataset) throws NodeFactoryException;
 
     Interaction createInteraction(Study study) throws NodeFactoryException;
+
+    /**
+     * Creates the specimens, their original taxa, and the interactions of a block of interaction records.
+     */
+
+    void createInteractions(List<InteractionRecord> interactions) throws NodeFactoryException;
 }
@@ -1,5 +1,13 @@
 package org.eol.globi.data;
 
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+
+import java.util.List;
+import java.util.Map;
+
 public abstract class NodeFactoryAbstract implements NodeFactory {
 
     @Override
@@ -7,5 +15,47 @@ public abstract class NodeFactoryAbstract implements NodeFactory {
 
     }
 
-}
+    /**
+     * Creates interactions one at a time, using the individual study, specimen and location methods.
+     */
+
+    @Override
+    public void createInteractions(List<InteractionRecord> interactions) throws NodeFactoryException {
+        for (InteractionRecord interaction : interactions) {
+            try {
+                createInteraction(interaction);
+            } catch (NodeFactoryException e) {
+                throw new NodeFactoryException("failed to create interaction " + interaction, e);
+            }
+        }
+    }
 
+    protected void createInteraction(InteractionRecord interaction) throws NodeFactoryException {
+        Study study = getOrCreateStudy(interaction.getStudy());
+        Specimen source = createSpecimen(study, interaction.getSource());
+        Specimen target = createSpecimen(study, interaction.getTarget());
+        Location location = interaction.getLocation() == null
+                ? null
+                : getOrCreateLocation(interaction.getLocation());
+        source.interactsWith(target, interaction.getInteractType(), location);
+    }
+
+    private Specimen createSpecimen(Study study, SpecimenRecord specimenRecord) throws NodeFactoryException {
+        Specimen specimen = createSpecimen(study, specimenRecord.getTaxon(), specimenRecord.getStudyRelTypes());
+        specimen.setBasisOfRecord(specimenRecord.getBasisOfRecord());
+        if (specimenRecord.getEventDate() != null) {
+            setUnixEpochProperty(specimen, specimenRecord.getEventDate());
+        }
+        specimen.setBodyPart(specimenRecord.getBodyPart());
+        specimen.setLifeStage(specimenRecord.getLifeStage());
+        specimen.setSex(specimenRecord.getSex());
+        if (StringUtils.isNotBlank(specimenRecord.getExternalId())) {
+            specimen.setExternalId(specimenRecord.getExternalId());
+        }
+        for (Map.Entry<String, String> property : specimenRecord.getProperties().entrySet()) {
+            specimen.setProperty(property.getKey(), property.getValue());
+        }
+        return specimen;
+    }
+
+}
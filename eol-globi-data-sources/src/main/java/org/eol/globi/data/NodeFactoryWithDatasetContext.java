@@ -13,6 +13,7 @@ import org.eol.globi.domain.Term;
 import org.eol.globi.service.TermLookupService;
 import org.globalbioticinteractions.dataset.Dataset;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -140,6 +141,20 @@ public class NodeFactoryWithDatasetContext extends NodeFactoryAbstract {
         return factory.createInteraction(study);
     }
 
+    @Override
+    public void createInteractions(List<InteractionRecord> interactions) throws NodeFactoryException {
+        List<InteractionRecord> interactionsInDataset = new ArrayList<>(interactions.size());
+        for (InteractionRecord interaction : interactions) {
+            interactionsInDataset.add(new InteractionRecord(
+                    studyForDataset(interaction.getStudy()),
+                    interaction.getSource(),
+                    interaction.getTarget(),
+                    interaction.getInteractType(),
+                    interaction.getLocation()));
+        }
+        factory.createInteractions(interactionsInDataset);
+    }
+
     public Dataset getDataset() {
         return dataset;
     }
@@ -0,0 +1,98 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.Term;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Source or target specimen of an {@link InteractionRecord}, with its (original) taxon,
+ * the relationship types to its study, and optional terms, event date and properties.
+ */
+
+public class SpecimenRecord {
+
+    private final Taxon taxon;
+    private final RelTypes[] studyRelTypes;
+
+    private Term basisOfRecord;
+    private Term bodyPart;
+    private Term lifeStage;
+    private Term sex;
+    private Date eventDate;
+    private String externalId;
+    private final Map<String, String> properties = new TreeMap<>();
+
+    public SpecimenRecord(Taxon taxon, RelTypes... studyRelTypes) {
+        this.taxon = taxon;
+        this.studyRelTypes = studyRelTypes;
+    }
+
+    public Taxon getTaxon() {
+        return taxon;
+    }
+
+    public RelTypes[] getStudyRelTypes() {
+        return studyRelTypes;
+    }
+
+    public Term getBasisOfRecord() {
+        return basisOfRecord;
+    }
+
+    public void setBasisOfRecord(Term basisOfRecord) {
+        this.basisOfRecord = basisOfRecord;
+    }
+
+    public Term getBodyPart() {
+        return bodyPart;
+    }
+
+    public void setBodyPart(Term bodyPart) {
+        this.bodyPart = bodyPart;
+    }
+
+    public Term getLifeStage() {
+        return lifeStage;
+    }
+
+    public void setLifeStage(Term lifeStage) {
+        this.lifeStage = lifeStage;
+    }
+
+    public Term getSex() {
+        return sex;
+    }
+
+    public void setSex(Term sex) {
+        this.sex = sex;
+    }
+
+    public Date getEventDate() {
+        return eventDate;
+    }
+
+    public void setEventDate(Date eventDate) {
+        this.eventDate = eventDate;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public void setProperty(String name, String value) {
+        properties.put(name, value);
+    }
+
+}
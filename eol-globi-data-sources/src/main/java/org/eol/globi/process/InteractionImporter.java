@@ -3,17 +3,16 @@ package org.eol.globi.process;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.DatasetImporterForMetaTable;
 import org.eol.globi.data.ImportLogger;
+import org.eol.globi.data.InteractionRecord;
 import org.eol.globi.data.LocationUtil;
 import org.eol.globi.data.NodeFactory;
-import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.SpecimenRecord;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.Location;
 import org.eol.globi.domain.LocationImpl;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
-import org.eol.globi.domain.Specimen;
-import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.domain.TermImpl;
@@ -27,7 +26,9 @@ import org.globalbioticinteractions.doi.MalformedDOIException;
 import org.joda.time.DateTime;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import static org.eol.globi.data.DatasetImporterForTSV.ARGUMENT_TYPE_ID;
@@ -84,11 +85,15 @@ import static org.eol.globi.service.TaxonUtil.TARGET_TAXON_RANK;
 
 public class InteractionImporter implements InteractionListener {
 
+    // interactions are handed to the node factory in blocks of this size, see NodeFactory#createInteractions
+    static final int INTERACTIONS_PER_BLOCK = 1000;
+
     private static final String[] LOCALITY_ID_TERMS = {LOCALITY_ID, DwcTerm.locationID.normQName};
     private static final String[] LOCALITY_NAME_TERMS = {LOCALITY_NAME, DwcTerm.locality.normQName, DwcTerm.verbatimLocality.normQName};
     private final ImportLogger logger;
     private final NodeFactory nodeFactory;
     private final GeoNamesService geoNamesService;
+    private final List<InteractionRecord> pending = new ArrayList<>();
 
 
     public InteractionImporter(NodeFactory factory, ImportLogger logger, GeoNamesService geonamesService) {
@@ -106,15 +111,28 @@ public class InteractionImporter implements InteractionListener {
     @Override
     public void on(Map<String, String> interaction) throws StudyImporterException {
         importInteraction(interaction);
+        if (pending.size() >= INTERACTIONS_PER_BLOCK) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws StudyImporterException {
+        if (!pending.isEmpty()) {
+            try {
+                nodeFactory.createInteractions(pending);
+            } finally {
+                pending.clear();
+            }
+        }
     }
 
 
     private void importInteraction(Map<String, String> interaction) throws StudyImporterException {
-        Study study = nodeFactory.getOrCreateStudy(studyOf(interaction));
+        StudyImpl study = studyOf(interaction);
 
-        Specimen source = createSpecimen(
+        SpecimenRecord source = specimenOf(
                 interaction,
-                study,
                 SOURCE_TAXON_NAME,
                 SOURCE_TAXON_ID,
                 SOURCE_BODY_PART_NAME,
@@ -135,9 +153,8 @@ public class InteractionImporter implements InteractionListener {
         setPropertyIfAvailable(interaction, source, SOURCE_COLLECTION_ID, COLLECTION_ID);
         setPropertyIfAvailable(interaction, source, SOURCE_INSTITUTION_CODE, INSTITUTION_CODE);
 
-        Specimen target = createSpecimen(
+        SpecimenRecord target = specimenOf(
                 interaction,
-                study,
                 TARGET_TAXON_NAME,
                 TARGET_TAXON_ID,
                 TARGET_BODY_PART_NAME,
@@ -162,37 +179,36 @@ public class InteractionImporter implements InteractionListener {
         String interactionTypeId = interaction.get(INTERACTION_TYPE_ID);
         InteractType type = InteractType.typeOf(interactionTypeId);
 
-        source.interactsWith(target, type, getOrCreateLocation(interaction));
+        pending.add(new InteractionRecord(study, source, target, type, locationOf(interaction)));
     }
 
-    private void setPropertyIfAvailable(Map<String, String> link, Specimen source, String key, String propertyKey) {
+    private void setPropertyIfAvailable(Map<String, String> link, SpecimenRecord source, String key, String propertyKey) {
         String value = link.get(key);
         if (StringUtils.isNotBlank(value)) {
             source.setProperty(propertyKey, value);
         }
     }
 
-    private void setExternalIdNotBlank(Map<String, String> link, String sourceOccurrenceId, Specimen source1) {
+    private void setExternalIdNotBlank(Map<String, String> link, String sourceOccurrenceId, SpecimenRecord source1) {
         String s = link.get(sourceOccurrenceId);
         if (StringUtils.isNotBlank(s)) {
             source1.setExternalId(s);
         }
     }
 
-    private Specimen createSpecimen(Map<String, String> link,
-                                    Study study,
-                                    String taxonNameLabel,
-                                    String taxonIdLabel,
-                                    String bodyPartName,
-                                    String bodyPartId,
-                                    String lifeStageName,
-                                    String lifeStageId,
-                                    String taxonPathLabel,
-                                    String taxonPathNamesLabel,
-                                    String sexLabel,
-                                    String sexId,
-                                    String taxonRankLabel,
-                                    String taxonPathIdsLabel) throws StudyImporterException {
+    private SpecimenRecord specimenOf(Map<String, String> link,
+                                      String taxonNameLabel,
+                                      String taxonIdLabel,
+                                      String bodyPartName,
+                                      String bodyPartId,
+                                      String lifeStageName,
+                                      String lifeStageId,
+                                      String taxonPathLabel,
+                                      String taxonPathNamesLabel,
+                                      String sexLabel,
+                                      String sexId,
+                                      String taxonRankLabel,
+                                      String taxonPathIdsLabel) {
         String argumentTypeId = link.get(ARGUMENT_TYPE_ID);
         RelTypes[] argumentType = refutes(argumentTypeId)
                 ? new RelTypes[]{RelTypes.REFUTES}
@@ -223,9 +239,9 @@ public class InteractionImporter implements InteractionListener {
             taxon.setPathNames(taxonPathNames);
         }
 
-        Specimen specimen = nodeFactory.createSpecimen(study, taxon, argumentType);
+        SpecimenRecord specimen = new SpecimenRecord(taxon, argumentType);
         setBasisOfRecordIfAvailable(link, specimen);
-        setDateTimeIfAvailable(link, specimen);
+        specimen.setEventDate(eventDateOf(link));
         setBodyPartIfAvailable(link, specimen, bodyPartName, bodyPartId);
         setLifeStageIfAvailable(link, specimen, lifeStageName, lifeStageId);
         setSexIfAvailable(link, specimen, sexLabel, sexId);
@@ -236,7 +252,7 @@ public class InteractionImporter implements InteractionListener {
         return StringUtils.equalsIgnoreCase(argumentTypeId, PropertyAndValueDictionary.REFUTES);
     }
 
-    private void setLifeStageIfAvailable(Map<String, String> link, Specimen specimen, String name, String id) {
+    private void setLifeStageIfAvailable(Map<String, String> link, SpecimenRecord specimen, String name, String id) {
         final String lifeStageName = link.get(name);
         final String lifeStageId = link.get(id);
         if (StringUtils.isNotBlank(lifeStageName) || StringUtils.isNotBlank(lifeStageId)) {
@@ -244,7 +260,7 @@ public class InteractionImporter implements InteractionListener {
         }
     }
 
-    private void setSexIfAvailable(Map<String, String> link, Specimen specimen, String name, String id) {
+    private void setSexIfAvailable(Map<String, String> link, SpecimenRecord specimen, String name, String id) {
         final String sexName = link.get(name);
         final String sexId = link.get(id);
         if (StringUtils.isNotBlank(sexName) || StringUtils.isNotBlank(sexId)) {
@@ -273,7 +289,8 @@ public class InteractionImporter implements InteractionListener {
         return study1;
     }
 
-    private void setDateTimeIfAvailable(Map<String, String> link, Specimen target) throws StudyImporterException {
+    private Date eventDateOf(Map<String, String> link) {
+        Date date = null;
         final String eventDate = link.get(DatasetImporterForMetaTable.EVENT_DATE);
         if (StringUtils.isNotBlank(eventDate)) {
             try {
@@ -287,17 +304,15 @@ public class InteractionImporter implements InteractionListener {
                     if (StringUtils.isNoneBlank(msg)) {
                         logWarningIfPossible(link, msg);
                     }
-                    nodeFactory.setUnixEpochProperty(target, dateTime.toDate());
+                    date = dateTime.toDate();
                 }
 
             } catch (IllegalArgumentException ex) {
                 logWarningIfPossible(link, "invalid date string [" + eventDate + "]");
-            } catch (NodeFactoryException e) {
-                throw new StudyImporterException("failed to set time for [" + eventDate + "]", e);
             }
 
         }
-
+        return date;
     }
 
 
@@ -312,7 +327,7 @@ public class InteractionImporter implements InteractionListener {
         return eventDateCorrected;
     }
 
-    private void setBasisOfRecordIfAvailable(Map<String, String> link, Specimen specimen) {
+    private void setBasisOfRecordIfAvailable(Map<String, String> link, SpecimenRecord specimen) {
         final String basisOfRecordName = link.get(BASIS_OF_RECORD_NAME);
         final String basisOfRecordId = link.get(BASIS_OF_RECORD_ID);
         if (StringUtils.isNotBlank(basisOfRecordName) || StringUtils.isNotBlank(basisOfRecordId)) {
@@ -320,7 +335,7 @@ public class InteractionImporter implements InteractionListener {
         }
     }
 
-    private void setBodyPartIfAvailable(Map<String, String> link, Specimen specimen, String name, String id) {
+    private void setBodyPartIfAvailable(Map<String, String> link, SpecimenRecord specimen, String name, String id) {
         final String bodyPartName = link.get(name);
         final String bodyPartId = link.get(id);
         if (StringUtils.isNotBlank(bodyPartName) || StringUtils.isNotBlank(bodyPartId)) {
@@ -328,7 +343,7 @@ public class InteractionImporter implements InteractionListener {
         }
     }
 
-    private Location getOrCreateLocation(Map<String, String> interaction) throws NodeFactoryException {
+    private Location locationOf(Map<String, String> interaction) {
         LatLng centroid = null;
         String[] latitudes = {DECIMAL_LATITUDE, DatasetImporterForMetaTable.LATITUDE};
         String latitude = getFirstValueForTerms(interaction, latitudes);
@@ -374,7 +389,7 @@ public class InteractionImporter implements InteractionListener {
                 location.setLocality(localityName);
             }
         }
-        return location == null ? null : nodeFactory.getOrCreateLocation(location);
+        return location;
     }
 
     private void logWarningIfPossible(Map<String, String> link, String message) {
@@ -6,4 +6,11 @@ import java.util.Map;
 
 public interface InteractionListener {
     void on(Map<String, String> interaction) throws StudyImporterException;
+
+    /**
+     * handles interactions held back by this listener, e.g., at the end of a dataset
+     */
+
+    default void flush() throws StudyImporterException {
+    }
 }
@@ -87,4 +87,17 @@ public class InteractionListenerImpl implements InteractionListener {
         }
     }
 
+    @Override
+    public void flush() throws StudyImporterException {
+        for (InteractionListener processor : processors) {
+            inbox.addAll(outbox);
+            outbox.clear();
+            for (Map<String, String> incomingInteractions : inbox) {
+                processor.on(incomingInteractions);
+            }
+            inbox.clear();
+            processor.flush();
+        }
+    }
+
 }
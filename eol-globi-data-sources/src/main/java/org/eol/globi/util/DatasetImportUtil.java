@@ -62,7 +62,32 @@ public class DatasetImportUtil {
             datasetImporter.setGeoNamesService(geoNamesService);
         }
 
-        datasetImporter.importStudy();
+        importStudy(datasetImporter);
+    }
+
+    /**
+     * Imports a study and then the interactions held back by the listener of the importer, if any.
+     * Held back interactions are also imported when the import fails partway through.
+     */
+
+    public static void importStudy(DatasetImporter datasetImporter) throws StudyImporterException {
+        try {
+            datasetImporter.importStudy();
+        } catch (StudyImporterException | RuntimeException ex) {
+            try {
+                flushInteractions(datasetImporter);
+            } catch (StudyImporterException | RuntimeException flushEx) {
+                ex.addSuppressed(flushEx);
+            }
+            throw ex;
+        }
+        flushInteractions(datasetImporter);
+    }
+
+    private static void flushInteractions(DatasetImporter datasetImporter) throws StudyImporterException {
+        if (datasetImporter instanceof DatasetImporterWithListener) {
+            ((DatasetImporterWithListener) datasetImporter).flushInteractions();
+        }
     }
 
     public static void resolveAndImportDatasets(List<Dataset> datasetDependencies,
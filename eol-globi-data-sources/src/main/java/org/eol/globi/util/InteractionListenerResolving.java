@@ -35,6 +35,11 @@ public class InteractionListenerResolving implements InteractionListener {
         }
     }
 
+    @Override
+    public void flush() throws StudyImporterException {
+        interactionListener.flush();
+    }
+
     public List<Map<String, String>> resolveOccurrenceIdsIfPossible(Map<String, String> interaction) {
         List<Map<String, String>> enrichedProperties = null;
 
@@ -0,0 +1,57 @@
+package org.eol.globi.data;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class KeywordMatcherTest {
+
+    @Test
+    public void findKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher("cat kill", "dog kill", "hbv");
+
+        assertThat(matcher.find("NRBV, Dog kill"), is(matcher.maskFor("dog kill")));
+        assertThat(matcher.find("cat kill and dog kill"), is(matcher.maskFor("cat kill", "dog kill")));
+        assertThat(matcher.find("HBV (hit by vehicle)"), is(matcher.maskFor("hbv")));
+    }
+
+    @Test
+    public void noKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher("cat kill", "dog kill");
+
+        assertThat(matcher.find("collected under log"), is(0L));
+        assertThat(matcher.find("cat kil"), is(0L));
+        assertThat(matcher.find(""), is(0L));
+        assertThat(matcher.find(null), is(0L));
+    }
+
+    @Test
+    public void overlappingKeywords() {
+        KeywordMatcher matcher = new KeywordMatcher("high voltage", "voltage", "age");
+
+        assertThat(matcher.find("high voltage trauma"), is(matcher.maskFor("high voltage", "voltage", "age")));
+        assertThat(matcher.find("hhigh voltag"), is(0L));
+    }
+
+    @Test
+    public void keywordAfterPartialMatch() {
+        KeywordMatcher matcher = new KeywordMatcher("window strike");
+
+        assertThat(matcher.find("window window strike"), is(matcher.maskFor("window strike")));
+    }
+
+    @Test
+    public void ignoreUSASCIICaseOnly() {
+        KeywordMatcher matcher = new KeywordMatcher("attack");
+
+        assertThat(matcher.find("\u00c4ttack ATTACKED by"), is(matcher.maskFor("attack")));
+        assertThat(matcher.find("att\u00e4ck"), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownKeyword() {
+        new KeywordMatcher("attack").maskFor("euthanized");
+    }
+
+}
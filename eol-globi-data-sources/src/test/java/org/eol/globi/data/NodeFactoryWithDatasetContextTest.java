@@ -1,8 +1,11 @@
 package org.eol.globi.data;
 
 import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.dataset.CitationUtil;
 import org.globalbioticinteractions.dataset.Dataset;
@@ -15,6 +18,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -74,4 +79,26 @@ public class NodeFactoryWithDatasetContextTest {
         assertEquals("some title", argument.getValue().getTitle());
     }
 
+    @Test
+    public void createInteractions() throws NodeFactoryException {
+        NodeFactory factory = Mockito.mock(NodeFactory.class);
+        Dataset dataset = new DatasetWithResourceMapping("some/namespace", URI.create("some:uri"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+        NodeFactoryWithDatasetContext factoryWithDS = new NodeFactoryWithDatasetContext(factory, dataset);
+
+        SpecimenRecord source = new SpecimenRecord(new TaxonImpl("Homo sapiens"), RelTypes.COLLECTED);
+        SpecimenRecord target = new SpecimenRecord(new TaxonImpl("Canis lupus"), RelTypes.COLLECTED);
+        factoryWithDS.createInteractions(Collections.singletonList(
+                new InteractionRecord(new StudyImpl("some title"), source, target, InteractType.ATE, null)));
+
+        ArgumentCaptor<List> argument = ArgumentCaptor.forClass(List.class);
+        verify(factory).createInteractions(argument.capture());
+        assertEquals(1, argument.getValue().size());
+        InteractionRecord interaction = (InteractionRecord) argument.getValue().get(0);
+        assertEquals("some title", interaction.getStudy().getTitle());
+        assertEquals(dataset, interaction.getStudy().getOriginatingDataset());
+        assertEquals(source, interaction.getSource());
+        assertEquals(target, interaction.getTarget());
+        assertEquals(InteractType.ATE, interaction.getInteractType());
+    }
+
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package org.eol.globi.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eol.globi.data.DatasetImporterWithListener;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.process.InteractionListener;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.globalbioticinteractions.dataset.DatasetImpl;
 import org.globalbioticinteractions.dataset.DatasetProxy;
@@ -14,8 +16,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
 public class DatasetImportUtilTest {
 
     public static List<Dataset> getReferences(Dataset dataset) {
@@ -61,5 +67,37 @@ public class DatasetImportUtilTest {
         assertThat(references.size(), Is.is(2));
     }
 
+    @Test
+    public void flushHeldBackInteractionsOnFailedImport() {
+        List<Map<String, String>> received = new ArrayList<>();
+        List<Map<String, String>> flushed = new ArrayList<>();
+        DatasetImporterWithListener importer = new DatasetImporterWithListener(null, null) {
+            @Override
+            public void importStudy() throws StudyImporterException {
+                getInteractionListener().on(new TreeMap<>());
+                throw new StudyImporterException("kaboom!");
+            }
+        };
+        importer.setInteractionListener(new InteractionListener() {
+            @Override
+            public void on(Map<String, String> interaction) {
+                received.add(interaction);
+            }
+
+            @Override
+            public void flush() {
+                flushed.addAll(received);
+                received.clear();
+            }
+        });
+
+        try {
+            DatasetImportUtil.importStudy(importer);
+            fail("expected import to fail");
+        } catch (StudyImporterException ex) {
+            assertThat(ex.getMessage(), Is.is("kaboom!"));
+        }
+        assertThat(flushed.size(), Is.is(1));
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package org.eol.globi.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.data.CharsetConstant;
+import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonImpl;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.split;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * Source or target taxon of an interaction record, with rank values indexed by field.
+ * <p>
+ * Rank values are read from the interaction record once, and the taxon, its path and path names
+ * are derived on first use. Rank keys and path labels are shared by all records of the same side.
+ */
+
+public final class TaxonRecord {
+
+    private static final Fields SOURCE = new Fields(TaxonUtil.SOURCE_TAXON,
+            TaxonUtil.SOURCE_TAXON_HIGHER_ORDER_RANK_KEYS,
+            TaxonUtil.SOURCE_TAXON_GENUS,
+            TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET,
+            TaxonUtil.SOURCE_TAXON_SUBSPECIFIC_EPITHET,
+            TaxonUtil.SOURCE_TAXON_SPECIES,
+            TaxonUtil.SOURCE_TAXON + "CommonName");
+
+    private static final Fields TARGET = new Fields(TaxonUtil.TARGET_TAXON,
+            TaxonUtil.TARGET_TAXON_HIGHER_ORDER_RANK_KEYS,
+            TaxonUtil.TARGET_TAXON_GENUS,
+            TaxonUtil.TARGET_TAXON_SPECIFIC_EPITHET,
+            TaxonUtil.TARGET_TAXON_SUBSPECIFIC_EPITHET,
+            TaxonUtil.TARGET_TAXON_SPECIES,
+            TaxonUtil.TARGET_TAXON + "CommonName");
+
+    private final Fields fields;
+    private final String[] values;
+    private final boolean[] present;
+
+    private boolean speciesNameGenerated = false;
+    private String speciesName;
+    private Taxon taxon;
+    private String path;
+    private String pathNames;
+
+    private TaxonRecord(Fields fields, Map<String, String> properties) {
+        this.fields = fields;
+        this.values = new String[fields.keys.length];
+        this.present = new boolean[fields.keys.length];
+        for (int i = 0; i < fields.keys.length; i++) {
+            String value = properties.get(fields.keys[i]);
+            present[i] = isNotBlank(value);
+            values[i] = present[i] ? value : properties.get(fields.truncatedKeys[i]);
+        }
+    }
+
+    public static TaxonRecord sourceOf(Map<String, String> properties) {
+        return new TaxonRecord(SOURCE, properties);
+    }
+
+    public static TaxonRecord targetOf(Map<String, String> properties) {
+        return new TaxonRecord(TARGET, properties);
+    }
+
+    /**
+     * @return species (or subspecies) if available, otherwise the taxon of the lowest available rank or common name.
+     */
+
+    public Taxon getTaxon() {
+        if (taxon == null) {
+            taxon = generateTaxon();
+        }
+        return taxon;
+    }
+
+    public String getPath() {
+        if (path == null) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < fields.rankCount; i++) {
+                append(builder, values[i]);
+            }
+            append(builder, getSpeciesName());
+            path = builder.toString();
+        }
+        return path;
+    }
+
+    public String getPathNames() {
+        if (pathNames == null) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < fields.rankCount; i++) {
+                if (isNotBlank(values[i])) {
+                    append(builder, fields.rankLabels[i]);
+                }
+            }
+            if (isNotBlank(getSpeciesName())) {
+                append(builder, "species");
+            }
+            pathNames = builder.toString();
+        }
+        return pathNames;
+    }
+
+    private Taxon generateTaxon() {
+        Taxon species = generateSpecies();
+        Taxon generated = species;
+        if (isBlank(species.getName())) {
+            String taxonName = null;
+            String taxonRank = null;
+            for (int i = fields.rankCount - 1; i >= 0; i--) {
+                if (isNotBlank(values[i])) {
+                    taxonName = values[i];
+                    taxonRank = fields.rankNames[i];
+                    break;
+                }
+            }
+            if (isBlank(taxonName)) {
+                taxonName = values[fields.commonName];
+                taxonRank = fields.rankNames[fields.commonName];
+            }
+            if (isNotBlank(taxonName)) {
+                generated = new TaxonImpl(taxonName);
+                generated.setName(taxonName);
+                generated.setRank(taxonRank);
+            }
+        }
+        return generated;
+    }
+
+    private String getSpeciesName() {
+        if (!speciesNameGenerated) {
+            if (present[fields.genus] && present[fields.specificEpithet]) {
+                String subspecificEpithet = values[fields.subspecificEpithet];
+                speciesName = trim(values[fields.genus]
+                        + " " + values[fields.specificEpithet]
+                        + " " + (subspecificEpithet == null ? "" : subspecificEpithet));
+            } else if (present[fields.species]) {
+                speciesName = trim(values[fields.species]);
+            }
+            speciesNameGenerated = true;
+        }
+        return speciesName;
+    }
+
+    private Taxon generateSpecies() {
+        TaxonImpl species = new TaxonImpl(getSpeciesName());
+        String[] parts = split(species.getName(), " ");
+        if (parts != null && parts.length == 2) {
+            species.setRank(StringUtils.lowerCase(TaxonUtil.SPECIES));
+        } else if (parts != null && parts.length > 2) {
+            species.setRank("subspecies");
+        }
+        return species;
+    }
+
+    private static void append(StringBuilder builder, String value) {
+        if (isNotBlank(value)) {
+            if (builder.length() > 0) {
+                builder.append(CharsetConstant.SEPARATOR);
+            }
+            builder.append(value);
+        }
+    }
+
+    private static final class Fields {
+        // rank keys ordered from highest (kingdom) to lowest rank, followed by species name related keys
+        private final String[] keys;
+        private final String[] truncatedKeys;
+        private final String[] rankNames;
+        private final String[] rankLabels;
+        private final int rankCount;
+        private final int genus;
+        private final int specificEpithet;
+        private final int subspecificEpithet;
+        private final int species;
+        private final int commonName;
+
+        Fields(String keyPrefix,
+               List<String> higherOrderRankKeys,
+               String genusKey,
+               String specificEpithetKey,
+               String subspecificEpithetKey,
+               String speciesKey,
+               String commonNameKey) {
+            this.rankCount = higherOrderRankKeys.size();
+            this.keys = new String[rankCount + 4];
+            for (int i = 0; i < rankCount; i++) {
+                keys[i] = higherOrderRankKeys.get(rankCount - 1 - i);
+            }
+            this.specificEpithet = rankCount;
+            this.subspecificEpithet = rankCount + 1;
+            this.species = rankCount + 2;
+            this.commonName = rankCount + 3;
+            keys[specificEpithet] = specificEpithetKey;
+            keys[subspecificEpithet] = subspecificEpithetKey;
+            keys[species] = speciesKey;
+            keys[commonName] = commonNameKey;
+            this.genus = indexOf(keys, genusKey);
+
+            String rankPrefix = StringUtils.getCommonPrefix(higherOrderRankKeys.toArray(new String[0]));
+            this.truncatedKeys = new String[keys.length];
+            this.rankNames = new String[keys.length];
+            this.rankLabels = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                truncatedKeys[i] = StringUtils.removeEnd(keys[i], TaxonUtil.NAME_SUFFIX);
+                rankNames[i] = TaxonUtil.parseRank(keys[i], rankPrefix);
+                rankLabels[i] = StringUtils.lowerCase(StringUtils.removeEnd(StringUtils.replace(keys[i], keyPrefix, ""), TaxonUtil.NAME_SUFFIX));
+            }
+        }
+
+        private static int indexOf(String[] keys, String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (StringUtils.equals(keys[i], key)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("unknown taxon field [" + key + "]");
+        }
+    }
+
+}
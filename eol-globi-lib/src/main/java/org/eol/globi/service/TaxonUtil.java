@@ -1,6 +1,5 @@
 package org.eol.globi.service;
 
-import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.eol.globi.data.CharsetConstant;
@@ -21,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -31,6 +31,7 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.apache.commons.lang3.StringUtils.join;
 import static org.apache.commons.lang3.StringUtils.lowerCase;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
 import static org.apache.commons.lang3.StringUtils.replace;
 import static org.apache.commons.lang3.StringUtils.split;
 import static org.apache.commons.lang3.StringUtils.splitPreserveAllTokens;
@@ -197,6 +198,11 @@ public class TaxonUtil {
     private static final String SOURCE_TAXON_COMMON_NAME = SOURCE_TAXON + "CommonName";
     private static final String TARGET_TAXON_COMMON_NAME = TARGET_TAXON + "CommonName";
 
+    private static final int MAX_EXPANDED_COLUMN_NAMES = 10000;
+
+    // expanded taxon column names by column name, as interaction records of a dataset share their column names
+    private static final Map<String, String> EXPANDED_COLUMN_NAMES = new ConcurrentHashMap<>();
+
     public static Map<String, String> taxonToMap(Taxon taxon) {
         Map<String, String> properties = new HashMap<>();
         if (taxon != null) {
@@ -281,13 +287,49 @@ public class TaxonUtil {
     }
 
     public static Taxon copy(Taxon taxon) {
-        TaxonImpl taxonCopy = new TaxonImpl();
-        mapToTaxon(taxonToMap(taxon), taxonCopy);
-        return taxonCopy;
+        return copy(taxon, new TaxonImpl());
     }
 
+    /**
+     * Copies taxon properties like {@link #mapToTaxon(Map, Taxon)} would copy those of {@link #taxonToMap(Taxon)},
+     * without creating an intermediate map.
+     */
+
     public static Taxon copy(Taxon srcTaxon, Taxon targetTaxon) {
-        mapToTaxon(taxonToMap(srcTaxon), targetTaxon);
+        if (srcTaxon == null) {
+            mapToTaxon(Collections.emptyMap(), targetTaxon);
+        } else {
+            targetTaxon.setName(srcTaxon.getName());
+            targetTaxon.setRank(srcTaxon.getRank());
+            final String externalId = srcTaxon.getExternalId();
+            targetTaxon.setExternalId(externalId);
+            targetTaxon.setPath(srcTaxon.getPath());
+            targetTaxon.setPathIds(srcTaxon.getPathIds());
+            targetTaxon.setPathNames(srcTaxon.getPathNames());
+            targetTaxon.setCommonNames(srcTaxon.getCommonNames());
+
+            final String externalUrl = srcTaxon.getExternalUrl();
+            if (isBlank(externalUrl) && isNotBlank(externalId)) {
+                targetTaxon.setExternalUrl(urlForExternalId(externalId));
+            } else {
+                targetTaxon.setExternalUrl(externalUrl);
+            }
+
+            targetTaxon.setThumbnailUrl(srcTaxon.getThumbnailUrl());
+
+            Term status = srcTaxon.getStatus();
+            if (status != null
+                    && isNotBlank(status.getId())
+                    && isNotBlank(status.getName())) {
+                targetTaxon.setStatus(new TermImpl(status.getId(), status.getName()));
+            }
+
+            targetTaxon.setNameSource(srcTaxon.getNameSource());
+            targetTaxon.setNameSourceURL(srcTaxon.getNameSourceURL());
+            targetTaxon.setNameSourceAccessedAt(srcTaxon.getNameSourceAccessedAt());
+
+            targetTaxon.setAuthorship(srcTaxon.getAuthorship());
+        }
         return targetTaxon;
     }
 
@@ -488,12 +530,7 @@ public class TaxonUtil {
     }
 
     public static String generateTargetTaxonPath(Map<String, String> properties) {
-        return generateTaxonPath(properties,
-                getAllTargetTaxonRanks(),
-                TARGET_TAXON_GENUS,
-                TARGET_TAXON_SPECIFIC_EPITHET,
-                TARGET_TAXON_SUBSPECIFIC_EPITHET,
-                TARGET_TAXON_SPECIES);
+        return TaxonRecord.targetOf(properties).getPath();
     }
 
     private static String generateTaxonPath(Map<String, String> properties,
@@ -504,12 +541,12 @@ public class TaxonUtil {
         return generateTaxonPath(properties, allRanks, genusRank, specificEpithetRank, subspecificEpithetRank, null);
     }
 
-    private static String generateTaxonPath(Map<String, String> properties,
-                                            List<String> allRanks,
-                                            String genusRank,
-                                            String specificEpithetRank,
-                                            String subspecificEpithetRank,
-                                            String speciesRank) {
+    static String generateTaxonPath(Map<String, String> properties,
+                                    List<String> allRanks,
+                                    String genusRank,
+                                    String specificEpithetRank,
+                                    String subspecificEpithetRank,
+                                    String speciesRank) {
         Stream<String> rankValues = allRanks
                 .stream()
                 .map(rankName -> getRankValue(properties, rankName))
@@ -536,7 +573,7 @@ public class TaxonUtil {
                 .stream()
                 .map(x -> Pair.of(x, getRankValue(properties, x)))
                 .filter(x -> isNotBlank(x.getValue()))
-                .map(x -> lowerCase(RegExUtils.replacePattern(replace(x.getKey(), keyPrefix, ""), NAME_SUFFIX + "$", "")));
+                .map(x -> lowerCase(removeEnd(replace(x.getKey(), keyPrefix, ""), NAME_SUFFIX)));
 
         String species = trim(generateSpeciesName(properties, genusRank, specificEpithetRank, subspecificEpithetRank, speciesRank));
         Stream<String> ranksWithSpecies = isBlank(species)
@@ -560,31 +597,15 @@ public class TaxonUtil {
     }
 
     public static String generateTargetTaxonPathNames(Map<String, String> properties) {
-        return generateTaxonPathNames(properties,
-                getAllTargetTaxonRanks(),
-                "targetTaxon",
-                TARGET_TAXON_GENUS,
-                TARGET_TAXON_SPECIFIC_EPITHET,
-                TARGET_TAXON_SUBSPECIFIC_EPITHET,
-                TARGET_TAXON_SPECIES);
+        return TaxonRecord.targetOf(properties).getPathNames();
     }
 
     public static String generateSourceTaxonPath(Map<String, String> properties) {
-        return generateTaxonPath(properties,
-                getAllSourceTaxonRanks(),
-                SOURCE_TAXON_GENUS,
-                SOURCE_TAXON_SPECIFIC_EPITHET,
-                SOURCE_TAXON_SUBSPECIFIC_EPITHET,
-                SOURCE_TAXON_SPECIES);
+        return TaxonRecord.sourceOf(properties).getPath();
     }
 
     public static String generateSourceTaxonPathNames(Map<String, String> properties) {
-        return generateTaxonPathNames(properties, getAllSourceTaxonRanks(),
-                "sourceTaxon",
-                SOURCE_TAXON_GENUS,
-                SOURCE_TAXON_SPECIFIC_EPITHET,
-                SOURCE_TAXON_SUBSPECIFIC_EPITHET,
-                SOURCE_TAXON_SPECIES);
+        return TaxonRecord.sourceOf(properties).getPathNames();
     }
 
 
@@ -700,13 +721,7 @@ public class TaxonUtil {
     }
 
     public static Taxon generateSourceTaxon(Map<String, String> properties) {
-        return generateTaxonName(properties,
-                SOURCE_TAXON_HIGHER_ORDER_RANK_KEYS,
-                SOURCE_TAXON_GENUS,
-                SOURCE_TAXON_SPECIFIC_EPITHET,
-                SOURCE_TAXON_SUBSPECIFIC_EPITHET,
-                SOURCE_TAXON_SPECIES,
-                SOURCE_TAXON_COMMON_NAME);
+        return TaxonRecord.sourceOf(properties).getTaxon();
     }
 
     public static String generateTargetTaxonName(Map<String, String> properties) {
@@ -714,19 +729,13 @@ public class TaxonUtil {
     }
 
     public static Taxon generateTargetTaxon(Map<String, String> properties) {
-        return generateTaxonName(properties,
-                TARGET_TAXON_HIGHER_ORDER_RANK_KEYS,
-                TARGET_TAXON_GENUS,
-                TARGET_TAXON_SPECIFIC_EPITHET,
-                TARGET_TAXON_SUBSPECIFIC_EPITHET,
-                TARGET_TAXON_SPECIES,
-                TARGET_TAXON_COMMON_NAME);
+        return TaxonRecord.targetOf(properties).getTaxon();
     }
 
     public static Map<String, String> enrichTaxonNames(final Map<String, String> properties) {
         Map<String, String> enrichedProperties = new TreeMap<>(properties);
         for (String propertyName : properties.keySet()) {
-            String expandedName = expandTaxonColumnNameIfNeeded(propertyName);
+            String expandedName = expandedColumnNameFor(propertyName);
             if (!StringUtils.equals(propertyName, expandedName)) {
                 enrichedProperties.put(expandedName, properties.get(propertyName));
             }
@@ -735,9 +744,22 @@ public class TaxonUtil {
         return enrichIfNeeded(enrichedProperties);
     }
 
+    private static String expandedColumnNameFor(String propertyName) {
+        String expandedName = EXPANDED_COLUMN_NAMES.get(propertyName);
+        if (expandedName == null) {
+            expandedName = expandTaxonColumnNameIfNeeded(propertyName);
+            if (EXPANDED_COLUMN_NAMES.size() < MAX_EXPANDED_COLUMN_NAMES) {
+                EXPANDED_COLUMN_NAMES.put(propertyName, expandedName);
+            }
+        }
+        return expandedName;
+    }
+
     public static Map<String, String> enrichIfNeeded(Map<String, String> properties) {
+        TaxonRecord source = null;
         if (StringUtils.isBlank(properties.get(SOURCE_TAXON_NAME))) {
-            Taxon taxon = generateSourceTaxon(properties);
+            source = TaxonRecord.sourceOf(properties);
+            Taxon taxon = source.getTaxon();
             if (taxon != null) {
                 InteractUtil.putIfKeyNotExistsAndValueNotBlank(properties, SOURCE_TAXON_NAME, taxon.getName());
                 InteractUtil.putIfKeyNotExistsAndValueNotBlank(properties, SOURCE_TAXON_RANK, taxon.getRank());
@@ -746,10 +768,11 @@ public class TaxonUtil {
         }
 
         if (StringUtils.isBlank(properties.get(SOURCE_TAXON_PATH))) {
-            String path = generateSourceTaxonPath(properties);
+            source = source == null ? TaxonRecord.sourceOf(properties) : source;
+            String path = source.getPath();
             if (isNotBlank(path)) {
                 properties.put(SOURCE_TAXON_PATH, path);
-                properties.put(SOURCE_TAXON_PATH_NAMES, generateSourceTaxonPathNames(properties));
+                properties.put(SOURCE_TAXON_PATH_NAMES, source.getPathNames());
             }
         }
 
@@ -758,8 +781,10 @@ public class TaxonUtil {
             properties.put(SOURCE_TAXON_PATH, properties.get(SOURCE_TAXON_COMMON_NAME));
         }
 
+        TaxonRecord target = null;
         if (StringUtils.isBlank(properties.get(TARGET_TAXON_NAME))) {
-            Taxon taxon = generateTargetTaxon(properties);
+            target = TaxonRecord.targetOf(properties);
+            Taxon taxon = target.getTaxon();
             if (taxon != null) {
                 InteractUtil.putIfKeyNotExistsAndValueNotBlank(properties, TARGET_TAXON_NAME, taxon.getName());
                 InteractUtil.putIfKeyNotExistsAndValueNotBlank(properties, TARGET_TAXON_RANK, taxon.getRank());
@@ -768,10 +793,11 @@ public class TaxonUtil {
         }
 
         if (StringUtils.isBlank(properties.get(TARGET_TAXON_PATH))) {
-            String path = generateTargetTaxonPath(properties);
+            target = target == null ? TaxonRecord.targetOf(properties) : target;
+            String path = target.getPath();
             if (isNotBlank(path)) {
                 properties.put(TARGET_TAXON_PATH, path);
-                properties.put(TARGET_TAXON_PATH_NAMES, generateTargetTaxonPathNames(properties));
+                properties.put(TARGET_TAXON_PATH_NAMES, target.getPathNames());
             }
         }
 
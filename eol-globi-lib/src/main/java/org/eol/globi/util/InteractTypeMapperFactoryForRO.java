@@ -14,12 +14,20 @@ public class InteractTypeMapperFactoryForRO implements InteractTypeMapperFactory
     public static final String SUPPORTED_INTERACTION_TYPES = "/org/globalbioticinteractions/interaction_types_ro.csv";
     public static final String IGNORED_INTERACTION_TYPE_COLUMN_NAME = "interaction_type_ignored";
 
+    // mapper of the bundled, immutable RO interaction types, shared by all factories
+    private static InteractTypeMapper mapperRO = null;
+
     @Override
     public InteractTypeMapper create() throws TermLookupServiceException {
-        TermLookupService termIgnoredServiceRO = getTermIgnoredServiceRO();
-        return new InteractTypeMapperImpl(
-                termIgnoredServiceRO,
-                getTermLookupServiceRO(termIgnoredServiceRO));
+        synchronized (InteractTypeMapperFactoryForRO.class) {
+            if (mapperRO == null) {
+                TermLookupService termIgnoredServiceRO = getTermIgnoredServiceRO();
+                mapperRO = new InteractTypeMapperImpl(
+                        termIgnoredServiceRO,
+                        getTermLookupServiceRO(termIgnoredServiceRO));
+            }
+            return mapperRO;
+        }
     }
 
     private TermLookupService getTermIgnoredServiceRO() throws TermLookupServiceException {
@@ -1,6 +1,7 @@
 package org.eol.globi.util;
 
 import com.Ostermiller.util.LabeledCSVParser;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.CharsetConstant;
 import org.eol.globi.data.FileUtils;
@@ -12,20 +13,43 @@ import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceConfigurationException;
 import org.eol.globi.service.TermLookupServiceException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class InteractTypeMapperFactoryImpl implements InteractTypeMapperFactory {
 
     public static final URI TYPE_IGNORED_URI_DEFAULT = URI.create("interaction_types_ignored.csv");
     public static final URI TYPE_MAP_URI_DEFAULT = URI.create("interaction_types_mapping.csv");
+
+    private static final int MAX_COMPILED_MAPPERS = 1000;
+
+    // mappers by content hash of their mapping resources
+    private static final Map<String, InteractTypeMapperImpl> COMPILED_MAPPERS = Collections.synchronizedMap(
+            new LinkedHashMap<String, InteractTypeMapperImpl>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, InteractTypeMapperImpl> eldest) {
+                    return size() > MAX_COMPILED_MAPPERS;
+                }
+            });
+
+    // mapper of the bundled, immutable default interaction type mapping, shared by all factories
+    private static InteractTypeMapper mapperDefault = null;
+
     private final ResourceService resourceService;
 
     public InteractTypeMapperFactoryImpl() {
@@ -56,9 +80,9 @@ public class InteractTypeMapperFactoryImpl implements InteractTypeMapperFactory
     }
 
     public static TermLookupService getIgnoredTermService(ResourceService resourceService, String ignoredInteractionTypeColumnName, URI ignoredTypeListURI) throws TermLookupServiceException {
-        final List<String> typesIgnored = getAndParseIgnoredTypeList(resourceService,
+        final Set<String> typesIgnored = new HashSet<>(getAndParseIgnoredTypeList(resourceService,
                 ignoredInteractionTypeColumnName,
-                ignoredTypeListURI);
+                ignoredTypeListURI));
 
         return name -> {
             final String nameNorm = InteractUtil.normalizeInteractionName(name);
@@ -72,7 +96,7 @@ public class InteractTypeMapperFactoryImpl implements InteractTypeMapperFactory
     @Override
     public InteractTypeMapper create() throws TermLookupServiceException {
         final InteractTypeMapper mapperCustom = mapperForResourceService(resourceService);
-        final InteractTypeMapper mapperDefault = mapperForResourceService(getResourceServiceForDefaultInteractionTypeMapping(new ResourceServiceLocal(is -> is)));
+        final InteractTypeMapper mapperDefault = getMapperDefault();
         final InteractTypeMapper mapperRO = new InteractTypeMapperFactoryForRO().create();
         return new InteractTypeMapperWithFallbackImpl(
                 mapperCustom,
@@ -80,7 +104,62 @@ public class InteractTypeMapperFactoryImpl implements InteractTypeMapperFactory
                 mapperRO);
     }
 
+    private InteractTypeMapper getMapperDefault() throws TermLookupServiceException {
+        synchronized (InteractTypeMapperFactoryImpl.class) {
+            if (mapperDefault == null) {
+                mapperDefault = mapperForResourceService(getResourceServiceForDefaultInteractionTypeMapping(new ResourceServiceLocal(is -> is)));
+            }
+            return mapperDefault;
+        }
+    }
+
+    /**
+     * @return a mapper for the interaction type mapping resources of given resource service, shared with
+     * other callers that provide identical mapping resources.
+     */
     public InteractTypeMapperImpl mapperForResourceService(ResourceService resourceService) throws TermLookupServiceException {
+        byte[] typesIgnored = retrieveOrNull(resourceService, TYPE_IGNORED_URI_DEFAULT);
+        byte[] typeMap = retrieveOrNull(resourceService, TYPE_MAP_URI_DEFAULT);
+        String contentHash = contentHashOf(typesIgnored, typeMap);
+        InteractTypeMapperImpl mapper = COMPILED_MAPPERS.get(contentHash);
+        if (mapper == null) {
+            mapper = compileMapper(resource -> {
+                byte[] content = TYPE_IGNORED_URI_DEFAULT.equals(resource) ? typesIgnored : typeMap;
+                return content == null ? null : new ByteArrayInputStream(content);
+            });
+            COMPILED_MAPPERS.put(contentHash, mapper);
+        }
+        return mapper;
+    }
+
+    private static byte[] retrieveOrNull(ResourceService resourceService, URI resource) {
+        try (InputStream is = resourceService.retrieve(resource)) {
+            return is == null ? null : IOUtils.toByteArray(is);
+        } catch (IOException e) {
+            // silently fail on missing resource
+            return null;
+        }
+    }
+
+    private static String contentHashOf(byte[]... contents) throws TermLookupServiceException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (byte[] content : contents) {
+                if (content == null) {
+                    md.update((byte) 0);
+                } else {
+                    md.update((byte) 1);
+                    md.update(ByteBuffer.allocate(4).putInt(content.length).array());
+                    md.update(content);
+                }
+            }
+            return ContentHashUtil.toHexString(md);
+        } catch (NoSuchAlgorithmException e) {
+            throw new TermLookupServiceException("failed to calculate content hash of interaction type mapping", e);
+        }
+    }
+
+    private static InteractTypeMapperImpl compileMapper(ResourceService resourceService) throws TermLookupServiceException {
         final TermLookupService ignoredTermLookupService
                 = getIgnoredTermService(resourceService,
                 "interaction_type_ignored",
@@ -243,13 +322,14 @@ public class InteractTypeMapperFactoryImpl implements InteractTypeMapperFactory
 
     public static TermLookupService getTermLookupService
             (TermLookupService ignoredTermLookup, Map<String, InteractType> typeMap) {
+        final Map<String, InteractType> typeMapHashed = new HashMap<>(typeMap);
         return name -> {
             List<Term> matchingTerms = Collections.emptyList();
             List<Term> ignoredTerms = ignoredTermLookup.lookupTermByName(name);
             if (isNullOrEmpty(ignoredTerms)) {
                 String nameNormalized = InteractUtil.normalizeInteractionName(name);
-                InteractType interactType = typeMap.get(nameNormalized);
-                interactType = interactType == null ? typeMap.get(name) : interactType;
+                InteractType interactType = typeMapHashed.get(nameNormalized);
+                interactType = interactType == null ? typeMapHashed.get(name) : interactType;
                 if (interactType != null) {
                     matchingTerms = getTerms(interactType);
                 }
@@ -6,11 +6,24 @@ import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Maps interaction type names or ids using term lookup services.
+ * <p>
+ * Results of (un)mapped names or ids are remembered, so that repeated names or ids
+ * are not normalized and looked up again.
+ */
 public class InteractTypeMapperImpl implements InteractTypeMapper {
 
+    static final int MAX_MEMOIZED = 10000;
+
     private final TermLookupService ignoredTermLookupService;
     private final TermLookupService termMappingService;
+    private final Map<String, Boolean> ignored = new ConcurrentHashMap<>();
+    private final Map<String, Optional<InteractType>> mapped = new ConcurrentHashMap<>();
 
     public InteractTypeMapperImpl(TermLookupService ignoredTermLookupService, TermLookupService termMappingService) {
         this.ignoredTermLookupService = ignoredTermLookupService;
@@ -19,28 +32,50 @@ public class InteractTypeMapperImpl implements InteractTypeMapper {
 
     @Override
     public boolean shouldIgnoreInteractionType(String interactionTypeNameOrId) {
-        boolean shouldIgnore = false;
-        try {
-            List<Term> terms = ignoredTermLookupService.lookupTermByName(interactionTypeNameOrId);
-            shouldIgnore = terms != null && !terms.isEmpty();
-        } catch (TermLookupServiceException e) {
-            //
+        Boolean shouldIgnore = interactionTypeNameOrId == null ? null : ignored.get(interactionTypeNameOrId);
+        if (shouldIgnore == null) {
+            try {
+                shouldIgnore = lookupShouldIgnore(interactionTypeNameOrId);
+                memoize(ignored, interactionTypeNameOrId, shouldIgnore);
+            } catch (TermLookupServiceException e) {
+                shouldIgnore = false;
+            }
         }
         return shouldIgnore;
     }
 
     @Override
     public InteractType getInteractType(String interactionTypeNameOrId) {
-        InteractType firstMatchingType = null;
-        try {
-            List<Term> terms = termMappingService.lookupTermByName(interactionTypeNameOrId);
-            if (terms != null && terms.size() > 0) {
-                firstMatchingType = InteractType.typeOf(terms.get(0).getId());
+        Optional<InteractType> interactType = interactionTypeNameOrId == null ? null : mapped.get(interactionTypeNameOrId);
+        if (interactType == null) {
+            try {
+                interactType = Optional.ofNullable(lookupInteractType(interactionTypeNameOrId));
+                memoize(mapped, interactionTypeNameOrId, interactType);
+            } catch (TermLookupServiceException e) {
+                interactType = Optional.empty();
             }
-        } catch (TermLookupServiceException e) {
-            //
         }
-        return firstMatchingType;
+        return interactType.orElse(null);
+    }
 
+    // names or ids are no longer remembered once the maximum is reached, and failed lookups are not remembered
+    private static <V> void memoize(Map<String, V> memoized, String interactionTypeNameOrId, V value) {
+        if (interactionTypeNameOrId != null && memoized.size() < MAX_MEMOIZED) {
+            memoized.put(interactionTypeNameOrId, value);
+        }
+    }
+
+    private boolean lookupShouldIgnore(String interactionTypeNameOrId) throws TermLookupServiceException {
+        List<Term> terms = ignoredTermLookupService.lookupTermByName(interactionTypeNameOrId);
+        return terms != null && !terms.isEmpty();
+    }
+
+    private InteractType lookupInteractType(String interactionTypeNameOrId) throws TermLookupServiceException {
+        InteractType firstMatchingType = null;
+        List<Term> terms = termMappingService.lookupTermByName(interactionTypeNameOrId);
+        if (terms != null && terms.size() > 0) {
+            firstMatchingType = InteractType.typeOf(terms.get(0).getId());
+        }
+        return firstMatchingType;
     }
 }
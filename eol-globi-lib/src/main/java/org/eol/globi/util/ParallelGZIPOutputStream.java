@@ -0,0 +1,213 @@
+package org.eol.globi.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip compresses blocks of written data on a pool of worker threads (like pigz).
+ * <p>
+ * All streams share one bounded pool of daemon compressor threads, so that open (or abandoned) streams do not
+ * hold on to threads of their own. Each stream keeps at most twice its number of threads in blocks in progress.
+ * <p>
+ * Each block is written as a separate gzip member, in the order in which the data was written. The resulting
+ * multi-member stream can be read by gunzip and {@link java.util.zip.GZIPInputStream}.
+ */
+
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final byte[] GZIP_HEADER = new byte[]{
+            0x1f, (byte) 0x8b, // magic
+            Deflater.DEFLATED, // compression method
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            (byte) 0xff // operating system (unknown)
+    };
+
+    // threads are only started when needed, and do not keep the jvm alive
+    private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int level;
+    private final int blockSize;
+    private final int maxBlocksInProgress;
+    private final Deque<Future<byte[]>> blocksInProgress = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength = 0;
+    private long membersWritten = 0;
+    private boolean finished = false;
+
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out, int threads, int level) {
+        this(out, threads, level, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelGZIPOutputStream(OutputStream out, int threads, int level, int blockSize) {
+        super(out);
+        if (threads < 1) {
+            throw new IllegalArgumentException("expected at least one thread, but got [" + threads + "]");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("expected positive block size, but got [" + blockSize + "]");
+        }
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxBlocksInProgress = 2 * threads;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        assertNotFinished();
+        while (len > 0) {
+            int available = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, available);
+            blockLength += available;
+            off += available;
+            len -= available;
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compresses and writes all data written so far, possibly as a gzip member smaller than the block size.
+     */
+
+    @Override
+    public void flush() throws IOException {
+        assertNotFinished();
+        submitBlock();
+        writeBlocksInProgress(0);
+        out.flush();
+    }
+
+    /**
+     * Writes remaining compressed data without closing the underlying stream.
+     */
+
+    public void finish() throws IOException {
+        if (!finished) {
+            try {
+                submitBlock();
+                writeBlocksInProgress(0);
+                if (membersWritten == 0) {
+                    // an empty gzip stream still has a (single, empty) member
+                    out.write(compress(new byte[0], 0, level));
+                }
+                out.flush();
+            } finally {
+                finished = true;
+                release();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (blockLength > 0) {
+            final byte[] uncompressed = block;
+            final int length = blockLength;
+            blocksInProgress.add(COMPRESSORS.submit(() -> compress(uncompressed, length, level)));
+            block = new byte[blockSize];
+            blockLength = 0;
+            writeBlocksInProgress(maxBlocksInProgress);
+        }
+    }
+
+    private void writeBlocksInProgress(int maxRemaining) throws IOException {
+        while (blocksInProgress.size() > maxRemaining) {
+            try {
+                out.write(blocksInProgress.poll().get());
+                membersWritten++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while compressing");
+            } catch (ExecutionException e) {
+                throw new IOException("failed to compress", e.getCause());
+            }
+        }
+    }
+
+    // blocks of failed streams are dropped rather than compressed
+    private void release() {
+        for (Future<byte[]> blockInProgress : blocksInProgress) {
+            blockInProgress.cancel(true);
+        }
+        blocksInProgress.clear();
+        block = null;
+    }
+
+    private void assertNotFinished() throws IOException {
+        if (finished) {
+            throw new IOException("cannot write to finished gzip stream");
+        }
+    }
+
+    static byte[] compress(byte[] uncompressed, int length, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(uncompressed, 0, length);
+
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + GZIP_HEADER.length + 8);
+        member.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(uncompressed, 0, length);
+            deflater.finish();
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int compressed = deflater.deflate(buffer);
+                member.write(buffer, 0, compressed);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeIntLittleEndian(member, (int) crc.getValue());
+        writeIntLittleEndian(member, length);
+        return member.toByteArray();
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.eol.globi.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.domain.Taxon;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonRecordTest {
+
+    @Test
+    public void sourceTaxonPathAndNames() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(TaxonUtil.SOURCE_TAXON_KINGDOM, "Animalia");
+        properties.put("sourceTaxonFamily", "Hominidae");
+        properties.put(TaxonUtil.SOURCE_TAXON_GENUS, "Homo");
+        properties.put(TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET, "sapiens");
+
+        TaxonRecord record = TaxonRecord.sourceOf(properties);
+        assertThat(record.getPath(), is("Animalia | Hominidae | Homo | Homo sapiens"));
+        assertThat(record.getPathNames(), is("kingdom | family | genus | species"));
+        assertThat(record.getTaxon().getName(), is("Homo sapiens"));
+        assertThat(record.getTaxon().getRank(), is("species"));
+    }
+
+    @Test
+    public void targetTaxonOfHigherRank() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(TaxonUtil.TARGET_TAXON_ORDER, "Primates");
+        properties.put(TaxonUtil.TARGET_TAXON_SUBFAMILY, " ");
+        properties.put(TaxonUtil.SOURCE_TAXON_GENUS, "Homo");
+
+        TaxonRecord record = TaxonRecord.targetOf(properties);
+        assertThat(record.getPath(), is("Primates"));
+        assertThat(record.getPathNames(), is("order"));
+        assertThat(record.getTaxon().getName(), is("Primates"));
+        assertThat(record.getTaxon().getRank(), is("order"));
+    }
+
+    @Test
+    public void targetTaxonOfCommonName() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("targetTaxonCommon", "man");
+
+        TaxonRecord record = TaxonRecord.targetOf(properties);
+        assertThat(record.getPath(), is(""));
+        assertThat(record.getPathNames(), is(""));
+        assertThat(record.getTaxon().getName(), is("man"));
+        assertThat(record.getTaxon().getRank(), is("common"));
+    }
+
+    @Test
+    public void sameAsGeneratedFromMap() {
+        Random random = new Random(42);
+        for (Map<String, String> properties : randomInteractionRecords(random, 5000)) {
+            assertSameTaxon(TaxonRecord.sourceOf(properties).getTaxon(), TaxonUtil.generateTaxonName(properties,
+                    TaxonUtil.SOURCE_TAXON_HIGHER_ORDER_RANK_KEYS,
+                    TaxonUtil.SOURCE_TAXON_GENUS,
+                    TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SPECIES,
+                    "sourceTaxonCommonName"), properties);
+            assertSameTaxon(TaxonRecord.targetOf(properties).getTaxon(), TaxonUtil.generateTaxonName(properties,
+                    TaxonUtil.TARGET_TAXON_HIGHER_ORDER_RANK_KEYS,
+                    TaxonUtil.TARGET_TAXON_GENUS,
+                    TaxonUtil.TARGET_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SPECIES,
+                    "targetTaxonCommonName"), properties);
+
+            assertThat(properties.toString(), TaxonRecord.sourceOf(properties).getPath(), is(TaxonUtil.generateTaxonPath(properties,
+                    TaxonUtil.getAllSourceTaxonRanks(),
+                    TaxonUtil.SOURCE_TAXON_GENUS,
+                    TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SPECIES)));
+            assertThat(properties.toString(), TaxonRecord.targetOf(properties).getPath(), is(TaxonUtil.generateTaxonPath(properties,
+                    TaxonUtil.getAllTargetTaxonRanks(),
+                    TaxonUtil.TARGET_TAXON_GENUS,
+                    TaxonUtil.TARGET_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SPECIES)));
+
+            assertThat(properties.toString(), TaxonRecord.sourceOf(properties).getPathNames(), is(TaxonUtil.generateTaxonPathNames(properties,
+                    TaxonUtil.getAllSourceTaxonRanks(),
+                    TaxonUtil.SOURCE_TAXON,
+                    TaxonUtil.SOURCE_TAXON_GENUS,
+                    TaxonUtil.SOURCE_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.SOURCE_TAXON_SPECIES)));
+            assertThat(properties.toString(), TaxonRecord.targetOf(properties).getPathNames(), is(TaxonUtil.generateTaxonPathNames(properties,
+                    TaxonUtil.getAllTargetTaxonRanks(),
+                    TaxonUtil.TARGET_TAXON,
+                    TaxonUtil.TARGET_TAXON_GENUS,
+                    TaxonUtil.TARGET_TAXON_SPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SUBSPECIFIC_EPITHET,
+                    TaxonUtil.TARGET_TAXON_SPECIES)));
+        }
+    }
+
+    private static void assertSameTaxon(Taxon actual, Taxon expected, Map<String, String> properties) {
+        assertThat(properties.toString(), actual.getName(), is(expected.getName()));
+        assertThat(properties.toString(), actual.getRank(), is(expected.getRank()));
+        assertThat(properties.toString(), actual.getExternalId(), is(expected.getExternalId()));
+    }
+
+    // interaction records with some (abbreviated, blank or padded) source and target taxon rank values
+    private static List<Map<String, String>> randomInteractionRecords(Random random, int count) {
+        List<String> keys = new ArrayList<>(TaxonUtil.TAXON_RANK_PROPERTY_NAMES);
+        keys.addAll(Arrays.asList(TaxonUtil.SOURCE_TAXON_SPECIES, TaxonUtil.TARGET_TAXON_SPECIES, "sourceTaxonCommonName", "targetTaxonCommonName"));
+        List<String> values = Arrays.asList("Homo", "sapiens", " Canis ", "lupus familiaris", "", " ", "Aves", null);
+
+        List<Map<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, String> properties = new TreeMap<>();
+            for (String key : keys) {
+                if (random.nextInt(4) == 0) {
+                    String value = values.get(random.nextInt(values.size()));
+                    String abbreviatedKey = random.nextBoolean()
+                            ? StringUtils.removeEnd(key, TaxonUtil.NAME_SUFFIX)
+                            : key;
+                    if (value != null) {
+                        properties.put(abbreviatedKey, value);
+                    }
+                }
+            }
+            records.add(properties);
+        }
+        return records;
+    }
+
+}
@@ -201,6 +201,37 @@ public class TaxonUtilTest {
         assertThat(target.getExternalUrl(), is("http://www.gbif.org/species/123"));
     }
 
+    @Test
+    public void copyTaxonSameAsMapped() {
+        Taxon src = new TaxonImpl("name", "GBIF:123");
+        src.setRank("species");
+        src.setPath("one | two");
+        src.setPathIds("1 | 2");
+        src.setPathNames("genus | species");
+        src.setCommonNames("some name @en");
+        src.setThumbnailUrl("http://example.org/thumbnail.jpg");
+        src.setNameSource("some source");
+        src.setNameSourceURL("http://example.org");
+        src.setNameSourceAccessedAt("2021-01-01");
+        src.setAuthorship("author, 2021");
+        src.setStatus(new TermImpl("statusId", ""));
+
+        Taxon target = new TaxonImpl();
+        target.setStatus(new TermImpl("previousStatusId", "previousStatusLabel"));
+        Taxon mappedTarget = new TaxonImpl();
+        mappedTarget.setStatus(new TermImpl("previousStatusId", "previousStatusLabel"));
+
+        TaxonUtil.copy(src, target);
+        TaxonUtil.mapToTaxon(TaxonUtil.taxonToMap(src), mappedTarget);
+        assertThat(TaxonUtil.taxonToMap(target), is(TaxonUtil.taxonToMap(mappedTarget)));
+        assertThat(target.getStatus().getId(), is("previousStatusId"));
+
+        TaxonUtil.copy(null, target);
+        TaxonUtil.mapToTaxon(TaxonUtil.taxonToMap(null), mappedTarget);
+        assertThat(TaxonUtil.taxonToMap(target), is(TaxonUtil.taxonToMap(mappedTarget)));
+        assertThat(target.getName(), is(nullValue()));
+    }
+
     @Test
     public void notHomonym() {
         TaxonImpl taxon = new TaxonImpl();
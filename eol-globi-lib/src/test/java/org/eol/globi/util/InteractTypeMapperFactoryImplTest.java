@@ -1,7 +1,10 @@
 package org.eol.globi.util;
 
+import com.Ostermiller.util.LabeledCSVParser;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.Term;
 import org.eol.globi.service.ResourceService;
 import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceConfigurationException;
@@ -12,10 +15,15 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -433,4 +441,87 @@ public class InteractTypeMapperFactoryImplTest {
         assertThat(interactTypeMapper.getInteractType("stings"), is(InteractType.INTERACTS_WITH));
     }
 
+
+    @Test
+    public void mapperSameAsLookupServices() throws TermLookupServiceException, IOException {
+        ResourceService resourceService = InteractTypeMapperFactoryImpl.getResourceServiceForDefaultInteractionTypeMapping(new ResourceServiceLocal(is -> is));
+        TermLookupService ignoredTermService = InteractTypeMapperFactoryImpl.getIgnoredTermService(resourceService,
+                "interaction_type_ignored",
+                InteractTypeMapperFactoryImpl.TYPE_IGNORED_URI_DEFAULT);
+        TermLookupService termMappingService = InteractTypeMapperFactoryImpl.getTermLookupService(ignoredTermService,
+                resourceService,
+                "provided_interaction_type_id",
+                "provided_interaction_type_label",
+                "mapped_to_interaction_type_id",
+                InteractTypeMapperFactoryImpl.TYPE_MAP_URI_DEFAULT);
+
+        InteractTypeMapper mapper = new InteractTypeMapperFactoryImpl().mapperForResourceService(resourceService);
+
+        List<String> names = getInteractionTypeNames();
+        assertThat(names.size() > 1000, is(true));
+        for (int i = 0; i < 2; i++) {
+            for (String name : names) {
+                List<Term> ignoredTerms = ignoredTermService.lookupTermByName(name);
+                assertThat(name, mapper.shouldIgnoreInteractionType(name), is(ignoredTerms != null && !ignoredTerms.isEmpty()));
+                List<Term> terms = termMappingService.lookupTermByName(name);
+                InteractType expected = terms == null || terms.isEmpty() ? null : InteractType.typeOf(terms.get(0).getId());
+                assertThat(name, mapper.getInteractType(name), is(expected));
+            }
+        }
+    }
+
+    @Test
+    public void mapperSharedForSameMappingResources() throws TermLookupServiceException {
+        String ignored = "interaction_type_ignored\nshouldBeIgnored";
+        InteractTypeMapperFactoryImpl factory = new InteractTypeMapperFactoryImpl();
+
+        InteractTypeMapperImpl mapper = factory.mapperForResourceService(resourceServiceFor(ignored, getTestMap()));
+        InteractTypeMapperImpl sameMapper = factory.mapperForResourceService(resourceServiceFor(ignored, getTestMap()));
+        InteractTypeMapperImpl otherMapper = factory.mapperForResourceService(resourceServiceFor(ignored, getTestMap() + "\nshouldBeMappedToo,,interactsWith,http://purl.obolibrary.org/obo/RO_0002437"));
+
+        assertThat(sameMapper, is(sameInstance(mapper)));
+        assertThat(otherMapper, is(not(sameInstance(mapper))));
+        assertThat(mapper.getInteractType("shouldBeMappedToo"), is(nullValue()));
+        assertThat(otherMapper.getInteractType("shouldBeMappedToo"), is(InteractType.INTERACTS_WITH));
+        assertTrue(otherMapper.shouldIgnoreInteractionType("shouldBeIgnored"));
+    }
+
+    @Test
+    public void mapperNotSharedWithMissingResource() throws TermLookupServiceException {
+        InteractTypeMapperFactoryImpl factory = new InteractTypeMapperFactoryImpl();
+        InteractTypeMapperImpl mapper = factory.mapperForResourceService(resourceServiceFor(null, getTestMap()));
+        InteractTypeMapperImpl mapperWithEmptyIgnoreList = factory.mapperForResourceService(resourceServiceFor("", getTestMap()));
+
+        assertThat(mapperWithEmptyIgnoreList, is(not(sameInstance(mapper))));
+        assertThat(mapper.getInteractType("shouldBeMapped"), is(InteractType.INTERACTS_WITH));
+    }
+
+    private static ResourceService resourceServiceFor(String ignored, String mapping) {
+        return resource -> {
+            String content = InteractTypeMapperFactoryImpl.TYPE_IGNORED_URI_DEFAULT.equals(resource) ? ignored : mapping;
+            return content == null ? null : IOUtils.toInputStream(content, StandardCharsets.UTF_8);
+        };
+    }
+
+    // provided interaction type names, ids and ignored types, along with some case, quote, and whitespace variations, and unknown names
+    private static List<String> getInteractionTypeNames() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (String resource : Arrays.asList("interaction_types_mapping.csv", "interaction_types_ignored.csv", "interaction_types_ro.csv", "interaction_types_ro_unmapped.csv")) {
+            LabeledCSVParser parser = CSVTSVUtil.createLabeledCSVParser(InteractTypeMapperFactoryImplTest.class.getResourceAsStream("/org/globalbioticinteractions/" + resource));
+            String[] line;
+            while ((line = parser.getLine()) != null) {
+                for (String value : line) {
+                    if (StringUtils.isNotBlank(value)) {
+                        names.add(value);
+                        names.add(StringUtils.upperCase(value));
+                        names.add(" " + value + " ");
+                        names.add("\"" + value + "\"");
+                    }
+                }
+            }
+        }
+        names.addAll(Arrays.asList("", " ", "foo", "eats?", "http://purl.obolibrary.org/obo/RO_999999"));
+        return names;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class ParallelGZIPOutputStreamTest {
+
+    @Test
+    public void compressMultipleBlocks() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            content.append("line ").append(i).append("\tsome value\tanother value\n");
+        }
+        byte[] uncompressed = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(compressed, 3, Deflater.BEST_SPEED, 1024)) {
+            os.write(uncompressed, 0, 100);
+            os.write(uncompressed[100]);
+            os.write(uncompressed, 101, uncompressed.length - 101);
+        }
+
+        assertThat(compressed.size(), lessThan(uncompressed.length));
+        assertThat(gunzip(compressed.toByteArray()), is(uncompressed));
+    }
+
+    @Test
+    public void flushPartialBlock() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(compressed, 2, Deflater.DEFAULT_COMPRESSION);
+        os.write("hello".getBytes(StandardCharsets.UTF_8));
+        os.flush();
+
+        assertThat(new String(gunzip(compressed.toByteArray()), StandardCharsets.UTF_8), is("hello"));
+
+        os.write(" world".getBytes(StandardCharsets.UTF_8));
+        os.close();
+
+        assertThat(new String(gunzip(compressed.toByteArray()), StandardCharsets.UTF_8), is("hello world"));
+    }
+
+    @Test
+    public void compressNothing() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGZIPOutputStream(compressed).close();
+
+        assertThat(gunzip(compressed.toByteArray()).length, is(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterClose() throws IOException {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(new ByteArrayOutputStream());
+        os.close();
+        os.write(1);
+    }
+
+    @Test
+    public void finishOnFailingOutput() throws IOException {
+        ParallelGZIPOutputStream os = new ParallelGZIPOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("kaboom!");
+            }
+        }, 2, Deflater.DEFAULT_COMPRESSION, 16);
+        os.write(new byte[10]);
+        try {
+            os.close();
+            fail("expected failure to write");
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), is("kaboom!"));
+        }
+
+        try {
+            os.write(1);
+            fail("expected stream to be finished");
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), is("cannot write to finished gzip stream"));
+        }
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+}
@@ -0,0 +1,249 @@
+package org.eol.globi.data.export;
+
+import com.redfin.sitemapgenerator.SitemapIndexGenerator;
+import com.redfin.sitemapgenerator.SitemapIndexUrl;
+import com.redfin.sitemapgenerator.WebSitemapGenerator;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Fun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Collects distinct query parameter values off-heap and writes them as site maps, split into shards by a hash of
+ * the value.
+ * <p>
+ * The number of shards only changes when the number of values (about) doubles, so a value keeps its shard across
+ * builds. Shards are written concurrently, and shards whose values did not change since the previous build
+ * (as recorded in {@link #SHARDS_FILE_NAME}) are left as is.
+ */
+
+public class SiteMapShards implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SiteMapShards.class);
+
+    static final String SHARDS_FILE_NAME = "sitemap_shards.tsv";
+
+    private static final String HOSTNAME = "www.globalbioticinteractions.org";
+    private static final String BASE_URL = "http://" + HOSTNAME;
+
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    private static final int TARGET_URLS_PER_SHARD = WebSitemapGenerator.MAX_URLS_PER_SITEMAP / 2;
+
+    private final DB db;
+    private final NavigableSet<Fun.Tuple2<Integer, String>> values;
+    private final int[] valuesPerSlot = new int[SLOT_COUNT];
+    private long size = 0;
+
+    public SiteMapShards() {
+        db = DBMaker
+                .newMemoryDirectDB()
+                .transactionDisable()
+                .make();
+        values = db
+                .createTreeSet(UUID.randomUUID().toString())
+                .serializer(BTreeKeySerializer.TUPLE2)
+                .make();
+    }
+
+    public synchronized void add(String value) {
+        int slot = slotFor(value);
+        if (values.add(Fun.t2(slot, value))) {
+            valuesPerSlot[slot]++;
+            size++;
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return site map files of all shards, including shards that were left as is
+     */
+
+    public List<File> write(File baseDir, String queryParamName, String siteMapLocation) throws IOException {
+        int shardCount = shardCount();
+        File shardsFile = new File(baseDir, SHARDS_FILE_NAME);
+        Map<String, String> previousHashes = readShardHashes(shardsFile);
+
+        List<Future<Shard>> shardsInProgress = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(shardCount, Runtime.getRuntime().availableProcessors()));
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                Shard shard = new Shard(baseDir, shardCount == 1 ? "sitemap" : "sitemap" + (i + 1), i, shardCount);
+                shardsInProgress.add(workers.submit(() -> shard.write(queryParamName, previousHashes.get(shard.fileName()))));
+            }
+
+            List<Shard> shards = new ArrayList<>();
+            for (Future<Shard> shardInProgress : shardsInProgress) {
+                shards.add(shardInProgress.get());
+            }
+            return writeIndex(baseDir, siteMapLocation, shardsFile, previousHashes, shards);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while writing site maps to [" + baseDir.getAbsolutePath() + "]");
+        } catch (ExecutionException e) {
+            throw new IOException("failed to write site maps to [" + baseDir.getAbsolutePath() + "]", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() {
+        db.close();
+    }
+
+    private List<File> writeIndex(File baseDir, String siteMapLocation, File shardsFile, Map<String, String> previousHashes, List<Shard> shards) throws IOException {
+        List<File> maps = new ArrayList<>();
+        List<String> shardHashes = new ArrayList<>();
+        SitemapIndexGenerator sig = new SitemapIndexGenerator.Options(siteMapLocation, new File(baseDir, "sitemap_index.xml"))
+                .build();
+        long reused = 0;
+        for (Shard shard : shards) {
+            if (shard.hash != null) {
+                File map = shard.file();
+                maps.add(map);
+                shardHashes.add(shard.fileName() + "\t" + shard.hash);
+                sig.addUrl(new SitemapIndexUrl(siteMapLocation + shard.fileName(), new Date(map.lastModified())));
+                previousHashes.remove(shard.fileName());
+                reused += shard.reused ? 1 : 0;
+            }
+        }
+        sig.write();
+
+        for (String staleFileName : previousHashes.keySet()) {
+            FileUtils.deleteQuietly(new File(baseDir, staleFileName));
+        }
+        FileUtils.writeLines(shardsFile, StandardCharsets.UTF_8.name(), shardHashes);
+        LOG.info("wrote [" + (maps.size() - reused) + "] and kept [" + reused + "] site maps in [" + baseDir.getAbsolutePath() + "]");
+        return maps;
+    }
+
+    // smallest power of two with shards that fit in a site map
+    int shardCount() {
+        int shardCount = 1;
+        while (shardCount < SLOT_COUNT
+                && (shardCount * (long) TARGET_URLS_PER_SHARD < size || maxValuesPerShard(shardCount) > WebSitemapGenerator.MAX_URLS_PER_SITEMAP)) {
+            shardCount *= 2;
+        }
+        return shardCount;
+    }
+
+    private int maxValuesPerShard(int shardCount) {
+        int slotsPerShard = SLOT_COUNT / shardCount;
+        int max = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            int count = 0;
+            for (int slot = shard * slotsPerShard; slot < (shard + 1) * slotsPerShard; slot++) {
+                count += valuesPerSlot[slot];
+            }
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    static int slotFor(String value) {
+        // String.hashCode is stable across jvms, mixed (murmur3 finalizer) to spread short values over all slots
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h >>> (Integer.SIZE - SLOT_BITS);
+    }
+
+    private static Map<String, String> readShardHashes(File shardsFile) throws IOException {
+        Map<String, String> hashes = new TreeMap<>();
+        if (shardsFile.exists()) {
+            for (String line : FileUtils.readLines(shardsFile, StandardCharsets.UTF_8)) {
+                String[] fileNameAndHash = StringUtils.split(line, '\t');
+                if (fileNameAndHash.length == 2) {
+                    hashes.put(fileNameAndHash[0], fileNameAndHash[1]);
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private class Shard {
+        private final File baseDir;
+        private final String fileNamePrefix;
+        private final NavigableSet<Fun.Tuple2<Integer, String>> shardValues;
+        private String hash = null;
+        private boolean reused = false;
+
+        Shard(File baseDir, String fileNamePrefix, int shard, int shardCount) {
+            this.baseDir = baseDir;
+            this.fileNamePrefix = fileNamePrefix;
+            int slotsPerShard = SLOT_COUNT / shardCount;
+            Fun.Tuple2<Integer, String> from = Fun.t2(shard * slotsPerShard, null);
+            Fun.Tuple2<Integer, String> to = Fun.t2((shard + 1) * slotsPerShard, null);
+            this.shardValues = values.subSet(from, true, to, false);
+        }
+
+        String fileName() {
+            return fileNamePrefix + ".xml.gz";
+        }
+
+        File file() {
+            return new File(baseDir, fileName());
+        }
+
+        Shard write(String queryParamName, String previousHash) throws IOException {
+            if (!shardValues.isEmpty()) {
+                hash = hashOf(queryParamName);
+                if (StringUtils.equals(hash, previousHash) && file().exists()) {
+                    reused = true;
+                } else {
+                    WebSitemapGenerator wsg = WebSitemapGenerator.builder(BASE_URL, baseDir)
+                            .fileNamePrefix(fileNamePrefix)
+                            .gzip(true)
+                            .build();
+                    Date lastMod = new Date();
+                    for (Fun.Tuple2<Integer, String> value : shardValues) {
+                        wsg.addUrl(SiteMapUtils.urlFor(HOSTNAME, queryParamName, value.b, lastMod));
+                    }
+                    wsg.write();
+                }
+            }
+            return this;
+        }
+
+        private String hashOf(String queryParamName) {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            digest.update(queryParamName.getBytes(StandardCharsets.UTF_8));
+            for (Fun.Tuple2<Integer, String> value : shardValues) {
+                digest.update((byte) '\n');
+                digest.update(value.b.getBytes(StandardCharsets.UTF_8));
+            }
+            return Hex.encodeHexString(digest.digest());
+        }
+    }
+
+}
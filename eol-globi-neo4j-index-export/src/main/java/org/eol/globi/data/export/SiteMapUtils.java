@@ -1,8 +1,6 @@
 package org.eol.globi.data.export;
 
 import com.redfin.sitemapgenerator.ChangeFreq;
-import com.redfin.sitemapgenerator.SitemapIndexGenerator;
-import com.redfin.sitemapgenerator.WebSitemapGenerator;
 import com.redfin.sitemapgenerator.WebSitemapUrl;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.text.StringEscapeUtils;
@@ -18,41 +16,34 @@ import java.util.Set;
 
 public class SiteMapUtils {
     public static List<File> generateSiteMapFor(String queryParamName, Set<String> queryParamValues, File baseDir, String siteMapLocation) throws IOException {
-        final String hostname = "www.globalbioticinteractions.org";
-        final String baseUrl = "http://" + hostname;
-        WebSitemapGenerator wsg = WebSitemapGenerator.builder(baseUrl, baseDir)
-                .gzip(true)
-                .build();
-        for (String accordingTo : queryParamValues) {
-            URI uri;
-            try {
-                uri = new URI("http", hostname, "/", queryParamName + accordingTo, null);
-            } catch (URISyntaxException e) {
-                throw new IOException("unexpected malformed uri", e);
-            }
-            WebSitemapUrl url = new WebSitemapUrl.Options(StringEscapeUtils.escapeXml10(uri.toString()))
-                    .lastMod(new Date()).priority(1.0).changeFreq(ChangeFreq.WEEKLY).build();
-            wsg.addUrl(url);
+        try (SiteMapShards shards = new SiteMapShards()) {
+            queryParamValues.forEach(shards::add);
+            return shards.write(baseDir, queryParamName, siteMapLocation);
         }
-        final List<File> maps = wsg.write();
+    }
 
-        File outFile = new File(baseDir, "sitemap_index.xml");
-        SitemapIndexGenerator sig = (new SitemapIndexGenerator.Options(siteMapLocation, outFile))
-                .build();
-        if (maps.size() > 1) {
-            sig.addUrls(siteMapLocation + "sitemap", ".xml.gz", maps.size()).write();
-        }  else {
-            sig.addUrl(siteMapLocation + "sitemap.xml.gz");
+    static WebSitemapUrl urlFor(String hostname, String queryParamName, String queryParamValue, Date lastMod) throws IOException {
+        URI uri;
+        try {
+            uri = new URI("http", hostname, "/", queryParamName + queryParamValue, null);
+        } catch (URISyntaxException e) {
+            throw new IOException("unexpected malformed uri", e);
         }
-        sig.write();
-
-        return maps;
+        return new WebSitemapUrl.Options(StringEscapeUtils.escapeXml10(uri.toString()))
+                .lastMod(lastMod).priority(1.0).changeFreq(ChangeFreq.WEEKLY).build();
     }
 
     public static void generateSiteMap(Set<String> names, File baseDir, String queryParamName, String siteMapLocation) throws StudyImporterException {
+        try (SiteMapShards shards = new SiteMapShards()) {
+            names.forEach(shards::add);
+            generateSiteMap(shards, baseDir, queryParamName, siteMapLocation);
+        }
+    }
+
+    public static void generateSiteMap(SiteMapShards shards, File baseDir, String queryParamName, String siteMapLocation) throws StudyImporterException {
         try {
             FileUtils.forceMkdir(baseDir);
-            generateSiteMapFor(queryParamName, names, baseDir, siteMapLocation);
+            shards.write(baseDir, queryParamName, siteMapLocation);
         } catch (IOException e) {
             throw new StudyImporterException("failed to generate site map", e);
         }
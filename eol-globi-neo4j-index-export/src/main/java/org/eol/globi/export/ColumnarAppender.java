@@ -0,0 +1,308 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes appended rows (the first being the column names) column by column, with dictionary encoded values,
+ * partitioned by the values of a partition column:
+ * <pre>
+ * columns.tsv                                          column names, in order
+ * partitions.tsv                                       partition value, partition directory and number of rows
+ * [column].dict.tsv.gz                                 distinct (tsv escaped) values of a column, the n-th line for code n
+ * [partition column]=[value]/[column].codes.gz         codes of the values in a partition, as 32-bit big-endian integers
+ * [partition column]=[value]/[column].values.tsv.gz    (tsv escaped) values in a partition, for columns without dictionary
+ * </pre>
+ * Consumers only read the columns and partitions they need, and can look up the codes of values before scanning.
+ * Codes are spilled to temporary files while rows are appended and split into partitions on {@link #close()}.
+ * <p>
+ * Dictionaries are kept in memory up to a maximum number of distinct values per column. Columns with more distinct
+ * values (e.g., identifiers) are written as plain values instead. The partition column is always dictionary encoded.
+ */
+
+class ColumnarAppender implements ExportUtil.Appender, Closeable {
+
+    static final int MAX_DICTIONARY_SIZE_DEFAULT = 1 << 16;
+
+    // marks a spilled value that is written in full rather than by code
+    private static final int PLAIN_VALUE = -1;
+
+    private final File dir;
+    private final String partitionColumn;
+    private final int maxDictionarySize;
+
+    private String[] columns = null;
+    private int partitionColumnIndex;
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    private final List<Writer> dictionaryWriters = new ArrayList<>();
+    private final List<DataOutputStream> codeSpills = new ArrayList<>();
+    private final List<String> partitionValues = new ArrayList<>();
+    private final StringBuilderWriter escaped = new StringBuilderWriter();
+    private long rowCount = 0;
+
+    ColumnarAppender(File dir, String partitionColumn) {
+        this(dir, partitionColumn, MAX_DICTIONARY_SIZE_DEFAULT);
+    }
+
+    ColumnarAppender(File dir, String partitionColumn, int maxDictionarySize) {
+        this.dir = dir;
+        this.partitionColumn = partitionColumn;
+        this.maxDictionarySize = maxDictionarySize;
+    }
+
+    @Override
+    public void append(Stream<String> values) throws IOException {
+        append(values.toArray(String[]::new));
+    }
+
+    @Override
+    public void append(String[] values) throws IOException {
+        if (columns == null) {
+            init(values);
+        } else {
+            for (int i = 0; i < columns.length; i++) {
+                String value = escape(i < values.length ? values[i] : null);
+                DataOutputStream codeSpill = codeSpills.get(i);
+                int code = codeFor(i, value);
+                codeSpill.writeInt(code);
+                if (code == PLAIN_VALUE) {
+                    writeValue(codeSpill, value);
+                }
+            }
+            rowCount++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (columns != null) {
+            try {
+                closeAll(dictionaryWriters);
+                closeAll(codeSpills);
+                List<File> partitionDirs = writePartitions();
+                writeColumns();
+                writePartitionSummary(partitionDirs);
+            } finally {
+                for (int i = 0; i < columns.length; i++) {
+                    FileUtils.deleteQuietly(codeSpill(i));
+                }
+            }
+        }
+    }
+
+    private void init(String[] columnNames) throws IOException {
+        columns = columnNames.clone();
+        partitionColumnIndex = Arrays.asList(columns).indexOf(partitionColumn);
+        if (partitionColumnIndex < 0) {
+            throw new IOException("partition column [" + partitionColumn + "] not found in columns [" + StringUtils.join(columns, ",") + "]");
+        }
+        if (dir.exists()) {
+            FileUtils.deleteDirectory(dir);
+        }
+        FileUtils.forceMkdir(dir);
+        for (int i = 0; i < columns.length; i++) {
+            dictionaries.add(new HashMap<>());
+            dictionaryWriters.add(new BufferedWriter(new OutputStreamWriter(
+                    gzipOutputStream(dictionaryFile(i)),
+                    StandardCharsets.UTF_8)));
+            codeSpills.add(new DataOutputStream(new BufferedOutputStream(new FileOutputStream(codeSpill(i)), 64 * 1024)));
+        }
+    }
+
+    // values are keyed as written, so that values that only differ in (escaped) whitespace share a code
+    private String escape(String value) throws IOException {
+        escaped.getBuilder().setLength(0);
+        ExportUtil.TsvValueJoiner.writeTsvValue(escaped, value);
+        return escaped.toString();
+    }
+
+    private int codeFor(int column, String value) throws IOException {
+        Map<String, Integer> dictionary = dictionaries.get(column);
+        if (dictionary == null) {
+            return PLAIN_VALUE;
+        }
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            if (dictionary.size() == maxDictionarySize && column != partitionColumnIndex) {
+                // codes spilled so far are resolved using the dictionary file
+                dictionaries.set(column, null);
+                return PLAIN_VALUE;
+            }
+            code = dictionary.size();
+            dictionary.put(value, code);
+            Writer dictionaryWriter = dictionaryWriters.get(column);
+            dictionaryWriter.write(value);
+            dictionaryWriter.write('\n');
+            if (column == partitionColumnIndex) {
+                partitionValues.add(value);
+            }
+        }
+        return code;
+    }
+
+    // splits the codes of each column into partitions, one column at a time to limit the number of open files
+    private List<File> writePartitions() throws IOException {
+        List<File> partitionDirs = new ArrayList<>();
+        for (String partitionValue : partitionValues) {
+            File partitionDir = new File(dir, partitionColumn + "=" + encode(partitionValue));
+            FileUtils.forceMkdir(partitionDir);
+            partitionDirs.add(partitionDir);
+        }
+        for (int column = 0; column < columns.length; column++) {
+            if (dictionaries.get(column) == null) {
+                writePlainPartitions(column, partitionDirs);
+            } else {
+                writeCodePartitions(column, partitionDirs);
+            }
+        }
+        return partitionDirs;
+    }
+
+    private void writeCodePartitions(int column, List<File> partitionDirs) throws IOException {
+        List<DataOutputStream> partitions = new ArrayList<>();
+        try (DataInputStream partitionCodes = openSpill(partitionColumnIndex);
+             DataInputStream codes = openSpill(column)) {
+            for (File partitionDir : partitionDirs) {
+                partitions.add(new DataOutputStream(new BufferedOutputStream(
+                        gzipOutputStream(new File(partitionDir, columns[column] + ".codes.gz")))));
+            }
+            for (long row = 0; row < rowCount; row++) {
+                int partition = partitionCodes.readInt();
+                int code = codes.readInt();
+                partitions.get(partition).writeInt(code);
+            }
+        } finally {
+            closeAll(partitions);
+        }
+    }
+
+    private void writePlainPartitions(int column, List<File> partitionDirs) throws IOException {
+        String[] dictionary = readDictionary(column);
+        List<Writer> partitions = new ArrayList<>();
+        try (DataInputStream partitionCodes = openSpill(partitionColumnIndex);
+             DataInputStream codes = openSpill(column)) {
+            for (File partitionDir : partitionDirs) {
+                partitions.add(new BufferedWriter(new OutputStreamWriter(
+                        gzipOutputStream(new File(partitionDir, columns[column] + ".values.tsv.gz")),
+                        StandardCharsets.UTF_8)));
+            }
+            for (long row = 0; row < rowCount; row++) {
+                int partition = partitionCodes.readInt();
+                int code = codes.readInt();
+                Writer writer = partitions.get(partition);
+                writer.write(code == PLAIN_VALUE ? readValue(codes) : dictionary[code]);
+                writer.write('\n');
+            }
+        } finally {
+            closeAll(partitions);
+        }
+        FileUtils.deleteQuietly(dictionaryFile(column));
+    }
+
+    private String[] readDictionary(int column) throws IOException {
+        String[] dictionary = new String[maxDictionarySize];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(dictionaryFile(column)), 64 * 1024),
+                StandardCharsets.UTF_8))) {
+            for (int code = 0; code < dictionary.length; code++) {
+                dictionary[code] = reader.readLine();
+            }
+        }
+        return dictionary;
+    }
+
+    private static void writeValue(DataOutputStream spill, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        spill.writeInt(bytes.length);
+        spill.write(bytes);
+    }
+
+    private static String readValue(DataInputStream spill) throws IOException {
+        byte[] bytes = new byte[spill.readInt()];
+        spill.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeColumns() throws IOException {
+        FileUtils.writeLines(new File(dir, "columns.tsv"), StandardCharsets.UTF_8.name(), Arrays.asList(columns));
+    }
+
+    private void writePartitionSummary(List<File> partitionDirs) throws IOException {
+        long[] rowsPerPartition = new long[partitionDirs.size()];
+        try (DataInputStream partitionCodes = openSpill(partitionColumnIndex)) {
+            for (long row = 0; row < rowCount; row++) {
+                rowsPerPartition[partitionCodes.readInt()]++;
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(partitionColumn + "\tpath\trows");
+        for (int i = 0; i < partitionDirs.size(); i++) {
+            lines.add(partitionValues.get(i) + "\t" + partitionDirs.get(i).getName() + "\t" + rowsPerPartition[i]);
+        }
+        FileUtils.writeLines(new File(dir, "partitions.tsv"), StandardCharsets.UTF_8.name(), lines);
+    }
+
+    private File dictionaryFile(int column) {
+        return new File(dir, columns[column] + ".dict.tsv.gz");
+    }
+
+    private File codeSpill(int column) {
+        return new File(dir, "." + column + ".codes.tmp");
+    }
+
+    private DataInputStream openSpill(int column) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(codeSpill(column)), 64 * 1024));
+    }
+
+    // many dictionary and partition files are open at once, so they are compressed in the writing thread
+    private static OutputStream gzipOutputStream(File file) throws IOException {
+        return new GZIPOutputStream(new FileOutputStream(file), 8 * 1024);
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+
+    private static void closeAll(List<? extends Closeable> closeables) throws IOException {
+        IOException lastException = null;
+        for (Closeable closeable : closeables) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                lastException = e;
+            }
+        }
+        if (lastException != null) {
+            throw lastException;
+        }
+    }
+
+}
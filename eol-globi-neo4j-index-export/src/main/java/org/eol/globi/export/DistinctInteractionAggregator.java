@@ -0,0 +1,233 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Aggregates (study, source taxon, interaction type, target taxon) tuples into distinct target taxa
+ * per study, source taxon and interaction type using an external merge sort.
+ * <p>
+ * Tuples are buffered in memory up to a fixed number, then sorted, de-duplicated and spilled to a temporary file.
+ * On {@link #aggregate(Listener)}, spilled files are merged and groups are handed to the listener in order of
+ * study id, source taxon id and interaction type, with distinct target taxon ids in ascending order.
+ */
+
+class DistinctInteractionAggregator implements Closeable {
+
+    static final int DEFAULT_MAX_TUPLES_IN_MEMORY = 1000000;
+
+    private static final Comparator<Tuple> TUPLE_ORDER = Comparator
+            .comparingLong((Tuple tuple) -> tuple.studyId)
+            .thenComparing(tuple -> tuple.sourceTaxonId)
+            .thenComparing(tuple -> tuple.interactionType)
+            .thenComparing(tuple -> tuple.targetTaxonId);
+
+    private final int maxTuplesInMemory;
+    private final List<Tuple> tuples = new ArrayList<>();
+    private final List<File> spills = new ArrayList<>();
+
+    DistinctInteractionAggregator() {
+        this(DEFAULT_MAX_TUPLES_IN_MEMORY);
+    }
+
+    DistinctInteractionAggregator(int maxTuplesInMemory) {
+        if (maxTuplesInMemory < 1) {
+            throw new IllegalArgumentException("expected to buffer at least one tuple, but got [" + maxTuplesInMemory + "]");
+        }
+        this.maxTuplesInMemory = maxTuplesInMemory;
+    }
+
+    void add(long studyId, String sourceTaxonId, String interactionType, String targetTaxonId) throws IOException {
+        tuples.add(new Tuple(studyId, sourceTaxonId, interactionType, targetTaxonId));
+        if (tuples.size() >= maxTuplesInMemory) {
+            spill();
+        }
+    }
+
+    void aggregate(Listener listener) throws IOException {
+        if (spills.isEmpty()) {
+            tuples.sort(TUPLE_ORDER);
+            Iterator<Tuple> iterator = tuples.iterator();
+            emitGroups(() -> iterator.hasNext() ? iterator.next() : null, listener);
+        } else {
+            spill();
+            List<SpillReader> readers = new ArrayList<>();
+            try {
+                for (File spill : spills) {
+                    readers.add(new SpillReader(spill));
+                }
+                emitGroups(new MergingSource(readers), listener);
+            } finally {
+                readers.forEach(IOUtils::closeQuietly);
+            }
+        }
+        tuples.clear();
+    }
+
+    @Override
+    public void close() {
+        tuples.clear();
+        spills.forEach(FileUtils::deleteQuietly);
+        spills.clear();
+    }
+
+    private void spill() throws IOException {
+        if (!tuples.isEmpty()) {
+            tuples.sort(TUPLE_ORDER);
+            File spill = File.createTempFile("globi-distinct-interactions", ".bin");
+            spills.add(spill);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spill)))) {
+                Tuple previous = null;
+                for (Tuple tuple : tuples) {
+                    if (previous == null || TUPLE_ORDER.compare(previous, tuple) != 0) {
+                        tuple.writeTo(out);
+                    }
+                    previous = tuple;
+                }
+                Tuple.writeEndOfTuples(out);
+            }
+            tuples.clear();
+        }
+    }
+
+    private static void emitGroups(TupleSource source, Listener listener) throws IOException {
+        Tuple previous = null;
+        List<String> targetTaxonIds = new ArrayList<>();
+        for (Tuple tuple = source.next(); tuple != null; tuple = source.next()) {
+            if (previous != null && TUPLE_ORDER.compare(previous, tuple) == 0) {
+                continue;
+            }
+            if (previous != null && !previous.sameGroupAs(tuple)) {
+                listener.on(previous.studyId, previous.sourceTaxonId, previous.interactionType, targetTaxonIds);
+                targetTaxonIds = new ArrayList<>();
+            }
+            targetTaxonIds.add(tuple.targetTaxonId);
+            previous = tuple;
+        }
+        if (previous != null) {
+            listener.on(previous.studyId, previous.sourceTaxonId, previous.interactionType, targetTaxonIds);
+        }
+    }
+
+    interface Listener {
+        void on(long studyId, String sourceTaxonId, String interactionType, List<String> targetTaxonIds) throws IOException;
+    }
+
+    private interface TupleSource {
+        // returns null when no more tuples are available
+        Tuple next() throws IOException;
+    }
+
+    private static class MergingSource implements TupleSource {
+        private final PriorityQueue<SpillReader> queue = new PriorityQueue<>(
+                (one, other) -> TUPLE_ORDER.compare(one.current, other.current));
+
+        MergingSource(List<SpillReader> readers) throws IOException {
+            for (SpillReader reader : readers) {
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        }
+
+        @Override
+        public Tuple next() throws IOException {
+            SpillReader reader = queue.poll();
+            Tuple next = null;
+            if (reader != null) {
+                next = reader.current;
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            return next;
+        }
+    }
+
+    private static class SpillReader implements Closeable {
+        private final DataInputStream in;
+        private Tuple current;
+
+        SpillReader(File spill) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(spill)));
+        }
+
+        boolean advance() throws IOException {
+            current = Tuple.readFrom(in);
+            return current != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class Tuple {
+        private final long studyId;
+        private final String sourceTaxonId;
+        private final String interactionType;
+        private final String targetTaxonId;
+
+        Tuple(long studyId, String sourceTaxonId, String interactionType, String targetTaxonId) {
+            this.studyId = studyId;
+            this.sourceTaxonId = sourceTaxonId;
+            this.interactionType = interactionType;
+            this.targetTaxonId = targetTaxonId;
+        }
+
+        boolean sameGroupAs(Tuple other) {
+            return studyId == other.studyId
+                    && sourceTaxonId.equals(other.sourceTaxonId)
+                    && interactionType.equals(other.interactionType);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeBoolean(true);
+            out.writeLong(studyId);
+            writeString(out, sourceTaxonId);
+            writeString(out, interactionType);
+            writeString(out, targetTaxonId);
+        }
+
+        static void writeEndOfTuples(DataOutputStream out) throws IOException {
+            out.writeBoolean(false);
+        }
+
+        static Tuple readFrom(DataInputStream in) throws IOException {
+            return in.readBoolean()
+                    ? new Tuple(in.readLong(), readString(in), readString(in), readString(in))
+                    : null;
+        }
+
+        // unlike writeUTF, not limited to 64k bytes
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+}
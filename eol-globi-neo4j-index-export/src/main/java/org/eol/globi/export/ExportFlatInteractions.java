@@ -1,5 +1,6 @@
 package org.eol.globi.export;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
@@ -10,6 +11,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,6 +29,9 @@ public class ExportFlatInteractions implements GraphExporter {
 
     private RelTypes argumentType = RelTypes.SUPPORTS;
     private String argumentTypeId = PropertyAndValueDictionary.SUPPORTS;
+    private boolean traverseGraph = false;
+    private ExportPartitions partitions = null;
+    private ExportUtil.Appender alsoAppendTo = null;
 
     public ExportFlatInteractions(ExportUtil.ValueJoiner joiner, String filename) {
         this(joiner, filename, RelTypes.CLASSIFIED_AS);
@@ -54,117 +59,150 @@ public class ExportFlatInteractions implements GraphExporter {
         );
     }
 
+    static final String[][] TAXON_COLUMNS = {
+            {"externalId", "TaxonId"},
+            {"nameIds", "TaxonIds"},
+            {"name", "TaxonName"},
+            {"rank", "TaxonRank"},
+            {"path", "TaxonPathNames"},
+            {"pathIds", "TaxonPathIds"},
+            {"pathNames", "TaxonPathRankNames"},
+            {"speciesName", "TaxonSpeciesName"},
+            {"speciesId", "TaxonSpeciesId"},
+            {"subgenusName", "TaxonSubgenusName"},
+            {"subgenusId", "TaxonSubgenusId"},
+            {"genusName", "TaxonGenusName"},
+            {"genusId", "TaxonGenusId"},
+            {"familyName", "TaxonFamilyName"},
+            {"familyId", "TaxonFamilyId"},
+            {"orderName", "TaxonOrderName"},
+            {"orderId", "TaxonOrderId"},
+            {"className", "TaxonClassName"},
+            {"classId", "TaxonClassId"},
+            {"phylumName", "TaxonPhylumName"},
+            {"phylumId", "TaxonPhylumId"},
+            {"kingdomName", "TaxonKingdomName"},
+            {"kingdomId", "TaxonKingdomId"}
+    };
+
+    static final String[][] SPECIMEN_COLUMNS = {
+            {"externalId", "Id"},
+            {"occurrenceID", "OccurrenceId"},
+            {"institutionCode", "InstitutionCode"},
+            {"collectionCode", "CollectionCode"},
+            {"catalogNumber", "CatalogNumber"},
+            {"basisOfRecordId", "BasisOfRecordId"},
+            {"basisOfRecordLabel", "BasisOfRecordName"},
+            {SpecimenConstant.LIFE_STAGE_ID, "LifeStageId"},
+            {SpecimenConstant.LIFE_STAGE_LABEL, "LifeStageName"},
+            {SpecimenConstant.BODY_PART_ID, "BodyPartId"},
+            {SpecimenConstant.BODY_PART_LABEL, "BodyPartName"},
+            {SpecimenConstant.PHYSIOLOGICAL_STATE_ID, "PhysiologicalStateId"},
+            {SpecimenConstant.PHYSIOLOGICAL_STATE_LABEL, "PhysiologicalStateName"},
+            {SpecimenConstant.SEX_ID, "SexId"},
+            {SpecimenConstant.SEX_LABEL, "SexName"}
+    };
+
+    static final String[][] INTERACTION_COLUMNS = {
+            {"label", "interactionTypeName"},
+            {"iri", "interactionTypeId"}
+    };
+
+    static final String[][] LOCATION_COLUMNS = {
+            {"latitude", "decimalLatitude"},
+            {"longitude", "decimalLongitude"},
+            {"localityId", "localityId"},
+            {"locality", "localityName"}
+    };
+
+    static final String[][] ARGUMENT_COLUMNS = {
+            {"eventDate", "eventDate"}
+    };
+
+    static final String ARGUMENT_TYPE_ID_COLUMN = "argumentTypeId";
+
+    static final String[][] STUDY_COLUMNS = {
+            {"citation", "referenceCitation"},
+            {"doi", "referenceDoi"},
+            {"externalUrl", "referenceUrl"}
+    };
+
+    static final String[][] DATASET_COLUMNS = {
+            {DatasetConstant.CITATION, "sourceCitation"},
+            {DatasetConstant.NAMESPACE, "sourceNamespace"},
+            {DatasetConstant.ARCHIVE_URI, "sourceArchiveURI"},
+            {DatasetConstant.DOI, "sourceDOI"},
+            {DatasetConstant.LAST_SEEN_AT, "sourceLastSeenAtUnixEpoch"}
+    };
+
     private static String createQuery(RelTypes argumentTypeRel, String argumentTypeId, RelTypes taxonRelation, String prefix) {
         String argumentType = argumentTypeRel.name();
-        return prefix +
-                "MATCH (dataset)<-[:IN_DATASET]-(study)-[c:" + argumentType + "]->(sourceSpecimen)-[:" + taxonRelation.name() + "]->(sourceTaxon), " +
-                "(sourceSpecimen)-[r:" + InteractUtil.allInteractionsCypherClause() + "]->(targetSpecimen)-[:" + taxonRelation.name() + "]->(targetTaxon) " +
-                "WHERE NOT exists(r.inverted) " +
-                "WITH dataset, study, c, sourceSpecimen, sourceTaxon, targetSpecimen, targetTaxon, r " +
-                "OPTIONAL MATCH (sourceSpecimen)-[:COLLECTED_AT]->(loc) " +
-                "RETURN " +
-                "sourceTaxon.externalId as sourceTaxonId" +
-                ", sourceTaxon.nameIds as sourceTaxonIds" +
-                ", sourceTaxon.name as sourceTaxonName" +
-                ", sourceTaxon.rank as sourceTaxonRank" +
-                ", sourceTaxon.path as sourceTaxonPathNames" +
-                ", sourceTaxon.pathIds as sourceTaxonPathIds" +
-                ", sourceTaxon.pathNames as sourceTaxonPathRankNames" +
-                ", sourceTaxon.speciesName as sourceTaxonSpeciesName" +
-                ", sourceTaxon.speciesId as sourceTaxonSpeciesId" +
-                ", sourceTaxon.subgenusName as sourceTaxonSubgenusName" +
-                ", sourceTaxon.subgenusId as sourceTaxonSubgenusId" +
-                ", sourceTaxon.genusName as sourceTaxonGenusName" +
-                ", sourceTaxon.genusId as sourceTaxonGenusId" +
-                ", sourceTaxon.familyName as sourceTaxonFamilyName" +
-                ", sourceTaxon.familyId as sourceTaxonFamilyId" +
-                ", sourceTaxon.orderName as sourceTaxonOrderName" +
-                ", sourceTaxon.orderId as sourceTaxonOrderId" +
-                ", sourceTaxon.className as sourceTaxonClassName" +
-                ", sourceTaxon.classId as sourceTaxonClassId" +
-                ", sourceTaxon.phylumName as sourceTaxonPhylumName" +
-                ", sourceTaxon.phylumId as sourceTaxonPhylumId" +
-                ", sourceTaxon.kingdomName as sourceTaxonKingdomName" +
-                ", sourceTaxon.kingdomId as sourceTaxonKingdomId" +
-                ", sourceSpecimen.externalId as sourceId" +
-                ", sourceSpecimen.occurrenceID as sourceOccurrenceId" +
-                ", sourceSpecimen.institutionCode as sourceInstitutionCode" +
-                ", sourceSpecimen.collectionCode as sourceCollectionCode" +
-                ", sourceSpecimen.catalogNumber as sourceCatalogNumber" +
-                ", sourceSpecimen.basisOfRecordId as sourceBasisOfRecordId" +
-                ", sourceSpecimen.basisOfRecordLabel as sourceBasisOfRecordName" +
-                ", sourceSpecimen." + SpecimenConstant.LIFE_STAGE_ID + " as sourceLifeStageId" +
-                ", sourceSpecimen." + SpecimenConstant.LIFE_STAGE_LABEL + " as sourceLifeStageName" +
-                ", sourceSpecimen." + SpecimenConstant.BODY_PART_ID + " as sourceBodyPartId" +
-                ", sourceSpecimen." + SpecimenConstant.BODY_PART_LABEL + " as sourceBodyPartName" +
-                ", sourceSpecimen." + SpecimenConstant.PHYSIOLOGICAL_STATE_ID + " as sourcePhysiologicalStateId" +
-                ", sourceSpecimen." + SpecimenConstant.PHYSIOLOGICAL_STATE_LABEL + " as sourcePhysiologicalStateName" +
-                ", sourceSpecimen." + SpecimenConstant.SEX_ID + " as sourceSexId" +
-                ", sourceSpecimen." + SpecimenConstant.SEX_LABEL + " as sourceSexName" +
-                ", r.label as interactionTypeName" +
-                ", r.iri as interactionTypeId" +
-                ", targetTaxon.externalId as targetTaxonId" +
-                ", targetTaxon.nameIds as targetTaxonIds" +
-                ", targetTaxon.name as targetTaxonName" +
-                ", targetTaxon.rank as targetTaxonRank" +
-                ", targetTaxon.path as targetTaxonPathNames" +
-                ", targetTaxon.pathIds as targetTaxonPathIds" +
-                ", targetTaxon.pathNames as targetTaxonPathRankNames" +
-                ", targetTaxon.speciesName as targetTaxonSpeciesName" +
-                ", targetTaxon.speciesId as targetTaxonSpeciesId" +
-                ", targetTaxon.subgenusName as targetTaxonSubgenusName" +
-                ", targetTaxon.subgenusId as targetTaxonSubgenusId" +
-                ", targetTaxon.genusName as targetTaxonGenusName" +
-                ", targetTaxon.genusId as targetTaxonGenusId" +
-                ", targetTaxon.familyName as targetTaxonFamilyName" +
-                ", targetTaxon.familyId as targetTaxonFamilyId" +
-                ", targetTaxon.orderName as targetTaxonOrderName" +
-                ", targetTaxon.orderId as targetTaxonOrderId" +
-                ", targetTaxon.className as targetTaxonClassName" +
-                ", targetTaxon.classId as targetTaxonClassId" +
-                ", targetTaxon.phylumName as targetTaxonPhylumName" +
-                ", targetTaxon.phylumId as targetTaxonPhylumId" +
-                ", targetTaxon.kingdomName as targetTaxonKingdomName" +
-                ", targetTaxon.kingdomId as targetTaxonKingdomId" +
-                ", targetSpecimen.externalId as targetId" +
-                ", targetSpecimen.occurrenceID as targetOccurrenceId" +
-                ", targetSpecimen.institutionCode as targetInstitutionCode" +
-                ", targetSpecimen.collectionCode as targetCollectionCode" +
-                ", targetSpecimen.catalogNumber as targetCatalogNumber" +
-                ", targetSpecimen.basisOfRecordId as targetBasisOfRecordId" +
-                ", targetSpecimen.basisOfRecordLabel as targetBasisOfRecordName" +
-                ", targetSpecimen." + SpecimenConstant.LIFE_STAGE_ID + " as targetLifeStageId" +
-                ", targetSpecimen." + SpecimenConstant.LIFE_STAGE_LABEL + " as targetLifeStageName" +
-                ", targetSpecimen." + SpecimenConstant.BODY_PART_ID + " as targetBodyPartId" +
-                ", targetSpecimen." + SpecimenConstant.BODY_PART_LABEL + " as targetBodyPartName" +
-                ", targetSpecimen." + SpecimenConstant.PHYSIOLOGICAL_STATE_ID + " as targetPhysiologicalStateId" +
-                ", targetSpecimen." + SpecimenConstant.PHYSIOLOGICAL_STATE_LABEL + " as targetPhysiologicalStateName" +
-                ", targetSpecimen." + SpecimenConstant.SEX_ID + " as targetSexId" +
-                ", targetSpecimen." + SpecimenConstant.SEX_LABEL + " as targetSexName" +
-                ", loc.latitude as decimalLatitude" +
-                ", loc.longitude as decimalLongitude" +
-                ", loc.localityId as localityId" +
-                ", loc.locality as localityName" +
-                ", c.eventDate as eventDate" +
-                ", '" + argumentTypeId + "' as argumentTypeId" +
-                ", study.citation as referenceCitation" +
-                ", study.doi as referenceDoi" +
-                ", study.externalUrl as referenceUrl" +
-                ", dataset." + DatasetConstant.CITATION + " as sourceCitation" +
-                ", dataset." + DatasetConstant.NAMESPACE + " as sourceNamespace" +
-                ", dataset." + DatasetConstant.ARCHIVE_URI + " as sourceArchiveURI" +
-                ", dataset." + DatasetConstant.DOI + " as sourceDOI" +
-                ", dataset." + DatasetConstant.LAST_SEEN_AT + " as sourceLastSeenAtUnixEpoch";
+        StringBuilder query = new StringBuilder(prefix)
+                .append("MATCH (dataset)<-[:IN_DATASET]-(study)-[c:").append(argumentType).append("]->(sourceSpecimen)-[:").append(taxonRelation.name()).append("]->(sourceTaxon), ")
+                .append("(sourceSpecimen)-[r:").append(InteractUtil.allInteractionsCypherClause()).append("]->(targetSpecimen)-[:").append(taxonRelation.name()).append("]->(targetTaxon) ")
+                .append("WHERE NOT exists(r.inverted) ")
+                .append("WITH dataset, study, c, sourceSpecimen, sourceTaxon, targetSpecimen, targetTaxon, r ")
+                .append("OPTIONAL MATCH (sourceSpecimen)-[:COLLECTED_AT]->(loc) ")
+                .append("RETURN ");
+        List<String> columns = new ArrayList<>();
+        addReturnColumns(columns, "sourceTaxon", TAXON_COLUMNS, "source");
+        addReturnColumns(columns, "sourceSpecimen", SPECIMEN_COLUMNS, "source");
+        addReturnColumns(columns, "r", INTERACTION_COLUMNS, "");
+        addReturnColumns(columns, "targetTaxon", TAXON_COLUMNS, "target");
+        addReturnColumns(columns, "targetSpecimen", SPECIMEN_COLUMNS, "target");
+        addReturnColumns(columns, "loc", LOCATION_COLUMNS, "");
+        addReturnColumns(columns, "c", ARGUMENT_COLUMNS, "");
+        columns.add("'" + argumentTypeId + "' as " + ARGUMENT_TYPE_ID_COLUMN);
+        addReturnColumns(columns, "study", STUDY_COLUMNS, "");
+        addReturnColumns(columns, "dataset", DATASET_COLUMNS, "");
+        return query.append(StringUtils.join(columns, ", ")).toString();
+    }
+
+    private static void addReturnColumns(List<String> returnColumns, String variable, String[][] columns, String aliasPrefix) {
+        for (String[] column : columns) {
+            returnColumns.add(variable + "." + column[0] + " as " + aliasPrefix + column[1]);
+        }
+    }
+
+    static String[] columnNames() {
+        List<String> names = new ArrayList<>();
+        appendColumnNames(names, TAXON_COLUMNS, "source");
+        appendColumnNames(names, SPECIMEN_COLUMNS, "source");
+        appendColumnNames(names, INTERACTION_COLUMNS, "");
+        appendColumnNames(names, TAXON_COLUMNS, "target");
+        appendColumnNames(names, SPECIMEN_COLUMNS, "target");
+        appendColumnNames(names, LOCATION_COLUMNS, "");
+        appendColumnNames(names, ARGUMENT_COLUMNS, "");
+        names.add(ARGUMENT_TYPE_ID_COLUMN);
+        appendColumnNames(names, STUDY_COLUMNS, "");
+        appendColumnNames(names, DATASET_COLUMNS, "");
+        return names.toArray(new String[0]);
+    }
+
+    private static void appendColumnNames(List<String> names, String[][] columns, String aliasPrefix) {
+        for (String[] column : columns) {
+            names.add(aliasPrefix + column[1]);
+        }
     }
 
     @Override
     public void export(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
-        String prefix = getPrefix();
-        ExportUtil.export(
-                graphService,
-                new File(baseDir, filename),
-                createExportQueries(prefix),
-                joiner);
+        if (isTraverseGraph() && partitions != null) {
+            ExportFlatInteractionsTraversal traversal = createTraversal();
+            partitions.export(
+                    graphService,
+                    new File(baseDir, filename),
+                    joiner,
+                    traversal::exportHeader,
+                    traversal::exportDataset,
+                    DatasetConstant.LAST_SEEN_AT,
+                    alsoAppendTo);
+        } else {
+            ExportUtil.export(
+                    new File(baseDir, filename),
+                    joiner,
+                    appender -> export(graphService, alsoAppendTo == null ? appender : ExportUtil.tee(appender, alsoAppendTo)));
+        }
     }
 
     private String getPrefix() {
@@ -174,11 +212,52 @@ public class ExportFlatInteractions implements GraphExporter {
     }
 
     void export(GraphDatabaseService graphService, ExportUtil.Appender appender) throws IOException {
-        String prefix = getPrefix();
-        ExportUtil.export(
-                appender,
-                graphService,
-                createExportQueries(prefix));
+        if (isTraverseGraph()) {
+            createTraversal().export(graphService, appender);
+        } else {
+            ExportUtil.export(
+                    appender,
+                    graphService,
+                    createExportQueries(getPrefix()));
+        }
+    }
+
+    private ExportFlatInteractionsTraversal createTraversal() {
+        return new ExportFlatInteractionsTraversal(getArgumentType(), getArgumentTypeId(), getTaxonRelation());
+    }
+
+    public boolean isTraverseGraph() {
+        return traverseGraph;
+    }
+
+    /**
+     * @param traverseGraph if true, interactions are extracted by walking the graph study-by-study instead of
+     *                      by Cypher query. Datasets are found through the (legacy) datasets index, so this is only
+     *                      supported for neo4j v2 style graphs.
+     */
+
+    public ExportFlatInteractions setTraverseGraph(boolean traverseGraph) {
+        this.traverseGraph = traverseGraph;
+        return this;
+    }
+
+    /**
+     * @param partitions if set, traversal exports to file reuse the partitions of unchanged datasets
+     */
+
+    public ExportFlatInteractions setPartitions(ExportPartitions partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * @param appender also receives the rows that are exported to file, so that other formats can be written from
+     *                 the same traversal or query
+     */
+
+    ExportFlatInteractions setAlsoAppendTo(ExportUtil.Appender appender) {
+        this.alsoAppendTo = appender;
+        return this;
     }
 
     public RelTypes getArgumentType() {
@@ -0,0 +1,166 @@
+package org.eol.globi.export;
+
+import org.eol.globi.domain.DatasetNode;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeUtil;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.eol.globi.export.ExportFlatInteractions.ARGUMENT_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.DATASET_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.INTERACTION_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.LOCATION_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.SPECIMEN_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.STUDY_COLUMNS;
+import static org.eol.globi.export.ExportFlatInteractions.TAXON_COLUMNS;
+
+/**
+ * Walks the pattern of the flat interactions query with the core api, study by study, instead of
+ * having Cypher match and materialize it. Rows have the same columns and values as the Cypher results,
+ * but are not necessarily in the same order.
+ * <p>
+ * Column values of taxon nodes are cached by node id, because the same taxa are visited over and over again.
+ */
+
+class ExportFlatInteractionsTraversal {
+
+    private static final int TAXON_CACHE_SIZE = 100000;
+
+    private static final int SOURCE_TAXON_OFFSET = 0;
+    private static final int SOURCE_SPECIMEN_OFFSET = SOURCE_TAXON_OFFSET + TAXON_COLUMNS.length;
+    private static final int INTERACTION_OFFSET = SOURCE_SPECIMEN_OFFSET + SPECIMEN_COLUMNS.length;
+    private static final int TARGET_TAXON_OFFSET = INTERACTION_OFFSET + INTERACTION_COLUMNS.length;
+    private static final int TARGET_SPECIMEN_OFFSET = TARGET_TAXON_OFFSET + TAXON_COLUMNS.length;
+    private static final int LOCATION_OFFSET = TARGET_SPECIMEN_OFFSET + SPECIMEN_COLUMNS.length;
+    private static final int ARGUMENT_OFFSET = LOCATION_OFFSET + LOCATION_COLUMNS.length;
+    private static final int ARGUMENT_TYPE_ID_OFFSET = ARGUMENT_OFFSET + ARGUMENT_COLUMNS.length;
+    private static final int STUDY_OFFSET = ARGUMENT_TYPE_ID_OFFSET + 1;
+    private static final int DATASET_OFFSET = STUDY_OFFSET + STUDY_COLUMNS.length;
+    private static final int COLUMN_COUNT = DATASET_OFFSET + DATASET_COLUMNS.length;
+
+    private static final RelationshipType[] INTERACTION_TYPES = NodeUtil.asNeo4j();
+
+    private final RelationshipType argumentType;
+    private final String argumentTypeId;
+    private final RelationshipType taxonRelation;
+
+    private final String[] row = new String[COLUMN_COUNT];
+
+    private final Map<Long, String[]> taxonValues = new LinkedHashMap<Long, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+            return size() > TAXON_CACHE_SIZE;
+        }
+    };
+
+    ExportFlatInteractionsTraversal(RelTypes argumentType, String argumentTypeId, RelTypes taxonRelation) {
+        this.argumentType = NodeUtil.asNeo4j(argumentType);
+        this.argumentTypeId = argumentTypeId;
+        this.taxonRelation = NodeUtil.asNeo4j(taxonRelation);
+    }
+
+    void export(GraphDatabaseService graphService, ExportUtil.Appender appender) throws IOException {
+        exportHeader(appender);
+        NodeUtil.findDatasetsByQuery(graphService, dataset -> {
+            try {
+                exportDataset(dataset, appender);
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to export interactions of dataset [" + dataset.getNamespace() + "]", e);
+            }
+        }, "namespace", "*", new NodeIdCollectorNeo4j2());
+    }
+
+    void exportHeader(ExportUtil.Appender appender) throws IOException {
+        appender.append(ExportFlatInteractions.columnNames());
+    }
+
+    void exportDataset(DatasetNode datasetNode, ExportUtil.Appender appender) throws IOException {
+        Node dataset = datasetNode.getUnderlyingNode();
+        fill(dataset, DATASET_COLUMNS, DATASET_OFFSET);
+        row[ARGUMENT_TYPE_ID_OFFSET] = argumentTypeId;
+        for (Relationship inDataset : dataset.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.IN_DATASET))) {
+            Node study = inDataset.getStartNode();
+            fill(study, STUDY_COLUMNS, STUDY_OFFSET);
+            for (Relationship argument : study.getRelationships(Direction.OUTGOING, argumentType)) {
+                fill(argument, ARGUMENT_COLUMNS, ARGUMENT_OFFSET);
+                exportSourceSpecimen(argument.getEndNode(), appender);
+            }
+        }
+    }
+
+    private void exportSourceSpecimen(Node sourceSpecimen, ExportUtil.Appender appender) throws IOException {
+        Iterable<Relationship> sourceClassifications = sourceSpecimen.getRelationships(Direction.OUTGOING, taxonRelation);
+        if (sourceClassifications.iterator().hasNext()) {
+            fill(sourceSpecimen, SPECIMEN_COLUMNS, SOURCE_SPECIMEN_OFFSET);
+            for (Relationship sourceClassification : sourceClassifications) {
+                fillTaxon(sourceClassification.getEndNode(), SOURCE_TAXON_OFFSET);
+                for (Relationship interaction : sourceSpecimen.getRelationships(Direction.OUTGOING, INTERACTION_TYPES)) {
+                    if (!interaction.hasProperty("inverted")) {
+                        fill(interaction, INTERACTION_COLUMNS, INTERACTION_OFFSET);
+                        exportTargetSpecimen(sourceSpecimen, sourceClassification, interaction.getEndNode(), appender);
+                    }
+                }
+            }
+        }
+    }
+
+    private void exportTargetSpecimen(Node sourceSpecimen, Relationship sourceClassification, Node targetSpecimen, ExportUtil.Appender appender) throws IOException {
+        boolean targetFilled = false;
+        for (Relationship targetClassification : targetSpecimen.getRelationships(Direction.OUTGOING, taxonRelation)) {
+            // like Cypher, a relationship is matched at most once per pattern (e.g., for specimens interacting with themselves)
+            if (targetClassification.getId() != sourceClassification.getId()) {
+                if (!targetFilled) {
+                    fill(targetSpecimen, SPECIMEN_COLUMNS, TARGET_SPECIMEN_OFFSET);
+                    targetFilled = true;
+                }
+                fillTaxon(targetClassification.getEndNode(), TARGET_TAXON_OFFSET);
+                exportLocations(sourceSpecimen, appender);
+            }
+        }
+    }
+
+    private void exportLocations(Node sourceSpecimen, ExportUtil.Appender appender) throws IOException {
+        boolean hasLocation = false;
+        for (Relationship collectedAt : sourceSpecimen.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.COLLECTED_AT))) {
+            fill(collectedAt.getEndNode(), LOCATION_COLUMNS, LOCATION_OFFSET);
+            appender.append(row);
+            hasLocation = true;
+        }
+        if (!hasLocation) {
+            Arrays.fill(row, LOCATION_OFFSET, LOCATION_OFFSET + LOCATION_COLUMNS.length, "");
+            appender.append(row);
+        }
+    }
+
+    private void fillTaxon(Node taxon, int offset) {
+        String[] values = taxonValues.get(taxon.getId());
+        if (values == null) {
+            values = new String[TAXON_COLUMNS.length];
+            valuesOf(taxon, TAXON_COLUMNS, values, 0);
+            taxonValues.put(taxon.getId(), values);
+        }
+        System.arraycopy(values, 0, row, offset, values.length);
+    }
+
+    private void fill(PropertyContainer container, String[][] columns, int offset) {
+        valuesOf(container, columns, row, offset);
+    }
+
+    private static void valuesOf(PropertyContainer container, String[][] columns, String[] values, int offset) {
+        for (int i = 0; i < columns.length; i++) {
+            Object value = container.getProperty(columns[i][0], null);
+            values[offset + i] = value == null ? "" : value.toString();
+        }
+    }
+
+}
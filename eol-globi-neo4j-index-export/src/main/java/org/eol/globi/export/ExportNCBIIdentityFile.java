@@ -1,13 +1,15 @@
 package org.eol.globi.export;
 
-import org.apache.commons.io.IOUtils;
 import org.eol.globi.data.StudyImporterException;
 import org.neo4j.graphdb.GraphDatabaseService;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 
 public class ExportNCBIIdentityFile implements GraphExporter {
@@ -16,8 +18,8 @@ public class ExportNCBIIdentityFile implements GraphExporter {
 
     @Override
     public void export(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
-        try {
-            streamTo(new FileOutputStream(new File(baseDir, "providerinfo.xml")));
+        try (OutputStream os = new FileOutputStream(new File(baseDir, "providerinfo.xml"))) {
+            streamTo(os);
         } catch (IOException e) {
             throw new StudyImporterException(e);
         }
@@ -25,7 +27,8 @@ public class ExportNCBIIdentityFile implements GraphExporter {
     }
 
     protected void streamTo(OutputStream os) throws IOException {
-        IOUtils.write(String.format("<?xml version=\"1.0\"?>\n" +
+        Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+        writer.write(String.format("<?xml version=\"1.0\"?>\n" +
                 "<!DOCTYPE Provider PUBLIC \"-//NLM//DTD LinkOut 1.0//EN\"\n" +
                 "\"https://www.ncbi.nlm.nih.gov/projects/linkout/doc/LinkOut.dtd\">\n" +
                 "<Provider>\n" +
@@ -35,7 +38,8 @@ public class ExportNCBIIdentityFile implements GraphExporter {
                 "    <SubjectType>taxonomy/phylogenetic</SubjectType>\n" +
                 "    <Url>https://www.globalbioticinteractions.org</Url>\n" +
                 "    <Brief>helps access existing species interaction datasets</Brief>\n" +
-                "</Provider>\n", PROVIDER_ID), os, StandardCharsets.UTF_8);
+                "</Provider>\n", PROVIDER_ID));
+        writer.flush();
     }
 
 
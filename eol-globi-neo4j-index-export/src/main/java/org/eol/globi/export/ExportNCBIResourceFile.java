@@ -1,19 +1,41 @@
 package org.eol.globi.export;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.PropertyAndValueDictionary;
+import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.TaxonomyProvider;
+import org.eol.globi.tool.TransactionPerBatch;
+import org.eol.globi.util.NodeIdCollector;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeIdCollectorNeo4j3;
+import org.eol.globi.util.NodeUtil;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes NCBI LinkOut resource files for the NCBI taxa that are (or are the same as) taxa in the graph.
+ * <p>
+ * Taxon nodes are streamed in batches and NCBI ids are de-duplicated in an off-heap set of numeric ids,
+ * so that heap use does not grow with the number of taxa.
+ */
 
 public class ExportNCBIResourceFile implements GraphExporter {
 
@@ -34,82 +56,145 @@ public class ExportNCBIResourceFile implements GraphExporter {
             }
         };
 
-        export(graphService, fileFactory);
+        export(graphService, fileFactory, neo4jVersion);
 
     }
 
     protected void export(GraphDatabaseService graphService, OutputStreamFactory fileFactory) throws StudyImporterException {
-        String query = "CYPHER 2.3 START taxon = node:taxons('*:*') " +
-                "MATCH taxon-[:SAME_AS*0..1]->linkedTaxon " +
-                "WHERE exists(linkedTaxon.externalId) AND linkedTaxon.externalId =~ 'NCBI:.*'" +
-                "RETURN distinct(linkedTaxon.externalId) as id";
+        export(graphService, fileFactory, "2");
+    }
 
-        Result rows = graphService.execute(query);
+    protected void export(GraphDatabaseService graphService, OutputStreamFactory fileFactory, String neo4jVersion) throws StudyImporterException {
+        NodeIdCollector nodeIdCollector = "2".equals(neo4jVersion)
+                ? new NodeIdCollectorNeo4j2()
+                : new NodeIdCollectorNeo4j3();
+
+        DB db = DBMaker
+                .newMemoryDirectDB()
+                .make();
+        try (LinkWriter linkWriter = new LinkWriter(fileFactory)) {
+            NavigableSet<Long> numericIds = db
+                    .createTreeSet(UUID.randomUUID().toString())
+                    .makeLongSet();
+            // not expected in practice, but kept for compatibility with the former pattern match on "NCBI:.*"
+            Set<String> otherIds = new HashSet<>();
+
+            NodeUtil.processNodes(
+                    10000L,
+                    graphService,
+                    taxon -> {
+                        try {
+                            writeLinks(taxon, linkWriter, numericIds, otherIds);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("failed to export ncbi link for taxon [" + taxon.getId() + "]", e);
+                        }
+                    },
+                    "*",
+                    "*",
+                    "taxons",
+                    new TransactionPerBatch(graphService),
+                    nodeIdCollector
+            );
+        } catch (IOException | IllegalStateException e) {
+            throw new StudyImporterException("failed to export ncbi resources", e);
+        } finally {
+            db.close();
+        }
+    }
 
-        int rowCount = 0;
-        OutputStream os = null;
-        try {
-            List<String> columns = rows.columns();
-            Map<String, Object> row;
-            while (rows.hasNext()) {
-                row = rows.next();
-                if (rowCount % getLinksPerResourceFile() == 0) {
-                    close(os);
-                    os = null;
-                }
-
-                for (String column : columns) {
-                    String taxonId = row.get(column).toString();
-                    String ncbiTaxonId = StringUtils.replace(taxonId, TaxonomyProvider.ID_PREFIX_NCBI, "");
-                    String aLink = String.format(
-                            "         <ObjId>%s</ObjId>\n"
-                            , ncbiTaxonId);
-
-                    IOUtils.write(aLink, os == null ? (os = open(fileFactory, rowCount)) : os, StandardCharsets.UTF_8);
-                }
-                rowCount++;
+    private static void writeLinks(Node taxon, LinkWriter linkWriter, NavigableSet<Long> numericIds, Set<String> otherIds) throws IOException {
+        writeLink(taxon, linkWriter, numericIds, otherIds);
+        for (Relationship sameAs : taxon.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.SAME_AS))) {
+            writeLink(sameAs.getEndNode(), linkWriter, numericIds, otherIds);
+        }
+    }
+
+    private static void writeLink(Node taxon, LinkWriter linkWriter, NavigableSet<Long> numericIds, Set<String> otherIds) throws IOException {
+        Object externalId = taxon.getProperty(PropertyAndValueDictionary.EXTERNAL_ID, null);
+        if (externalId instanceof String && StringUtils.startsWith((String) externalId, TaxonomyProvider.ID_PREFIX_NCBI)) {
+            String ncbiTaxonId = StringUtils.replace((String) externalId, TaxonomyProvider.ID_PREFIX_NCBI, "");
+            boolean isNew = isNumeric(ncbiTaxonId)
+                    ? numericIds.add(Long.parseLong(ncbiTaxonId))
+                    : otherIds.add(ncbiTaxonId);
+            if (isNew) {
+                linkWriter.write(ncbiTaxonId);
             }
-            close(os);
-        } catch (IOException e) {
-            throw new StudyImporterException("failed to export ncbi resources", e);
         }
     }
 
-    private OutputStream open(OutputStreamFactory fileFactory, int rowCount) throws IOException {
-        OutputStream os;
-        os = fileFactory.create(linkBatch(rowCount));
-        IOUtils.write(String.format("<?xml version=\"1.0\"?>\n" +
-                        "<!DOCTYPE LinkSet PUBLIC \"-//NLM//DTD LinkOut 1.0//EN\"\n" +
-                        "\"https://www.ncbi.nlm.nih.gov/projects/linkout/doc/LinkOut.dtd\"\n" +
-                        "[<!ENTITY base.url \"https://www.globalbioticinteractions.org?\">]>\n" +
-                        "<LinkSet>\n" +
-                        " <Link>\n" +
-                        "   <LinkId>%d</LinkId>\n" +
-                        "   <ProviderId>%s</ProviderId>\n" +
-                        "   <ObjectSelector>\n" +
-                        "     <Database>Taxonomy</Database>\n" +
-                        "     <ObjectList>\n", linkBatch(rowCount), ExportNCBIIdentityFile.PROVIDER_ID),
-                os,
-                StandardCharsets.UTF_8);
-        return os;
+    // ids with leading zeros are not numeric, so that they are written as is
+    private static boolean isNumeric(String id) {
+        return StringUtils.isNumeric(id) && id.length() < 19 && id.charAt(0) != '0';
+    }
+
+    private class LinkWriter implements AutoCloseable {
+        private final OutputStreamFactory fileFactory;
+        private Writer writer = null;
+        private int linkCount = 0;
+
+        LinkWriter(OutputStreamFactory fileFactory) {
+            this.fileFactory = fileFactory;
+        }
+
+        void write(String ncbiTaxonId) throws IOException {
+            if (linkCount % getLinksPerResourceFile() == 0) {
+                closeResourceFile();
+            }
+            if (writer == null) {
+                writer = open(fileFactory, linkCount);
+            }
+            writer.write("         <ObjId>");
+            writer.write(ncbiTaxonId);
+            writer.write("</ObjId>\n");
+            linkCount++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeResourceFile();
+        }
+
+        private void closeResourceFile() throws IOException {
+            if (writer != null) {
+                ExportNCBIResourceFile.close(writer);
+                writer = null;
+            }
+        }
+    }
+
+    private Writer open(OutputStreamFactory fileFactory, int rowCount) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(fileFactory.create(linkBatch(rowCount)), StandardCharsets.UTF_8));
+        writer.write("<?xml version=\"1.0\"?>\n" +
+                "<!DOCTYPE LinkSet PUBLIC \"-//NLM//DTD LinkOut 1.0//EN\"\n" +
+                "\"https://www.ncbi.nlm.nih.gov/projects/linkout/doc/LinkOut.dtd\"\n" +
+                "[<!ENTITY base.url \"https://www.globalbioticinteractions.org?\">]>\n" +
+                "<LinkSet>\n" +
+                " <Link>\n" +
+                "   <LinkId>" + linkBatch(rowCount) + "</LinkId>\n" +
+                "   <ProviderId>" + ExportNCBIIdentityFile.PROVIDER_ID + "</ProviderId>\n" +
+                "   <ObjectSelector>\n" +
+                "     <Database>Taxonomy</Database>\n" +
+                "     <ObjectList>\n");
+        return writer;
     }
 
     private int linkBatch(int rowCount) {
         return rowCount / getLinksPerResourceFile();
     }
 
-    private void close(OutputStream os) throws IOException {
-        if (os != null) {
-            IOUtils.write("      </ObjectList>\n" +
+    private static void close(Writer writer) throws IOException {
+        try {
+            writer.write("      </ObjectList>\n" +
                     "   </ObjectSelector>\n" +
                     "   <ObjectUrl>\n" +
                     "      <Base>&base.url;</Base>\n" +
                     "      <Rule>sourceTaxon=NCBI:&lo.id;</Rule>\n" +
                     "      <UrlName>Show Biotic Interactions</UrlName>\n" +
                     "   </ObjectUrl>\n" +
-                    " </Link>", os, StandardCharsets.UTF_8);
-            IOUtils.write("\n</LinkSet>", os, StandardCharsets.UTF_8);
-            IOUtils.closeQuietly(os);
+                    " </Link>");
+            writer.write("\n</LinkSet>");
+        } finally {
+            writer.close();
         }
     }
 
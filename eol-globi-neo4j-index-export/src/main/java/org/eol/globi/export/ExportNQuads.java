@@ -0,0 +1,156 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.util.NodeIdCollector;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeIdCollectorNeo4j3;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports interactions of studies as gzipped N-Quads on a pool of worker threads.
+ * <p>
+ * Studies are partitioned into ranges of study ids. Each worker writes its partitions as separate gzip members
+ * to temporary files, which are then concatenated in study id order, so the export is the same regardless
+ * of the number of threads.
+ */
+
+public class ExportNQuads implements GraphExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(ExportNQuads.class);
+
+    private static final int MAX_STUDIES_PER_PARTITION = 1000;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final String filename;
+    private final int maxStudies;
+    private final int threads;
+
+    public ExportNQuads(String filename, int maxStudies) {
+        this(filename, maxStudies, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxStudies maximum number of studies exported, in order of study id
+     */
+
+    public ExportNQuads(String filename, int maxStudies, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("expected at least one thread, but got [" + threads + "]");
+        }
+        this.filename = filename;
+        this.maxStudies = maxStudies;
+        this.threads = threads;
+    }
+
+    @Override
+    public void export(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
+        File file = new File(baseDir, filename);
+        long[] studyIds = collectStudyIds(graphService, "2".equals(neo4jVersion) ? new NodeIdCollectorNeo4j2() : new NodeIdCollectorNeo4j3());
+        int studiesPerPartition = studiesPerPartition(studyIds.length);
+        LOG.info("export data to [" + file.getAbsolutePath() + "] started...");
+
+        List<Future<File>> partitions = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        ThreadLocal<ExporterRDF> exporters = ThreadLocal.withInitial(ExporterRDF::new);
+        try {
+            ExportUtil.mkdirIfNeeded(baseDir);
+            for (int from = 0; from < studyIds.length; from += studiesPerPartition) {
+                int start = from;
+                int end = Math.min(from + studiesPerPartition, studyIds.length);
+                partitions.add(workers.submit(() -> exportPartition(graphService, exporters.get(), studyIds, start, end, baseDir)));
+            }
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                for (Future<File> partition : partitions) {
+                    File partitionFile = partition.get();
+                    Files.copy(partitionFile.toPath(), out);
+                    FileUtils.deleteQuietly(partitionFile);
+                }
+                if (partitions.isEmpty()) {
+                    new GZIPOutputStream(out).finish();
+                }
+            }
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StudyImporterException("interrupted while exporting to [" + file.getAbsolutePath() + "]", e);
+        } catch (ExecutionException e) {
+            throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            removePartitions(partitions);
+        }
+        LOG.info("export data to [" + file.getAbsolutePath() + "] complete.");
+    }
+
+    private long[] collectStudyIds(GraphDatabaseService graphService, NodeIdCollector nodeIdCollector) {
+        NavigableSet<Long> ids = new TreeSet<>();
+        try (Transaction tx = graphService.beginTx()) {
+            nodeIdCollector.collectIds(graphService, "title", "*", "studies", ids);
+            tx.success();
+        }
+        return ids.stream()
+                .limit(maxStudies)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    // small enough to keep all workers busy, large enough to keep the number of gzip members down
+    private int studiesPerPartition(int studyCount) {
+        int studiesPerPartition = (studyCount + threads * PARTITIONS_PER_THREAD - 1) / (threads * PARTITIONS_PER_THREAD);
+        return Math.max(1, Math.min(MAX_STUDIES_PER_PARTITION, studiesPerPartition));
+    }
+
+    private File exportPartition(GraphDatabaseService graphService, ExporterRDF exporter, long[] studyIds, int start, int end, File baseDir) throws IOException {
+        File partition = File.createTempFile(filename, ".tmp", baseDir);
+        try (Transaction tx = graphService.beginTx();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(partition), 64 * 1024), StandardCharsets.UTF_8))) {
+            ExportUtil.Appender appender = ExportUtil.AppenderWriter.of(writer, new ExportUtil.NQuadValueJoiner());
+            for (int i = start; i < end; i++) {
+                exporter.exportStudy(new StudyNode(graphService.getNodeById(studyIds[i])), appender, true);
+            }
+            tx.success();
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(partition);
+            throw e;
+        }
+        return partition;
+    }
+
+    private static void removePartitions(List<Future<File>> partitions) {
+        for (Future<File> partition : partitions) {
+            if (partition.isDone() && !partition.isCancelled()) {
+                try {
+                    FileUtils.deleteQuietly(partition.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    // nothing to remove
+                }
+            }
+        }
+    }
+
+}
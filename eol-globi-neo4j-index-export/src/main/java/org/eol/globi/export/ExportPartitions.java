@@ -0,0 +1,272 @@
+package org.eol.globi.export;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.DatasetNode;
+import org.eol.globi.domain.StudyConstant;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeUtil;
+import org.eol.globi.util.ParallelGZIPOutputStream;
+import org.globalbioticinteractions.dataset.DatasetConstant;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Keeps the per-dataset parts of gzipped exports across builds, so that only the parts of new or changed
+ * datasets are exported again.
+ * <p>
+ * A partition is keyed by export file name, dataset namespace, archive content hash and the other dataset properties
+ * that end up in the export, and a build key that identifies inputs other than the datasets themselves (e.g., the
+ * version of the taxon cache used to resolve names). Datasets without a content hash are always exported again.
+ * Partitions are complete gzip members, so exports are assembled by concatenating them.
+ * <p>
+ * Volatile dataset properties, like the time a dataset was last seen, change without changing the dataset, so they
+ * are left out of the key. If exported, such a property is expected in the last column, and the last column of
+ * reused partitions is updated when the export is assembled.
+ */
+
+public class ExportPartitions {
+    private static final Logger LOG = LoggerFactory.getLogger(ExportPartitions.class);
+
+    private static final String[] KEY_PROPERTIES = {
+            DatasetConstant.NAMESPACE,
+            DatasetConstant.CONTENT_HASH,
+            DatasetConstant.ARCHIVE_URI,
+            DatasetConstant.CONFIG_URI,
+            DatasetConstant.CONFIG,
+            DatasetConstant.CITATION,
+            DatasetConstant.DOI,
+            DatasetConstant.SHOULD_RESOLVE_REFERENCES,
+            StudyConstant.FORMAT
+    };
+
+    private final File partitionDir;
+    private final String buildKey;
+
+    public ExportPartitions(File partitionDir, String buildKey) {
+        this.partitionDir = partitionDir;
+        this.buildKey = StringUtils.defaultString(buildKey);
+    }
+
+    interface DatasetExport {
+        void exportTo(DatasetNode dataset, ExportUtil.Appender appender) throws IOException;
+    }
+
+    private interface WriterExport {
+        void exportTo(Writer writer) throws IOException;
+    }
+
+    void export(GraphDatabaseService graphService,
+                File file,
+                ExportUtil.ValueJoiner joiner,
+                ExportUtil.AppenderExport header,
+                DatasetExport datasetExport) throws StudyImporterException {
+        export(graphService, file, joiner, header, datasetExport, null, null);
+    }
+
+    /**
+     * @param lastColumnProperty if set, the volatile dataset property exported in the last column of each row
+     * @param rows               if set, also receives the exported rows, with the rows of reused partitions read back
+     *                           from the partitions. Only supported for tsv exports.
+     */
+
+    void export(GraphDatabaseService graphService,
+                File file,
+                ExportUtil.ValueJoiner joiner,
+                ExportUtil.AppenderExport header,
+                DatasetExport datasetExport,
+                String lastColumnProperty,
+                ExportUtil.Appender rows) throws StudyImporterException {
+        if (rows != null && !(joiner instanceof ExportUtil.TsvValueJoiner)) {
+            throw new IllegalArgumentException("cannot read back rows of reused partitions of [" + file.getAbsolutePath() + "]: not a tsv export");
+        }
+        File dir = new File(partitionDir, file.getName());
+        Set<File> partitionsInUse = new HashSet<>();
+        AtomicLong reused = new AtomicLong(0);
+        AtomicLong exported = new AtomicLong(0);
+        try {
+            ExportUtil.mkdirIfNeeded(dir);
+            ExportUtil.mkdirIfNeeded(file.getParentFile());
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writeGzipped(out, joiner, appender -> header.exportTo(teeOf(appender, rows)));
+                NodeUtil.findDatasetsByQuery(graphService, dataset -> {
+                    try {
+                        String key = partitionKey(file.getName(), dataset);
+                        File partition = key == null
+                                ? File.createTempFile("partition", ".tmp", dir)
+                                : new File(dir, key + ".gz");
+                        // remembers the last column value that the partition was written with
+                        File lastColumn = new File(dir, partition.getName() + ".last");
+                        String lastColumnValue = lastColumnProperty == null
+                                ? null
+                                : Objects.toString(dataset.getUnderlyingNode().getProperty(lastColumnProperty, null), "");
+                        if (key != null && partition.exists() && (lastColumnValue == null || lastColumn.exists())) {
+                            if (lastColumnValue != null) {
+                                String previousValue = FileUtils.readFileToString(lastColumn, StandardCharsets.UTF_8);
+                                if (!StringUtils.equals(previousValue, lastColumnValue)) {
+                                    FileUtils.deleteQuietly(lastColumn);
+                                    replaceLastColumn(partition, joiner, previousValue, lastColumnValue);
+                                    FileUtils.writeStringToFile(lastColumn, lastColumnValue, StandardCharsets.UTF_8);
+                                }
+                            }
+                            if (rows != null) {
+                                readRows(partition, rows);
+                            }
+                            reused.incrementAndGet();
+                        } else {
+                            FileUtils.deleteQuietly(lastColumn);
+                            writePartition(partition, writer -> datasetExport.exportTo(dataset, teeOf(ExportUtil.AppenderWriter.of(writer, joiner), rows)));
+                            if (key != null && lastColumnValue != null) {
+                                FileUtils.writeStringToFile(lastColumn, lastColumnValue, StandardCharsets.UTF_8);
+                            }
+                            exported.incrementAndGet();
+                        }
+                        Files.copy(partition.toPath(), out);
+                        if (key == null) {
+                            FileUtils.deleteQuietly(partition);
+                        } else {
+                            partitionsInUse.add(partition);
+                            partitionsInUse.add(lastColumn);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("failed to export partition of dataset [" + dataset.getNamespace() + "] for [" + file.getAbsolutePath() + "]", e);
+                    }
+                }, "namespace", "*", new NodeIdCollectorNeo4j2());
+            }
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e);
+        }
+        removeUnusedPartitions(dir, partitionsInUse);
+        LOG.info("[" + file.getName() + "] assembled from [" + reused.get() + "] reused and [" + exported.get() + "] exported partitions");
+    }
+
+    String partitionKey(String exportName, DatasetNode dataset) {
+        Node node = dataset.getUnderlyingNode();
+        String key = null;
+        if (node.getProperty(DatasetConstant.CONTENT_HASH, null) != null) {
+            StringBuilder keyValues = new StringBuilder(buildKey).append('\n').append(exportName);
+            for (String property : KEY_PROPERTIES) {
+                Object value = node.getProperty(property, null);
+                if (value != null) {
+                    keyValues.append('\n')
+                            .append(property)
+                            .append('=')
+                            .append(value.getClass().isArray() ? ArrayUtils.toString(value) : value.toString());
+                }
+            }
+            key = DigestUtils.sha256Hex(keyValues.toString());
+        }
+        return key;
+    }
+
+    // written next to the partition first, so that interrupted builds do not leave incomplete partitions behind
+    private static void writePartition(File partition, WriterExport export) throws IOException {
+        File tmpPartition = new File(partition.getParentFile(), partition.getName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpPartition))) {
+            writeGzipped(out, export);
+        }
+        Files.move(tmpPartition.toPath(), partition.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeGzipped(OutputStream out, ExportUtil.ValueJoiner joiner, ExportUtil.AppenderExport export) throws IOException {
+        writeGzipped(out, writer -> export.exportTo(ExportUtil.AppenderWriter.of(writer, joiner)));
+    }
+
+    private static void writeGzipped(OutputStream out, WriterExport export) throws IOException {
+        // closing the gzip stream ends its members, but leaves the output open for the partitions that follow
+        try (ParallelGZIPOutputStream gzip = ExportUtil.gzipOutputStream(new CloseShieldOutputStream(out));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8))) {
+            export.exportTo(writer);
+        }
+    }
+
+    // quoted csv values may span lines, so rows end at newlines outside of quotes
+    private static void replaceLastColumn(File partition, ExportUtil.ValueJoiner joiner, String previousValue, String value) throws IOException {
+        String previousSuffix = joiner.join(Stream.of("", previousValue));
+        String suffix = joiner.join(Stream.of("", value));
+        boolean quotes = joiner instanceof ExportUtil.CsvValueJoiner;
+        writePartition(partition, writer -> {
+            try (Reader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(partition), 64 * 1024),
+                    StandardCharsets.UTF_8))) {
+                StringBuilder row = new StringBuilder();
+                boolean quoted = false;
+                int c;
+                while ((c = reader.read()) != -1) {
+                    if (c == '\n' && !quoted) {
+                        int suffixStart = row.length() - previousSuffix.length();
+                        if (suffixStart < 0 || !previousSuffix.equals(row.substring(suffixStart))) {
+                            throw new IOException("failed to replace last column value [" + previousValue + "] in [" + partition.getAbsolutePath() + "]: found row [" + row + "]");
+                        }
+                        writer.append(row, 0, suffixStart).append(suffix).append('\n');
+                        row.setLength(0);
+                    } else {
+                        if (c == '"' && quotes) {
+                            quoted = !quoted;
+                        }
+                        row.append((char) c);
+                    }
+                }
+                if (row.length() > 0) {
+                    throw new IOException("failed to replace last column value [" + previousValue + "] in [" + partition.getAbsolutePath() + "]: found incomplete row [" + row + "]");
+                }
+            }
+        });
+    }
+
+    private static ExportUtil.Appender teeOf(ExportUtil.Appender appender, ExportUtil.Appender rows) {
+        return rows == null ? appender : ExportUtil.tee(appender, rows);
+    }
+
+    // escaped tsv values contain neither tabs nor newlines
+    private static void readRows(File partition, ExportUtil.Appender rows) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(partition), 64 * 1024),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.append(StringUtils.splitPreserveAllTokens(line, '\t'));
+            }
+        }
+    }
+
+    private static void removeUnusedPartitions(File dir, Set<File> partitionsInUse) {
+        File[] partitions = dir.listFiles();
+        if (partitions != null) {
+            for (File partition : partitions) {
+                if (!partitionsInUse.contains(partition)) {
+                    FileUtils.deleteQuietly(partition);
+                }
+            }
+        }
+    }
+
+}
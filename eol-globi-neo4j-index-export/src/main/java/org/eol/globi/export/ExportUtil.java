@@ -1,11 +1,9 @@
 package org.eol.globi.export;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.translate.CsvTranslators;
 import org.eol.globi.data.StudyImporterException;
-import org.eol.globi.util.CSVTSVUtil;
+import org.eol.globi.util.ParallelGZIPOutputStream;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Result;
 
@@ -13,10 +11,12 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -24,28 +24,33 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
 
 public final class ExportUtil {
 
+    // gzip compression of exports can be tuned with -Dglobi.export.gzip.threads=[n] and -Dglobi.export.gzip.level=[0-9]
+    private static final int GZIP_THREADS = Integer.getInteger("globi.export.gzip.threads", Runtime.getRuntime().availableProcessors());
+    private static final int GZIP_LEVEL = Integer.getInteger("globi.export.gzip.level", Deflater.DEFAULT_COMPRESSION);
+
+    public static ParallelGZIPOutputStream gzipOutputStream(OutputStream out) {
+        return new ParallelGZIPOutputStream(out, GZIP_THREADS, GZIP_LEVEL);
+    }
+
     public static void export(GraphDatabaseService graphService, File exportFile, String cypherQuery, ValueJoiner joiner) throws StudyImporterException {
         export(graphService, exportFile, Collections.singletonList(cypherQuery), joiner);
     }
 
     public static void export(GraphDatabaseService graphService, File file, List<String> cypherQueries, ValueJoiner joiner) throws StudyImporterException {
+        export(file, joiner, appender -> export(appender, graphService, cypherQueries));
+    }
+
+    static void export(File file, ValueJoiner joiner, AppenderExport export) throws StudyImporterException {
         try {
             mkdirIfNeeded(file.getParentFile());
-            final FileOutputStream out = new FileOutputStream(file);
-            GZIPOutputStream os = new GZIPOutputStream(out);
-            final Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
-            Appender appender = AppenderWriter.of(writer, joiner);
-
-            export(appender, graphService, cypherQueries);
-
-            writer.flush();
-            os.finish();
-            IOUtils.closeQuietly(writer);
-            IOUtils.closeQuietly(os);
+            try (ParallelGZIPOutputStream os = gzipOutputStream(new FileOutputStream(file));
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+                export.exportTo(AppenderWriter.of(writer, joiner));
+            }
         } catch (IOException e) {
             throw new StudyImporterException("failed to export to [" + file.getAbsolutePath() + "]", e);
         }
@@ -66,6 +71,38 @@ public final class ExportUtil {
 
     interface Appender {
         void append(Stream<String> values) throws IOException;
+
+        default void append(String[] values) throws IOException {
+            append(Arrays.stream(values));
+        }
+    }
+
+    /**
+     * Writes escaped, joined values straight to a writer, without building the joined row first.
+     */
+
+    interface ValueWriter {
+        void write(Writer writer, String[] values) throws IOException;
+    }
+
+    interface AppenderExport {
+        void exportTo(Appender appender) throws IOException;
+    }
+
+    // rows are handed to both appenders as they are, so neither may keep them after appending
+    static Appender tee(Appender first, Appender second) {
+        return new Appender() {
+            @Override
+            public void append(Stream<String> values) throws IOException {
+                append(values.toArray(String[]::new));
+            }
+
+            @Override
+            public void append(String[] values) throws IOException {
+                first.append(values);
+                second.append(values);
+            }
+        };
     }
 
     public static final class AppenderWriter implements Appender {
@@ -83,8 +120,22 @@ public final class ExportUtil {
 
         @Override
         public void append(Stream<String> values) throws IOException {
-            writer.write(joiner.join(values));
-            writer.write("\n");
+            if (joiner instanceof ValueWriter) {
+                append(values.toArray(String[]::new));
+            } else {
+                writer.write(joiner.join(values));
+                writer.write('\n');
+            }
+        }
+
+        @Override
+        public void append(String[] values) throws IOException {
+            if (joiner instanceof ValueWriter) {
+                ((ValueWriter) joiner).write(writer, values);
+            } else {
+                writer.write(joiner.join(Arrays.stream(values)));
+            }
+            writer.write('\n');
         }
 
         public static AppenderWriter of(Writer writer) {
@@ -96,33 +147,147 @@ public final class ExportUtil {
         }
     }
 
-    static final class TsvValueJoiner implements ValueJoiner {
+    static final class TsvValueJoiner implements ValueJoiner, ValueWriter {
 
         @Override
         public String join(Stream<String> values) {
-            return StringUtils.join(CSVTSVUtil.escapeValues(values), '\t');
+            return joinWith(this, values);
+        }
+
+        @Override
+        public void write(Writer writer, String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writeTsvValue(writer, values[i]);
+            }
         }
-    }
 
-    public static class CsvValueJoiner implements ValueJoiner {
+        // same as CSVTSVUtil.escapeValues: blank values are dropped, runs of tabs and newlines become a single space and values are trimmed
+        static void writeTsvValue(Writer writer, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            int start = 0;
+            int end = value.length();
+            while (start < end && value.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && value.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start < end && (!Character.isWhitespace(value.charAt(start)) || !StringUtils.isBlank(value))) {
+                int segmentStart = start;
+                for (int i = start; i < end; i++) {
+                    if (isTabOrNewline(value.charAt(i))) {
+                        writer.write(value, segmentStart, i - segmentStart);
+                        writer.write(' ');
+                        while (i + 1 < end && isTabOrNewline(value.charAt(i + 1))) {
+                            i++;
+                        }
+                        segmentStart = i + 1;
+                    }
+                }
+                writer.write(value, segmentStart, end - segmentStart);
+            }
+        }
+
+        private static boolean isTabOrNewline(char c) {
+            return c == '\t' || c == '\r' || c == '\n';
+        }
+    }
 
-        private final CsvTranslators.CsvEscaper escaper = new CsvTranslators.CsvEscaper();
+    public static class CsvValueJoiner implements ValueJoiner, ValueWriter {
 
         @Override
         public String join(Stream<String> values) {
-            return values
-                    .map(escaper::translate)
-                    .collect(Collectors.joining(","));
+            return joinWith(this, values);
+        }
+
+        @Override
+        public void write(Writer writer, String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, values[i]);
+            }
+        }
+
+        // same as commons-text CsvEscaper: values with commas, quotes or newlines are quoted, with quotes doubled
+        static void writeCsvValue(Writer writer, String value) throws IOException {
+            if (value == null) {
+                // as previously joined
+                writer.write("null");
+            } else if (!needsQuotes(value)) {
+                writer.write(value);
+            } else {
+                writer.write('"');
+                int segmentStart = 0;
+                for (int i = 0; i < value.length(); i++) {
+                    if (value.charAt(i) == '"') {
+                        writer.write(value, segmentStart, i + 1 - segmentStart);
+                        writer.write('"');
+                        segmentStart = i + 1;
+                    }
+                }
+                writer.write(value, segmentStart, value.length() - segmentStart);
+                writer.write('"');
+            }
         }
+
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String joinWith(ValueWriter valueWriter, Stream<String> values) {
+        StringWriter writer = new StringWriter();
+        try {
+            valueWriter.write(writer, values.toArray(String[]::new));
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to join values", e);
+        }
+        return writer.toString();
     }
 
-    public static class NQuadValueJoiner implements ValueJoiner {
+    public static class NQuadValueJoiner implements ValueJoiner, ValueWriter {
         @Override
         public String join(Stream<String> values) {
             String joined = values
                     .collect(Collectors.joining(" "));
             return StringUtils.isBlank(joined) ? "" : joined + " .";
         }
+
+        @Override
+        public void write(Writer writer, String[] values) throws IOException {
+            if (!isBlank(values)) {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(' ');
+                    }
+                    writer.write(String.valueOf(values[i]));
+                }
+                writer.write(" .");
+            }
+        }
+
+        // same as a blank joined statement
+        private static boolean isBlank(String[] values) {
+            for (String value : values) {
+                if (value == null || StringUtils.isNotBlank(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     static void writeResults(Appender appender, GraphDatabaseService dbService, String query, Map<String, Object> params, boolean includeHeader) throws IOException {
@@ -134,8 +299,7 @@ public final class ExportUtil {
             Result rows = dbService.execute(query, params);
             List<String> columns = rows.columns();
             if (includeHeader && queries.indexOf(query) == 0) {
-                final String[] values = columns.toArray(new String[0]);
-                appender.append(Stream.of(values));
+                appender.append(columns.toArray(new String[0]));
             }
             appendRow(appender, rows, columns);
         }
@@ -143,14 +307,14 @@ public final class ExportUtil {
 
     static void appendRow(Appender appender, Iterator<Map<String, Object>> rows, List<String> columns) throws IOException {
         Map<String, Object> row;
+        String[] values = new String[columns.size()];
         while (rows.hasNext()) {
             row = rows.next();
-            List<String> values = new ArrayList<String>();
-            for (String column : columns) {
-                Object value = row.get(column);
-                values.add(value == null ? "" : value.toString());
+            for (int i = 0; i < values.length; i++) {
+                Object value = row.get(columns.get(i));
+                values[i] = value == null ? "" : value.toString();
             }
-            appender.append(values.stream());
+            appender.append(values);
         }
     }
 
@@ -159,7 +323,7 @@ public final class ExportUtil {
         for (int i = 0; i < fields.length; i++) {
             values[i] = properties.getOrDefault(fields[i], "");
         }
-        appender.append(Stream.of(values));
+        appender.append(values);
     }
 
     static void mkdirIfNeeded(File dir) throws IOException {
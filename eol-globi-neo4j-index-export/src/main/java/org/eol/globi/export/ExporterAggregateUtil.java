@@ -8,44 +8,31 @@ import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.util.NodeTypeDirection;
 import org.eol.globi.util.NodeUtil;
 import org.eol.globi.util.RelationshipListener;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-import org.mapdb.Fun;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class ExporterAggregateUtil {
     public static void exportDistinctInteractionsByStudy(ExportUtil.Appender writer, GraphDatabaseService graphDatabase, RowWriter rowWriter) throws IOException {
-        DB db = DBMaker
-                .newMemoryDirectDB()
-                .compressionEnable()
-                .transactionDisable()
-                .make();
-        final Map<Fun.Tuple3<Long, String, String>, List<String>> studyOccAggregate = db.createTreeMap("studyOccAggregate").make();
-
-        NodeUtil.findStudies(graphDatabase, node -> collectDistinctInteractions(studyOccAggregate, node));
-
-        for (Map.Entry<Fun.Tuple3<Long, String, String>, List<String>> distinctInteractions : studyOccAggregate.entrySet()) {
-            rowWriter.writeRow(
-                    writer,
-                    new StudyNode(graphDatabase.getNodeById(distinctInteractions.getKey().a)),
-                    distinctInteractions.getKey().b,
-                    distinctInteractions.getKey().c,
-                    distinctInteractions.getValue()
-            );
+        try (DistinctInteractionAggregator aggregator = new DistinctInteractionAggregator()) {
+            NodeUtil.findStudies(graphDatabase, node -> collectDistinctInteractions(aggregator, node));
 
+            aggregator.aggregate((studyId, sourceTaxonId, interactionType, targetTaxonIds) ->
+                    rowWriter.writeRow(
+                            writer,
+                            new StudyNode(graphDatabase.getNodeById(studyId)),
+                            sourceTaxonId,
+                            interactionType,
+                            targetTaxonIds
+                    ));
         }
-        db.close();
     }
 
-    public static void collectDistinctInteractions(final Map<Fun.Tuple3<Long, String, String>, List<String>> studyOccAggregate, final Node studyNode) {
+    static void collectDistinctInteractions(final DistinctInteractionAggregator aggregator, final Node studyNode) {
         {
 
             RelationshipListener handler = new RelationshipListener() {
@@ -60,15 +47,11 @@ public class ExporterAggregateUtil {
                             final String sourceTaxonExternalId = getExternalIdForTaxonOf(sourceSpecimen);
                             final String targetTaxonExternalId = getExternalIdForTaxonOf(targetSpecimen);
                             if (sourceTaxonExternalId != null && targetTaxonExternalId != null) {
-                                final Fun.Tuple3<Long, String, String> key = new Fun.Tuple3<Long, String, String>(studyNode.getId(), sourceTaxonExternalId, interaction.getType().name());
-                                List<String> targetTaxonExternalIds = studyOccAggregate.get(key);
-                                if (targetTaxonExternalIds == null) {
-                                    targetTaxonExternalIds = new ArrayList<>();
-                                }
-                                if (!targetTaxonExternalIds.contains(targetTaxonExternalId)) {
-                                    targetTaxonExternalIds.add(targetTaxonExternalId);
+                                try {
+                                    aggregator.add(studyNode.getId(), sourceTaxonExternalId, interaction.getType().name(), targetTaxonExternalId);
+                                } catch (IOException e) {
+                                    throw new IllegalStateException("failed to collect interactions of study with node id [" + studyNode.getId() + "]", e);
                                 }
-                                studyOccAggregate.put(key, targetTaxonExternalIds);
                             }
                         }
                     }
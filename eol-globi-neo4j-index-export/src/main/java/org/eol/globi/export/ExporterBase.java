@@ -10,7 +10,6 @@ import org.neo4j.graphdb.Relationship;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
-import java.util.stream.Stream;
 
 public abstract class ExporterBase extends DarwinCoreExporter {
 
@@ -46,7 +45,7 @@ public abstract class ExporterBase extends DarwinCoreExporter {
             String fieldSuffix = index > 0 ? field.substring(index + 1) : field;
             headers[i] = fieldSuffix;
         }
-        appender.append(Stream.of(headers));
+        appender.append(headers);
     }
 
     @Override
@@ -4,10 +4,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.domain.Environment;
 import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.LocationNode;
+import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.SpecimenNode;
 import org.eol.globi.domain.StudyNode;
-import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.util.ExternalIdUtil;
 import org.eol.globi.util.NodeTypeDirection;
 import org.eol.globi.util.NodeUtil;
@@ -15,13 +15,22 @@ import org.eol.globi.util.RelationshipListener;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Exports interactions of a study as N-Quads statements.
+ * <p>
+ * IRIs of taxa, environments and interaction types are built once and re-used (up to a fixed number), so
+ * instances keep state and should not be shared between threads.
+ */
+
 public class ExporterRDF implements StudyExporter {
 
     public static final String OBO_PREFIX = "http://purl.obolibrary.org/obo/";
@@ -33,6 +42,23 @@ public class ExporterRDF implements StudyExporter {
     public static final String SAME_AS = "http://www.w3.org/2002/07/owl#sameAs";
     public static final String INTERACTION = "http://purl.obolibrary.org/obo/GO_0044419";
 
+    private static final String OCCURS_IN_NODE = toIRINode(OCCURS_IN);
+    private static final String ORGANISM_NODE = toIRINode(ORGANISM);
+    private static final String MEMBER_OF_NODE = toIRINode(MEMBER_OF);
+    private static final String HAS_TYPE_NODE = toIRINode(HAS_TYPE);
+    private static final String HAS_PARTICIPANT_NODE = toIRINode(HAS_PARTICIPANT);
+    private static final String SAME_AS_NODE = toIRINode(SAME_AS);
+    private static final String INTERACTION_NODE = toIRINode(INTERACTION);
+
+    private static final RelationshipType[] INTERACTION_TYPES = NodeUtil.asNeo4j();
+    private static final String[] NO_TAXON_NODES = new String[0];
+    private static final int IRI_CACHE_SIZE = 100000;
+
+    private final String[] statement = new String[3];
+    private final Map<String, String> interactionTypeNodes = new LinkedHashMap<>();
+    private final Map<Long, String[]> taxonNodes = lruCache();
+    private final Map<String, String> environmentNodes = lruCache();
+
     @Override
     public void exportStudy(StudyNode study, ExportUtil.Appender appender, boolean includeHeader)
             throws IOException {
@@ -41,11 +67,12 @@ public class ExporterRDF implements StudyExporter {
         RelationshipListener handler = relationship -> {
             try {
                 Node agentNode = relationship.getEndNode();
-                for (Relationship ixnR : agentNode.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j())) {
-                    writeStatement(appender, Arrays.asList(blankNode(ixnR), iriNode(HAS_TYPE), iriNode(INTERACTION)));
-                    writeParticipantStatements(appender, ixnR, ixnR.getEndNode());
-                    writeParticipantStatements(appender, ixnR, agentNode);
-                    writeStatement(appender, Arrays.asList(blankNode(agentNode), iriNode(InteractType.valueOf(ixnR.getType().name()).getIRI()), blankNode(ixnR.getEndNode())));
+                for (Relationship ixnR : agentNode.getRelationships(Direction.OUTGOING, INTERACTION_TYPES)) {
+                    String interactionNode = blankNode(ixnR);
+                    writeStatement(appender, interactionNode, HAS_TYPE_NODE, INTERACTION_NODE);
+                    writeParticipantStatements(appender, interactionNode, ixnR.getEndNode());
+                    writeParticipantStatements(appender, interactionNode, agentNode);
+                    writeStatement(appender, blankNode(agentNode), interactionTypeNode(ixnR), blankNode(ixnR.getEndNode()));
                 }
             } catch (IOException ex) {
                 lastException.set(ex);
@@ -59,27 +86,71 @@ public class ExporterRDF implements StudyExporter {
         }
     }
 
-    private void writeParticipantStatements(ExportUtil.Appender writer, Relationship ixnR, Node participant1) throws IOException {
-        writeStatement(writer, Arrays.asList(blankNode(ixnR), iriNode(HAS_PARTICIPANT), blankNode(participant1)));
-        writeStatement(writer, Arrays.asList(blankNode(participant1), iriNode(HAS_TYPE), iriNode(ORGANISM)));
-        writeStatements(writer, taxonOfSpecimen(participant1));
+    private void writeParticipantStatements(ExportUtil.Appender writer, String interactionNode, Node participant) throws IOException {
+        String participantNode = blankNode(participant);
+        writeStatement(writer, interactionNode, HAS_PARTICIPANT_NODE, participantNode);
+        writeStatement(writer, participantNode, HAS_TYPE_NODE, ORGANISM_NODE);
+        writeTaxonStatements(writer, participant, participantNode);
 
-        LocationNode location = new SpecimenNode(participant1).getSampleLocation();
+        LocationNode location = new SpecimenNode(participant).getSampleLocation();
         if (location != null) {
             for (Environment env : location.getEnvironments()) {
-                String envoId = ExternalIdUtil.urlForExternalId(env.getExternalId());
-                if (StringUtils.isNotBlank(envoId)) {
-                    writeStatement(writer, Arrays.asList(blankNode(participant1), iriNode(OCCURS_IN), iriNode(envoId)));
+                String envNode = environmentNode(env.getExternalId());
+                if (envNode != null) {
+                    writeStatement(writer, participantNode, OCCURS_IN_NODE, envNode);
+                }
+            }
+        }
+
+    }
+
+    private void writeTaxonStatements(ExportUtil.Appender writer, Node specimen, String specimenNode) throws IOException {
+        Relationship singleRelationship = specimen.getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
+        if (singleRelationship != null) {
+            String[] taxonAndSameAsNodes = taxonNodes(singleRelationship.getEndNode());
+            if (taxonAndSameAsNodes.length > 0) {
+                writeStatement(writer, specimenNode, MEMBER_OF_NODE, taxonAndSameAsNodes[0]);
+                for (int i = 1; i < taxonAndSameAsNodes.length; i++) {
+                    writeStatement(writer, taxonAndSameAsNodes[0], SAME_AS_NODE, taxonAndSameAsNodes[i]);
                 }
             }
         }
+    }
 
+    // first element is the taxon, followed by the taxa it is the same as
+    private String[] taxonNodes(Node taxonNode) {
+        String[] nodes = taxonNodes.get(taxonNode.getId());
+        if (nodes == null) {
+            nodes = NO_TAXON_NODES;
+            final String s = taxonIRI(taxonNode);
+            if (StringUtils.isNotBlank(s)) {
+                List<String> sameAsTaxa = addSameAsTaxaFor(taxonNode);
+                nodes = new String[sameAsTaxa.size() + 1];
+                nodes[0] = iriNode(s);
+                for (int i = 0; i < sameAsTaxa.size(); i++) {
+                    nodes[i + 1] = iriNode(sameAsTaxa.get(i));
+                }
+            }
+            taxonNodes.put(taxonNode.getId(), nodes);
+        }
+        return nodes;
     }
 
-    public void writeStatements(ExportUtil.Appender writer, List<List<String>> lists) throws IOException {
-        for (List<String> list : lists) {
-            writeStatement(writer, list);
+    private String environmentNode(String externalId) {
+        String key = StringUtils.defaultString(externalId);
+        String node = environmentNodes.get(key);
+        if (node == null && !environmentNodes.containsKey(key)) {
+            String envoId = ExternalIdUtil.urlForExternalId(externalId);
+            node = StringUtils.isNotBlank(envoId) ? iriNode(envoId) : null;
+            environmentNodes.put(key, node);
         }
+        return node;
+    }
+
+    private String interactionTypeNode(Relationship ixnR) {
+        return interactionTypeNodes.computeIfAbsent(
+                ixnR.getType().name(),
+                name -> iriNode(InteractType.valueOf(name).getIRI()));
     }
 
     public String blankNode(Node agentNode) {
@@ -94,6 +165,13 @@ public class ExporterRDF implements StudyExporter {
         appender.append(triple.stream());
     }
 
+    private void writeStatement(ExportUtil.Appender appender, String subject, String predicate, String object) throws IOException {
+        statement[0] = subject;
+        statement[1] = predicate;
+        statement[2] = object;
+        appender.append(statement);
+    }
+
     protected List<String> addSameAsTaxaFor(Node taxon) {
         List<String> sameAsTaxaIRIs = new ArrayList<String>();
         Iterable<Relationship> sameAsRels = taxon.getRelationships(NodeUtil.asNeo4j(RelTypes.SAME_AS), Direction.OUTGOING);
@@ -106,32 +184,27 @@ public class ExporterRDF implements StudyExporter {
         return sameAsTaxaIRIs;
     }
 
-    public List<List<String>> taxonOfSpecimen(Node specimen) {
-        List<List<String>> statements = new ArrayList<>();
-        Relationship singleRelationship = specimen.getSingleRelationship(NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS), Direction.OUTGOING);
-        if (singleRelationship != null) {
-            Node taxonNode = singleRelationship.getEndNode();
-            List<String> sameAsTaxa = addSameAsTaxaFor(taxonNode);
-            final String s = taxonIRI(taxonNode);
-            if (StringUtils.isNotBlank(s)) {
-                final String taxon = iriNode(s);
-                statements.add(Arrays.asList(blankNode(specimen), iriNode(MEMBER_OF), taxon));
-                for (String sameAsTaxon : sameAsTaxa) {
-                    statements.add(Arrays.asList(taxon, iriNode(SAME_AS), iriNode(sameAsTaxon)));
-                }
-            }
-        }
-        return statements;
+    public String iriNode(String iri) {
+        return toIRINode(iri);
     }
 
-    public String iriNode(String iri) {
+    private static String toIRINode(String iri) {
         return "<" + iri + ">";
     }
 
+    // reads the external id directly, because wrapping the node in a TaxonNode (re-)labels it
     public String taxonIRI(Node endNode) {
-        TaxonNode taxonNode = new TaxonNode(endNode);
-        String externalId = taxonNode.getExternalId();
+        String externalId = NodeUtil.getPropertyStringValueOrDefault(endNode, PropertyAndValueDictionary.EXTERNAL_ID, null);
         return ExternalIdUtil.urlForExternalId(externalId);
     }
 
-}
\ No newline at end of file
+    private static <K, V> Map<K, V> lruCache() {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > IRI_CACHE_SIZE;
+            }
+        };
+    }
+
+}
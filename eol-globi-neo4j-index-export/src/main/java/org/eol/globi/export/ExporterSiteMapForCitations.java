@@ -2,33 +2,34 @@ package org.eol.globi.export;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.data.export.SiteMapShards;
 import org.eol.globi.data.export.SiteMapUtils;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
 
 class ExporterSiteMapForCitations implements GraphExporter {
 
     @Override
     public void export(GraphDatabaseService graphDb, File baseDir, String neo4jVersion) throws StudyImporterException {
-        Set<String> accordingToHits = new HashSet<String>();
-        accordingToHits.add("gomexsi");
-
-        NodeUtil.findStudies(
-                graphDb,
-                node -> {
-                    final String doi = new StudyNode(node).getExternalId();
-                    if (StringUtils.isNotBlank(doi)) {
-                        accordingToHits.add(doi);
-                    }
-                });
-
-        final String siteMapLocation = "https://depot.globalbioticinteractions.org/snapshot/target/data/sitemap/citations/";
-        SiteMapUtils.generateSiteMap(accordingToHits, baseDir, "accordingTo=", siteMapLocation);
+        try (SiteMapShards accordingToHits = new SiteMapShards()) {
+            accordingToHits.add("gomexsi");
+
+            NodeUtil.findStudies(
+                    graphDb,
+                    node -> {
+                        final String doi = new StudyNode(node).getExternalId();
+                        if (StringUtils.isNotBlank(doi)) {
+                            accordingToHits.add(doi);
+                        }
+                    },
+                    Runtime.getRuntime().availableProcessors());
+
+            final String siteMapLocation = "https://depot.globalbioticinteractions.org/snapshot/target/data/sitemap/citations/";
+            SiteMapUtils.generateSiteMap(accordingToHits, baseDir, "accordingTo=", siteMapLocation);
+        }
     }
 
 
@@ -1,42 +1,48 @@
 package org.eol.globi.export;
 
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.data.export.SiteMapShards;
 import org.eol.globi.data.export.SiteMapUtils;
 import org.eol.globi.domain.RelTypes;
-import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.TaxonNode;
-import org.eol.globi.util.NodeTypeDirection;
+import org.eol.globi.util.NodeIdCollectorNeo4j2;
+import org.eol.globi.util.NodeIdCollectorNeo4j3;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Relationship;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
 
 class ExporterSiteMapForNames implements GraphExporter {
 
     @Override
     public void export(GraphDatabaseService graphDatabase, File baseDir, String neo4jVersion) throws StudyImporterException {
-        Set<String> names = new HashSet<String>();
-        names.add("Homo sapiens");
+        try (SiteMapShards names = new SiteMapShards()) {
+            names.add("Homo sapiens");
 
-        NodeUtil.findStudies(
-                graphDatabase,
-                node -> NodeUtil.handleCollectedRelationships(new NodeTypeDirection(new StudyNode(node).getUnderlyingNode()), specimen -> {
-                    final Iterable<Relationship> relationships = specimen.getEndNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
-                    if (relationships.iterator().hasNext()) {
-                        final Node endNode = relationships.iterator().next().getEndNode();
-                        final TaxonNode taxonNode = new TaxonNode(endNode);
-                        names.add(taxonNode.getName());
-                    }
-                }));
+            // names of indexed taxa that classify at least one specimen, with taxa split into ranges across threads
+            NodeUtil.processNodes(
+                    10000L,
+                    graphDatabase,
+                    node -> {
+                        if (node.hasRelationship(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS))) {
+                            String name = new TaxonNode(node).getName();
+                            if (StringUtils.isNotBlank(name)) {
+                                names.add(name);
+                            }
+                        }
+                    },
+                    "*",
+                    "*",
+                    "taxons",
+                    "2".equals(neo4jVersion) ? new NodeIdCollectorNeo4j2() : new NodeIdCollectorNeo4j3(),
+                    Runtime.getRuntime().availableProcessors());
 
-        final String queryParamName = "interactionType=interactsWith&sourceTaxon=";
-        final String siteMapLocation = "https://depot.globalbioticinteractions.org/snapshot/target/data/sitemap/names/";
-        SiteMapUtils.generateSiteMap(names, baseDir, queryParamName, siteMapLocation);
+            final String queryParamName = "interactionType=interactsWith&sourceTaxon=";
+            final String siteMapLocation = "https://depot.globalbioticinteractions.org/snapshot/target/data/sitemap/names/";
+            SiteMapUtils.generateSiteMap(names, baseDir, queryParamName, siteMapLocation);
+        }
     }
 
 }
@@ -9,6 +9,8 @@ import java.io.IOException;
 
 public abstract class GraphExporterBase implements GraphExporter {
 
+    private ExportPartitions partitions = null;
+
     @Override
     public void export(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
         try {
@@ -22,5 +24,14 @@ public abstract class GraphExporterBase implements GraphExporter {
 
     abstract public void doExport(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException;
 
+    public ExportPartitions getPartitions() {
+        return partitions;
+    }
+
+    public GraphExporterBase setPartitions(ExportPartitions partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
 
 }
@@ -2,27 +2,18 @@ package org.eol.globi.export;
 
 import org.apache.commons.io.FileUtils;
 import org.eol.globi.data.StudyImporterException;
-import org.eol.globi.domain.StudyNode;
-import org.eol.globi.util.NodeListener;
 import org.eol.globi.util.NodeUtil;
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.GZIPOutputStream;
 
 public class GraphExporterImpl extends GraphExporterBase {
     private static final Logger LOG = LoggerFactory.getLogger(GraphExporterImpl.class);
@@ -49,88 +40,39 @@ public class GraphExporterImpl extends GraphExporterBase {
         exportNCBILinkOut(graphService, baseDir, neo4jVersion);
         LOG.info("ncbi linkout files generated. ");
 
-        exportNames(graphService, baseDir);
-
         GraphExporterUtil.exportInteractionsAndCitations(
                 graphService,
                 baseDir,
                 "csv",
                 new ExportUtil.CsvValueJoiner(),
-                "2");
+                "2",
+                getPartitions());
 
-        exportDataOntology(graphService, baseDir);
-        exportDarwinCoreAggregatedByStudy(graphService, baseDir);
-        exportDarwinCoreAll(graphService, baseDir);
-    }
+        exportStudies(graphService, baseDir);
 
-    private void exportNCBILinkOut(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
-        final File ncbiDir = new File(baseDir, "ncbi-link-out/");
-        mkdir(ncbiDir);
-        new ExportNCBIIdentityFile().export(graphService, ncbiDir, neo4jVersion);
-
-        new ExportNCBIResourceFile().export(graphService, new ExportNCBIResourceFile.OutputStreamFactory() {
-            @Override
-            public OutputStream create(int i) throws IOException {
-                return new FileOutputStream(new File(ncbiDir, String.format("resources_%d.xml", i)));
-            }
-        });
+        // limit to number of nquads translated studies for now
+        new ExportNQuads("interactions.nq.gz", 100).export(graphService, baseDir, neo4jVersion);
     }
 
-    private void exportNames(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
+    // exports generated study-by-study share a single traversal of studies
+    private void exportStudies(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
         File taxaDir = new File(baseDir, "taxa");
+        File aggregatedByStudyDir = new File(baseDir, "aggregatedByStudy");
+        File allDir = new File(baseDir, "all");
         mkdir(taxaDir);
-        exportNames(graphService, taxaDir, new ExportTaxonMap(), "taxonMap.tsv.gz");
-        exportNames(graphService, taxaDir, new ExportTaxonCache(), "taxonCache.tsv.gz");
-        //exportNames(studies, baseDir, new ExportUnmatchedTaxonNames(), "taxa/taxonUnmatched.tsv");
-    }
+        mkdir(aggregatedByStudyDir);
+        mkdir(allDir);
 
-    private void mkdir(File dir) throws StudyImporterException {
-        try {
-            FileUtils.forceMkdir(dir);
-        } catch (IOException e) {
-            throw new StudyImporterException("failed to create output dir [" + dir + "]", e);
-        }
-    }
-
-    private void exportNames(GraphDatabaseService graphService, File baseDir, StudyExporter exporter, String filename) throws StudyImporterException {
-        try {
-            File filePath = new File(baseDir, filename);
-            OutputStreamWriter writer = openStream(filePath);
-            NodeUtil.findStudies(graphService, new NodeListener() {
-                final AtomicBoolean isFirst = new AtomicBoolean(true);
-
-                @Override
-                public void on(Node node) {
-                    boolean includeHeader = isFirst.getAndSet(false);
-                    try {
-                        exporter.exportStudy(new StudyNode(node), ExportUtil.AppenderWriter.of(writer), includeHeader);
-                    } catch (IOException e) {
-                        throw new IllegalStateException("failed to export names to [" + filePath + "]");
-                    }
-
-                }
-            });
-            closeStream(filePath, writer);
-        } catch (IOException e) {
-            throw new StudyImporterException("failed to export unmatched source taxa", e);
-        }
-    }
-
-    private void exportDarwinCoreAggregatedByStudy(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
-        exportDarwinCoreArchive(graphService,
-                new File(baseDir,"aggregatedByStudy"), new HashMap<String, DarwinCoreExporter>() {
-                    {
-                        put("association.tsv", new ExporterAssociationAggregates());
-                        put("occurrence.tsv", new ExporterOccurrenceAggregates());
-                        put("references.tsv", new ExporterReferences());
-                        put("taxa.tsv", new ExporterTaxaDistinct());
-                    }
-                }
-        );
-    }
+        Map<String, DarwinCoreExporter> aggregatedByStudy = new HashMap<String, DarwinCoreExporter>() {
+            {
+                put("association.tsv", new ExporterAssociationAggregates());
+                put("occurrence.tsv", new ExporterOccurrenceAggregates());
+                put("references.tsv", new ExporterReferences());
+                put("taxa.tsv", new ExporterTaxaDistinct());
+            }
+        };
 
-    private void exportDarwinCoreAll(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
-        exportDarwinCoreArchive(graphService, new File(baseDir, "all"), new HashMap<String, DarwinCoreExporter>() {
+        Map<String, DarwinCoreExporter> all = new HashMap<String, DarwinCoreExporter>() {
             {
                 put("association.tsv", new ExporterAssociations());
                 put("occurrence.tsv", new ExporterOccurrences());
@@ -138,49 +80,45 @@ public class GraphExporterImpl extends GraphExporterBase {
                 put("taxa.tsv", new ExporterTaxaDistinct());
                 put("measurementOrFact.tsv", new ExporterMeasurementOrFact());
             }
-        });
-    }
+        };
 
-    private void exportDataOntology(GraphDatabaseService graphService, File baseDir) throws StudyImporterException {
-        try {
-            ExporterRDF studyExporter = new ExporterRDF();
-            File exportFile = new File(baseDir, "interactions.nq.gz");
-            OutputStreamWriter writer = openStream(exportFile);
-            String msg = "writing nquads archive to [" + exportFile + "]";
-            LOG.info(msg + "...");
-            AtomicInteger studyCounter = new AtomicInteger(0);
-            NodeUtil.findStudies(graphService, node -> {
-                try {
-                    int studyCount = studyCounter.getAndIncrement();
-                    // limit to number of nquads translated studies for now
-                    if (studyCount < 100) {
-                        studyExporter.exportStudy(
-                                new StudyNode(node),
-                                ExportUtil.AppenderWriter.of(writer, new ExportUtil.NQuadValueJoiner()),
-                                true);
-                    }
-                } catch (IOException e) {
-                    throw new IllegalStateException("failed to export interactions to [" + exportFile.getAbsolutePath() + "]", e);
-                }
-
-            });
-            LOG.info(msg + " done.");
-            closeStream(exportFile, writer);
+        LOG.info("study exports generating... ");
+        try (StudyExporterFanOut studyExporters = new StudyExporterFanOut()) {
+            studyExporters.add(new File(taxaDir, "taxonMap.tsv.gz"), new ExportTaxonMap());
+            studyExporters.add(new File(taxaDir, "taxonCache.tsv.gz"), new ExportTaxonCache());
+            //studyExporters.add(new File(taxaDir, "taxonUnmatched.tsv"), new ExportUnmatchedTaxonNames());
+
+            addDarwinCoreExporters(studyExporters, aggregatedByStudyDir, aggregatedByStudy);
+            addDarwinCoreExporters(studyExporters, allDir, all);
+
+            NodeUtil.findStudies(graphService, studyExporters);
         } catch (IOException e) {
-            throw new StudyImporterException("failed to export as owl", e);
+            throw new StudyImporterException("failed to export studies", e);
         }
+
+        writeDarwinCoreMeta(aggregatedByStudyDir, aggregatedByStudy);
+        writeDarwinCoreMeta(allDir, all);
+        LOG.info("study exports generated.");
     }
 
-    private void exportDarwinCoreArchive(GraphDatabaseService graphDatabaseService, File baseDir, Map<String, DarwinCoreExporter> exporters) throws StudyImporterException {
-        try {
-            FileUtils.forceMkdir(baseDir);
-            FileWriter darwinCoreMeta = writeMetaHeader(baseDir);
-            for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
-                export(graphDatabaseService, baseDir, exporter.getKey(), exporter.getValue(), darwinCoreMeta);
+    private void exportNCBILinkOut(GraphDatabaseService graphService, File baseDir, String neo4jVersion) throws StudyImporterException {
+        final File ncbiDir = new File(baseDir, "ncbi-link-out/");
+        mkdir(ncbiDir);
+        new ExportNCBIIdentityFile().export(graphService, ncbiDir, neo4jVersion);
+
+        new ExportNCBIResourceFile().export(graphService, new ExportNCBIResourceFile.OutputStreamFactory() {
+            @Override
+            public OutputStream create(int i) throws IOException {
+                return new FileOutputStream(new File(ncbiDir, String.format("resources_%d.xml", i)));
             }
-            writeMetaFooter(darwinCoreMeta);
+        }, neo4jVersion);
+    }
+
+    private void mkdir(File dir) throws StudyImporterException {
+        try {
+            FileUtils.forceMkdir(dir);
         } catch (IOException e) {
-            throw new StudyImporterException("failed to export result to csv file", e);
+            throw new StudyImporterException("failed to create output dir [" + dir + "]", e);
         }
     }
 
@@ -197,46 +135,24 @@ public class GraphExporterImpl extends GraphExporterBase {
         return darwinCoreMeta;
     }
 
-    private void export(GraphDatabaseService graphService, File exportPath, String filename, DarwinCoreExporter studyExporter, FileWriter darwinCoreMeta) throws IOException {
-        File exportFile = new File(exportPath, filename);
-        OutputStreamWriter writer = openStream(exportFile);
-
-        NodeUtil.findStudies(graphService, new NodeListener() {
-            final AtomicBoolean isFirst = new AtomicBoolean(true);
-
-            @Override
-            public void on(Node node) {
-                try {
-                    studyExporter.exportStudy(new StudyNode(node),
-                            ExportUtil.AppenderWriter.of(writer), isFirst.getAndSet(false));
-                } catch (IOException e) {
-                    throw new IllegalStateException("failed to export to [" + exportFile.getAbsolutePath() + "]", e);
-                }
-
-            }
-        });
-        closeStream(exportFile, writer);
-
-        LOG.info("darwin core meta file writing... ");
-        studyExporter.exportDarwinCoreMetaTable(darwinCoreMeta, filename);
-        LOG.info("darwin core meta file written. ");
-    }
-
-    private void closeStream(File exportFile, OutputStreamWriter writer) throws IOException {
-        writer.flush();
-        writer.close();
-        LOG.info("export data to [" + exportFile.getAbsolutePath() + "] complete.");
+    private void addDarwinCoreExporters(StudyExporterFanOut studyExporters, File baseDir, Map<String, DarwinCoreExporter> exporters) throws IOException {
+        for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
+            studyExporters.add(new File(baseDir, exporter.getKey()), exporter.getValue());
+        }
     }
 
-    private OutputStreamWriter openStream(File exportFile) throws IOException {
-        OutputStream fos = new BufferedOutputStream(new FileOutputStream(exportFile));
-        String exportFilePath = exportFile.getAbsolutePath();
-        if (exportFilePath.endsWith(".gz")) {
-            fos = new GZIPOutputStream(fos);
+    private void writeDarwinCoreMeta(File baseDir, Map<String, DarwinCoreExporter> exporters) throws StudyImporterException {
+        try {
+            LOG.info("darwin core meta file writing... ");
+            FileWriter darwinCoreMeta = writeMetaHeader(baseDir);
+            for (Map.Entry<String, DarwinCoreExporter> exporter : exporters.entrySet()) {
+                exporter.getValue().exportDarwinCoreMetaTable(darwinCoreMeta, exporter.getKey());
+            }
+            writeMetaFooter(darwinCoreMeta);
+            LOG.info("darwin core meta file written. ");
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to write darwin core meta file in [" + baseDir.getAbsolutePath() + "]", e);
         }
-        OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
-        LOG.info("export data to [" + exportFilePath + "] started...");
-        return writer;
     }
 
 }
@@ -20,7 +20,9 @@ public class GraphExporterInteractionsTSVImpl extends GraphExporterBase {
                 baseDir,
                 "tsv",
                 new ExportUtil.TsvValueJoiner(),
-                neo4jVersion
+                neo4jVersion,
+                getPartitions(),
+                new File(baseDir, "columnar")
         );
     }
 
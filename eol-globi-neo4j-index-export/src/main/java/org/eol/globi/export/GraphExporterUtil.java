@@ -22,6 +22,30 @@ public class GraphExporterUtil {
                                                       String extension,
                                                       ExportUtil.ValueJoiner joiner,
                                                       String neo4jVersion) throws StudyImporterException {
+        exportInteractionsAndCitations(graphService, baseDir, extension, joiner, neo4jVersion, null);
+    }
+
+    public static void exportInteractionsAndCitations(GraphDatabaseService graphService,
+                                                      File baseDir,
+                                                      String extension,
+                                                      ExportUtil.ValueJoiner joiner,
+                                                      String neo4jVersion,
+                                                      ExportPartitions partitions) throws StudyImporterException {
+        exportInteractionsAndCitations(graphService, baseDir, extension, joiner, neo4jVersion, partitions, null);
+    }
+
+    /**
+     * @param columnarDir if set, interactions are also written into this dir in a columnar layout
+     *                    (see {@link ColumnarAppender}) while they are exported, or null otherwise
+     */
+
+    public static void exportInteractionsAndCitations(GraphDatabaseService graphService,
+                                                      File baseDir,
+                                                      String extension,
+                                                      ExportUtil.ValueJoiner joiner,
+                                                      String neo4jVersion,
+                                                      ExportPartitions partitions,
+                                                      File columnarDir) throws StudyImporterException {
         File formatBaseDir = new File(baseDir, extension);
         try {
             FileUtils.forceMkdir(formatBaseDir);
@@ -35,7 +59,9 @@ public class GraphExporterUtil {
                     "interactions." + extension + ".gz",
                     joiner,
                     RelTypes.CLASSIFIED_AS,
-                    neo4jVersion);
+                    neo4jVersion,
+                    partitions,
+                    columnarDir);
 
             exportSupportingInteractions(
                     graphService,
@@ -43,7 +69,9 @@ public class GraphExporterUtil {
                     "verbatim-interactions." + extension + ".gz",
                     joiner,
                     RelTypes.ORIGINALLY_DESCRIBED_AS,
-                    neo4jVersion);
+                    neo4jVersion,
+                    partitions,
+                    null);
 
             exportRefutedInteractions(
                     graphService,
@@ -51,7 +79,8 @@ public class GraphExporterUtil {
                     "refuted-interactions." + extension + ".gz",
                     joiner,
                     RelTypes.CLASSIFIED_AS,
-                    neo4jVersion);
+                    neo4jVersion,
+                    partitions);
 
             exportRefutedInteractions(
                     graphService,
@@ -59,7 +88,8 @@ public class GraphExporterUtil {
                     "refuted-verbatim-interactions." + extension + ".gz",
                     joiner,
                     RelTypes.ORIGINALLY_DESCRIBED_AS,
-                    neo4jVersion);
+                    neo4jVersion,
+                    partitions);
 
             exportCitations(
                     graphService,
@@ -80,12 +110,24 @@ public class GraphExporterUtil {
         }
     }
 
-    private static void exportSupportingInteractions(GraphDatabaseService graphService, File baseDir, String filename, ExportUtil.ValueJoiner joiner, RelTypes taxonRelation, String neo4jVersion) throws StudyImporterException {
+    private static void exportSupportingInteractions(GraphDatabaseService graphService, File baseDir, String filename, ExportUtil.ValueJoiner joiner, RelTypes taxonRelation, String neo4jVersion, ExportPartitions partitions, File columnarDir) throws StudyImporterException {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         LOG.info("[" + filename + "] generating... ");
-        new ExportFlatInteractions(joiner, filename, taxonRelation, neo4jVersion)
-                .export(graphService, baseDir, neo4jVersion);
+        ExportFlatInteractions interactions = new ExportFlatInteractions(joiner, filename, taxonRelation, neo4jVersion)
+                .setTraverseGraph(traverseGraph(neo4jVersion))
+                .setPartitions(partitions);
+        if (columnarDir == null) {
+            interactions.export(graphService, baseDir, neo4jVersion);
+        } else {
+            File dir = new File(columnarDir, "interactions");
+            try (ColumnarAppender columnar = new ColumnarAppender(dir, "interactionTypeName")) {
+                interactions.setAlsoAppendTo(columnar)
+                        .export(graphService, baseDir, neo4jVersion);
+            } catch (IOException e) {
+                throw new StudyImporterException("failed to export to [" + dir.getAbsolutePath() + "]", e);
+            }
+        }
         stopWatch.stop();
         LOG.info("[" + filename + "] generated in " + stopWatch.getTime(TimeUnit.SECONDS) + "s.");
     }
@@ -120,16 +162,24 @@ public class GraphExporterUtil {
             File baseDir, String filename,
             ExportUtil.ValueJoiner joiner,
             RelTypes taxonRelation,
-            String neo4jVersion) throws StudyImporterException {
+            String neo4jVersion,
+            ExportPartitions partitions) throws StudyImporterException {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         LOG.info("[" + filename + "] generating... ");
         new ExportFlatInteractions(joiner, filename, taxonRelation, neo4jVersion)
                 .setArgumentType(RelTypes.REFUTES)
                 .setArgumentTypeId(PropertyAndValueDictionary.REFUTES)
+                .setTraverseGraph(traverseGraph(neo4jVersion))
+                .setPartitions(partitions)
                 .export(graphService, baseDir, neo4jVersion);
         stopWatch.stop();
         LOG.info("[" + filename + "] generated in " + stopWatch.getTime(TimeUnit.SECONDS) + "s.");
     }
 
+    // the core api traversal outperforms the Cypher 2.3 planner on the flat interactions pattern
+    private static boolean traverseGraph(String neo4jVersion) {
+        return "2".equals(neo4jVersion);
+    }
+
 }
@@ -0,0 +1,109 @@
+package org.eol.globi.export;
+
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.util.NodeListener;
+import org.neo4j.graphdb.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands each visited study to all registered study exporters, so that exports that are
+ * generated study-by-study share a single traversal of the studies in the graph.
+ * <p>
+ * Study nodes are only valid within the transaction of the traversing thread, so
+ * exporters are called in registration order on that thread.
+ */
+
+public class StudyExporterFanOut implements NodeListener, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(StudyExporterFanOut.class);
+
+    private final List<Sink> sinks = new ArrayList<>();
+
+    public void add(File exportFile, StudyExporter exporter) throws IOException {
+        add(exportFile, exporter, new ExportUtil.TsvValueJoiner(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxStudies maximum number of studies handed to the exporter
+     */
+
+    public void add(File exportFile, StudyExporter exporter, ExportUtil.ValueJoiner joiner, int maxStudies) throws IOException {
+        sinks.add(new Sink(exportFile, exporter, openStream(exportFile), joiner, maxStudies));
+    }
+
+    @Override
+    public void on(Node node) {
+        StudyNode study = new StudyNode(node);
+        for (Sink sink : sinks) {
+            try {
+                sink.export(study);
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to export to [" + sink.exportFile.getAbsolutePath() + "]", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException lastException = null;
+        for (Sink sink : sinks) {
+            try {
+                sink.writer.flush();
+                sink.writer.close();
+                LOG.info("export data to [" + sink.exportFile.getAbsolutePath() + "] complete.");
+            } catch (IOException e) {
+                lastException = e;
+            }
+        }
+        if (lastException != null) {
+            throw lastException;
+        }
+    }
+
+    static OutputStreamWriter openStream(File exportFile) throws IOException {
+        OutputStream fos = new BufferedOutputStream(new FileOutputStream(exportFile));
+        String exportFilePath = exportFile.getAbsolutePath();
+        if (exportFilePath.endsWith(".gz")) {
+            fos = ExportUtil.gzipOutputStream(fos);
+        }
+        OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
+        LOG.info("export data to [" + exportFilePath + "] started...");
+        return writer;
+    }
+
+    private static class Sink {
+        private final File exportFile;
+        private final StudyExporter exporter;
+        private final OutputStreamWriter writer;
+        private final ExportUtil.Appender appender;
+        private final int maxStudies;
+        private int studyCount = 0;
+
+        Sink(File exportFile, StudyExporter exporter, OutputStreamWriter writer, ExportUtil.ValueJoiner joiner, int maxStudies) {
+            this.exportFile = exportFile;
+            this.exporter = exporter;
+            this.writer = writer;
+            this.appender = ExportUtil.AppenderWriter.of(writer, joiner);
+            this.maxStudies = maxStudies;
+        }
+
+        void export(StudyNode study) throws IOException {
+            if (studyCount < maxStudies) {
+                exporter.exportStudy(study, appender, studyCount == 0);
+                studyCount++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.eol.globi.data;
+
+import org.eol.globi.domain.Location;
+import org.eol.globi.domain.Term;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded caches used by a node factory during a single import: resolved terms by name,
+ * ids of location nodes by location identity, and a pool of (string) property values shared by the nodes created.
+ * <p>
+ * Not thread-safe: a node factory is expected to be used by a single import at a time.
+ */
+
+public class NodeFactoryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final BoundedCache<String, Term> lifeStages;
+    private final BoundedCache<String, Term> bodyParts;
+    private final BoundedCache<String, Term> terms;
+    private final BoundedCache<LocationKey, Long> locations;
+    private final BoundedCache<String, String> values;
+
+    public NodeFactoryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of entries per cache, caching is disabled if less than 1
+     */
+
+    public NodeFactoryCache(int maxSize) {
+        this.lifeStages = new BoundedCache<>("life stages", maxSize);
+        this.bodyParts = new BoundedCache<>("body parts", maxSize);
+        this.terms = new BoundedCache<>("terms", maxSize);
+        this.locations = new BoundedCache<>("locations", maxSize);
+        this.values = new BoundedCache<>("values", maxSize);
+    }
+
+    public static NodeFactoryCache disabled() {
+        return new NodeFactoryCache(0);
+    }
+
+    BoundedCache<String, Term> getLifeStages() {
+        return lifeStages;
+    }
+
+    BoundedCache<String, Term> getBodyParts() {
+        return bodyParts;
+    }
+
+    BoundedCache<String, Term> getTerms() {
+        return terms;
+    }
+
+    BoundedCache<LocationKey, Long> getLocations() {
+        return locations;
+    }
+
+    /**
+     * @return a previously seen, equal value if available, so that equal property values share a single instance
+     */
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = values.get(value);
+        if (interned == null) {
+            values.put(value, value);
+            interned = value;
+        }
+        return interned;
+    }
+
+    LocationKey keyFor(Location location) {
+        return new LocationKey(location.getLatitude(),
+                location.getLongitude(),
+                location.getAltitude(),
+                intern(location.getFootprintWKT()),
+                intern(location.getLocality()),
+                intern(location.getLocalityId()));
+    }
+
+    public long getLookupCount() {
+        return lifeStages.lookups() + bodyParts.lookups() + terms.lookups() + locations.lookups();
+    }
+
+    public long getLocationHitCount() {
+        return locations.getHits();
+    }
+
+    public long getLocationMissCount() {
+        return locations.getMisses();
+    }
+
+    public String getHitRates() {
+        return String.join(", ",
+                lifeStages.hitRate(),
+                bodyParts.hitRate(),
+                terms.hitRate(),
+                locations.hitRate(),
+                values.hitRate());
+    }
+
+    static final class BoundedCache<K, V> {
+        private final String name;
+        private final int maxSize;
+        private final Map<K, V> entries;
+        private long hits = 0;
+        private long misses = 0;
+
+        BoundedCache(String name, int maxSize) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > BoundedCache.this.maxSize;
+                }
+            };
+        }
+
+        V get(K key) {
+            V value = maxSize > 0 ? entries.get(key) : null;
+            if (value == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return value;
+        }
+
+        void put(K key, V value) {
+            if (maxSize > 0) {
+                entries.put(key, value);
+            }
+        }
+
+        /**
+         * Removes an entry found to be stale, and counts its lookup as a miss instead of a hit.
+         */
+
+        void invalidate(K key) {
+            if (entries.remove(key) != null) {
+                hits--;
+                misses++;
+            }
+        }
+
+        void clear() {
+            entries.clear();
+        }
+
+        long getHits() {
+            return hits;
+        }
+
+        long getMisses() {
+            return misses;
+        }
+
+        long lookups() {
+            return hits + misses;
+        }
+
+        String hitRate() {
+            long lookups = lookups();
+            long percentage = lookups == 0 ? 0 : Math.round(100.0 * hits / lookups);
+            return name + ": [" + hits + "/" + lookups + "] (" + percentage + "%)";
+        }
+    }
+
+    static final class LocationKey {
+        private final Double latitude;
+        private final Double longitude;
+        private final Double altitude;
+        private final String footprintWKT;
+        private final String locality;
+        private final String localityId;
+
+        LocationKey(Double latitude, Double longitude, Double altitude, String footprintWKT, String locality, String localityId) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+            this.footprintWKT = footprintWKT;
+            this.locality = locality;
+            this.localityId = localityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            LocationKey that = (LocationKey) o;
+            return Objects.equals(latitude, that.latitude)
+                    && Objects.equals(longitude, that.longitude)
+                    && Objects.equals(altitude, that.altitude)
+                    && Objects.equals(footprintWKT, that.footprintWKT)
+                    && Objects.equals(locality, that.locality)
+                    && Objects.equals(localityId, that.localityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(latitude, longitude, altitude, footprintWKT, locality, localityId);
+        }
+    }
+
+}
@@ -2,7 +2,6 @@ package org.eol.globi.data;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.domain.DatasetNode;
 import org.eol.globi.domain.Environment;
@@ -10,6 +9,7 @@ import org.eol.globi.domain.EnvironmentNode;
 import org.eol.globi.domain.Interaction;
 import org.eol.globi.domain.InteractionNode;
 import org.eol.globi.domain.Location;
+import org.eol.globi.domain.LocationImpl;
 import org.eol.globi.domain.LocationNode;
 import org.eol.globi.domain.NodeBacked;
 import org.eol.globi.domain.PropertyAndValueDictionary;
@@ -22,11 +22,14 @@ import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.domain.Term;
 import org.eol.globi.domain.TermImpl;
 import org.eol.globi.service.EnvoLookupService;
+import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceException;
+import org.eol.globi.taxon.TermLookupServiceImpl;
 import org.eol.globi.taxon.TermLookupServiceWithResource;
 import org.eol.globi.taxon.UberonLookupService;
 import org.eol.globi.util.DateUtil;
@@ -41,30 +44,42 @@ import org.joda.time.DateTime;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
-import static org.eol.globi.domain.LocationUtil.fromLocation;
+import static org.eol.globi.domain.LocationUtil.hasLatLng;
+import static org.eol.globi.domain.LocationUtil.isSameLocation;
 
 public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     private static final Logger LOG = LoggerFactory.getLogger(NodeFactoryNeo4j.class);
     public static final TermImpl NO_MATCH_TERM = new TermImpl(PropertyAndValueDictionary.NO_MATCH, PropertyAndValueDictionary.NO_MATCH);
+    private static final Pattern NON_LETTERS = Pattern.compile("[^A-Za-z]");
+    // study relationships carrying the event date, see getCollectedRel
+    private static final List<RelTypes> EVENT_DATE_REL_TYPES = Arrays.asList(RelTypes.COLLECTED, RelTypes.SUPPORTS, RelTypes.REFUTES);
 
     private GraphDatabaseService graphDb;
 
     private TermLookupService termLookupService;
     private TermLookupService envoLookupService;
-    private final TermLookupService lifeStageLookupService;
-    private final TermLookupService bodyPartLookupService;
+    private final TermLookupServiceWithResource lifeStageLookupService;
+    private final TermLookupServiceWithResource bodyPartLookupService;
+    private NodeFactoryCache cache = new NodeFactoryCache();
+    private String namespace;
 
     public NodeFactoryNeo4j(GraphDatabaseService graphDb) {
         this.graphDb = graphDb;
@@ -107,7 +122,7 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     private LocationNode createLocation(final Location location) throws NodeFactoryException {
         Node node = createLocationNode();
-        LocationNode locationNode = new LocationNode(node, fromLocation(location));
+        LocationNode locationNode = new LocationNode(node, internedCopyOf(location));
         indexLocation(location, node);
         return locationNode;
     }
@@ -116,12 +131,22 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     protected abstract Node createLocationNode();
 
+    private Location internedCopyOf(Location location) {
+        LocationImpl copy = new LocationImpl(location.getLatitude(),
+                location.getLongitude(),
+                location.getAltitude(),
+                cache.intern(location.getFootprintWKT()));
+        copy.setLocality(cache.intern(location.getLocality()));
+        copy.setLocalityId(cache.intern(location.getLocalityId()));
+        return copy;
+    }
+
     protected Node findFirstMatchingLocationIfAvailable(Location location, ResourceIterator<Node> matchingLocations) {
         Node matching = null;
         while (matching == null && matchingLocations.hasNext()) {
             Node node = matchingLocations.next();
             final LocationNode foundLocation = new LocationNode(node);
-            if (org.eol.globi.domain.LocationUtil.isSameLocation(location, foundLocation)) {
+            if (isSameLocation(location, foundLocation)) {
                 matching = node;
             }
         }
@@ -146,58 +171,130 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
         if (null == study) {
             throw new NodeFactoryException("specimen needs study, but none is specified");
         }
+        return createSpecimen((StudyNode) study, new SpecimenRecord(taxon, types));
+    }
+
+    private static String[] namePartsOf(String taxonName) {
+        return StringUtils.split(NON_LETTERS.matcher(taxonName).replaceAll(" "));
+    }
+
+    /**
+     * Creates the interactions of a block at once: studies are looked up once per block, and
+     * the properties of each specimen are collected first, so that each is written only once.
+     */
+
+    @Override
+    public void createInteractions(List<InteractionRecord> interactions) throws NodeFactoryException {
+        Map<String, StudyNode> studies = new HashMap<>();
+        for (InteractionRecord interaction : interactions) {
+            try {
+                createInteraction(interaction, studies);
+            } catch (NodeFactoryException e) {
+                throw new NodeFactoryException("failed to create interaction " + interaction, e);
+            }
+        }
+    }
+
+    private void createInteraction(InteractionRecord interaction, Map<String, StudyNode> studies) throws NodeFactoryException {
+        String studyId = getIdInNamespace(interaction.getStudy());
+        StudyNode study = studies.get(studyId);
+        if (study == null) {
+            study = getOrCreateStudy(interaction.getStudy());
+            studies.put(studyId, study);
+        }
+        SpecimenNode source = createSpecimen(study, interaction.getSource());
+        SpecimenNode target = createSpecimen(study, interaction.getTarget());
+        Location location = interaction.getLocation() == null
+                ? null
+                : getOrCreateLocation(interaction.getLocation());
+        source.interactsWith(target, interaction.getInteractType(), location);
+    }
 
+    // collects the specimen properties first, so that each is written only once
+    protected SpecimenNode createSpecimen(StudyNode study, SpecimenRecord specimenRecord) throws NodeFactoryException {
+        RelTypes[] types = specimenRecord.getStudyRelTypes();
         if (null == types || types.length == 0) {
             throw new NodeFactoryException("specimen needs at least one study relationship type, but none is specified");
         }
 
         SpecimenNode specimen = createSpecimen();
+        String eventDate = specimenRecord.getEventDate() == null
+                ? null
+                : DateUtil.printDate(specimenRecord.getEventDate());
         for (RelTypes type : types) {
-            ((StudyNode) study).createRelationshipTo(specimen, type);
+            Relationship studyRel = study.createRelationshipTo(specimen, type);
+            if (eventDate != null && EVENT_DATE_REL_TYPES.contains(type)) {
+                studyRel.setProperty(SpecimenConstant.EVENT_DATE, eventDate);
+            }
         }
 
-        specimen.setOriginalTaxonDescription(taxon);
+        Taxon taxon = specimenRecord.getTaxon();
+        TaxonNode originalTaxon = new TaxonNode(graphDb.createNode());
+        TaxonUtil.copy(taxon, originalTaxon);
+        specimen.createRelationshipTo(originalTaxon, RelTypes.ORIGINALLY_DESCRIBED_AS);
+
+        Map<String, Object> properties = new HashMap<>();
         if (StringUtils.isNotBlank(taxon.getName())) {
-            extractTerms(taxon.getName(), specimen);
+            for (String part : namePartsOf(taxon.getName())) {
+                putTerm(properties, SpecimenConstant.LIFE_STAGE_LABEL, SpecimenConstant.LIFE_STAGE_ID, matchOrNull(resolveTerm(cache.getLifeStages(), lifeStageLookupService, part)));
+                putTerm(properties, SpecimenConstant.BODY_PART_LABEL, SpecimenConstant.BODY_PART_ID, matchOrNull(resolveTerm(cache.getBodyParts(), bodyPartLookupService, part)));
+            }
+        }
+        putTerm(properties, SpecimenConstant.BASIS_OF_RECORD_LABEL, SpecimenConstant.BASIS_OF_RECORD_ID, specimenRecord.getBasisOfRecord());
+        putTerm(properties, SpecimenConstant.BODY_PART_LABEL, SpecimenConstant.BODY_PART_ID, specimenRecord.getBodyPart());
+        putTerm(properties, SpecimenConstant.LIFE_STAGE_LABEL, SpecimenConstant.LIFE_STAGE_ID, specimenRecord.getLifeStage());
+        putTerm(properties, SpecimenConstant.SEX_LABEL, SpecimenConstant.SEX_ID, specimenRecord.getSex());
+        if (StringUtils.isNotBlank(specimenRecord.getExternalId())) {
+            properties.put(PropertyAndValueDictionary.EXTERNAL_ID, specimenRecord.getExternalId());
+        }
+        for (Map.Entry<String, String> property : specimenRecord.getProperties().entrySet()) {
+            putIfNotNull(properties, property.getKey(), property.getValue());
+        }
+
+        Node specimenNode = specimen.getUnderlyingNode();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            specimenNode.setProperty(property.getKey(), property.getValue());
         }
         return specimen;
     }
 
-    private void extractTerms(String taxonName, Specimen specimen) throws NodeFactoryException {
-        String s = RegExUtils.replacePattern(taxonName, "[^A-Za-z]", " ");
-        String[] nameParts = StringUtils.split(s);
-        for (String part : nameParts) {
-            extractLifeStage(specimen, part);
-            extractBodyPart(specimen, part);
+    private static Term matchOrNull(Term term) {
+        return term == NO_MATCH_TERM ? null : term;
+    }
+
+    // like the specimen term setters, terms without name or id do not replace a previously set name or id
+    private static void putTerm(Map<String, Object> properties, String labelKey, String idKey, Term term) {
+        if (term != null) {
+            putIfNotNull(properties, labelKey, term.getName());
+            putIfNotNull(properties, idKey, term.getId());
         }
     }
 
-    private void extractLifeStage(Specimen specimen, String part) throws NodeFactoryException {
-        try {
-            List<Term> terms = lifeStageLookupService.lookupTermByName(part);
-            for (Term term : terms) {
-                if (!StringUtils.equals(term.getId(), PropertyAndValueDictionary.NO_MATCH)) {
-                    specimen.setLifeStage(terms.get(0));
-                    break;
-                }
-            }
-        } catch (TermLookupServiceException e) {
-            throw new NodeFactoryException("failed to map term [" + part + "]", e);
+    private static void putIfNotNull(Map<String, Object> properties, String key, Object value) {
+        if (key != null && value != null) {
+            properties.put(key, value);
         }
     }
 
-    private void extractBodyPart(Specimen specimen, String part) throws NodeFactoryException {
-        try {
-            List<Term> terms = bodyPartLookupService.lookupTermByName(part);
-            for (Term term : terms) {
-                if (!StringUtils.equals(term.getId(), PropertyAndValueDictionary.NO_MATCH)) {
-                    specimen.setBodyPart(terms.get(0));
-                    break;
+    // returns the first term if any of the matched terms is a match, or NO_MATCH_TERM otherwise
+    private static Term resolveTerm(NodeFactoryCache.BoundedCache<String, Term> resolved, TermLookupService lookupService, String part) throws NodeFactoryException {
+        Term term = resolved.get(part);
+        if (term == null) {
+            term = NO_MATCH_TERM;
+            try {
+                List<Term> terms = lookupService.lookupTermByName(part);
+                for (Term candidate : terms) {
+                    if (!StringUtils.equals(candidate.getId(), PropertyAndValueDictionary.NO_MATCH)) {
+                        term = terms.get(0);
+                        break;
+                    }
                 }
+            } catch (TermLookupServiceException e) {
+                throw new NodeFactoryException("failed to map term [" + part + "]", e);
             }
-        } catch (TermLookupServiceException e) {
-            throw new NodeFactoryException("failed to map term [" + part + "]", e);
+            resolved.put(part, term);
         }
+        return term;
     }
 
 
@@ -292,6 +389,10 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
         datasetNode.setProperty(DatasetConstant.CITATION, StringUtils.defaultIfBlank(dataset.getCitation(), "no citation"));
         datasetNode.setProperty(DatasetConstant.SHOULD_RESOLVE_REFERENCES, dataset.getOrDefault(DatasetConstant.SHOULD_RESOLVE_REFERENCES, "true"));
         datasetNode.setProperty(DatasetConstant.LAST_SEEN_AT, dataset.getOrDefault(DatasetConstant.LAST_SEEN_AT, Long.toString(System.currentTimeMillis())));
+        String contentHash = dataset.getOrDefault(DatasetConstant.CONTENT_HASH, null);
+        if (StringUtils.isNotBlank(contentHash)) {
+            datasetNode.setProperty(DatasetConstant.CONTENT_HASH, contentHash);
+        }
         indexDatasetNode(dataset, datasetNode);
         return datasetNode;
     }
@@ -347,11 +448,42 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     @Override
     public LocationNode getOrCreateLocation(org.eol.globi.domain.Location location) throws NodeFactoryException {
+        NodeFactoryCache.LocationKey key = hasLatLng(location)
+                ? cache.keyFor(location)
+                : null;
+        LocationNode cached = key == null ? null : findCachedLocation(key, location);
+        if (cached != null) {
+            return cached;
+        }
         Location location1 = findLocation(location);
         if (!(location1 instanceof LocationNode)) {
             location1 = createLocation(location);
         }
-        return (LocationNode) location1;
+        LocationNode locationNode = (LocationNode) location1;
+        if (key != null) {
+            cache.getLocations().put(key, locationNode.getUnderlyingNode().getId());
+        }
+        return locationNode;
+    }
+
+    // cached nodes are verified, because nodes of rolled back transactions no longer exist, and their ids may be reused
+    private LocationNode findCachedLocation(NodeFactoryCache.LocationKey key, Location location) {
+        Long nodeId = cache.getLocations().get(key);
+        LocationNode cached = null;
+        if (nodeId != null) {
+            try {
+                LocationNode candidate = new LocationNode(graphDb.getNodeById(nodeId));
+                if (isSameLocation(location, candidate)) {
+                    cached = candidate;
+                }
+            } catch (NotFoundException ex) {
+                // fall through
+            }
+            if (cached == null) {
+                cache.getLocations().invalidate(key);
+            }
+        }
+        return cached;
     }
 
 
@@ -436,12 +568,19 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
     }
 
     private Term matchTerm(String externalId, String name) throws NodeFactoryException {
-        try {
-            List<Term> terms = getTermLookupService().lookupTermByName(name);
-            return terms.size() == 0 ? NO_MATCH_TERM : terms.get(0);
-        } catch (TermLookupServiceException e) {
-            throw new NodeFactoryException("failed to lookup term [" + externalId + "]:[" + name + "]");
+        Term term = name == null ? null : cache.getTerms().get(name);
+        if (term == null) {
+            try {
+                List<Term> terms = getTermLookupService().lookupTermByName(name);
+                term = terms.size() == 0 ? NO_MATCH_TERM : terms.get(0);
+            } catch (TermLookupServiceException e) {
+                throw new NodeFactoryException("failed to lookup term [" + externalId + "]:[" + name + "]");
+            }
+            if (name != null) {
+                cache.getTerms().put(name, term);
+            }
         }
+        return term;
     }
 
     @Override
@@ -453,8 +592,31 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
         this.envoLookupService = envoLookupService;
     }
 
+    /**
+     * @param termMappingDir directory to keep compiled term mappings in, so that mappings are not re-read and re-built for every import
+     */
+
+    public void setTermMappingDir(File termMappingDir) {
+        lifeStageLookupService.setIndexDir(termMappingDir);
+        bodyPartLookupService.setIndexDir(termMappingDir);
+        for (TermLookupService lookupService : Arrays.asList(termLookupService, envoLookupService)) {
+            if (lookupService instanceof TermLookupServiceImpl) {
+                ((TermLookupServiceImpl) lookupService).setIndexDir(termMappingDir);
+            }
+        }
+    }
+
     public void setTermLookupService(TermLookupService termLookupService) {
         this.termLookupService = termLookupService;
+        this.cache.getTerms().clear();
+    }
+
+    public NodeFactoryCache getCache() {
+        return cache;
+    }
+
+    public void setCache(NodeFactoryCache cache) {
+        this.cache = cache;
     }
 
     @Override
@@ -464,9 +626,19 @@ public abstract class NodeFactoryNeo4j extends NodeFactoryAbstract {
 
     @Override
     public Dataset getOrCreateDataset(Dataset originatingDataset) throws NodeFactoryException {
+        if (originatingDataset != null && namespace == null) {
+            namespace = originatingDataset.getNamespace();
+        }
         return getOrCreateDatasetNoTx(originatingDataset);
     }
 
+    @Override
+    public void close() {
+        if (cache.getLookupCount() > 0) {
+            LOG.info("cache hit rates for [" + namespace + "]: " + cache.getHitRates());
+        }
+    }
+
     @Override
     public Interaction createInteraction(Study study) throws NodeFactoryException {
         InteractionNode interactionNode;
@@ -1,5 +1,6 @@
 package org.eol.globi.data;
 
+import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.eol.globi.domain.DatasetNode;
@@ -10,22 +11,33 @@ import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
+import org.eol.globi.db.LegacyIndexStage;
 import org.eol.globi.util.NodeUtilNeo4j2;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.globalbioticinteractions.dataset.DatasetConstant;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.index.Index;
 import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.index.lucene.QueryContext;
+import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.index.lucene.ValueContext;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import static org.eol.globi.domain.LocationUtil.hasLatLng;
+
 public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     private final Index<Node> datasets;
     private final Index<Node> studies;
     private final Index<Node> externalIds;
     private final Index<Node> locations;
+    private final LegacyIndexStage stage;
 
     // see https://github.com/globalbioticinteractions/globalbioticinteractions/issues/857
     // neo4j explicit indexes has a maximum to the size of values to be indexed
@@ -34,7 +46,18 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
 
     public NodeFactoryNeo4j2(GraphDatabaseService graphDb) {
+        this(graphDb, null);
+    }
+
+    /**
+     * @param stage if not null, index entries of created nodes are staged instead of added to the indexes,
+     *              and are expected to be added using {@link LegacyIndexStage#build(java.io.File, java.io.File)}
+     *              once neo4j is shut down.
+     */
+
+    public NodeFactoryNeo4j2(GraphDatabaseService graphDb, LegacyIndexStage stage) {
         super(graphDb);
+        this.stage = stage;
         this.datasets = NodeUtilNeo4j2.forNodes(graphDb, "datasets");
         this.studies = NodeUtilNeo4j2.forNodes(graphDb, "studies");
         this.externalIds = NodeUtilNeo4j2.forNodes(graphDb, "externalIds");
@@ -48,13 +71,22 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     @Override
     void indexStudyNode(StudyNode studyNode) throws NodeFactoryException {
-        indexNonBlankKeyValue(studies, studyNode.getUnderlyingNode(), StudyConstant.TITLE, studyNode.getTitle());
-        indexNonBlankKeyValue(studies, studyNode.getUnderlyingNode(), StudyConstant.TITLE_IN_NAMESPACE, getIdInNamespace(studyNode));
+        if (stage == null) {
+            indexNonBlankKeyValue(studies, studyNode.getUnderlyingNode(), StudyConstant.TITLE, studyNode.getTitle());
+            indexNonBlankKeyValue(studies, studyNode.getUnderlyingNode(), StudyConstant.TITLE_IN_NAMESPACE, getIdInNamespace(studyNode));
+        } else {
+            stageNonBlankKeyValue("studies", studyNode.getUnderlyingNode(), StudyConstant.TITLE, studyNode.getTitle(), false);
+            stageNonBlankKeyValue("studies", studyNode.getUnderlyingNode(), StudyConstant.TITLE_IN_NAMESPACE, getIdInNamespace(studyNode), true);
+        }
 
     }
 
     @Override
     public StudyNode findStudy(Study study) {
+        Node stagedStudyNode = findStaged("studies", StudyConstant.TITLE_IN_NAMESPACE, getIdInNamespace(study));
+        if (stagedStudyNode != null) {
+            return new StudyNode(stagedStudyNode);
+        }
         final IndexHits<Node> nodes = studies.get(StudyConstant.TITLE_IN_NAMESPACE, getIdInNamespace(study));
         Node foundStudyNode = nodes != null ? nodes.getSingle() : null;
         return foundStudyNode == null ? null : new StudyNode(foundStudyNode);
@@ -62,7 +94,11 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     @Override
     protected void indexDatasetNode(Dataset dataset, Node datasetNode) throws NodeFactoryException {
-        indexNonBlankKeyValue(datasets, datasetNode, DatasetConstant.NAMESPACE, dataset.getNamespace());
+        if (stage == null) {
+            indexNonBlankKeyValue(datasets, datasetNode, DatasetConstant.NAMESPACE, dataset.getNamespace());
+        } else {
+            stageNonBlankKeyValue("datasets", datasetNode, DatasetConstant.NAMESPACE, dataset.getNamespace(), true);
+        }
     }
 
     @Override
@@ -74,11 +110,13 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
     protected Dataset getOrCreateDatasetNoTx(Dataset originatingDataset) throws NodeFactoryException {
         Dataset datasetCreated = null;
         if (originatingDataset != null && StringUtils.isNotBlank(originatingDataset.getNamespace())) {
-            IndexHits<Node> datasetHits = datasets.get(DatasetConstant.NAMESPACE, originatingDataset.getNamespace());
-
-            Node datasetNode = datasetHits.hasNext()
-                    ? datasetHits.next()
-                    : createDatasetNode(originatingDataset);
+            Node datasetNode = findStaged("datasets", DatasetConstant.NAMESPACE, originatingDataset.getNamespace());
+            if (datasetNode == null) {
+                IndexHits<Node> datasetHits = datasets.get(DatasetConstant.NAMESPACE, originatingDataset.getNamespace());
+                datasetNode = datasetHits.hasNext()
+                        ? datasetHits.next()
+                        : createDatasetNode(originatingDataset);
+            }
 
             datasetCreated = new DatasetNode(datasetNode);
         }
@@ -87,7 +125,11 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     @Override
     protected void indexExternalIdNode(String externalId, Node externalIdNode) throws NodeFactoryException {
-        indexNonBlankKeyValue(externalIds, externalIdNode, PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+        if (stage == null) {
+            indexNonBlankKeyValue(externalIds, externalIdNode, PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+        } else {
+            stageNonBlankKeyValue("externalIds", externalIdNode, PropertyAndValueDictionary.EXTERNAL_ID, externalId, true);
+        }
     }
 
     @Override
@@ -99,11 +141,13 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
     protected Node getOrCreateExternalIdNoTx(String externalId) throws NodeFactoryException {
         Node externalIdNode = null;
         if (StringUtils.isNotBlank(externalId)) {
-            IndexHits<Node> datasetHits = externalIds.get(PropertyAndValueDictionary.EXTERNAL_ID, externalId);
-            externalIdNode = datasetHits.hasNext()
-                    ? datasetHits.next()
-                    : createExternalId(externalId);
-
+            externalIdNode = findStaged("externalIds", PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+            if (externalIdNode == null) {
+                IndexHits<Node> datasetHits = externalIds.get(PropertyAndValueDictionary.EXTERNAL_ID, externalId);
+                externalIdNode = datasetHits.hasNext()
+                        ? datasetHits.next()
+                        : createExternalId(externalId);
+            }
         }
         return externalIdNode;
     }
@@ -121,6 +165,14 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     @Override
     protected void indexLocation(Location location, Node node) throws NodeFactoryException {
+        if (stage != null) {
+            stageLocation(location, node);
+        } else {
+            indexLocationNow(location, node);
+        }
+    }
+
+    private void indexLocationNow(Location location, Node node) throws NodeFactoryException {
         if (location.getLatitude() != null) {
             locations.add(node, LocationConstant.LATITUDE, ValueContext.numeric(location.getLatitude()));
         }
@@ -136,6 +188,69 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     }
 
+    private void stageLocation(Location location, Node node) throws NodeFactoryException {
+        try {
+            if (location.getLatitude() != null) {
+                stage.addLookup("locations", node.getId(), LocationConstant.LATITUDE, location.getLatitude());
+            }
+            if (location.getLongitude() != null) {
+                stage.add("locations", node.getId(), LocationConstant.LONGITUDE, location.getLongitude());
+            }
+            if (location.getAltitude() != null) {
+                stage.add("locations", node.getId(), LocationConstant.ALTITUDE, location.getAltitude());
+            }
+        } catch (IOException e) {
+            throw new NodeFactoryException("failed to stage index entries of location [" + node.getId() + "]", e);
+        }
+        stageNonBlankKeyValue("locations", node, LocationConstant.FOOTPRINT_WKT, location.getFootprintWKT(), false);
+        stageNonBlankKeyValue("locations", node, LocationConstant.LOCALITY, location.getLocality(), false);
+        stageNonBlankKeyValue("locations", node, LocationConstant.LOCALITY_ID, location.getLocalityId(), false);
+    }
+
+    private void stageNonBlankKeyValue(String indexName, Node node, String key, String value, boolean lookup) throws NodeFactoryException {
+        if (StringUtils.isNotBlank(value) && value.length() < MAX_NEO4J_INDEX_LENGTH_IN_UTF_CHARACTERS) {
+            try {
+                if (lookup) {
+                    stage.addLookup(indexName, node.getId(), key, value);
+                } else {
+                    stage.add(indexName, node.getId(), key, value);
+                }
+            } catch (IOException e) {
+                throw new NodeFactoryException("failed to stage (key,value): (" + key + "," + value + ")", e);
+            }
+        }
+    }
+
+    // ids of rolled back or deleted nodes may be taken by new, unrelated nodes
+    private Node findStaged(String indexName, String key, String value) {
+        Long nodeId = stage == null || value == null ? null : stage.find(indexName, key, value);
+        Node node = nodeId == null ? null : findStagedNode(nodeId);
+        if (nodeId != null && (node == null || !value.equals(node.getProperty(key, null)))) {
+            stage.removeLookup(indexName, nodeId, key, value);
+            node = null;
+        }
+        return node;
+    }
+
+    private Node findStagedLocation(long nodeId, double latitude) {
+        Node node = findStagedNode(nodeId);
+        Object stagedLatitude = node == null ? null : node.getProperty(LocationConstant.LATITUDE, null);
+        if (!(stagedLatitude instanceof Number) || ((Number) stagedLatitude).doubleValue() != latitude) {
+            stage.removeLookup("locations", nodeId, LocationConstant.LATITUDE, latitude);
+            node = null;
+        }
+        return node;
+    }
+
+    // staged nodes of rolled back transactions, or deleted nodes, no longer exist
+    private Node findStagedNode(long nodeId) {
+        try {
+            return getGraphDb().getNodeById(nodeId);
+        } catch (NotFoundException ex) {
+            return null;
+        }
+    }
+
     public static void indexNonBlankKeyValue(Index<Node> index, Node node, String key, String value) throws NodeFactoryException {
         if (StringUtils.isNotBlank(value)) {
             try {
@@ -155,7 +270,7 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
     @Override
     public LocationNode findLocation(Location location) throws NodeFactoryException {
         Node matchingLocation = null;
-        if (org.eol.globi.domain.LocationUtil.hasLatLng(location)) {
+        if (hasLatLng(location)) {
             matchingLocation = findLocationByLatitude(location);
         }
         return matchingLocation == null ? null : new LocationNode(matchingLocation);
@@ -173,6 +288,15 @@ public class NodeFactoryNeo4j2 extends NodeFactoryNeo4j {
 
     private Node findLocationByLatitude(Location location) throws NodeFactoryException {
         validate(location);
+        if (stage != null) {
+            // collected first, because stale ids are removed while looking for a match
+            List<Long> stagedIds = IteratorUtils.toList(stage.findNumeric("locations", LocationConstant.LATITUDE, location.getLatitude()));
+            ResourceIterator<Node> stagedLocations = Iterators.asResourceIterator(Iterators.filter(Objects::nonNull, Iterators.map(nodeId -> findStagedLocation(nodeId, location.getLatitude()), stagedIds.iterator())));
+            Node matchingLocation = findFirstMatchingLocationIfAvailable(location, stagedLocations);
+            if (matchingLocation != null) {
+                return matchingLocation;
+            }
+        }
         QueryContext queryOrQueryObject = QueryContext.numericRange(LocationConstant.LATITUDE, location.getLatitude(), location.getLatitude());
         IndexHits<Node> matchingLocations = locations.query(queryOrQueryObject);
         Node matchingLocation = findFirstMatchingLocationIfAvailable(location, matchingLocations);
@@ -18,6 +18,8 @@ import org.neo4j.graphdb.schema.IndexDefinition;
 
 import java.util.Iterator;
 
+import static org.eol.globi.domain.LocationUtil.hasLatLng;
+
 public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
 
     public NodeFactoryNeo4j3(GraphDatabaseService graphDb) {
@@ -127,7 +129,7 @@ public class NodeFactoryNeo4j3 extends NodeFactoryNeo4j {
         validate(location);
 
         Node matchingLocation = null;
-        if (org.eol.globi.domain.LocationUtil.hasLatLng(location)) {
+        if (hasLatLng(location)) {
             Double latitude = location.getLatitude();
             ResourceIterator<Node> nodes = getGraphDb().findNodes(NodeLabel.Location, LocationConstant.LATITUDE, latitude);
             matchingLocation = findFirstMatchingLocationIfAvailable(location, nodes);
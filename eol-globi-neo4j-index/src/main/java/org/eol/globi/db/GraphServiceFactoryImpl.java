@@ -1,7 +1,11 @@
 package org.eol.globi.db;
 
-import org.globalbioticinteractions.dataset.DatasetRegistryLocal;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.StopWatch;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.logging.slf4j.Slf4jLogProvider;
@@ -9,19 +13,47 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class GraphServiceFactoryImpl implements GraphServiceFactory {
 
     private final static Logger LOG = LoggerFactory.getLogger(GraphServiceFactoryImpl.class);
 
+    // most traversals start from nodes and follow (grouped) relationships, so these are read first
+    private static final List<String> PREWARM_FIRST = Arrays.asList(
+            "neostore.nodestore.db",
+            "neostore.relationshipstore.db",
+            "neostore.relationshipgroupstore.db",
+            "neostore.propertystore.db"
+    );
+
     private final File graphDbDir;
+    private final GraphServiceProfile profile;
+    private final boolean prewarm;
     private static GraphDatabaseService graphDb;
 
     public GraphServiceFactoryImpl(File graphDbDir) {
+        this(graphDbDir, GraphServiceProfile.LINK, false);
+    }
+
+    /**
+     * @param prewarm read store files before starting neo4j, so that the first traversals are served from memory
+     */
+
+    public GraphServiceFactoryImpl(File graphDbDir, GraphServiceProfile profile, boolean prewarm) {
         if (graphDb != null) {
             throw new IllegalStateException("only one graph service factory allowed, but another is already instantiated");
         }
         this.graphDbDir = graphDbDir;
+        this.profile = profile;
+        this.prewarm = prewarm;
     }
 
     @Override
@@ -29,7 +61,7 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         GraphServiceUtil.verifyState(graphDb);
 
         if (graphDb == null) {
-            graphDb = startNeo4j(graphDbDir);
+            graphDb = startNeo4j(graphDbDir, profile, prewarm);
         }
         return graphDb;
     }
@@ -42,20 +74,21 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         }
     }
 
-    private static GraphDatabaseService startNeo4j(File graphDbDir) {
-        LOG.info("neo4j starting at [" + graphDbDir.getAbsolutePath() + "]...");
+    private static GraphDatabaseService startNeo4j(File graphDbDir, GraphServiceProfile profile, boolean prewarm) {
+        Map<Setting<?>, String> settings = profile.settings();
+        if (prewarm) {
+            prewarm(graphDbDir, Long.parseLong(settings.get(GraphDatabaseSettings.pagecache_memory)));
+        }
 
-        final GraphDatabaseService graphService = new GraphDatabaseFactory()
+        LOG.info("neo4j starting at [" + graphDbDir.getAbsolutePath() + "] with profile [" + profile.getName() + "]...");
+        final GraphDatabaseBuilder builder = new GraphDatabaseFactory()
                 .setUserLogProvider(new Slf4jLogProvider())
-                .newEmbeddedDatabaseBuilder(graphDbDir)
-                .setConfig(GraphDatabaseSettings.keep_logical_logs, "keep_none")
-                .setConfig(GraphDatabaseSettings.logical_log_rotation_threshold, "250M")
-                // note that according to https://neo4j.com/developer/kb/checkpointing-and-log-pruning-interactions/#_triggering_of_checkpointing_and_pruning_events
-                // volumetric checkpointing is not supported in the community edition
-                //.setConfig(GraphDatabaseSettings.check_point_policy, "volumetric")
-                .setConfig(GraphDatabaseSettings.check_point_interval_time, "60s")
-//                .setConfig(GraphDatabaseSettings.check_point_interval_tx, "100000")
-                .newGraphDatabase();
+                .newEmbeddedDatabaseBuilder(graphDbDir);
+        for (Map.Entry<Setting<?>, String> setting : settings.entrySet()) {
+            LOG.info("neo4j setting [" + setting.getKey().name() + "] = [" + setting.getValue() + "]");
+            builder.setConfig(setting.getKey(), setting.getValue());
+        }
+        final GraphDatabaseService graphService = builder.newGraphDatabase();
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOG.info("neo4j stopping...");
@@ -68,4 +101,59 @@ public class GraphServiceFactoryImpl implements GraphServiceFactory {
         return graphService;
     }
 
-}
\ No newline at end of file
+    static long prewarm(File graphDbDir, long maxBytes) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        long bytesRead = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+        for (File storeFile : storeFilesToPrewarm(graphDbDir)) {
+            if (bytesRead >= maxBytes) {
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(storeFile.toPath(), StandardOpenOption.READ)) {
+                int read;
+                while (bytesRead < maxBytes && (read = channel.read(buffer)) > 0) {
+                    bytesRead += read;
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                LOG.warn("failed to pre-warm [" + storeFile.getAbsolutePath() + "]", e);
+            }
+        }
+        stopWatch.stop();
+        LOG.info("pre-warmed [" + bytesRead / (1024 * 1024) + "] MB of store files in [" + stopWatch.getTime() / 1000 + "] s");
+        return bytesRead;
+    }
+
+    static List<File> storeFilesToPrewarm(File graphDbDir) {
+        List<File> storeFiles = new ArrayList<>();
+        for (String name : PREWARM_FIRST) {
+            File storeFile = new File(graphDbDir, name);
+            if (storeFile.isFile()) {
+                storeFiles.add(storeFile);
+            }
+        }
+        File[] files = graphDbDir.listFiles();
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                // transaction logs are not used by traversals
+                if (file.isFile()
+                        && StringUtils.startsWith(file.getName(), "neostore.")
+                        && !StringUtils.startsWith(file.getName(), "neostore.transaction.db")
+                        && !storeFiles.contains(file)) {
+                    storeFiles.add(file);
+                }
+            }
+        }
+        // (legacy) indexes are used to look up the nodes that traversals start from
+        File indexDir = new File(graphDbDir, "index");
+        if (indexDir.isDirectory()) {
+            List<File> indexFiles = new ArrayList<>(FileUtils.listFiles(indexDir, null, true));
+            indexFiles.sort(null);
+            storeFiles.addAll(indexFiles);
+        }
+        return storeFiles;
+    }
+
+}
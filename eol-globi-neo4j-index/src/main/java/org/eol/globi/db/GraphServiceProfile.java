@@ -0,0 +1,110 @@
+package org.eol.globi.db;
+
+import org.apache.commons.lang3.StringUtils;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Neo4j settings for the workload of a command, with memory budgets derived from the maximum heap and
+ * the physical memory.
+ * <p>
+ * Memory outside of the heap is shared by the page cache, off-heap transaction state and the off-heap
+ * (MapDB) collections used while compiling, linking and exporting.
+ */
+
+public enum GraphServiceProfile {
+
+    /**
+     * write-heavy import of datasets, with large transactions
+     */
+    BULK_IMPORT(0.4, 0.1, "5m", false),
+
+    /**
+     * traversal of all taxa and specimens, with batched writes of links and taxon interactions
+     */
+    LINK(0.4, 0.1, "60s", false),
+
+    /**
+     * traversal of all studies and interactions, with few writes
+     */
+    EXPORT(0.5, 0.0, "60s", false),
+
+    /**
+     * read-only queries
+     */
+    SERVE(0.7, 0.0, "60s", true);
+
+    static final long MIN_PAGE_CACHE_BYTES = 128L * 1024 * 1024;
+    static final long MIN_TX_STATE_BYTES = 64L * 1024 * 1024;
+
+    private final double pageCacheFraction;
+    private final double txStateFraction;
+    private final String checkPointInterval;
+    private final boolean readOnly;
+
+    GraphServiceProfile(double pageCacheFraction, double txStateFraction, String checkPointInterval, boolean readOnly) {
+        this.pageCacheFraction = pageCacheFraction;
+        this.txStateFraction = txStateFraction;
+        this.checkPointInterval = checkPointInterval;
+        this.readOnly = readOnly;
+    }
+
+    public Map<Setting<?>, String> settings() {
+        return settings(Runtime.getRuntime().maxMemory(), physicalMemory());
+    }
+
+    Map<Setting<?>, String> settings(long maxHeapBytes, long physicalMemoryBytes) {
+        Map<Setting<?>, String> settings = new LinkedHashMap<>();
+        settings.put(GraphDatabaseSettings.keep_logical_logs, "keep_none");
+        settings.put(GraphDatabaseSettings.logical_log_rotation_threshold, "250M");
+        // note that according to https://neo4j.com/developer/kb/checkpointing-and-log-pruning-interactions/#_triggering_of_checkpointing_and_pruning_events
+        // volumetric checkpointing is not supported in the community edition
+        settings.put(GraphDatabaseSettings.check_point_interval_time, checkPointInterval);
+        settings.put(GraphDatabaseSettings.pagecache_memory, Long.toString(pageCacheBytes(maxHeapBytes, physicalMemoryBytes)));
+        if (txStateFraction > 0) {
+            settings.put(GraphDatabaseSettings.tx_state_memory_allocation, GraphDatabaseSettings.TransactionStateMemoryAllocation.OFF_HEAP.name());
+            long txStateBytes = Math.max(MIN_TX_STATE_BYTES, (long) (offHeapBytes(maxHeapBytes, physicalMemoryBytes) * txStateFraction));
+            settings.put(GraphDatabaseSettings.tx_state_max_off_heap_memory, Long.toString(txStateBytes));
+        }
+        if (readOnly) {
+            settings.put(GraphDatabaseSettings.read_only, Boolean.TRUE.toString());
+        }
+        return settings;
+    }
+
+    long pageCacheBytes(long maxHeapBytes, long physicalMemoryBytes) {
+        return Math.max(MIN_PAGE_CACHE_BYTES, (long) (offHeapBytes(maxHeapBytes, physicalMemoryBytes) * pageCacheFraction));
+    }
+
+    private static long offHeapBytes(long maxHeapBytes, long physicalMemoryBytes) {
+        return Math.max(0, physicalMemoryBytes - maxHeapBytes);
+    }
+
+    public String getName() {
+        return StringUtils.replace(name().toLowerCase(Locale.ROOT), "_", "-");
+    }
+
+    public static GraphServiceProfile forName(String name) {
+        for (GraphServiceProfile profile : values()) {
+            if (StringUtils.equalsIgnoreCase(profile.getName(), name) || StringUtils.equalsIgnoreCase(profile.name(), name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("unknown neo4j profile [" + name + "], expected one of [bulk-import, link, export, serve]");
+    }
+
+    // falls back to twice the maximum heap if the physical memory is not available
+    static long physicalMemory() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        return os instanceof com.sun.management.OperatingSystemMXBean
+                ? ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize()
+                : 2 * Runtime.getRuntime().maxMemory();
+    }
+
+}
@@ -0,0 +1,237 @@
+package org.eol.globi.db;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Fun;
+import org.mapdb.Serializer;
+import org.neo4j.index.impl.lucene.explicit.LuceneIndexImplementation;
+import org.neo4j.index.lucene.ValueContext;
+import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stages entries of (legacy) explicit node indexes in a local file instead of adding them to the indexes within
+ * the transactions that create the nodes, so that neo4j does not update lucene indexes on every commit of a bulk import.
+ * <p>
+ * Entries that are needed to find nodes during the import are also kept in off-heap lookups. Once neo4j is shut down,
+ * {@link #build(File, File)} adds the staged entries to the indexes of the store in a single, non-transactional pass.
+ */
+
+public class LegacyIndexStage implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(LegacyIndexStage.class);
+
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_NUMERIC = 1;
+
+    private final File stageFile;
+    private final DataOutputStream entries;
+    private final DB db;
+    private final Map<String, Long> exactLookup;
+    private final NavigableSet<Fun.Tuple3<String, Double, Long>> numericLookup;
+    private long entryCount = 0;
+
+    public LegacyIndexStage(File stageFile) throws IOException {
+        this.stageFile = stageFile;
+        this.entries = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stageFile), 64 * 1024));
+        this.db = DBMaker
+                .newMemoryDirectDB()
+                .transactionDisable()
+                .make();
+        this.exactLookup = db
+                .createHashMap(UUID.randomUUID().toString())
+                .keySerializer(Serializer.STRING)
+                .valueSerializer(Serializer.LONG)
+                .make();
+        this.numericLookup = db
+                .createTreeSet(UUID.randomUUID().toString())
+                .serializer(BTreeKeySerializer.TUPLE3)
+                .make();
+    }
+
+    public void add(String indexName, long nodeId, String key, String value) throws IOException {
+        writeEntry(indexName, nodeId, key);
+        entries.writeByte(TYPE_STRING);
+        entries.writeUTF(value);
+    }
+
+    public void add(String indexName, long nodeId, String key, Number value) throws IOException {
+        writeEntry(indexName, nodeId, key);
+        entries.writeByte(TYPE_NUMERIC);
+        entries.writeDouble(value.doubleValue());
+    }
+
+    /**
+     * Stages an entry and keeps it for {@link #find(String, String, String)}, first added node first, until
+     * the entry is removed with {@link #removeLookup(String, long, String, String)}.
+     */
+
+    public void addLookup(String indexName, long nodeId, String key, String value) throws IOException {
+        add(indexName, nodeId, key, value);
+        exactLookup.putIfAbsent(lookupKey(indexName, key, value), nodeId);
+    }
+
+    /**
+     * Stages an entry and keeps it for {@link #findNumeric(String, String, double)}.
+     */
+
+    public void addLookup(String indexName, long nodeId, String key, Number value) throws IOException {
+        add(indexName, nodeId, key, value);
+        numericLookup.add(Fun.t3(lookupKey(indexName, key), value.doubleValue(), nodeId));
+    }
+
+    public Long find(String indexName, String key, String value) {
+        return exactLookup.get(lookupKey(indexName, key, value));
+    }
+
+    /**
+     * Forgets a looked up node that no longer exists or no longer has the value, so that a node added later takes
+     * its place. The staged entry is kept: {@link #build(File, File)} skips entries of nodes that no longer exist.
+     */
+
+    public void removeLookup(String indexName, long nodeId, String key, String value) {
+        exactLookup.remove(lookupKey(indexName, key, value), nodeId);
+    }
+
+    public void removeLookup(String indexName, long nodeId, String key, Number value) {
+        numericLookup.remove(Fun.t3(lookupKey(indexName, key), value.doubleValue(), nodeId));
+    }
+
+    /**
+     * @return ids of staged nodes with a value equal to the given value, in order of node id
+     */
+
+    public Iterator<Long> findNumeric(String indexName, String key, double value) {
+        String lookupKey = lookupKey(indexName, key);
+        return numericLookup
+                .subSet(Fun.t3(lookupKey, value, null), true, Fun.t3(lookupKey, value, Fun.<Long>HI()), true)
+                .stream()
+                .map(entry -> entry.c)
+                .iterator();
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    public File getStageFile() {
+        return stageFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            entries.close();
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Adds staged entries to the explicit (lucene) node indexes of a neo4j store that is not in use.
+     *
+     * @return number of entries added, excluding entries of nodes that no longer exist (e.g., because their transaction was rolled back)
+     */
+
+    public static long build(File stageFile, File graphDbDir) throws IOException {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        LOG.info("indexing staged entries of [" + stageFile.getAbsolutePath() + "] into [" + graphDbDir.getAbsolutePath() + "]...");
+        long added = 0;
+        BatchInserter inserter = BatchInserters.inserter(graphDbDir);
+        try (DataInputStream staged = new DataInputStream(new BufferedInputStream(new FileInputStream(stageFile), 64 * 1024))) {
+            BatchInserterIndexProvider indexProvider = new LuceneBatchInserterIndexProvider(inserter);
+            try {
+                added = build(staged, inserter, indexProvider);
+            } finally {
+                indexProvider.shutdown();
+            }
+        } finally {
+            inserter.shutdown();
+        }
+        stopWatch.stop();
+        LOG.info("indexed [" + added + "] staged entries in [" + stopWatch.getTime(TimeUnit.SECONDS) + "]s.");
+        return added;
+    }
+
+    // entries of a node are staged one after the other, and added to an index as a single document
+    private static long build(DataInputStream staged, BatchInserter inserter, BatchInserterIndexProvider indexProvider) throws IOException {
+        Map<String, BatchInserterIndex> indexes = new HashMap<>();
+        Map<String, Object> properties = new HashMap<>();
+        String indexName = null;
+        long nodeId = -1;
+        long added = 0;
+        while (true) {
+            String nextIndexName;
+            try {
+                nextIndexName = staged.readUTF();
+            } catch (EOFException e) {
+                break;
+            }
+            long nextNodeId = staged.readLong();
+            String key = staged.readUTF();
+            Object value = staged.readByte() == TYPE_NUMERIC
+                    ? ValueContext.numeric(staged.readDouble())
+                    : staged.readUTF();
+
+            if (nextNodeId != nodeId || !nextIndexName.equals(indexName) || properties.containsKey(key)) {
+                added += addNode(inserter, indexes, indexProvider, indexName, nodeId, properties);
+                indexName = nextIndexName;
+                nodeId = nextNodeId;
+            }
+            properties.put(key, value);
+        }
+        added += addNode(inserter, indexes, indexProvider, indexName, nodeId, properties);
+        return added;
+    }
+
+    private static int addNode(BatchInserter inserter, Map<String, BatchInserterIndex> indexes, BatchInserterIndexProvider indexProvider, String indexName, long nodeId, Map<String, Object> properties) {
+        int added = 0;
+        if (!properties.isEmpty() && inserter.nodeExists(nodeId)) {
+            indexes.computeIfAbsent(indexName, name -> indexProvider.nodeIndex(name, LuceneIndexImplementation.EXACT_CONFIG))
+                    .add(nodeId, new HashMap<>(properties));
+            added = properties.size();
+        }
+        properties.clear();
+        return added;
+    }
+
+    private void writeEntry(String indexName, long nodeId, String key) throws IOException {
+        entries.writeUTF(indexName);
+        entries.writeLong(nodeId);
+        entries.writeUTF(key);
+        entryCount++;
+    }
+
+    private static String lookupKey(String indexName, String key) {
+        return indexName + '\t' + key;
+    }
+
+    private static String lookupKey(String indexName, String key, String value) {
+        return lookupKey(indexName, key) + '\t' + value;
+    }
+
+}
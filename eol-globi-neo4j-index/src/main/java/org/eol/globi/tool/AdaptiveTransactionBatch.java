@@ -0,0 +1,170 @@
+package org.eol.globi.tool;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Batches writes into transactions, with batches sized by the estimated transaction state and the measured
+ * commit time.
+ * <p>
+ * The transaction state of a write is estimated from the properties and relationships of sampled written nodes
+ * (e.g., specimens), which are only inspected on the next write, after their properties and interactions were
+ * added. A batch is committed when its estimated transaction state reaches a hard limit, or when it reaches
+ * the current batch size. The batch size keeps changing in the same direction (growing or shrinking) while
+ * the throughput of full batches (including their commit) does not drop, and is halved when commits take too long.
+ */
+
+class AdaptiveTransactionBatch {
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveTransactionBatch.class);
+
+    static final int INITIAL_BATCH_SIZE = 10000;
+    static final int MIN_BATCH_SIZE = 100;
+    static final int MAX_BATCH_SIZE = 1000000;
+
+    // rough size of an added property, relationship or index entry in (on-heap) transaction state
+    static final long BYTES_PER_CHANGE = 256;
+
+    private static final int SAMPLE_INTERVAL = 4;
+    private static final double SAMPLE_WEIGHT = 0.2;
+    private static final long MAX_COMMIT_MILLIS = 2000;
+    private static final double BATCH_SIZE_STEP = 1.5;
+    private static final double THROUGHPUT_TOLERANCE = 0.95;
+
+    private final Supplier<Transaction> beginTx;
+    private final long maxChangesPerBatch;
+
+    private Transaction tx = null;
+    private Node lastWritten = null;
+    private long writeCount = 0;
+
+    private int batchSize = INITIAL_BATCH_SIZE;
+    private boolean growing = true;
+    private double lastThroughput = 0;
+    private double changesPerWrite = 20;
+    private long writesInBatch = 0;
+    private double changesInBatch = 0;
+    private long batchStartNanos = 0;
+
+    private long commitCount = 0;
+    private long committedWrites = 0;
+    private long commitNanos = 0;
+
+    AdaptiveTransactionBatch(Supplier<Transaction> beginTx) {
+        this(beginTx, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * @param maxTxStateBytes hard limit of the estimated transaction state of a batch
+     */
+
+    AdaptiveTransactionBatch(Supplier<Transaction> beginTx, long maxTxStateBytes) {
+        this.beginTx = beginTx;
+        this.maxChangesPerBatch = Math.max(1, maxTxStateBytes / BYTES_PER_CHANGE);
+    }
+
+    /**
+     * to be called before a write, to commit the current batch if needed and to make sure a transaction is open
+     */
+
+    synchronized void beforeWrite() {
+        sampleLastWritten();
+        if (tx != null && (writesInBatch >= batchSize || changesInBatch + changesPerWrite > maxChangesPerBatch)) {
+            commit();
+        }
+        if (tx == null) {
+            tx = beginTx.get();
+            batchStartNanos = System.nanoTime();
+        }
+        writesInBatch++;
+        changesInBatch += changesPerWrite;
+        writeCount++;
+    }
+
+    /**
+     * @param written node that will carry (most of) the changes of the write
+     */
+
+    synchronized void afterWrite(Node written) {
+        if (writeCount % SAMPLE_INTERVAL == 0) {
+            lastWritten = written;
+        }
+    }
+
+    synchronized void close() {
+        sampleLastWritten();
+        if (tx != null) {
+            commit();
+        }
+        if (commitCount > 0) {
+            LOG.info("committed [" + commitCount + "] transactions with a mean batch size of [" + Math.round(getMeanBatchSize()) + "] writes and a mean commit time of [" + Math.round(getMeanCommitMillis()) + "] ms");
+        }
+    }
+
+    private void sampleLastWritten() {
+        if (lastWritten != null) {
+            int changes = lastWritten.getDegree();
+            for (String ignored : lastWritten.getPropertyKeys()) {
+                changes++;
+            }
+            changesPerWrite += SAMPLE_WEIGHT * (Math.max(1, changes) - changesPerWrite);
+            lastWritten = null;
+        }
+    }
+
+    private void commit() {
+        long commitStart = System.nanoTime();
+        tx.success();
+        tx.close();
+        tx = null;
+        long commitEnd = System.nanoTime();
+
+        commitCount++;
+        committedWrites += writesInBatch;
+        commitNanos += commitEnd - commitStart;
+        adjustBatchSize(commitEnd - commitStart, commitEnd - batchStartNanos);
+        writesInBatch = 0;
+        changesInBatch = 0;
+    }
+
+    private void adjustBatchSize(long commitNanos, long batchNanos) {
+        if (commitNanos > MAX_COMMIT_MILLIS * 1000000L) {
+            batchSize = batchSize / 2;
+            growing = false;
+            lastThroughput = 0;
+        } else if (writesInBatch >= batchSize) {
+            // batches cut short by the transaction state limit say little about the best batch size
+            double throughput = (double) writesInBatch / Math.max(1, batchNanos);
+            if (throughput < lastThroughput * THROUGHPUT_TOLERANCE) {
+                growing = !growing;
+            }
+            lastThroughput = throughput;
+            batchSize = (int) (growing ? batchSize * BATCH_SIZE_STEP : batchSize / BATCH_SIZE_STEP);
+        }
+        batchSize = Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, batchSize));
+    }
+
+    synchronized long getCommitCount() {
+        return commitCount;
+    }
+
+    synchronized double getMeanBatchSize() {
+        return commitCount == 0 ? 0 : (double) committedWrites / commitCount;
+    }
+
+    synchronized double getMeanCommitMillis() {
+        return commitCount == 0 ? 0 : commitNanos / 1000000.0 / commitCount;
+    }
+
+    synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    synchronized double getChangesPerWrite() {
+        return changesPerWrite;
+    }
+
+}
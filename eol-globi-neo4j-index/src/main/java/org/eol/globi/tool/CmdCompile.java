@@ -1,10 +1,17 @@
 package org.eol.globi.tool;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.db.GraphServiceProfile;
+import org.eol.globi.db.LegacyIndexStage;
 import org.eol.globi.util.ResourceServiceLocal;
 import org.globalbioticinteractions.dataset.DatasetRegistry;
 import picocli.CommandLine;
 
+import java.io.File;
+import java.io.IOException;
+
 @CommandLine.Command(
         name = "compile",
         aliases = {"import"},
@@ -12,6 +19,16 @@ import picocli.CommandLine;
 )
 public class CmdCompile extends CmdNeo4J {
 
+    @CommandLine.Option(
+            names = {"-stageIndexes"},
+            description = "stage index entries of imported nodes and index them once all datasets are imported (only for v2 indexes)"
+    )
+    private boolean stageIndexes = false;
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.BULK_IMPORT;
+    }
 
     @Override
     public void run() {
@@ -21,11 +38,43 @@ public class CmdCompile extends CmdNeo4J {
         );
 
         try {
-            new IndexerDataset(registry, getNodeFactoryFactory(), getGraphServiceFactory())
-                    .index();
+            if (stageIndexes && StringUtils.equals("2", getNeo4jVersion())) {
+                indexWithStagedIndexes(registry);
+            } else {
+                new IndexerDataset(registry, getNodeFactoryFactory(), getGraphServiceFactory())
+                        .index();
+            }
         } catch (StudyImporterException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void indexWithStagedIndexes(DatasetRegistry registry) throws StudyImporterException {
+        File graphDbDir = new File(getGraphDbDir()).getAbsoluteFile();
+        File stageFile = new File(graphDbDir.getParentFile(), graphDbDir.getName() + ".index-stage");
+        try {
+            try (LegacyIndexStage stage = new LegacyIndexStage(stageFile)) {
+                NodeFactoryFactoryTransactingOnDatasetNeo4j2 factoryFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j2(getGraphServiceFactory(), stage);
+                factoryFactory.setTermMappingDir(getTermMappingDir());
+                new IndexerDataset(registry, factoryFactory, getGraphServiceFactory())
+                        .index();
+            }
+            shutdownGraphService();
+            LegacyIndexStage.build(stageFile, graphDbDir);
+        } catch (IOException e) {
+            throw new StudyImporterException("failed to index staged entries of [" + stageFile.getAbsolutePath() + "]", e);
+        } finally {
+            FileUtils.deleteQuietly(stageFile);
+        }
+    }
+
+    // staged entries are indexed without neo4j running
+    private void shutdownGraphService() throws StudyImporterException {
+        try {
+            getGraphServiceFactory().close();
+        } catch (Exception e) {
+            throw new StudyImporterException("failed to shut down neo4j before indexing staged entries", e);
+        }
+    }
+
 }
@@ -17,6 +17,7 @@ public class CmdExportInteractionsTSV extends CmdExportNeo4J {
     public void run() {
         try {
             new GraphExporterInteractionsTSVImpl(getNeo4jVersion())
+                    .setPartitions(getExportPartitions())
                     .export(
                             getGraphServiceFactory().getGraphService(),
                             new File(getBaseDir()),
@@ -1,7 +1,8 @@
 package org.eol.globi.tool;
 
-import org.eol.globi.data.StudyImporterException;
-import org.eol.globi.export.GraphExporterImpl;
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.db.GraphServiceProfile;
+import org.eol.globi.export.ExportPartitions;
 import picocli.CommandLine;
 
 import java.io.File;
@@ -12,5 +13,28 @@ import java.io.File;
 )
 public abstract class CmdExportNeo4J extends CmdNeo4J {
 
+    @CommandLine.Option(
+            names = {"-exportPartitionDir"},
+            description = "location of per-dataset export partitions to reuse across builds (partitions are not used if not set)"
+    )
+    private String exportPartitionDir;
+
+    @CommandLine.Option(
+            names = {"-exportPartitionKey"},
+            defaultValue = "",
+            description = "identifies inputs other than datasets (e.g., taxon cache version): partitions are only reused across builds with the same key"
+    )
+    private String exportPartitionKey;
+
+    @Override
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.EXPORT;
+    }
+
+    protected ExportPartitions getExportPartitions() {
+        return StringUtils.isBlank(exportPartitionDir)
+                ? null
+                : new ExportPartitions(new File(exportPartitionDir), exportPartitionKey);
+    }
 
 }
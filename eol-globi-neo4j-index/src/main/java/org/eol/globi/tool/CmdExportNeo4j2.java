@@ -15,11 +15,13 @@ public class CmdExportNeo4j2 extends CmdExportNeo4J {
     @Override
     public void run() {
         try {
-            new GraphExporterImpl().export(
-                    getGraphServiceFactory().getGraphService(),
-                    new File(getBaseDir()),
-                    getNeo4jVersion()
-            );
+            new GraphExporterImpl()
+                    .setPartitions(getExportPartitions())
+                    .export(
+                            getGraphServiceFactory().getGraphService(),
+                            new File(getBaseDir()),
+                            getNeo4jVersion()
+                    );
         } catch (StudyImporterException e) {
             throw new RuntimeException(e);
         }
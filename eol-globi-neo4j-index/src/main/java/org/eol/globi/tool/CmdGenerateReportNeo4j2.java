@@ -11,7 +11,6 @@ import org.eol.globi.domain.PropertyAndValueDictionary;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyNode;
-import org.eol.globi.domain.TaxonNode;
 import org.eol.globi.service.CacheService;
 import org.eol.globi.service.TaxonUtil;
 import org.eol.globi.util.NodeTypeDirection;
@@ -25,8 +24,11 @@ import org.neo4j.graphdb.Relationship;
 import picocli.CommandLine;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @CommandLine.Command(
         name = "report",
@@ -214,6 +216,7 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
         final Set<String> distinctSources = makeOrRemakeString(reportCache, "distinctSources");
         final Set<String> distinctDatasets = makeOrRemakeString(reportCache, "distinctDatasets");
 
+        // studies are counted concurrently, in ranges of study ids
         NodeUtil.findStudies(getGraphDb(), studyNode -> {
             countInteractionsAndTaxa(distinctTaxonIds, counter, distinctTaxonIdsNoMatch, studyNode);
             studyCounter.count();
@@ -223,7 +226,7 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
                 distinctSources.add(namespace);
                 distinctDatasets.add(namespace);
             }
-        });
+        }, Runtime.getRuntime().availableProcessors());
 
         try (Transaction tx = getGraphDb().beginTx()) {
             final Node node = getGraphDb().createNode();
@@ -272,7 +275,7 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
             if (classifiedAs != null) {
                 Node taxonNode = classifiedAs.getEndNode();
                 ids.add(taxonNode.getId());
-                if (!TaxonUtil.isResolved(new TaxonNode(taxonNode))) {
+                if (!isResolved(taxonNode)) {
                     idsNoMatch.add(taxonNode.getId());
                 }
             }
@@ -283,15 +286,27 @@ public class CmdGenerateReportNeo4j2 extends CmdNeo4J {
                 handler);
     }
 
+    // reads taxon properties only: wrapping the node in a TaxonNode would (re-)label it from the worker threads
+    private static boolean isResolved(Node taxonNode) {
+        Map<String, String> properties = new HashMap<>();
+        for (String key : new String[]{PropertyAndValueDictionary.NAME, PropertyAndValueDictionary.EXTERNAL_ID, PropertyAndValueDictionary.PATH}) {
+            Object value = taxonNode.getProperty(key, null);
+            if (value != null) {
+                properties.put(key, value.toString());
+            }
+        }
+        return TaxonUtil.isResolved(properties);
+    }
+
     private static class Counter {
-        int counter = 0;
+        private final AtomicInteger counter = new AtomicInteger(0);
 
         public void count() {
-            counter++;
+            counter.incrementAndGet();
         }
 
         public int getCount() {
-            return counter;
+            return counter.get();
         }
     }
 
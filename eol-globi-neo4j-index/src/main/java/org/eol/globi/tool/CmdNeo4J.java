@@ -3,6 +3,7 @@ package org.eol.globi.tool;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.db.GraphServiceFactory;
 import org.eol.globi.db.GraphServiceFactoryImpl;
+import org.eol.globi.db.GraphServiceProfile;
 import picocli.CommandLine;
 
 import java.io.File;
@@ -46,6 +47,18 @@ public abstract class CmdNeo4J implements Cmd {
     )
     private String neo4jVersion;
 
+    @CommandLine.Option(
+            names = {"-neo4jProfile"},
+            description = "neo4j settings for the workload: bulk-import, link, export or serve (defaults to the workload of the command that opens neo4j)"
+    )
+    private String neo4jProfile;
+
+    @CommandLine.Option(
+            names = {"-neo4jPrewarm"},
+            description = "read neo4j store files before opening neo4j, so that traversals start from memory"
+    )
+    private boolean neo4jPrewarm = false;
+
     @CommandLine.Option(
             names = {"-taxonCache"},
             defaultValue = "classpath:/org/eol/globi/tool/taxonCacheEmpty.tsv",
@@ -84,20 +97,44 @@ public abstract class CmdNeo4J implements Cmd {
     }
 
 
-    private static NodeFactoryFactory getNodeFactoryFactory(String neo4jVersion, GraphServiceFactory graphServiceFactory) {
-        return StringUtils.equals("2", neo4jVersion)
-                ? new NodeFactoryFactoryTransactingOnDatasetNeo4j2(graphServiceFactory)
-                : new NodeFactoryFactoryTransactingOnDatasetNeo4j3(graphServiceFactory);
+    private static NodeFactoryFactory getNodeFactoryFactory(String neo4jVersion, GraphServiceFactory graphServiceFactory, File termMappingDir) {
+        if (StringUtils.equals("2", neo4jVersion)) {
+            NodeFactoryFactoryTransactingOnDatasetNeo4j2 factoryFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j2(graphServiceFactory);
+            factoryFactory.setTermMappingDir(termMappingDir);
+            return factoryFactory;
+        } else {
+            NodeFactoryFactoryTransactingOnDatasetNeo4j3 factoryFactory = new NodeFactoryFactoryTransactingOnDatasetNeo4j3(graphServiceFactory);
+            factoryFactory.setTermMappingDir(termMappingDir);
+            return factoryFactory;
+        }
     }
 
-    private static GraphServiceFactoryImpl getGraphServiceFactory(String graphDbDir) {
+    protected File getTermMappingDir() {
+        return StringUtils.isBlank(getCacheDir())
+                ? null
+                : new File(getCacheDir(), "term-mappings");
+    }
+
+    private static GraphServiceFactoryImpl getGraphServiceFactory(String graphDbDir, GraphServiceProfile profile, boolean prewarm) {
         return new GraphServiceFactoryImpl(
-                new File(graphDbDir));
+                new File(graphDbDir),
+                profile,
+                prewarm);
+    }
+
+    protected GraphServiceProfile getDefaultGraphServiceProfile() {
+        return GraphServiceProfile.LINK;
+    }
+
+    protected GraphServiceProfile getGraphServiceProfile() {
+        return StringUtils.isBlank(neo4jProfile)
+                ? getDefaultGraphServiceProfile()
+                : GraphServiceProfile.forName(neo4jProfile);
     }
 
     protected NodeFactoryFactory getNodeFactoryFactory() {
         if (this.nodeFactoryFactory == null) {
-            this.nodeFactoryFactory = getNodeFactoryFactory(neo4jVersion, getGraphServiceFactory());
+            this.nodeFactoryFactory = getNodeFactoryFactory(neo4jVersion, getGraphServiceFactory(), getTermMappingDir());
         }
         return nodeFactoryFactory;
     }
@@ -105,7 +142,7 @@ public abstract class CmdNeo4J implements Cmd {
     protected GraphServiceFactory getGraphServiceFactory() {
         if (graphServiceFactory == null) {
             graphServiceFactory =
-                    getGraphServiceFactory(graphDbDir);
+                    getGraphServiceFactory(graphDbDir, getGraphServiceProfile(), neo4jPrewarm);
         }
         return graphServiceFactory;
     }
@@ -145,6 +182,10 @@ public abstract class CmdNeo4J implements Cmd {
     }
 
 
+    public String getGraphDbDir() {
+        return graphDbDir;
+    }
+
     public String getDatasetDir() {
         return datasetDir;
     }
@@ -3,87 +3,79 @@ package org.eol.globi.tool;
 import org.eol.globi.data.NodeFactory;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.data.NodeFactoryNeo4j2;
+import org.eol.globi.data.SpecimenRecord;
 import org.eol.globi.db.GraphServiceFactory;
-import org.eol.globi.domain.RelTypes;
+import org.eol.globi.db.LegacyIndexStage;
 import org.eol.globi.domain.SpecimenNode;
-import org.eol.globi.domain.Study;
-import org.eol.globi.domain.Taxon;
+import org.eol.globi.domain.StudyNode;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 public class NodeFactoryFactoryTransactingOnDatasetNeo4j2 implements NodeFactoryFactory {
     private GraphServiceFactory graphServiceFactory;
-    private final int TRANSACTION_BATCH_SIZE_DEFAULT = 10000;
+    private File termMappingDir = null;
+    private final LegacyIndexStage indexStage;
 
 
     public NodeFactoryFactoryTransactingOnDatasetNeo4j2(GraphServiceFactory graphServiceFactory) {
+        this(graphServiceFactory, null);
+    }
+
+    /**
+     * @param indexStage if not null, index entries of created nodes are staged rather than indexed in the import transactions
+     */
+
+    public NodeFactoryFactoryTransactingOnDatasetNeo4j2(GraphServiceFactory graphServiceFactory, LegacyIndexStage indexStage) {
         this.graphServiceFactory = graphServiceFactory;
+        this.indexStage = indexStage;
+    }
+
+    /**
+     * @param termMappingDir directory to keep compiled term mappings in, or null to build term mappings for every dataset
+     */
+
+    public void setTermMappingDir(File termMappingDir) {
+        this.termMappingDir = termMappingDir;
     }
 
     @Override
     public NodeFactory create(GraphDatabaseService service) {
         GraphDatabaseService graphService = graphServiceFactory.getGraphService();
         try (Transaction tx = graphService.beginTx()) {
-            NodeFactory nodeFactory = new NodeFactoryNeo4j2(graphService) {
-                final AtomicReference<Transaction> tx = new AtomicReference<>();
+            NodeFactoryNeo4j2 nodeFactory = new NodeFactoryNeo4j2(graphService, indexStage) {
+                final AdaptiveTransactionBatch batch = new AdaptiveTransactionBatch(() -> graphServiceFactory.getGraphService().beginTx());
                 final AtomicBoolean closing = new AtomicBoolean(false);
-                final AtomicLong counter = new AtomicLong(0);
 
                 @Override
                 public Dataset getOrCreateDataset(Dataset dataset) throws NodeFactoryException {
                     if (closing.get()) {
                         throw new IllegalStateException("cannot create a dataset on closing node factory");
                     } else {
-                        startBatchTransactionIfNeeded();
+                        batch.beforeWrite();
                     }
                     return super.getOrCreateDataset(dataset);
                 }
 
-                void startBatchTransactionIfNeeded() {
-                    tx.getAndUpdate(transaction -> {
-                        if (counter.getAndIncrement() % TRANSACTION_BATCH_SIZE_DEFAULT == 0) {
-                            if (transaction != null) {
-                                transaction.success();
-                                transaction.close();
-                                transaction = null;
-                            }
-                        }
-                        return transaction == null
-                                ? beginTx()
-                                : transaction;
-                    });
-                }
-
-                private Transaction beginTx() {
-                    return graphServiceFactory.getGraphService().beginTx();
-                }
-
                 @Override
-                public SpecimenNode createSpecimen(Study study, Taxon taxon, RelTypes... types) throws NodeFactoryException {
-                    startBatchTransactionIfNeeded();
-                    return super.createSpecimen(study, taxon, types);
+                protected SpecimenNode createSpecimen(StudyNode study, SpecimenRecord specimenRecord) throws NodeFactoryException {
+                    batch.beforeWrite();
+                    SpecimenNode specimen = super.createSpecimen(study, specimenRecord);
+                    batch.afterWrite(specimen.getUnderlyingNode());
+                    return specimen;
                 }
 
-
-                    @Override
+                @Override
                 public void close() {
-                    tx.getAndUpdate(tx -> {
-                        closing.set(true);
-                        if (tx != null) {
-                            tx.success();
-                            tx.close();
-                        }
-                        return null;
-                    });
+                    closing.set(true);
+                    batch.close();
+                    super.close();
                 }
             };
+            nodeFactory.setTermMappingDir(termMappingDir);
             tx.success();
             return nodeFactory;
         }
@@ -8,21 +8,31 @@ import org.globalbioticinteractions.dataset.Dataset;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Transaction;
 
+import java.io.File;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class NodeFactoryFactoryTransactingOnDatasetNeo4j3 implements NodeFactoryFactory {
     private GraphServiceFactory graphServiceFactory;
+    private File termMappingDir = null;
 
     public NodeFactoryFactoryTransactingOnDatasetNeo4j3(GraphServiceFactory graphServiceFactory) {
         this.graphServiceFactory = graphServiceFactory;
     }
 
+    /**
+     * @param termMappingDir directory to keep compiled term mappings in, or null to build term mappings for every dataset
+     */
+
+    public void setTermMappingDir(File termMappingDir) {
+        this.termMappingDir = termMappingDir;
+    }
+
     @Override
     public NodeFactory create(GraphDatabaseService service) {
         GraphDatabaseService graphService = graphServiceFactory.getGraphService();
         try (Transaction tx = graphService.beginTx()) {
-            NodeFactory nodeFactory = new NodeFactoryNeo4j3(graphService) {
+            NodeFactoryNeo4j3 nodeFactory = new NodeFactoryNeo4j3(graphService) {
                 final AtomicReference<Transaction> tx = new AtomicReference<>();
                 final AtomicBoolean closing = new AtomicBoolean(false);
 
@@ -49,9 +59,11 @@ public class NodeFactoryFactoryTransactingOnDatasetNeo4j3 implements NodeFactory
                         lastTx.success();
                         lastTx.close();
                     }
+                    super.close();
                 }
 
             };
+            nodeFactory.setTermMappingDir(termMappingDir);
             tx.success();
             return nodeFactory;
         }
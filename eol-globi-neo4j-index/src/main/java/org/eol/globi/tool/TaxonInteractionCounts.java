@@ -0,0 +1,73 @@
+package org.eol.globi.tool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, off-heap list of taxon interaction counts, stored as fixed width
+ * (source taxon id, interaction type ordinal, target taxon id, count) records in direct buffers.
+ */
+
+class TaxonInteractionCounts {
+
+    private static final int RECORD_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int MIN_RECORDS_PER_CHUNK = 1 << 10;
+    private static final int MAX_RECORDS_PER_CHUNK = 1 << 16;
+
+    interface Listener {
+        void on(long sourceTaxonId, int interactTypeOrdinal, long targetTaxonId, long count);
+    }
+
+    // chunks double in size up to a maximum, so that small partitions only hold small buffers
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int recordsInLastChunk = 0;
+    private long size = 0;
+
+    void add(long sourceTaxonId, int interactTypeOrdinal, long targetTaxonId, long count) {
+        if (chunks.isEmpty() || recordsInLastChunk == recordsIn(chunks.get(chunks.size() - 1))) {
+            int recordsPerChunk = chunks.isEmpty()
+                    ? MIN_RECORDS_PER_CHUNK
+                    : Math.min(recordsIn(chunks.get(chunks.size() - 1)) * 2, MAX_RECORDS_PER_CHUNK);
+            chunks.add(ByteBuffer.allocateDirect(recordsPerChunk * RECORD_SIZE));
+            recordsInLastChunk = 0;
+        }
+        int offset = recordsInLastChunk * RECORD_SIZE;
+        chunks.get(chunks.size() - 1)
+                .putLong(offset, sourceTaxonId)
+                .putInt(offset + Long.BYTES, interactTypeOrdinal)
+                .putLong(offset + Long.BYTES + Integer.BYTES, targetTaxonId)
+                .putLong(offset + Long.BYTES + Integer.BYTES + Long.BYTES, count);
+        recordsInLastChunk++;
+        size++;
+    }
+
+    long size() {
+        return size;
+    }
+
+    void forEach(Listener listener) {
+        for (int i = 0; i < chunks.size(); i++) {
+            ByteBuffer chunk = chunks.get(i);
+            int records = i == chunks.size() - 1 ? recordsInLastChunk : recordsIn(chunk);
+            for (int record = 0; record < records; record++) {
+                int offset = record * RECORD_SIZE;
+                listener.on(chunk.getLong(offset),
+                        chunk.getInt(offset + Long.BYTES),
+                        chunk.getLong(offset + Long.BYTES + Integer.BYTES),
+                        chunk.getLong(offset + Long.BYTES + Integer.BYTES + Long.BYTES));
+            }
+        }
+    }
+
+    void clear() {
+        chunks.clear();
+        recordsInLastChunk = 0;
+        size = 0;
+    }
+
+    private static int recordsIn(ByteBuffer chunk) {
+        return chunk.capacity() / RECORD_SIZE;
+    }
+
+}
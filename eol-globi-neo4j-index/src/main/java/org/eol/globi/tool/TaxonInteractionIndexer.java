@@ -6,29 +6,64 @@ import org.eol.globi.domain.InteractType;
 import org.eol.globi.domain.RelTypes;
 import org.eol.globi.domain.SpecimenNode;
 import org.eol.globi.util.NodeIdCollector;
-import org.eol.globi.util.NodeProcessorImpl;
 import org.eol.globi.util.NodeUtil;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
-import org.mapdb.Fun;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Counts interactions between taxa (through the specimens classified as them) and links the taxa with
+ * aggregate interactions.
+ * <p>
+ * Taxa are counted in partitions of taxon ids on a pool of workers, each keeping its counts off-heap in
+ * {@link TaxonInteractionCounts}. Partitions are written, and released, in order of (source) taxon id
+ * while later partitions are still being counted.
+ */
 
 public class TaxonInteractionIndexer implements IndexerNeo4j {
     private static final Logger LOG = LoggerFactory.getLogger(TaxonInteractionIndexer.class);
+
+    private static final int TAXA_PER_PARTITION = 10000;
+    private static final int INTERACTIONS_PER_TRANSACTION = 10000;
+    private static final int PARTITIONS_IN_PROGRESS_PER_THREAD = 2;
+
+    private static final InteractType[] INTERACT_TYPES = InteractType.values();
+    private static final RelationshipType[] INTERACT_REL_TYPES = NodeUtil.asNeo4j(INTERACT_TYPES);
+    private static final RelationshipType CLASSIFIED_AS = NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS);
+
+    // target taxon id and interaction type ordinal are packed into a single key while counting
+    private static final int TARGET_ID_BITS = 56;
+    private static final long TARGET_ID_MASK = (1L << TARGET_ID_BITS) - 1;
+
     private final GraphServiceFactory factory;
-    private NodeIdCollector nodeIdCollector;
+    private final NodeIdCollector nodeIdCollector;
+    private final int threads;
 
     TaxonInteractionIndexer(GraphServiceFactory factory, NodeIdCollector nodeIdCollector) {
+        this(factory, nodeIdCollector, Runtime.getRuntime().availableProcessors());
+    }
+
+    TaxonInteractionIndexer(GraphServiceFactory factory, NodeIdCollector nodeIdCollector, int threads) {
         this.factory = factory;
         this.nodeIdCollector = nodeIdCollector;
+        this.threads = threads;
     }
 
     @Override
@@ -38,92 +73,161 @@ public class TaxonInteractionIndexer implements IndexerNeo4j {
         LOG.info("indexing interactions complete.");
     }
 
-
     private void indexInteractions(GraphDatabaseService graphService) {
+        StopWatch watchForEntireRun = new StopWatch();
+        watchForEntireRun.start();
+
+        Deque<Future<TaxonInteractionCounts>> partitionsInProgress = new ArrayDeque<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
         DB db = DBMaker
                 .newMemoryDirectDB()
-                .compressionEnable()
                 .transactionDisable()
                 .make();
-        final Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions = db
-                .createTreeMap("ottIdMap")
-                .make();
+        try {
+            NavigableSet<Long> taxonIds = db
+                    .createTreeSet(UUID.randomUUID().toString())
+                    .makeLongSet();
+            try (Transaction tx = graphService.beginTx()) {
+                nodeIdCollector.collectIds(graphService, "name", "*", "taxons", taxonIds);
+                tx.success();
+            }
 
-        NodeIdCollector nodeIdCollector = this.nodeIdCollector;
-        collectTaxonInteractions(taxonInteractions, graphService, nodeIdCollector);
-        createTaxonInteractions(taxonInteractions, graphService);
+            TaxonInteractionWriter writer = new TaxonInteractionWriter(graphService);
+            long[] partition = new long[TAXA_PER_PARTITION];
+            int partitionSize = 0;
+            long taxonCount = 0;
+            for (Long taxonId : taxonIds) {
+                partition[partitionSize++] = taxonId;
+                if (partitionSize == partition.length) {
+                    // write the oldest partition before counting more, so that only a few partitions are held at once
+                    if (partitionsInProgress.size() == PARTITIONS_IN_PROGRESS_PER_THREAD * threads) {
+                        taxonCount = write(partitionsInProgress.removeFirst(), writer, taxonCount, taxonIds.size(), watchForEntireRun);
+                    }
+                    partitionsInProgress.addLast(submit(workers, graphService, partition, partitionSize));
+                    partition = new long[TAXA_PER_PARTITION];
+                    partitionSize = 0;
+                }
+            }
+            if (partitionSize > 0) {
+                partitionsInProgress.addLast(submit(workers, graphService, partition, partitionSize));
+            }
+            while (!partitionsInProgress.isEmpty()) {
+                taxonCount = write(partitionsInProgress.removeFirst(), writer, taxonCount, taxonIds.size(), watchForEntireRun);
+            }
+            writer.finish();
+
+            watchForEntireRun.stop();
+            LOG.info("created [" + writer.count + "] taxon interactions in " + getProgressMsg(writer.count, watchForEntireRun.getTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while counting taxon interactions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("failed to count taxon interactions", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            db.close();
+        }
+    }
 
-        db.close();
+    private static long write(Future<TaxonInteractionCounts> partitionInProgress, TaxonInteractionWriter writer, long taxonCount, long totalTaxonCount, StopWatch watch) throws InterruptedException, ExecutionException {
+        TaxonInteractionCounts partition = partitionInProgress.get();
+        partition.forEach(writer);
+        partition.clear();
+        long updatedTaxonCount = Math.min(taxonCount + TAXA_PER_PARTITION, totalTaxonCount);
+        LOG.info("indexed interactions of [" + updatedTaxonCount + "/" + totalTaxonCount + "] taxa at " + getProgressMsg(updatedTaxonCount, watch.getTime()));
+        return updatedTaxonCount;
     }
 
-    private void createTaxonInteractions(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, GraphDatabaseService graphService) {
-        StopWatch watchForEntireRun = new StopWatch();
-        watchForEntireRun.start();
+    private static Future<TaxonInteractionCounts> submit(ExecutorService workers, GraphDatabaseService graphService, long[] taxonIds, int length) {
+        return workers.submit(() -> countTaxonInteractions(graphService, taxonIds, length));
+    }
 
-        TransactionPerBatch transactionPerBatch = new TransactionPerBatch(graphService);
-        AtomicLong count = new AtomicLong(0);
-        for (Fun.Tuple3<Long, String, Long> uniqueTaxonInteraction : taxonInteractions.keySet()) {
-            if (count.getAndIncrement() % 1000 == 0) {
-                transactionPerBatch.onStart();
+    private static TaxonInteractionCounts countTaxonInteractions(GraphDatabaseService graphService, long[] taxonIds, int length) {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        long[] keys = new long[64];
+        try (Transaction tx = graphService.beginTx()) {
+            for (int i = 0; i < length; i++) {
+                keys = onTaxonNode(graphService.getNodeById(taxonIds[i]), counts, keys);
             }
-            final Node sourceTaxon = graphService.getNodeById(uniqueTaxonInteraction.a);
-            final Node targetTaxon = graphService.getNodeById(uniqueTaxonInteraction.c);
-            if (sourceTaxon != null && targetTaxon != null) {
-                final InteractType relType = InteractType.valueOf(uniqueTaxonInteraction.b);
-                final Long interactionCount = taxonInteractions.get(uniqueTaxonInteraction);
-                createInteraction(sourceTaxon, targetTaxon, relType, false, interactionCount);
-                createInteraction(targetTaxon, sourceTaxon, InteractType.inverseOf(relType), true, interactionCount);
+            tx.success();
+        }
+        return counts;
+    }
+
+    // returns the (possibly grown) keys, so that these can be re-used for the next taxon
+    private static long[] onTaxonNode(Node sourceTaxon, TaxonInteractionCounts counts, long[] keys) {
+        int keyCount = 0;
+        for (Relationship classifiedAs : sourceTaxon.getRelationships(Direction.INCOMING, CLASSIFIED_AS)) {
+            Node specimenNode = classifiedAs.getStartNode();
+            for (Relationship interaction : specimenNode.getRelationships(Direction.OUTGOING, INTERACT_REL_TYPES)) {
+                int interactTypeOrdinal = InteractType.valueOf(interaction.getType().name()).ordinal();
+                for (Relationship targetClassification : interaction.getEndNode().getRelationships(Direction.OUTGOING, CLASSIFIED_AS)) {
+                    if (keyCount == keys.length) {
+                        keys = Arrays.copyOf(keys, keys.length * 2);
+                    }
+                    keys[keyCount++] = keyFor(interactTypeOrdinal, targetClassification.getEndNode().getId());
+                }
             }
         }
 
-        transactionPerBatch.onFinish();
+        Arrays.sort(keys, 0, keyCount);
+        for (int i = 0; i < keyCount; ) {
+            int j = i + 1;
+            while (j < keyCount && keys[j] == keys[i]) {
+                j++;
+            }
+            counts.add(sourceTaxon.getId(), (int) (keys[i] >>> TARGET_ID_BITS), keys[i] & TARGET_ID_MASK, j - i);
+            i = j;
+        }
+        return keys;
+    }
 
-        watchForEntireRun.stop();
-        LOG.info("created [" + count + "] taxon interactions in " + getProgressMsg(count.get(), watchForEntireRun.getTime()));
+    private static long keyFor(int interactTypeOrdinal, long targetTaxonId) {
+        if ((targetTaxonId & ~TARGET_ID_MASK) != 0) {
+            throw new IllegalStateException("taxon id [" + targetTaxonId + "] exceeds [" + TARGET_ID_BITS + "] bits");
+        }
+        return ((long) interactTypeOrdinal << TARGET_ID_BITS) | targetTaxonId;
     }
 
-    private void createInteraction(Node sourceTaxon, Node targetTaxon, InteractType relType, boolean inverted, Long interactionCount) {
+    private static void createInteraction(Node sourceTaxon, Node targetTaxon, InteractType relType, boolean inverted, Long interactionCount) {
         final Relationship interactRel = sourceTaxon.createRelationshipTo(targetTaxon, NodeUtil.asNeo4j(relType));
         SpecimenNode.enrichWithInteractProps(relType, interactRel, inverted);
         interactRel.setProperty("count", interactionCount);
     }
 
-    private void collectTaxonInteractions(
-            Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions,
-            GraphDatabaseService graphService,
-            NodeIdCollector nodeIdCollector) {
-
-        new NodeProcessorImpl(
-                graphService,
-                1000L,
-                "name",
-                "*",
-                "taxons",
-                nodeIdCollector)
-                .process(taxonNode -> onTaxonNode(taxonInteractions, taxonNode)
-                , new TransactionPerBatch(graphService));
-
+    private static String getProgressMsg(long count, long duration) {
+        return String.format("[%.2f] taxon/s over [%.2f] s", (float) count * 1000.0 / duration, duration / 1000.0);
     }
 
-    private void onTaxonNode(Map<Fun.Tuple3<Long, String, Long>, Long> taxonInteractions, Node sourceTaxon) {
-        final Iterable<Relationship> classifiedAs = sourceTaxon.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
-        for (Relationship classifiedA : classifiedAs) {
-            Node specimenNode = classifiedA.getStartNode();
-            final Iterable<Relationship> interactions = specimenNode.getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.values()));
-            for (Relationship interaction : interactions) {
-                final Iterable<Relationship> targetClassifications = interaction.getEndNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
-                for (Relationship targetClassification : targetClassifications) {
-                    final Node targetTaxonNode = targetClassification.getEndNode();
-                    final Fun.Tuple3<Long, String, Long> interactionKey = new Fun.Tuple3<Long, String, Long>(sourceTaxon.getId(), interaction.getType().name(), targetTaxonNode.getId());
-                    final Long distinctInteractions = taxonInteractions.get(interactionKey);
-                    taxonInteractions.put(interactionKey, distinctInteractions == null ? 1L : (distinctInteractions + 1L));
-                }
+    private static class TaxonInteractionWriter implements TaxonInteractionCounts.Listener {
+        private final GraphDatabaseService graphService;
+        private final TransactionPerBatch transactionPerBatch;
+        private long count = 0;
+        private Node sourceTaxon = null;
+
+        TaxonInteractionWriter(GraphDatabaseService graphService) {
+            this.graphService = graphService;
+            this.transactionPerBatch = new TransactionPerBatch(graphService);
+        }
+
+        @Override
+        public void on(long sourceTaxonId, int interactTypeOrdinal, long targetTaxonId, long interactionCount) {
+            if (count++ % INTERACTIONS_PER_TRANSACTION == 0) {
+                transactionPerBatch.onStart();
             }
+            // counts are in order of source taxon id, so consecutive interactions mostly share their source taxon
+            if (sourceTaxon == null || sourceTaxon.getId() != sourceTaxonId) {
+                sourceTaxon = graphService.getNodeById(sourceTaxonId);
+            }
+            Node targetTaxon = graphService.getNodeById(targetTaxonId);
+            InteractType relType = INTERACT_TYPES[interactTypeOrdinal];
+            createInteraction(sourceTaxon, targetTaxon, relType, false, interactionCount);
+            createInteraction(targetTaxon, sourceTaxon, InteractType.inverseOf(relType), true, interactionCount);
         }
-    }
 
-    private static String getProgressMsg(long count, long duration) {
-        return String.format("[%.2f] taxon/s over [%.2f] s", (float) count * 1000.0 / duration, duration / 1000.0);
+        void finish() {
+            transactionPerBatch.onFinish();
+        }
     }
 
 }
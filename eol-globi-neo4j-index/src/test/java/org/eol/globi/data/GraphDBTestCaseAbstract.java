@@ -11,11 +11,11 @@ import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceException;
 import org.eol.globi.taxon.NonResolvingTaxonIndexNeo4j2;
 import org.eol.globi.tool.NameResolver;
+import org.eol.globi.util.DatasetImportUtil;
 import org.eol.globi.util.NodeIdCollector;
 import org.eol.globi.util.NodeIdCollectorNeo4j2;
 import org.eol.globi.util.NodeTypeDirection;
 import org.eol.globi.util.NodeUtil;
-import org.eol.globi.util.ResourceServiceLocal;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.cache.CacheUtil;
 import org.globalbioticinteractions.dataset.Dataset;
@@ -91,9 +91,7 @@ public abstract class GraphDBTestCaseAbstract {
                         return new DatasetWithResourceMapping(namespace, URI.create("some:uri"), new ResourceServiceLocalAndRemote(in -> in));
                     }
                 },
-                dataset -> CacheUtil.cacheFor(dataset.getNamespace(),
-                        "target/datasets",
-                        new ResourceServiceLocalAndRemote(inStream -> inStream), new ResourceServiceLocal(inStream -> inStream)));
+                dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", inStream -> inStream));
         return finder.datasetFor(namespace);
     }
 
@@ -174,7 +172,7 @@ public abstract class GraphDBTestCaseAbstract {
     }
 
     protected void importStudy(DatasetImporter importer) throws StudyImporterException {
-        importer.importStudy();
+        DatasetImportUtil.importStudy(importer);
         resolveNames();
     }
 
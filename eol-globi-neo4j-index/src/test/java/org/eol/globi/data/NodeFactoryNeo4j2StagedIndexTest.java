@@ -0,0 +1,77 @@
+package org.eol.globi.data;
+
+import org.eol.globi.db.LegacyIndexStage;
+import org.eol.globi.domain.LocationImpl;
+import org.eol.globi.domain.LocationNode;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.StudyNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NodeFactoryNeo4j2StagedIndexTest extends NodeFactoryNeo4j2Test {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LegacyIndexStage stage;
+
+    @Override
+    protected NodeFactoryNeo4j createNodeFactory() {
+        try {
+            stage = new LegacyIndexStage(folder.newFile());
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to create index stage", e);
+        }
+        NodeFactoryNeo4j2 nodeFactoryNeo4j = new NodeFactoryNeo4j2(getGraphDb(), stage);
+        nodeFactoryNeo4j.setEnvoLookupService(getEnvoLookupService());
+        nodeFactoryNeo4j.setTermLookupService(getTermLookupService());
+        return nodeFactoryNeo4j;
+    }
+
+    @Test
+    public void stagedNodesOfRolledBackTransaction() throws InterruptedException, NodeFactoryException {
+        LocationImpl location = new LocationImpl(1.2d, 1.4d, null, null);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try (Transaction tx = getGraphDb().beginTx()) {
+                getNodeFactory().getOrCreateStudy(new StudyImpl("some title"));
+                getNodeFactory().getOrCreateLocation(location);
+                tx.failure();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertThat(failure.get(), is(nullValue()));
+
+        StudyNode study = getNodeFactory().getOrCreateStudy(new StudyImpl("some title"));
+        assertThat(study.getTitle(), is("some title"));
+        LocationNode locationNode = getNodeFactory().getOrCreateLocation(location);
+        assertThat(locationNode.getLatitude(), is(1.2d));
+
+        assertThat(getNodeFactory().getOrCreateStudy(new StudyImpl("some title")).getUnderlyingNode().getId(),
+                is(study.getUnderlyingNode().getId()));
+        assertThat(getNodeFactory().getOrCreateLocation(location).getUnderlyingNode().getId(),
+                is(locationNode.getUnderlyingNode().getId()));
+    }
+
+    @Override
+    public void beforeGraphDbShutdown() {
+        try {
+            stage.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to close index stage", e);
+        }
+    }
+
+}
@@ -38,14 +38,22 @@ import org.globalbioticinteractions.doi.DOI;
 import org.junit.Test;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -513,6 +521,200 @@ public abstract class NodeFactoryNeo4jTest extends GraphDBNeo4jTestCase {
 
     }
 
+    @Test
+    public void getOrCreateLocationWithAndWithoutCache() throws NodeFactoryException {
+        LocationImpl someLocation = new LocationImpl(1.2d, 1.4d, -1.0d, null);
+        LocationImpl otherLocation = new LocationImpl(1.2d, 1.4d, null, null);
+        otherLocation.setLocality("some place");
+        List<Location> locations = Arrays.asList(someLocation, someLocation, otherLocation, someLocation, otherLocation);
+
+        getNodeFactory().setCache(NodeFactoryCache.disabled());
+        List<Long> uncachedIds = getOrCreateLocations(locations);
+
+        NodeFactoryCache cache = new NodeFactoryCache();
+        getNodeFactory().setCache(cache);
+        List<Long> cachedIds = getOrCreateLocations(locations);
+
+        assertThat(cachedIds, is(uncachedIds));
+        assertThat(new HashSet<>(cachedIds).size(), is(2));
+
+        // only cache misses look up locations in the index
+        assertThat(cache.getLocationMissCount(), is(2L));
+        assertThat(cache.getLocationHitCount(), is(3L));
+
+        LocationImpl locationWithoutLatLng = new LocationImpl(null, null, null, null);
+        locationWithoutLatLng.setLocality("some place");
+        getNodeFactory().getOrCreateLocation(locationWithoutLatLng);
+        assertThat(cache.getLocationMissCount() + cache.getLocationHitCount(), is(5L));
+    }
+
+    @Test
+    public void getOrCreateLocationCachedNodeDeleted() throws NodeFactoryException {
+        LocationImpl someLocation = new LocationImpl(1.2d, 1.4d, -1.0d, null);
+        Long createdId = getOrCreateLocations(Collections.singletonList(someLocation)).get(0);
+        getNodeFactory().getGraphDb().getNodeById(createdId).delete();
+
+        Long recreatedId = getOrCreateLocations(Collections.singletonList(someLocation)).get(0);
+        assertThat(recreatedId, is(not(createdId)));
+        assertThat(getNodeFactory().getCache().getLocationHitCount(), is(0L));
+    }
+
+    @Test
+    public void specimenTermsWithAndWithoutCache() throws NodeFactoryException {
+        initTaxonService();
+        StudyNode study = getNodeFactory().createStudy(new StudyImpl("bla", null, null));
+        List<String> names = Arrays.asList("mickey eggs scales", "CALANUS SPP (NAUPLII)", "mickey eggs scales", "donald duck", "donald duck eggs");
+
+        getNodeFactory().setCache(NodeFactoryCache.disabled());
+        List<String> uncachedTerms = createSpecimenTerms(study, names);
+
+        NodeFactoryCache cache = new NodeFactoryCache();
+        getNodeFactory().setCache(cache);
+        List<String> cachedTerms = createSpecimenTerms(study, names);
+
+        assertThat(cachedTerms, is(uncachedTerms));
+        assertThat(cachedTerms.get(0), is("UBERON:0007379|egg|UBERON:0002542|scale|TEST:adult|adult"));
+        assertThat(cache.getHitRates(), containsString("life stages: [6/14] (43%)"));
+    }
+
+    @Test
+    public void createInteractionsSameAsPerRecord() throws NodeFactoryException {
+        initTaxonService();
+        for (InteractionRecord interaction : interactionRecords("per record ", new Random(42), 200)) {
+            getNodeFactory().createInteraction(interaction);
+        }
+        getNodeFactory().createInteractions(interactionRecords("batched ", new Random(42), 200));
+
+        List<String> perRecord = describeStudies("per record ");
+        List<String> batched = describeStudies("batched ");
+        assertThat(perRecord.size(), is(not(0)));
+        assertThat(batched, is(perRecord));
+    }
+
+    private static List<InteractionRecord> interactionRecords(String studyPrefix, Random random, int count) {
+        List<String> names = Arrays.asList("mickey eggs scales", "CALANUS SPP (NAUPLII)", "donald duck", "Homo sapiens larvae", "", null);
+        List<InteractType> types = Arrays.asList(InteractType.ATE, InteractType.EATEN_BY, InteractType.INTERACTS_WITH);
+        List<InteractionRecord> interactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StudyImpl study = new StudyImpl(studyPrefix + "study" + random.nextInt(2), null, "some citation");
+            Location location = null;
+            int locationType = random.nextInt(3);
+            if (locationType == 1) {
+                location = new LocationImpl(12.0d + random.nextInt(3), -45.0d, null, null);
+            } else if (locationType == 2) {
+                LocationImpl locality = new LocationImpl(null, null, null, null);
+                locality.setLocalityId("some:locality" + random.nextInt(2));
+                locality.setLocality("some locality");
+                location = locality;
+            }
+            interactions.add(new InteractionRecord(study,
+                    specimenRecord(random, names),
+                    specimenRecord(random, names),
+                    types.get(random.nextInt(types.size())),
+                    location));
+        }
+        return interactions;
+    }
+
+    private static SpecimenRecord specimenRecord(Random random, List<String> names) {
+        TaxonImpl taxon = new TaxonImpl(names.get(random.nextInt(names.size())), random.nextBoolean() ? "some:id" : null);
+        if (random.nextBoolean()) {
+            taxon.setPath("Animalia | " + taxon.getName());
+            taxon.setPathNames("kingdom | species");
+        }
+        SpecimenRecord specimen = random.nextInt(5) == 0
+                ? new SpecimenRecord(taxon, RelTypes.REFUTES)
+                : new SpecimenRecord(taxon, RelTypes.COLLECTED, RelTypes.SUPPORTS);
+        specimen.setBasisOfRecord(randomTerm(random, "basis"));
+        specimen.setBodyPart(randomTerm(random, "bodyPart"));
+        specimen.setLifeStage(randomTerm(random, "lifeStage"));
+        specimen.setSex(randomTerm(random, "sex"));
+        if (random.nextBoolean()) {
+            specimen.setEventDate(DateUtil.parseDateUTC("2021-01-0" + (1 + random.nextInt(9))).toDate());
+        }
+        specimen.setExternalId(Arrays.asList(null, " ", "some:occurrence").get(random.nextInt(3)));
+        if (random.nextBoolean()) {
+            specimen.setProperty(PropertyAndValueDictionary.CATALOG_NUMBER, "some catalog number");
+        }
+        return specimen;
+    }
+
+    // terms with and without name or id, to check that these override previous values in the same way
+    private static Term randomTerm(Random random, String name) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return new TermImpl("some:" + name, name);
+            case 1:
+                return new TermImpl(null, name);
+            case 2:
+                return new TermImpl("some:" + name, null);
+            default:
+                return null;
+        }
+    }
+
+    private List<String> describeStudies(String studyPrefix) {
+        List<String> descriptions = new ArrayList<>();
+        for (String title : Arrays.asList("study0", "study1")) {
+            StudyNode study = (StudyNode) getNodeFactory().findStudy(new StudyImpl(studyPrefix + title, null, null));
+            if (study != null) {
+                for (Relationship studyRel : study.getUnderlyingNode().getRelationships(Direction.OUTGOING)) {
+                    descriptions.add(title + " " + describe(studyRel) + " " + describeSpecimen(studyRel.getEndNode()));
+                }
+            }
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private static String describeSpecimen(Node specimen) {
+        List<String> rels = new ArrayList<>();
+        for (Relationship rel : specimen.getRelationships(Direction.OUTGOING)) {
+            Node endNode = rel.getEndNode();
+            rels.add(describe(rel) + " " + (endNode.hasRelationship(Direction.OUTGOING, NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS))
+                    ? describe(endNode.getSingleRelationship(NodeUtil.asNeo4j(RelTypes.ORIGINALLY_DESCRIBED_AS), Direction.OUTGOING).getEndNode())
+                    : describe(endNode)));
+        }
+        Collections.sort(rels);
+        return describe(specimen) + " " + rels;
+    }
+
+    private static String describe(Relationship rel) {
+        return rel.getType().name() + describe((PropertyContainer) rel);
+    }
+
+    private static String describe(PropertyContainer container) {
+        Map<String, Object> properties = new TreeMap<>();
+        for (String key : container.getPropertyKeys()) {
+            properties.put(key, container.getProperty(key));
+        }
+        return properties.toString();
+    }
+
+    private List<Long> getOrCreateLocations(List<Location> locations) throws NodeFactoryException {
+        List<Long> ids = new ArrayList<>();
+        for (Location location : locations) {
+            ids.add(getNodeFactory().getOrCreateLocation(location).getUnderlyingNode().getId());
+        }
+        return ids;
+    }
+
+    private List<String> createSpecimenTerms(StudyNode study, List<String> names) throws NodeFactoryException {
+        List<String> terms = new ArrayList<>();
+        for (String name : names) {
+            SpecimenNode specimen = getNodeFactory().createSpecimen(study, new TaxonImpl(name, null));
+            Term lifeStage = getNodeFactory().getOrCreateLifeStage(null, "adult");
+            terms.add(StringUtils.join(Arrays.asList(
+                    specimen.getLifeStage().getId(),
+                    specimen.getLifeStage().getName(),
+                    specimen.getBodyPart().getId(),
+                    specimen.getBodyPart().getName(),
+                    lifeStage.getId(),
+                    lifeStage.getName()), "|"));
+        }
+        return terms;
+    }
+
     private void initTaxonService() {
         this.taxonIndex = new NonResolvingTaxonIndexNeo4j2(
                 getGraphDb()
@@ -0,0 +1,76 @@
+package org.eol.globi.data.export;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+public class SiteMapShardsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeSingleShard() throws IOException {
+        File baseDir = folder.newFolder();
+        List<File> maps = SiteMapUtils.generateSiteMapFor("accordingTo=", new HashSet<>(Arrays.asList("one", "two", "one")), baseDir, "https://example.org/sitemap/");
+
+        assertThat(maps.size(), is(1));
+        assertThat(maps.get(0).getName(), is("sitemap.xml.gz"));
+        String siteMap = gunzip(maps.get(0));
+        assertThat(siteMap, containsString("http://www.globalbioticinteractions.org/?accordingTo=one"));
+        assertThat(siteMap, containsString("http://www.globalbioticinteractions.org/?accordingTo=two"));
+        try (InputStream is = new FileInputStream(new File(baseDir, "sitemap_index.xml"))) {
+            assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), containsString("https://example.org/sitemap/sitemap.xml.gz"));
+        }
+    }
+
+    @Test
+    public void rewriteChangedShardsOnly() throws IOException {
+        File baseDir = folder.newFolder();
+        File siteMap = new File(baseDir, "sitemap.xml.gz");
+        SiteMapUtils.generateSiteMapFor("accordingTo=", new HashSet<>(Arrays.asList("one", "two")), baseDir, "https://example.org/sitemap/");
+        assertThat(siteMap.setLastModified(0L), is(true));
+
+        SiteMapUtils.generateSiteMapFor("accordingTo=", new HashSet<>(Arrays.asList("one", "two")), baseDir, "https://example.org/sitemap/");
+        assertThat(siteMap.lastModified(), is(0L));
+
+        SiteMapUtils.generateSiteMapFor("accordingTo=", new HashSet<>(Arrays.asList("one", "three")), baseDir, "https://example.org/sitemap/");
+        assertThat(siteMap.lastModified(), is(not(0L)));
+        assertThat(gunzip(siteMap), containsString("accordingTo=three"));
+        assertThat(gunzip(siteMap), not(containsString("accordingTo=two")));
+    }
+
+    @Test
+    public void shardCountGrowsWithValues() {
+        try (SiteMapShards shards = new SiteMapShards()) {
+            for (int i = 0; i < 100000; i++) {
+                shards.add("name" + i);
+            }
+            assertThat(shards.size(), is(100000L));
+            assertThat(shards.shardCount(), is(4));
+        }
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.eol.globi.db;
+
+import org.eol.globi.domain.InteractType;
+import org.eol.globi.domain.RelTypes;
+import org.eol.globi.util.NodeUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class GraphServiceFactoryImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void profileSettingsApplied() throws IOException {
+        File graphDbDir = folder.newFolder();
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.BULK_IMPORT, false)) {
+            Config config = configOf(factory.getGraphService());
+            assertThat(config.get(GraphDatabaseSettings.tx_state_memory_allocation), is(GraphDatabaseSettings.TransactionStateMemoryAllocation.OFF_HEAP));
+            assertThat(config.get(GraphDatabaseSettings.pagecache_memory), is(GraphServiceProfile.BULK_IMPORT.settings().get(GraphDatabaseSettings.pagecache_memory)));
+            assertThat(config.get(GraphDatabaseSettings.read_only), is(false));
+        }
+    }
+
+    @Test
+    public void readOnlyWhenServing() throws IOException {
+        File graphDbDir = folder.newFolder();
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.BULK_IMPORT, false)) {
+            createGraph(factory.getGraphService(), 10);
+        }
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.SERVE, true)) {
+            assertThat(configOf(factory.getGraphService()).get(GraphDatabaseSettings.read_only), is(true));
+            assertThat(countInteractions(factory.getGraphService()), is(10L));
+        }
+    }
+
+    @Test
+    public void prewarmStoreFiles() throws IOException {
+        File graphDbDir = folder.newFolder();
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.LINK, false)) {
+            createGraph(factory.getGraphService(), 10);
+        }
+        List<File> storeFiles = GraphServiceFactoryImpl.storeFilesToPrewarm(graphDbDir);
+        assertThat(storeFiles.get(0).getName(), is("neostore.nodestore.db"));
+        for (File storeFile : storeFiles) {
+            assertThat(storeFile.getName().startsWith("neostore.transaction.db"), is(false));
+        }
+        long storeSize = GraphServiceFactoryImpl.prewarm(graphDbDir, Long.MAX_VALUE);
+        assertThat(storeSize, greaterThan(0L));
+        assertThat(GraphServiceFactoryImpl.prewarm(graphDbDir, 1L), lessThan(storeSize));
+    }
+
+    private static Config configOf(GraphDatabaseService graphService) {
+        return ((GraphDatabaseAPI) graphService).getDependencyResolver().resolveDependency(Config.class);
+    }
+
+    private static void createGraph(GraphDatabaseService graphService, int numberOfInteractions) {
+        try (Transaction tx = graphService.beginTx()) {
+            List<Node> taxa = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Node taxon = graphService.createNode();
+                taxon.setProperty("name", "taxon" + i);
+                taxa.add(taxon);
+            }
+            for (int i = 0; i < numberOfInteractions; i++) {
+                Node source = graphService.createNode();
+                Node target = graphService.createNode();
+                source.createRelationshipTo(taxa.get(i % taxa.size()), NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
+                target.createRelationshipTo(taxa.get((i * 7) % taxa.size()), NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS));
+                source.createRelationshipTo(target, NodeUtil.asNeo4j(InteractType.ATE));
+            }
+            tx.success();
+        }
+    }
+
+    private static long countInteractions(GraphDatabaseService graphService) {
+        long count = 0;
+        try (Transaction tx = graphService.beginTx()) {
+            for (Node node : graphService.getAllNodes()) {
+                if (node.hasProperty("name")) {
+                    for (Relationship classifiedAs : node.getRelationships(Direction.INCOMING, NodeUtil.asNeo4j(RelTypes.CLASSIFIED_AS))) {
+                        for (Relationship ignored : classifiedAs.getStartNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.ATE))) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            tx.success();
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.eol.globi.db;
+
+import org.junit.Test;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class GraphServiceProfileTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    public void pageCacheFromMemoryOutsideOfHeap() {
+        assertThat(GraphServiceProfile.BULK_IMPORT.pageCacheBytes(8 * GB, 18 * GB), is(4 * GB));
+        assertThat(GraphServiceProfile.EXPORT.pageCacheBytes(8 * GB, 18 * GB), is(5 * GB));
+        assertThat(GraphServiceProfile.SERVE.pageCacheBytes(8 * GB, 18 * GB), is(7 * GB));
+    }
+
+    @Test
+    public void minimumPageCache() {
+        assertThat(GraphServiceProfile.LINK.pageCacheBytes(8 * GB, 4 * GB), is(GraphServiceProfile.MIN_PAGE_CACHE_BYTES));
+    }
+
+    @Test
+    public void bulkImportSettings() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.BULK_IMPORT.settings(8 * GB, 18 * GB);
+        assertThat(settings.get(GraphDatabaseSettings.pagecache_memory), is(Long.toString(4 * GB)));
+        assertThat(settings.get(GraphDatabaseSettings.tx_state_memory_allocation), is("OFF_HEAP"));
+        assertThat(settings.get(GraphDatabaseSettings.tx_state_max_off_heap_memory), is(Long.toString(GB)));
+        assertThat(settings.get(GraphDatabaseSettings.check_point_interval_time), is("5m"));
+        assertThat(settings.get(GraphDatabaseSettings.keep_logical_logs), is("keep_none"));
+        assertThat(settings.get(GraphDatabaseSettings.read_only), is(nullValue()));
+    }
+
+    @Test
+    public void serveSettings() {
+        Map<Setting<?>, String> settings = GraphServiceProfile.SERVE.settings(8 * GB, 18 * GB);
+        assertThat(settings.get(GraphDatabaseSettings.read_only), is("true"));
+        assertThat(settings.get(GraphDatabaseSettings.tx_state_memory_allocation), is(nullValue()));
+    }
+
+    @Test
+    public void forName() {
+        assertThat(GraphServiceProfile.forName("bulk-import"), is(GraphServiceProfile.BULK_IMPORT));
+        assertThat(GraphServiceProfile.forName("EXPORT"), is(GraphServiceProfile.EXPORT));
+        assertThat(GraphServiceProfile.LINK.getName(), is("link"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownName() {
+        GraphServiceProfile.forName("fast");
+    }
+
+}
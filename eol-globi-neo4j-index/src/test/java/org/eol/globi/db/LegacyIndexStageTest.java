@@ -0,0 +1,122 @@
+package org.eol.globi.db;
+
+import org.apache.commons.collections4.IteratorUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.index.lucene.QueryContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class LegacyIndexStageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void findStaged() throws IOException {
+        try (LegacyIndexStage stage = new LegacyIndexStage(folder.newFile())) {
+            stage.addLookup("datasets", 3L, "namespace", "some/namespace");
+            stage.addLookup("datasets", 4L, "namespace", "some/namespace");
+            stage.add("datasets", 5L, "namespace", "other/namespace");
+            stage.addLookup("locations", 7L, "latitude", 12.0d);
+            stage.addLookup("locations", 6L, "latitude", 12.0d);
+            stage.addLookup("locations", 8L, "latitude", 12.5d);
+
+            assertThat(stage.find("datasets", "namespace", "some/namespace"), is(3L));
+            assertThat(stage.find("datasets", "namespace", "other/namespace"), is(nullValue()));
+            assertThat(stage.find("studies", "namespace", "some/namespace"), is(nullValue()));
+            assertThat(IteratorUtils.toList(stage.findNumeric("locations", "latitude", 12.0d)), contains(6L, 7L));
+            assertThat(IteratorUtils.toList(stage.findNumeric("locations", "latitude", 13.0d)), is(empty()));
+            assertThat(stage.size(), is(6L));
+        }
+    }
+
+    @Test
+    public void replaceRemovedLookup() throws IOException {
+        try (LegacyIndexStage stage = new LegacyIndexStage(folder.newFile())) {
+            stage.addLookup("datasets", 3L, "namespace", "some/namespace");
+            stage.addLookup("locations", 6L, "latitude", 12.0d);
+            stage.addLookup("locations", 7L, "latitude", 12.0d);
+
+            stage.removeLookup("datasets", 4L, "namespace", "some/namespace");
+            assertThat(stage.find("datasets", "namespace", "some/namespace"), is(3L));
+            stage.removeLookup("datasets", 3L, "namespace", "some/namespace");
+            assertThat(stage.find("datasets", "namespace", "some/namespace"), is(nullValue()));
+            stage.addLookup("datasets", 4L, "namespace", "some/namespace");
+            assertThat(stage.find("datasets", "namespace", "some/namespace"), is(4L));
+
+            stage.removeLookup("locations", 6L, "latitude", 12.0d);
+            assertThat(IteratorUtils.toList(stage.findNumeric("locations", "latitude", 12.0d)), contains(7L));
+        }
+    }
+
+    @Test
+    public void buildIndexes() throws IOException {
+        File graphDbDir = folder.newFolder();
+        long studyId;
+        long locationId;
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.BULK_IMPORT, false);
+             LegacyIndexStage stage = new LegacyIndexStage(new File(folder.getRoot(), "stage"))) {
+            GraphDatabaseService graphDb = factory.getGraphService();
+            try (Transaction tx = graphDb.beginTx()) {
+                // index exists before staged entries are added
+                graphDb.index().forNodes("studies").add(graphDb.createNode(), "title", "existing study");
+                Node study = graphDb.createNode();
+                studyId = study.getId();
+                stage.add("studies", studyId, "title", "some study");
+                stage.addLookup("studies", studyId, "titleInNamespace", "some/namespace|some study");
+                Node location = graphDb.createNode();
+                locationId = location.getId();
+                stage.addLookup("locations", locationId, "latitude", 12.0d);
+                stage.add("locations", locationId, "longitude", -1.5d);
+                stage.add("locations", locationId, "locality", "some place");
+                stage.add("locations", locationId + 100, "locality", "some place");
+                tx.success();
+            }
+        }
+
+        assertThat(LegacyIndexStage.build(new File(folder.getRoot(), "stage"), graphDbDir), is(5L));
+
+        try (GraphServiceFactoryImpl factory = new GraphServiceFactoryImpl(graphDbDir, GraphServiceProfile.LINK, false)) {
+            GraphDatabaseService graphDb = factory.getGraphService();
+            try (Transaction tx = graphDb.beginTx()) {
+                Index<Node> studies = graphDb.index().forNodes("studies");
+                assertThat(ids(studies.get("title", "some study")), contains(studyId));
+                assertThat(ids(studies.get("titleInNamespace", "some/namespace|some study")), contains(studyId));
+                assertThat(ids(studies.get("title", "existing study")).size(), is(1));
+
+                Index<Node> locations = graphDb.index().forNodes("locations");
+                assertThat(ids(locations.query(QueryContext.numericRange("latitude", 12.0d, 12.0d))), contains(locationId));
+                assertThat(ids(locations.query(QueryContext.numericRange("longitude", -2.0d, -1.0d))), contains(locationId));
+                assertThat(ids(locations.get("locality", "some place")), contains(locationId));
+                tx.success();
+            }
+        }
+    }
+
+    private static List<Long> ids(IndexHits<Node> hits) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            hits.forEachRemaining(node -> ids.add(node.getId()));
+        } finally {
+            hits.close();
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ColumnarAppenderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void partitionedDictionaryEncodedColumns() throws IOException {
+        File dir = new File(folder.getRoot(), "interactions");
+        try (ColumnarAppender appender = new ColumnarAppender(dir, "interactionTypeName")) {
+            appender.append(new String[]{"sourceTaxonName", "interactionTypeName", "targetTaxonName"});
+            appender.append(new String[]{"Homo sapiens", "eats", "Canis familiaris"});
+            appender.append(new String[]{"Homo sapiens", "interacts with", "Felis catus"});
+            appender.append(new String[]{"Felis catus", "eats", "Homo\tsapiens"});
+            appender.append(new String[]{null, "eats", "Felis catus"});
+        }
+
+        assertThat(FileUtils.readLines(new File(dir, "columns.tsv"), StandardCharsets.UTF_8),
+                is(Arrays.asList("sourceTaxonName", "interactionTypeName", "targetTaxonName")));
+        assertThat(FileUtils.readLines(new File(dir, "partitions.tsv"), StandardCharsets.UTF_8),
+                is(Arrays.asList("interactionTypeName\tpath\trows",
+                        "eats\tinteractionTypeName=eats\t3",
+                        "interacts with\tinteractionTypeName=interacts+with\t1")));
+
+        assertThat(gunzip(new File(dir, "sourceTaxonName.dict.tsv.gz")), is("Homo sapiens\nFelis catus\n\n"));
+        assertThat(gunzip(new File(dir, "targetTaxonName.dict.tsv.gz")), is("Canis familiaris\nFelis catus\nHomo sapiens\n"));
+
+        File eats = new File(dir, "interactionTypeName=eats");
+        assertThat(codes(new File(eats, "sourceTaxonName.codes.gz")), is(Arrays.asList(0, 1, 2)));
+        assertThat(codes(new File(eats, "interactionTypeName.codes.gz")), is(Arrays.asList(0, 0, 0)));
+        assertThat(codes(new File(eats, "targetTaxonName.codes.gz")), is(Arrays.asList(0, 2, 1)));
+
+        File interactsWith = new File(dir, "interactionTypeName=interacts+with");
+        assertThat(codes(new File(interactsWith, "sourceTaxonName.codes.gz")), is(Arrays.asList(0)));
+        assertThat(codes(new File(interactsWith, "targetTaxonName.codes.gz")), is(Arrays.asList(1)));
+
+        assertThat(dir.list().length, is(7));
+    }
+
+    @Test
+    public void plainValuesBeyondMaxDictionarySize() throws IOException {
+        File dir = new File(folder.getRoot(), "interactions");
+        try (ColumnarAppender appender = new ColumnarAppender(dir, "interactionTypeName", 2)) {
+            appender.append(new String[]{"sourceTaxonName", "interactionTypeName"});
+            appender.append(new String[]{"Homo sapiens", "eats"});
+            appender.append(new String[]{"Felis catus", "eats"});
+            appender.append(new String[]{"Canis\tfamiliaris", "interacts with"});
+            appender.append(new String[]{"Homo sapiens", "kills"});
+        }
+
+        assertThat(gunzip(new File(dir, "interactionTypeName.dict.tsv.gz")), is("eats\ninteracts with\nkills\n"));
+        assertThat(new File(dir, "sourceTaxonName.dict.tsv.gz").exists(), is(false));
+
+        File eats = new File(dir, "interactionTypeName=eats");
+        assertThat(gunzip(new File(eats, "sourceTaxonName.values.tsv.gz")), is("Homo sapiens\nFelis catus\n"));
+        assertThat(codes(new File(eats, "interactionTypeName.codes.gz")), is(Arrays.asList(0, 0)));
+        assertThat(gunzip(new File(dir, "interactionTypeName=interacts+with/sourceTaxonName.values.tsv.gz")), is("Canis familiaris\n"));
+        assertThat(gunzip(new File(dir, "interactionTypeName=kills/sourceTaxonName.values.tsv.gz")), is("Homo sapiens\n"));
+
+        assertThat(dir.list().length, is(6));
+    }
+
+    @Test
+    public void noRows() throws IOException {
+        File dir = new File(folder.getRoot(), "interactions");
+        new ColumnarAppender(dir, "interactionTypeName").close();
+        assertThat(dir.exists(), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void missingPartitionColumn() throws IOException {
+        try (ColumnarAppender appender = new ColumnarAppender(new File(folder.getRoot(), "interactions"), "interactionTypeName")) {
+            appender.append(new String[]{"sourceTaxonName", "targetTaxonName"});
+        }
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<Integer> codes(File file) throws IOException {
+        List<Integer> codes = new ArrayList<>();
+        try (DataInputStream is = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            while (true) {
+                codes.add(is.readInt());
+            }
+        } catch (EOFException e) {
+            return codes;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.eol.globi.export;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class DistinctInteractionAggregatorTest {
+
+    @Test
+    public void aggregateInMemory() throws IOException {
+        assertThat(aggregate(new DistinctInteractionAggregator()), is(expectedGroups()));
+    }
+
+    @Test
+    public void aggregateWithSpills() throws IOException {
+        assertThat(aggregate(new DistinctInteractionAggregator(2)), is(expectedGroups()));
+    }
+
+    @Test
+    public void aggregateNothing() throws IOException {
+        List<String> groups = new ArrayList<>();
+        try (DistinctInteractionAggregator aggregator = new DistinctInteractionAggregator(2)) {
+            aggregator.aggregate((studyId, sourceTaxonId, interactionType, targetTaxonIds) -> groups.add(sourceTaxonId));
+        }
+        assertThat(groups.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noTuplesInMemory() {
+        new DistinctInteractionAggregator(0);
+    }
+
+    private static List<String> aggregate(DistinctInteractionAggregator aggregator) throws IOException {
+        List<String> groups = new ArrayList<>();
+        try {
+            aggregator.add(2L, "EOL:1", "ATE", "EOL:3");
+            aggregator.add(1L, "EOL:1", "ATE", "EOL:3");
+            aggregator.add(1L, "EOL:1", "ATE", "EOL:2");
+            aggregator.add(1L, "EOL:1", "ATE", "EOL:3");
+            aggregator.add(1L, "EOL:1", "PREYS_UPON", "EOL:3");
+            aggregator.add(1L, "EOL:0", "ATE", "EOL:3");
+            aggregator.add(1L, "EOL:1", "ATE", "EOL:2");
+            aggregator.aggregate((studyId, sourceTaxonId, interactionType, targetTaxonIds) ->
+                    groups.add(studyId + " " + sourceTaxonId + " " + interactionType + " " + targetTaxonIds));
+        } finally {
+            aggregator.close();
+        }
+        return groups;
+    }
+
+    private static List<String> expectedGroups() {
+        List<String> expected = new ArrayList<>();
+        expected.add("1 EOL:0 ATE [EOL:3]");
+        expected.add("1 EOL:1 ATE [EOL:2, EOL:3]");
+        expected.add("1 EOL:1 PREYS_UPON [EOL:3]");
+        expected.add("2 EOL:1 ATE [EOL:3]");
+        return expected;
+    }
+
+}
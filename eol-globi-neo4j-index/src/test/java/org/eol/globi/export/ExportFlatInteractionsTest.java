@@ -1,8 +1,13 @@
 package org.eol.globi.export;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.data.GraphDBNeo4jTestCase;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.data.NodeFactoryWithDatasetContext;
+import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.domain.Location;
 import org.eol.globi.domain.LocationImpl;
 import org.eol.globi.domain.PropertyAndValueDictionary;
@@ -13,24 +18,43 @@ import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.domain.TermImpl;
 import org.eol.globi.util.ResourceServiceLocalAndRemote;
+import org.globalbioticinteractions.dataset.DatasetConstant;
 import org.globalbioticinteractions.dataset.DatasetImpl;
 import org.globalbioticinteractions.dataset.DatasetWithResourceMapping;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Transaction;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsNot.not;
 
 public class ExportFlatInteractionsTest extends GraphDBNeo4jTestCase {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private NodeFactoryWithDatasetContext factory;
 
     @Before
@@ -100,6 +124,165 @@ public class ExportFlatInteractionsTest extends GraphDBNeo4jTestCase {
         assertThat(actualExport, containsString(firstRefute));
     }
 
+    @Test
+    public void traverseGraphSameAsCypher() throws NodeFactoryException, IOException, ParseException {
+        createTestData(12.0);
+        resolveNames();
+
+        List<ExportFlatInteractions> exports = Arrays.asList(
+                new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz"),
+                new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz", RelTypes.ORIGINALLY_DESCRIBED_AS),
+                new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                        .setArgumentType(RelTypes.REFUTES)
+                        .setArgumentTypeId(PropertyAndValueDictionary.REFUTES));
+
+        for (ExportFlatInteractions export : exports) {
+            List<String> cypherLines = exportLines(export.setTraverseGraph(false));
+            List<String> traversalLines = exportLines(export.setTraverseGraph(true));
+            assertThat(cypherLines.size(), is(greaterThan(1)));
+            assertThat(traversalLines.get(0), is(cypherLines.get(0)));
+            assertThat(sorted(traversalLines), is(sorted(cypherLines)));
+        }
+    }
+
+    @Test
+    public void exportPartitionsSameAsExport() throws NodeFactoryException, IOException, ParseException, StudyImporterException {
+        createTestData(12.0);
+        resolveNames();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            getGraphDb().getAllNodes().stream()
+                    .filter(node -> node.hasProperty(DatasetConstant.NAMESPACE))
+                    .forEach(node -> node.setProperty(DatasetConstant.CONTENT_HASH, "some-hash"));
+            tx.success();
+        }
+
+        File exportDir = folder.newFolder("export");
+        File partitionedExportDir = folder.newFolder("partitioned");
+        File partitionDir = folder.newFolder("partitions");
+        new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                .setTraverseGraph(true)
+                .export(getGraphDb(), exportDir, "2");
+
+        for (int i = 0; i < 2; i++) {
+            new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                    .setTraverseGraph(true)
+                    .setPartitions(new ExportPartitions(partitionDir, "some-build"))
+                    .export(getGraphDb(), partitionedExportDir, "2");
+
+            assertThat(gunzip(new File(partitionedExportDir, "interactions.tsv.gz")),
+                    is(gunzip(new File(exportDir, "interactions.tsv.gz"))));
+            assertThat(new File(partitionDir, "interactions.tsv.gz").list((dir, name) -> name.endsWith(".gz")).length, is(1));
+        }
+    }
+
+    @Test
+    public void reusePartitionsOfDatasetsSeenAgain() throws NodeFactoryException, IOException, ParseException, StudyImporterException {
+        createTestData(12.0);
+        resolveNames();
+        File partitionDir = folder.newFolder("partitions");
+        for (String lastSeenAt : new String[]{"1600000000000", "1700000000000", "1700000000000"}) {
+            try (Transaction tx = getGraphDb().beginTx()) {
+                getGraphDb().getAllNodes().stream()
+                        .filter(node -> node.hasProperty(DatasetConstant.NAMESPACE))
+                        .forEach(node -> {
+                            node.setProperty(DatasetConstant.CONTENT_HASH, "some-hash");
+                            node.setProperty(DatasetConstant.LAST_SEEN_AT, lastSeenAt);
+                        });
+                tx.success();
+            }
+
+            for (String filename : new String[]{"interactions.tsv.gz", "interactions.csv.gz"}) {
+                ExportUtil.ValueJoiner joiner = filename.endsWith(".csv.gz")
+                        ? new ExportUtil.CsvValueJoiner()
+                        : new ExportUtil.TsvValueJoiner();
+                File exportDir = folder.newFolder();
+                new ExportFlatInteractions(joiner, filename)
+                        .setTraverseGraph(true)
+                        .export(getGraphDb(), exportDir, "2");
+
+                File partitionedExportDir = folder.newFolder();
+                new ExportFlatInteractions(joiner, filename)
+                        .setTraverseGraph(true)
+                        .setPartitions(new ExportPartitions(partitionDir, "some-build"))
+                        .export(getGraphDb(), partitionedExportDir, "2");
+
+                String partitioned = gunzip(new File(partitionedExportDir, filename));
+                assertThat(partitioned, containsString(lastSeenAt));
+                assertThat(partitioned, is(gunzip(new File(exportDir, filename))));
+                assertThat(new File(partitionDir, filename).list((dir, name) -> name.endsWith(".gz")).length, is(1));
+            }
+        }
+    }
+
+    @Test
+    public void columnarOfReusedPartitionsSameAsOfTraversal() throws NodeFactoryException, IOException, ParseException, StudyImporterException {
+        createTestData(12.0);
+        resolveNames();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            getGraphDb().getAllNodes().stream()
+                    .filter(node -> node.hasProperty(DatasetConstant.NAMESPACE))
+                    .forEach(node -> node.setProperty(DatasetConstant.CONTENT_HASH, "some-hash"));
+            tx.success();
+        }
+
+        File exportDir = folder.newFolder("export");
+        File columnarDir = new File(folder.newFolder("columnar"), "interactions");
+        try (ColumnarAppender columnar = new ColumnarAppender(columnarDir, "interactionTypeName")) {
+            new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                    .setTraverseGraph(true)
+                    .setAlsoAppendTo(columnar)
+                    .export(getGraphDb(), exportDir, "2");
+        }
+        Map<String, String> expected = contentOf(columnarDir);
+        assertThat(expected.size(), is(greaterThan(3)));
+
+        File partitionDir = folder.newFolder("partitions");
+        for (int i = 0; i < 2; i++) {
+            File partitionedColumnarDir = new File(folder.newFolder("partitioned-columnar" + i), "interactions");
+            try (ColumnarAppender columnar = new ColumnarAppender(partitionedColumnarDir, "interactionTypeName")) {
+                new ExportFlatInteractions(new ExportUtil.TsvValueJoiner(), "interactions.tsv.gz")
+                        .setTraverseGraph(true)
+                        .setPartitions(new ExportPartitions(partitionDir, "some-build"))
+                        .setAlsoAppendTo(columnar)
+                        .export(getGraphDb(), folder.newFolder("partitioned" + i), "2");
+            }
+            assertThat(contentOf(partitionedColumnarDir), is(expected));
+        }
+    }
+
+    private static Map<String, String> contentOf(File dir) throws IOException {
+        Map<String, String> content = new TreeMap<>();
+        for (File file : FileUtils.listFiles(dir, null, true)) {
+            String path = dir.toURI().relativize(file.toURI()).toString();
+            if (StringUtils.endsWith(path, ".gz")) {
+                try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+                    content.put(path, Hex.encodeHexString(IOUtils.toByteArray(is)));
+                }
+            } else {
+                content.put(path, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+            }
+        }
+        return content;
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<String> exportLines(ExportFlatInteractions export) throws IOException {
+        StringWriter writer = new StringWriter();
+        export.export(getGraphDb(), ExportUtil.AppenderWriter.of(writer));
+        return Arrays.asList(writer.toString().split("\\n"));
+    }
+
+    private static List<String> sorted(List<String> lines) {
+        List<String> sortedLines = new ArrayList<>(lines);
+        Collections.sort(sortedLines);
+        return sortedLines;
+    }
+
     private void createTestData(Double length) throws NodeFactoryException, ParseException {
         Study myStudy = factory.createStudy(new StudyImpl("myStudy", null, null));
         specimenEatCatAndDog(length, myStudy, "Homo sapiens", "EOL:333", RelTypes.COLLECTED, RelTypes.SUPPORTS);
@@ -0,0 +1,84 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.IOUtils;
+import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.data.StudyImporterException;
+import org.eol.globi.domain.Specimen;
+import org.eol.globi.domain.Study;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.domain.StudyNode;
+import org.eol.globi.domain.TaxonImpl;
+import org.eol.globi.util.NodeUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+
+public class ExportNQuadsTest extends GraphDBNeo4jTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    public void afterGraphDBStart() {
+        // studies are exported on worker threads, which only see committed transactions
+    }
+
+    @Test
+    public void exportSameAsSingleThreadedInStudyOrder() throws NodeFactoryException, StudyImporterException, IOException {
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (int i = 0; i < 10; i++) {
+                Study study = nodeFactory.getOrCreateStudy(new StudyImpl("title" + i, null, "citation" + i));
+                Specimen human = nodeFactory.createSpecimen(study, new TaxonImpl("Homo sapiens", "EOL:327955"));
+                Specimen dog = nodeFactory.createSpecimen(study, new TaxonImpl("Canis familiaris", "EOL:1228387"));
+                human.ate(dog);
+            }
+            tx.success();
+        }
+        resolveNames();
+
+        StringWriter expected = new StringWriter();
+        ExporterRDF exporter = new ExporterRDF();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (StudyNode study : NodeUtil.findAllStudies(getGraphDb())) {
+                exporter.exportStudy(study, ExportUtil.AppenderWriter.of(expected, new ExportUtil.NQuadValueJoiner()), true);
+            }
+            tx.success();
+        }
+        assertThat(expected.toString(), containsString("<http://purl.obolibrary.org/obo/RO_0002470>"));
+
+        for (int threads = 1; threads < 4; threads++) {
+            File baseDir = folder.newFolder();
+            new ExportNQuads("interactions.nq.gz", 100, threads).export(getGraphDb(), baseDir, "2");
+            assertThat(gunzip(new File(baseDir, "interactions.nq.gz")), is(expected.toString()));
+            assertThat(baseDir.list().length, is(1));
+        }
+    }
+
+    @Test
+    public void exportNoStudies() throws StudyImporterException, IOException {
+        File baseDir = folder.newFolder();
+        new ExportNQuads("interactions.nq.gz", 100, 2).export(getGraphDb(), baseDir, "2");
+        assertThat(gunzip(new File(baseDir, "interactions.nq.gz")), is(""));
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.eol.globi.export;
 
+import org.apache.commons.lang3.StringUtils;
+import org.eol.globi.util.CSVTSVUtil;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -55,4 +57,28 @@ public class ExportUtilTest {
         assertThat(writer.getBuffer().toString(), is("\"o\"\"n\ne\",two,\"three\r\n\t\"\n"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void appendValuesTSV() throws IOException {
+        StringWriter writer = new StringWriter();
+        ExportUtil.AppenderWriter.of(writer, new ExportUtil.TsvValueJoiner())
+                .append(new String[]{" o\t\tn\ne ", null, " \u2003 ", "", "\r\ntwo\t"});
+        assertThat(writer.getBuffer().toString(), is("o n e\t\t\t\ttwo\n"));
+    }
+
+    @Test
+    public void appendValuesCSV() throws IOException {
+        StringWriter writer = new StringWriter();
+        ExportUtil.AppenderWriter.of(writer, new ExportUtil.CsvValueJoiner())
+                .append(new String[]{"o\"n\"e", "two", "thr,ee", ""});
+        assertThat(writer.getBuffer().toString(), is("\"o\"\"n\"\"e\",two,\"thr,ee\",\n"));
+    }
+
+    @Test
+    public void appendValuesTSVSameAsEscapeValues() throws IOException {
+        String[] values = {"o\"n\ne", " two\t", null, "three\r\n\t"};
+        StringWriter writer = new StringWriter();
+        ExportUtil.AppenderWriter.of(writer, new ExportUtil.TsvValueJoiner()).append(values);
+        assertThat(writer.getBuffer().toString(), is(StringUtils.join(CSVTSVUtil.escapeValues(values), '\t') + "\n"));
+    }
+
+}
@@ -5,6 +5,7 @@ import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyImpl;
 import org.globalbioticinteractions.doi.DOI;
 import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,8 +16,11 @@ public class ExporterSiteMapForCitationsTest extends ExporterSiteMapForNamesTest
 
     @Test
     public void writeSiteMapWithCitations() throws StudyImporterException, IOException {
-        final Study study = nodeFactory.getOrCreateStudy(new StudyImpl("title", new DOI("some", "doi"), "citation123&bla"));
-        assertThat(study.getExternalId(), is("https://doi.org/10.some/doi"));
+        try (Transaction tx = getGraphDb().beginTx()) {
+            final Study study = nodeFactory.getOrCreateStudy(new StudyImpl("title", new DOI("some", "doi"), "citation123&bla"));
+            assertThat(study.getExternalId(), is("https://doi.org/10.some/doi"));
+            tx.success();
+        }
 
         final File baseDirCitations = createBaseDir("target/sitemap/citations");
 
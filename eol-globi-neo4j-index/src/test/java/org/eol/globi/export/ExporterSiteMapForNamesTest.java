@@ -11,6 +11,7 @@ import org.eol.globi.domain.StudyImpl;
 import org.eol.globi.domain.TaxonImpl;
 import org.eol.globi.taxon.NonResolvingTaxonIndexNeo4j2;
 import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -24,17 +25,25 @@ import static org.hamcrest.Matchers.containsString;
 
 public class ExporterSiteMapForNamesTest extends GraphDBNeo4jTestCase {
 
+    @Override
+    public void afterGraphDBStart() {
+        // taxa are read on worker threads, which only see committed taxa
+    }
+
     @Test
     public void writeSiteMapWithNames() throws StudyImporterException, IOException {
-        taxonIndex = new NonResolvingTaxonIndexNeo4j2(getGraphDb());
-        Study study = nodeFactory.getOrCreateStudy(new StudyImpl("title", null, "citation 123"));
-        TaxonImpl homoSapiens = new TaxonImpl("Homo sapiens", "homoSapiensId");
-        homoSapiens.setPath("one two three");
-        final Specimen human = nodeFactory.createSpecimen(study, homoSapiens);
-        TaxonImpl dogTaxon = new TaxonImpl("Canis familiaris", null);
-        final Specimen dog = nodeFactory.createSpecimen(study, dogTaxon);
-        human.ate(dog);
-        resolveNames();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            taxonIndex = new NonResolvingTaxonIndexNeo4j2(getGraphDb());
+            Study study = nodeFactory.getOrCreateStudy(new StudyImpl("title", null, "citation 123"));
+            TaxonImpl homoSapiens = new TaxonImpl("Homo sapiens", "homoSapiensId");
+            homoSapiens.setPath("one two three");
+            final Specimen human = nodeFactory.createSpecimen(study, homoSapiens);
+            TaxonImpl dogTaxon = new TaxonImpl("Canis familiaris", null);
+            final Specimen dog = nodeFactory.createSpecimen(study, dogTaxon);
+            human.ate(dog);
+            resolveNames();
+            tx.success();
+        }
 
         final File baseDirNames = createBaseDir("target/sitemap/names");
 
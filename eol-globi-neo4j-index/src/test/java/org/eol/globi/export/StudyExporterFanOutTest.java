@@ -0,0 +1,57 @@
+package org.eol.globi.export;
+
+import org.apache.commons.io.FileUtils;
+import org.eol.globi.data.GraphDBNeo4jTestCase;
+import org.eol.globi.data.NodeFactoryException;
+import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.util.NodeUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
+
+public class StudyExporterFanOutTest extends GraphDBNeo4jTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void exportStudiesInSingleTraversal() throws NodeFactoryException, IOException {
+        nodeFactory.getOrCreateStudy(new StudyImpl("study1", null, "citation1"));
+        nodeFactory.getOrCreateStudy(new StudyImpl("study2", null, "citation2"));
+        nodeFactory.getOrCreateStudy(new StudyImpl("study3", null, "citation3"));
+
+        File allStudies = new File(folder.getRoot(), "all.tsv");
+        File someStudies = new File(folder.getRoot(), "some.tsv");
+        StudyExporter titleExporter = (study, appender, includeHeader) -> {
+            if (includeHeader) {
+                appender.append(Stream.of("title"));
+            }
+            appender.append(Stream.of(study.getTitle()));
+        };
+
+        try (StudyExporterFanOut studyExporters = new StudyExporterFanOut()) {
+            studyExporters.add(allStudies, titleExporter);
+            studyExporters.add(someStudies, titleExporter, new ExportUtil.TsvValueJoiner(), 2);
+            NodeUtil.findStudies(getGraphDb(), studyExporters);
+        }
+
+        List<String> allLines = FileUtils.readLines(allStudies, StandardCharsets.UTF_8);
+        assertThat(allLines.get(0), is("title"));
+        assertThat(allLines.subList(1, allLines.size()), containsInAnyOrder("study1", "study2", "study3"));
+
+        List<String> someLines = FileUtils.readLines(someStudies, StandardCharsets.UTF_8);
+        assertThat(someLines.get(0), is("title"));
+        assertThat(someLines.size(), is(3));
+    }
+
+}
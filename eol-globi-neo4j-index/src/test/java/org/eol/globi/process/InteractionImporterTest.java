@@ -248,6 +248,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(REFERENCE_CITATION, "");
         link.put(REFERENCE_DOI, "doi:1234");
         listener.on(link);
+        listener.flush();
 
         final AtomicBoolean foundPair = new AtomicBoolean(false);
         RelationshipListener relationshipListener = relationship -> {
@@ -334,6 +335,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(REFERENCE_CITATION, "");
         link.put(REFERENCE_DOI, "doi:10.12/34");
         listener.on(link);
+        listener.flush();
 
         AtomicBoolean foundSpecimen = new AtomicBoolean(false);
         RelationshipListener relHandler = relationship -> {
@@ -365,6 +367,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(REFERENCE_CITATION, "");
         link.put(REFERENCE_DOI, "doi:10.12/34");
         listener.on(link);
+        listener.flush();
 
         AtomicBoolean foundSpecimen = new AtomicBoolean(false);
         RelationshipListener someListener = relationship -> {
@@ -398,6 +401,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(REFERENCE_ID, "123");
         link.put(REFERENCE_CITATION, "");
         listener.on(link);
+        listener.flush();
 
         AtomicInteger foundSpecimen = new AtomicInteger(0);
         RelationshipListener someListener = relationship -> {
@@ -438,6 +442,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(REFERENCE_ID, "123");
         link.put(REFERENCE_CITATION, "");
         listener.on(link);
+        listener.flush();
 
         AtomicInteger foundSpecimen = new AtomicInteger(0);
         RelationshipListener someListener = relationship -> {
@@ -498,6 +503,7 @@ public class InteractionImporterTest extends GraphDBNeo4jTestCase {
         link.put(DATASET_CITATION, "some source ref");
         link.put(REFERENCE_CITATION, "");
         listener.on(link);
+        listener.flush();
 
         AtomicBoolean foundSpecimen = new AtomicBoolean(false);
         RelationshipListener someListener = relationship -> {
@@ -40,6 +40,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         interaction.put("ping", "pong");
         assertStudyCount(0L);
         interactionListener.on(interaction);
+        interactionListener.flush();
         assertStudyCount(0L);
     }
 
@@ -59,6 +60,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         assertStudyCount(0L);
 
         interactionListener.on(interaction);
+        interactionListener.flush();
 
         assertStudyCount(1L);
 
@@ -82,6 +84,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         assertStudyCount(0L);
 
         interactionListener.on(interaction);
+        interactionListener.flush();
 
         Result execute = getGraphDb()
                 .execute(
@@ -113,6 +116,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         assertStudyCount(0L);
 
         interactionListener.on(interaction);
+        interactionListener.flush();
 
         Result execute = getGraphDb()
                 .execute(
@@ -158,6 +162,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         assertStudyCount(0L);
 
         interactionListener.on(interaction);
+        interactionListener.flush();
 
         assertStudyCount(1L);
 
@@ -189,6 +194,7 @@ public class InteractionListenerImplTest extends GraphDBNeo4jTestCase {
         assertStudyCount(0L);
 
         interactionListener.on(interaction);
+        interactionListener.flush();
 
         assertStudyCount(0L);
 
@@ -0,0 +1,85 @@
+package org.eol.globi.tool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.TestGraphDatabaseFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+public class AdaptiveTransactionBatchTest {
+
+    private GraphDatabaseService graphDb;
+
+    @Before
+    public void start() {
+        graphDb = new TestGraphDatabaseFactory().newImpermanentDatabase();
+    }
+
+    @After
+    public void stop() {
+        graphDb.shutdown();
+    }
+
+    @Test
+    public void commitAllWrites() {
+        AdaptiveTransactionBatch batch = new AdaptiveTransactionBatch(graphDb::beginTx);
+        writeNodes(batch, 25000, 2);
+        batch.close();
+
+        assertThat(countNodes(), is(25000L));
+        assertThat(batch.getCommitCount(), greaterThan(0L));
+        assertThat(batch.getMeanBatchSize(), lessThanOrEqualTo(25000.0));
+    }
+
+    @Test
+    public void smallerBatchesForRicherWrites() {
+        long maxTxStateBytes = 2000 * AdaptiveTransactionBatch.BYTES_PER_CHANGE;
+
+        AdaptiveTransactionBatch sparse = new AdaptiveTransactionBatch(graphDb::beginTx, maxTxStateBytes);
+        writeNodes(sparse, 5000, 1);
+        sparse.close();
+
+        AdaptiveTransactionBatch rich = new AdaptiveTransactionBatch(graphDb::beginTx, maxTxStateBytes);
+        writeNodes(rich, 5000, 100);
+        rich.close();
+
+        assertThat(countNodes(), is(10000L));
+        assertThat(rich.getChangesPerWrite(), greaterThan(50.0));
+        assertThat(sparse.getChangesPerWrite(), lessThan(5.0));
+        // batches of rich writes are limited by the estimated transaction state (about 2000 / 100 writes)
+        assertThat(rich.getMeanBatchSize(), lessThan(100.0));
+        assertThat(sparse.getMeanBatchSize(), greaterThan(10 * rich.getMeanBatchSize()));
+    }
+
+    private void writeNodes(AdaptiveTransactionBatch batch, int numberOfNodes, int propertiesPerNode) {
+        for (int i = 0; i < numberOfNodes; i++) {
+            batch.beforeWrite();
+            batch.afterWrite(writeNode(propertiesPerNode, i));
+        }
+    }
+
+    private Node writeNode(int propertiesPerNode, int i) {
+        Node node = graphDb.createNode();
+        for (int j = 0; j < propertiesPerNode; j++) {
+            node.setProperty("property" + j, "value" + i);
+        }
+        return node;
+    }
+
+    private long countNodes() {
+        try (Transaction tx = graphDb.beginTx()) {
+            long count = graphDb.getAllNodes().stream().count();
+            tx.success();
+            return count;
+        }
+    }
+
+}
@@ -32,129 +32,143 @@ public class CmdGenerateReportNeo4j2Test extends GraphDBNeo4jTestCase {
     @Rule
     public TemporaryFolder folder = new TemporaryFolder();
 
+    @Override
+    public void afterGraphDBStart() {
+        // studies of the collection report are counted on worker threads, which only see committed studies
+    }
+
     @Test
     public void generateIndividualStudySourceReports() throws NodeFactoryException {
-        Dataset originatingDataset1 = nodeFactory.getOrCreateDataset(
-                new DatasetWithResourceMapping("az/source", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
-        StudyImpl study1 = new StudyImpl("a title", null, "citation");
-        study1.setOriginatingDataset(originatingDataset1);
-        createStudy(study1);
-
-        StudyImpl study2 = new StudyImpl("another title", null, "citation");
-        study2.setOriginatingDataset(originatingDataset1);
-        createStudy(study2);
-
-        Dataset originatingDataset3 = nodeFactory.getOrCreateDataset(
-                new DatasetWithResourceMapping("zother/source",
-                        URI.create("http://example.com"),
-                        new ResourceServiceLocalAndRemote(inStream -> inStream)));
-
-        StudyImpl study3 = new StudyImpl("yet another title", null, null);
-        study3.setOriginatingDataset(originatingDataset3);
-        createStudy(study3);
-        resolveNames();
-
-        getCmdGenerateReport().generateReportForSourceIndividuals();
-
-        String escapedQuery = QueryParser.escape("globi:az/source");
-        IndexHits<Node> reports = getGraphDb()
-                .index()
-                .forNodes("reports")
-                .query(StudyConstant.SOURCE_ID, escapedQuery);
-
-        Node reportNode = reports.getSingle();
-        assertThat(reportNode.getProperty(StudyConstant.SOURCE_ID), is("globi:az/source"));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
-        reports.close();
-
-        IndexHits<Node> otherReports = getGraphDb()
-                .index()
-                .forNodes("reports")
-                .query(StudyConstant.SOURCE_ID, "globi\\:zother\\/source");
-
-        Node otherReport = otherReports.getSingle();
-        assertThat(otherReport.getProperty(StudyConstant.SOURCE_ID), is("globi:zother/source"));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Dataset originatingDataset1 = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("az/source", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+            StudyImpl study1 = new StudyImpl("a title", null, "citation");
+            study1.setOriginatingDataset(originatingDataset1);
+            createStudy(study1);
+
+            StudyImpl study2 = new StudyImpl("another title", null, "citation");
+            study2.setOriginatingDataset(originatingDataset1);
+            createStudy(study2);
+
+            Dataset originatingDataset3 = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("zother/source",
+                            URI.create("http://example.com"),
+                            new ResourceServiceLocalAndRemote(inStream -> inStream)));
+
+            StudyImpl study3 = new StudyImpl("yet another title", null, null);
+            study3.setOriginatingDataset(originatingDataset3);
+            createStudy(study3);
+            resolveNames();
+
+            getCmdGenerateReport().generateReportForSourceIndividuals();
+
+            String escapedQuery = QueryParser.escape("globi:az/source");
+            IndexHits<Node> reports = getGraphDb()
+                    .index()
+                    .forNodes("reports")
+                    .query(StudyConstant.SOURCE_ID, escapedQuery);
+
+            Node reportNode = reports.getSingle();
+            assertThat(reportNode.getProperty(StudyConstant.SOURCE_ID), is("globi:az/source"));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+            reports.close();
+
+            IndexHits<Node> otherReports = getGraphDb()
+                    .index()
+                    .forNodes("reports")
+                    .query(StudyConstant.SOURCE_ID, "globi\\:zother\\/source");
+
+            Node otherReport = otherReports.getSingle();
+            assertThat(otherReport.getProperty(StudyConstant.SOURCE_ID), is("globi:zother/source"));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+            tx.success();
+        }
     }
 
     @Test
     public void generateStudySourceOrganizationReports() throws NodeFactoryException {
-        Dataset originatingDataset1 = nodeFactory.getOrCreateDataset(
-                new DatasetWithResourceMapping("az/source1", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
-
-        StudyImpl study1 = new StudyImpl("a title", null, "citation");
-        study1.setOriginatingDataset(originatingDataset1);
-        createStudy(study1);
-
-        Dataset originatingDataset2 = nodeFactory.getOrCreateDataset(
-                new DatasetWithResourceMapping("az/source2", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
-
-        StudyImpl study2 = new StudyImpl("another title", null, "citation");
-        study2.setOriginatingDataset(originatingDataset2);
-        createStudy(study2);
-
-        Dataset originatingDataset3 = nodeFactory.getOrCreateDataset(
-                new DatasetWithResourceMapping("zother/source", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
-
-        StudyImpl study3 = new StudyImpl("yet another title", null, null);
-        study3.setOriginatingDataset(originatingDataset3);
-        createStudy(study3);
-        resolveNames();
-
-        getCmdGenerateReport().generateReportForSourceOrganizations();
-
-        IndexHits<Node> reports = getGraphDb()
-                .index()
-                .forNodes("reports")
-                .query(StudyConstant.SOURCE_ID, "globi\\:az");
-
-        Node reportNode = reports.getSingle();
-        assertThat(reportNode.getProperty(StudyConstant.SOURCE_ID), is("globi:az"));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(2));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(2));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
-        assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
-        reports.close();
-
-        IndexHits<Node> otherReports = getGraphDb()
-                .index()
-                .forNodes("reports")
-                .query(StudyConstant.SOURCE_ID, "globi\\:zother");
-
-        Node otherReport = otherReports.getSingle();
-        assertThat(otherReport.getProperty(StudyConstant.SOURCE_ID), is("globi:zother"));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
-        assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Dataset originatingDataset1 = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("az/source1", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+
+            StudyImpl study1 = new StudyImpl("a title", null, "citation");
+            study1.setOriginatingDataset(originatingDataset1);
+            createStudy(study1);
+
+            Dataset originatingDataset2 = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("az/source2", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+
+            StudyImpl study2 = new StudyImpl("another title", null, "citation");
+            study2.setOriginatingDataset(originatingDataset2);
+            createStudy(study2);
+
+            Dataset originatingDataset3 = nodeFactory.getOrCreateDataset(
+                    new DatasetWithResourceMapping("zother/source", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream)));
+
+            StudyImpl study3 = new StudyImpl("yet another title", null, null);
+            study3.setOriginatingDataset(originatingDataset3);
+            createStudy(study3);
+            resolveNames();
+
+            getCmdGenerateReport().generateReportForSourceOrganizations();
+
+            IndexHits<Node> reports = getGraphDb()
+                    .index()
+                    .forNodes("reports")
+                    .query(StudyConstant.SOURCE_ID, "globi\\:az");
+
+            Node reportNode = reports.getSingle();
+            assertThat(reportNode.getProperty(StudyConstant.SOURCE_ID), is("globi:az"));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(2));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(2));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(2));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(8));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+            assertThat(reportNode.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+            reports.close();
+
+            IndexHits<Node> otherReports = getGraphDb()
+                    .index()
+                    .forNodes("reports")
+                    .query(StudyConstant.SOURCE_ID, "globi\\:zother");
+
+            Node otherReport = otherReports.getSingle();
+            assertThat(otherReport.getProperty(StudyConstant.SOURCE_ID), is("globi:zother"));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_STUDIES), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_SOURCES), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DATASETS), is(1));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_INTERACTIONS), is(4));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA), is(3));
+            assertThat(otherReport.getProperty(PropertyAndValueDictionary.NUMBER_OF_DISTINCT_TAXA_NO_MATCH), is(2));
+            tx.success();
+        }
     }
 
     @Test
     public void generateCollectionReport() throws NodeFactoryException {
-        DatasetImpl originatingDataset = new DatasetWithResourceMapping("some/namespace", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream));
-        Dataset originatingDatasetNode = nodeFactory.getOrCreateDataset(originatingDataset);
-        StudyImpl study1 = new StudyImpl("a title", null, "citation");
-        study1.setOriginatingDataset(originatingDatasetNode);
-        createStudy(study1);
-
-        StudyImpl study2 = new StudyImpl("another title", null, "citation");
-        study2.setOriginatingDataset(originatingDatasetNode);
-        createStudy(study2);
-        resolveNames();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            DatasetImpl originatingDataset = new DatasetWithResourceMapping("some/namespace", URI.create("http://example.com"), new ResourceServiceLocalAndRemote(inStream -> inStream));
+            Dataset originatingDatasetNode = nodeFactory.getOrCreateDataset(originatingDataset);
+            StudyImpl study1 = new StudyImpl("a title", null, "citation");
+            study1.setOriginatingDataset(originatingDatasetNode);
+            createStudy(study1);
+
+            StudyImpl study2 = new StudyImpl("another title", null, "citation");
+            study2.setOriginatingDataset(originatingDatasetNode);
+            createStudy(study2);
+            resolveNames();
+            tx.success();
+        }
 
 
         getCmdGenerateReport()
@@ -15,6 +15,7 @@ import org.eol.globi.domain.Study;
 import org.eol.globi.domain.StudyNode;
 import org.eol.globi.export.GraphExporterImpl;
 import org.eol.globi.taxon.NonResolvingTaxonIndexNoTxNeo4j2;
+import org.eol.globi.util.DatasetImportUtil;
 import org.eol.globi.util.ResourceServiceLocal;
 import org.junit.Test;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -151,7 +152,7 @@ public class NodeFactoryTest extends GraphDBNeo4jTestCase {
                                    NodeFactory factory) throws StudyImporterException {
         DatasetImporter datasetImporter = createStudyImporter(importer, factory);
         LOG.info("[" + importer + "] importing ...");
-        datasetImporter.importStudy();
+        DatasetImportUtil.importStudy(datasetImporter);
         LOG.info("[" + importer + "] imported.");
     }
 
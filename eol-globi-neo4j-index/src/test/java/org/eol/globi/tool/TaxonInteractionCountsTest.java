@@ -0,0 +1,50 @@
+package org.eol.globi.tool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TaxonInteractionCountsTest {
+
+    @Test
+    public void addAcrossChunks() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        int size = 200000;
+        for (int i = 0; i < size; i++) {
+            counts.add(i, i % 7, Long.MAX_VALUE - i, i * 3L);
+        }
+        assertThat(counts.size(), is((long) size));
+
+        List<Long> sourceIds = new ArrayList<>();
+        counts.forEach((sourceTaxonId, interactTypeOrdinal, targetTaxonId, count) -> {
+            assertThat(interactTypeOrdinal, is((int) (sourceTaxonId % 7)));
+            assertThat(targetTaxonId, is(Long.MAX_VALUE - sourceTaxonId));
+            assertThat(count, is(sourceTaxonId * 3L));
+            sourceIds.add(sourceTaxonId);
+        });
+        assertThat(sourceIds.size(), is(size));
+        assertThat(sourceIds.get(size - 1), is(size - 1L));
+
+        counts.clear();
+        assertThat(counts.size(), is(0L));
+    }
+
+    @Test
+    public void addFew() {
+        TaxonInteractionCounts counts = new TaxonInteractionCounts();
+        List<Long> counted = new ArrayList<>();
+        counts.forEach((sourceTaxonId, interactTypeOrdinal, targetTaxonId, count) -> counted.add(count));
+        assertThat(counted.size(), is(0));
+
+        counts.add(1L, 2, 3L, 4L);
+        counts.add(5L, 6, 7L, 8L);
+        counts.forEach((sourceTaxonId, interactTypeOrdinal, targetTaxonId, count) -> counted.add(count));
+        assertThat(counted, is(Arrays.asList(4L, 8L)));
+    }
+
+}
@@ -15,9 +15,12 @@ import org.eol.globi.util.NodeUtil;
 import org.junit.Test;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItems;
@@ -26,14 +29,22 @@ import static org.junit.Assert.assertNotNull;
 
 public class TaxonInteractionIndexerNeo4j2Test extends GraphDBNeo4jTestCase {
 
+    @Override
+    public void afterGraphDBStart() {
+        // interactions are counted on worker threads, which only see committed transactions
+    }
+
     @Test
     public void buildTaxonInterIndex() throws StudyImporterException {
-        Specimen human = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", "NCBI:9606"));
-        Specimen animal = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Canis lupus", "WORMS:2"));
-        human.ate(animal);
-        for (int i = 0; i < 10; i++) {
-            Specimen fish = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Arius felis", "WORMS:158711"));
-            human.ate(fish);
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Specimen human = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", "NCBI:9606"));
+            Specimen animal = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Canis lupus", "WORMS:2"));
+            human.ate(animal);
+            for (int i = 0; i < 10; i++) {
+                Specimen fish = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Arius felis", "WORMS:158711"));
+                human.ate(fish);
+            }
+            tx.success();
         }
 
         new NameResolver(
@@ -45,33 +56,90 @@ public class TaxonInteractionIndexerNeo4j2Test extends GraphDBNeo4jTestCase {
         IndexerNeo4j taxonInteractionIndexer = new TaxonInteractionIndexer(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector());
         taxonInteractionIndexer.index();
 
-        Taxon homoSapiens = taxonIndex.findTaxonByName("Homo sapiens");
-        assertNotNull(homoSapiens);
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Taxon homoSapiens = taxonIndex.findTaxonByName("Homo sapiens");
+            assertNotNull(homoSapiens);
 
-        Iterable<Relationship> rels = ((NodeBacked) homoSapiens).getUnderlyingNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.ATE));
-        List<String> humanFood = new ArrayList<String>();
-        List<Long> counts = new ArrayList<Long>();
-        List<String> labels = new ArrayList<>();
-        for (Relationship rel : rels) {
-            humanFood.add((String) rel.getEndNode().getProperty("name"));
-            counts.add((Long) rel.getProperty("count"));
-            labels.add((String) rel.getProperty("label"));
+            Iterable<Relationship> rels = ((NodeBacked) homoSapiens).getUnderlyingNode().getRelationships(Direction.OUTGOING, NodeUtil.asNeo4j(InteractType.ATE));
+            List<String> humanFood = new ArrayList<String>();
+            List<Long> counts = new ArrayList<Long>();
+            List<String> labels = new ArrayList<>();
+            for (Relationship rel : rels) {
+                humanFood.add((String) rel.getEndNode().getProperty("name"));
+                counts.add((Long) rel.getProperty("count"));
+                labels.add((String) rel.getProperty("label"));
 
+            }
+            assertThat(humanFood.size(), is(4));
+            assertThat(humanFood, hasItems("Arius felis", "Canis lupus"));
+            assertThat(counts, hasItems(10L, 1L));
+            assertThat(labels, hasItems("eats"));
+            tx.success();
         }
-        assertThat(humanFood.size(), is(4));
-        assertThat(humanFood, hasItems("Arius felis", "Canis lupus"));
-        assertThat(counts, hasItems(10L, 1L));
-        assertThat(labels, hasItems("eats"));
+    }
+
+    @Test
+    public void buildTaxonInterIndexSameForAnyNumberOfThreads() throws StudyImporterException {
+        createInteractions(25);
+
+        new TaxonInteractionIndexer(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector(), 1).index();
+        Map<String, Long> expected = taxonInteractionCounts();
+
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (Relationship rel : getGraphDb().getAllRelationships()) {
+                if (rel.hasProperty("count")) {
+                    rel.delete();
+                }
+            }
+            tx.success();
+        }
+        new TaxonInteractionIndexer(new GraphServiceFactoryProxy(getGraphDb()), getNodeIdCollector(), 3).index();
+
+        assertThat(expected.isEmpty(), is(false));
+        assertThat(taxonInteractionCounts(), is(expected));
+    }
+
+    private void createInteractions(int numberOfInteractions) throws StudyImporterException {
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (int i = 0; i < numberOfInteractions; i++) {
+                Specimen source = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("study" + (i % 10), null, null)), new TaxonImpl("Taxon source" + (i % 13), "TEST:source" + (i % 13)));
+                Specimen target = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("study" + (i % 10), null, null)), new TaxonImpl("Taxon target" + (i % 7), "TEST:target" + (i % 7)));
+                source.interactsWith(target, i % 2 == 0 ? InteractType.ATE : InteractType.POLLINATES);
+            }
+            tx.success();
+        }
+        new NameResolver(
+                new GraphServiceFactoryProxy(getGraphDb()),
+                getNodeIdCollector(),
+                getTaxonIndex()
+        ).index();
+    }
+
+    private Map<String, Long> taxonInteractionCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (Relationship rel : getGraphDb().getAllRelationships()) {
+                if (rel.hasProperty("count")) {
+                    String key = rel.getStartNode().getProperty("name") + " " + rel.getType().name() + " " + rel.getEndNode().getProperty("name");
+                    counts.put(key, counts.getOrDefault(key, 0L) + (Long) rel.getProperty("count"));
+                }
+            }
+            tx.success();
+        }
+        return counts;
     }
 
     @Test
     public void indexNoNameNoMatch() throws NodeFactoryException {
-        Specimen human = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", PropertyAndValueDictionary.NO_MATCH));
-        Specimen animal = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Canis lupus", PropertyAndValueDictionary.NO_MATCH));
-        human.ate(animal);
-        for (int i = 0; i < 10; i++) {
-            Specimen fish = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Arius felis", null));
-            human.ate(fish);
+        try (Transaction tx = getGraphDb().beginTx()) {
+            Specimen human = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Homo sapiens", PropertyAndValueDictionary.NO_MATCH));
+            Specimen animal = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Canis lupus", PropertyAndValueDictionary.NO_MATCH));
+            human.ate(animal);
+            for (int i = 0; i < 10; i++) {
+                Specimen fish = nodeFactory.createSpecimen(nodeFactory.createStudy(new StudyImpl("bla", null, null)), new TaxonImpl("Arius felis", null));
+                human.ate(fish);
+            }
+            tx.success();
         }
 
         new NameResolver(new GraphServiceFactoryProxy(getGraphDb()),
@@ -79,7 +147,10 @@ public class TaxonInteractionIndexerNeo4j2Test extends GraphDBNeo4jTestCase {
                 getTaxonIndex())
                 .index();
 
-        assertNotNull(taxonIndex.findTaxonByName("Homo sapiens"));
+        try (Transaction tx = getGraphDb().beginTx()) {
+            assertNotNull(taxonIndex.findTaxonByName("Homo sapiens"));
+            tx.success();
+        }
 //        assertNull(taxonIndex.findTaxonById(PropertyAndValueDictionary.NO_MATCH));
 //        assertNull(taxonIndex.findTaxonByName(PropertyAndValueDictionary.NO_NAME));
 
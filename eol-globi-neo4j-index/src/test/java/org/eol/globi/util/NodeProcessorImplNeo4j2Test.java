@@ -4,12 +4,18 @@ import org.eol.globi.data.GraphDBNeo4jTestCase;
 import org.eol.globi.data.NodeFactoryException;
 import org.eol.globi.domain.StudyConstant;
 import org.eol.globi.domain.StudyImpl;
+import org.eol.globi.tool.TransactionPerBatch;
 import org.globalbioticinteractions.doi.DOI;
 import org.globalbioticinteractions.doi.MalformedDOIException;
 import org.hamcrest.core.Is;
 import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
 
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -17,6 +23,11 @@ import static org.junit.Assert.assertNotNull;
 
 public class NodeProcessorImplNeo4j2Test extends GraphDBNeo4jTestCase {
 
+    @Override
+    public void afterGraphDBStart() {
+        // workers only see committed studies, so tests use their own transactions
+    }
+
     @Test
     public void processEmpty() {
         AtomicLong counter = processStudies(10000L, getNodeIdCollector());
@@ -26,10 +37,13 @@ public class NodeProcessorImplNeo4j2Test extends GraphDBNeo4jTestCase {
     @Test
     public void processSingle() throws MalformedDOIException, NodeFactoryException {
 
-        StudyImpl randomStudy = createRandomStudy();
-        getNodeFactory().getOrCreateStudy(randomStudy);
+        try (Transaction tx = getGraphDb().beginTx()) {
+            StudyImpl randomStudy = createRandomStudy();
+            getNodeFactory().getOrCreateStudy(randomStudy);
 
-        assertNotNull(getNodeFactory().findStudy(randomStudy));
+            assertNotNull(getNodeFactory().findStudy(randomStudy));
+            tx.success();
+        }
 
         AtomicLong counter = processStudies(10000L, getNodeIdCollector());
 
@@ -41,15 +55,55 @@ public class NodeProcessorImplNeo4j2Test extends GraphDBNeo4jTestCase {
         long batchSize = 2L;
 
         long numberOfReferences = (batchSize * 10) + 1;
-        for (int i = 0; i < numberOfReferences; i++) {
-            getNodeFactory().getOrCreateStudy(createRandomStudy());
-        }
+        createRandomStudies(numberOfReferences);
 
         AtomicLong counter = processStudies(batchSize, getNodeIdCollector());
 
         assertThat(counter.get(), Is.is(numberOfReferences));
     }
 
+    @Test
+    public void processInParallelSameAsInSequence() throws MalformedDOIException, NodeFactoryException {
+        createRandomStudies(101);
+
+        Set<String> expectedTitles = processStudyTitles(3L, 1);
+        assertThat(expectedTitles.size(), Is.is(101));
+
+        for (int threads = 2; threads < 6; threads++) {
+            assertThat(processStudyTitles(3L, threads), Is.is(expectedTitles));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void processInParallelWithSharedBatchListener() {
+        new NodeProcessorImpl(getGraphDb(), 10L, StudyConstant.TITLE_IN_NAMESPACE, "*", "studies", getNodeIdCollector(), 2)
+                .process(node -> {
+                }, new TransactionPerBatch(getGraphDb()));
+    }
+
+    private Set<String> processStudyTitles(long batchSize, int threads) {
+        Set<String> titles = ConcurrentHashMap.newKeySet();
+        AtomicLong counter = new AtomicLong();
+        new NodeProcessorImpl(
+                getGraphDb(),
+                batchSize,
+                StudyConstant.TITLE_IN_NAMESPACE,
+                "*",
+                "studies",
+                getNodeIdCollector(),
+                threads
+        ).process(node -> {
+            counter.incrementAndGet();
+            titles.add(titleOf(node));
+        }, () -> new TransactionPerBatch(getGraphDb()));
+        assertThat(counter.get(), Is.is((long) titles.size()));
+        return new TreeSet<>(titles);
+    }
+
+    private static String titleOf(Node node) {
+        return (String) node.getProperty(StudyConstant.TITLE);
+    }
+
     private AtomicLong processStudies(long batchSize, NodeIdCollector nodeIdCollector) {
         AtomicLong counter = new AtomicLong();
         new NodeProcessorImpl(
@@ -59,13 +113,22 @@ public class NodeProcessorImplNeo4j2Test extends GraphDBNeo4jTestCase {
                 "*",
                 "studies",
                 nodeIdCollector
-        ).process(node -> counter.incrementAndGet());
+        ).process(node -> counter.incrementAndGet(), new TransactionPerBatch(getGraphDb()));
         return counter;
     }
 
+    private void createRandomStudies(long numberOfStudies) throws MalformedDOIException, NodeFactoryException {
+        try (Transaction tx = getGraphDb().beginTx()) {
+            for (int i = 0; i < numberOfStudies; i++) {
+                getNodeFactory().getOrCreateStudy(createRandomStudy());
+            }
+            tx.success();
+        }
+    }
+
     private StudyImpl createRandomStudy() throws MalformedDOIException {
         String randomString = UUID.randomUUID().toString();
         return new StudyImpl(randomString, DOI.create("10.123/" + randomString), randomString);
     }
 
-}
\ No newline at end of file
+}
@@ -7,9 +7,24 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NavigableSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Processes the nodes found by an index query, in order of node id.
+ * <p>
+ * With more than one thread, the collected node ids are split into contiguous ranges, each processed by a worker
+ * with its own batch listener (e.g., its own {@link org.eol.globi.tool.TransactionPerBatch}). Node listeners are then
+ * called concurrently, and are expected to be thread-safe.
+ */
 
 public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
 
@@ -21,6 +36,7 @@ public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
     private final String queryOrQueryObject;
     private final String indexName;
     private NodeIdCollector nodeIdCollector;
+    private final int threads;
 
     public NodeProcessorImpl(GraphDatabaseService graphService,
                              Long batchSize,
@@ -28,13 +44,26 @@ public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
                              String queryOrQueryObject,
                              String indexName,
                              NodeIdCollector nodeIdCollector) {
+        this(graphService, batchSize, queryKey, queryOrQueryObject, indexName, nodeIdCollector, 1);
+    }
+
+    public NodeProcessorImpl(GraphDatabaseService graphService,
+                             Long batchSize,
+                             String queryKey,
+                             String queryOrQueryObject,
+                             String indexName,
+                             NodeIdCollector nodeIdCollector,
+                             int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("expected at least one thread, but got [" + threads + "]");
+        }
         this.graphService = graphService;
         this.batchSize = batchSize;
         this.queryKey = queryKey;
         this.queryOrQueryObject = queryOrQueryObject;
         this.indexName = indexName;
         this.nodeIdCollector = nodeIdCollector;
-
+        this.threads = threads;
     }
 
     @Override
@@ -57,6 +86,25 @@ public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
     }
 
     public void process(NodeListener nodeListener, BatchListener batchListener) {
+        if (threads > 1) {
+            throw new IllegalStateException("cannot share a batch listener between [" + threads + "] threads, use a batch listener per worker instead");
+        }
+        process(nodeListener, () -> batchListener);
+    }
+
+    /**
+     * @param batchListenerPerWorker creates a batch listener for each worker, called on the thread of that worker
+     */
+
+    public void process(NodeListener nodeListener, Supplier<BatchListener> batchListenerPerWorker) {
+        if (threads > 1) {
+            processInParallel(nodeListener, batchListenerPerWorker);
+        } else {
+            processInSequence(nodeListener, batchListenerPerWorker.get());
+        }
+    }
+
+    private void processInSequence(NodeListener nodeListener, BatchListener batchListener) {
         final AtomicLong nodeCount = new AtomicLong(0L);
         batchListener.onStart();
 
@@ -107,6 +155,89 @@ public class NodeProcessorImpl implements NodeProcessor<NodeListener> {
         }
     }
 
+    private void processInParallel(NodeListener nodeListener, Supplier<BatchListener> batchListenerPerWorker) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        LOG.info("collecting [" + indexName + "] node ids...");
+
+        DB db = DBMaker
+                .newMemoryDirectDB()
+                .transactionDisable()
+                .make();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            NavigableSet<Long> ids = db
+                    .createTreeSet(UUID.randomUUID().toString())
+                    .makeLongSet();
+
+            BatchListener collectListener = batchListenerPerWorker.get();
+            collectListener.onStart();
+            try {
+                nodeIdCollector.collectIds(graphService, queryKey, queryOrQueryObject, indexName, ids);
+            } finally {
+                collectListener.onFinish();
+            }
+            logBatchFinishStats(stopWatch, ids.size(), "collected", this.indexName);
+
+            List<Long> rangeStarts = rangeStarts(ids);
+            LOG.info("processing " + ids.size() + " [" + indexName + "] nodes in [" + rangeStarts.size() + "] ranges on [" + threads + "] threads...");
+
+            AtomicLong nodeCount = new AtomicLong(0L);
+            List<Future<?>> ranges = new ArrayList<>();
+            for (int i = 0; i < rangeStarts.size(); i++) {
+                NavigableSet<Long> range = i + 1 < rangeStarts.size()
+                        ? ids.subSet(rangeStarts.get(i), true, rangeStarts.get(i + 1), false)
+                        : ids.tailSet(rangeStarts.get(i), true);
+                ranges.add(workers.submit(() -> processRange(range, nodeListener, batchListenerPerWorker.get(), nodeCount)));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+            logBatchFinishStats(stopWatch, nodeCount.get(), "processed", this.indexName);
+            stopWatch.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while processing [" + indexName + "] nodes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("failed to process [" + indexName + "] nodes", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            db.close();
+        }
+    }
+
+    // a few ranges per thread, so that threads that finish early pick up the remaining ranges
+    private List<Long> rangeStarts(NavigableSet<Long> ids) {
+        long rangeSize = Math.max(batchSize, (ids.size() + threads * 4L - 1) / (threads * 4L));
+        List<Long> rangeStarts = new ArrayList<>();
+        long i = 0;
+        for (Long id : ids) {
+            if (i++ % rangeSize == 0) {
+                rangeStarts.add(id);
+            }
+        }
+        return rangeStarts;
+    }
+
+    private void processRange(NavigableSet<Long> range, NodeListener nodeListener, BatchListener batchListener, AtomicLong nodeCount) {
+        long count = 0;
+        batchListener.onStart();
+        try {
+            for (Long nodeId : range) {
+                nodeListener.on(graphService.getNodeById(nodeId));
+                if (++count % batchSize == 0) {
+                    batchListener.onStart();
+                }
+            }
+        } finally {
+            batchListener.onFinish();
+            nodeCount.addAndGet(count);
+        }
+    }
+
     public void logBatchFinishStats(StopWatch stopWatch, long count, String verb, String indexName) {
         LOG.info(verb + " " + count + " " + "[" + indexName + "] nodes in " + stopWatch.getTime()/1000 + "s (@ " + count / (stopWatch.getTime()+1) + " nodes/ms)");
     }
@@ -62,6 +62,23 @@ public class NodeUtil {
         findStudies(graphService, listener, "title", "*", new NodeIdCollectorNeo4j2());
     }
 
+    /**
+     * @param listener called concurrently when using more than one thread
+     */
+
+    public static void findStudies(GraphDatabaseService graphService, NodeListener listener, int threads) {
+        processNodes(
+                1000L,
+                graphService,
+                listener,
+                "title",
+                "*",
+                "studies",
+                new NodeIdCollectorNeo4j2(),
+                threads
+        );
+    }
+
     public static void findStudies(GraphDatabaseService graphService,
                                    NodeListener listener,
                                    String queryKey,
@@ -177,5 +194,24 @@ public class NodeUtil {
                 .process(listener, batchListener);
     }
 
+    /**
+     * Processes nodes in contiguous ranges of node ids, each range in transactions of its own worker.
+     *
+     * @param listener called concurrently when using more than one thread
+     */
+
+    public static void processNodes(Long batchSize,
+                                    GraphDatabaseService graphService,
+                                    NodeListener listener,
+                                    String queryKey,
+                                    String queryOrQueryObject,
+                                    String indexName,
+                                    NodeIdCollector nodeIdCollector,
+                                    int threads) {
+
+        new NodeProcessorImpl(graphService, batchSize, queryKey, queryOrQueryObject, indexName, nodeIdCollector, threads)
+                .process(listener, () -> new TransactionPerBatch(graphService));
+    }
+
 }
 
@@ -16,8 +16,6 @@ import org.eol.globi.data.DatasetImporterForWood;
 import org.eol.globi.data.StudyImporterException;
 import org.eol.globi.util.InputStreamFactory;
 import org.eol.globi.util.ResourceServiceHTTP;
-import org.eol.globi.util.ResourceServiceLocal;
-import org.eol.globi.util.ResourceServiceLocalAndRemote;
 import org.globalbioticinteractions.cache.CacheUtil;
 import org.globalbioticinteractions.dataset.Dataset;
 import org.globalbioticinteractions.dataset.DatasetConstant;
@@ -120,7 +118,7 @@ public class DatasetImporterFactoryImplIT {
 
     @Test
     public void defaultTSVImporterCached() throws StudyImporterException, DatasetRegistryException, IOException {
-        final DatasetRegistry datasetRegistry = new DatasetRegistryWithCache(new DatasetRegistryGitHubArchive(new ResourceServiceHTTP(inStream -> inStream)), dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", new ResourceServiceLocalAndRemote(inStream -> inStream), new ResourceServiceLocal(inStream -> inStream)));
+        final DatasetRegistry datasetRegistry = new DatasetRegistryWithCache(new DatasetRegistryGitHubArchive(new ResourceServiceHTTP(inStream -> inStream)), dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", inStream -> inStream));
         DatasetImporter importer = getTemplateImporter(datasetRegistry, "globalbioticinteractions/template-dataset");
         DatasetImporterForTSV importerTSV = (DatasetImporterForTSV) importer;
         assertThat(importerTSV.getBaseUrl(), startsWith("https://github.com/globalbioticinteractions/template-dataset/"));
@@ -130,7 +128,7 @@ public class DatasetImporterFactoryImplIT {
 
     @Test
     public void jsonldImporterCached() throws StudyImporterException, DatasetRegistryException {
-        final DatasetRegistry datasetRegistry = new DatasetRegistryWithCache(new DatasetRegistryGitHubArchive(new ResourceServiceHTTP(inStream -> inStream)), dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", new ResourceServiceLocalAndRemote(inStream -> inStream), new ResourceServiceLocal(inStream -> inStream)));
+        final DatasetRegistry datasetRegistry = new DatasetRegistryWithCache(new DatasetRegistryGitHubArchive(new ResourceServiceHTTP(inStream -> inStream)), dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", inStream -> inStream));
         Dataset dataset = new DatasetFactory(datasetRegistry).datasetFor("globalbioticinteractions/jsonld-template-dataset");
         DatasetImporter importer = new StudyImporterFactoryImpl(null).createImporter(dataset);
         assertThat(importer, is(notNullValue()));
@@ -142,11 +140,7 @@ public class DatasetImporterFactoryImplIT {
         InputStreamFactory inputStreamFactory = inStream -> inStream;
         final DatasetRegistry datasetRegistry = new DatasetRegistryWithCache(
                 new DatasetRegistryZenodo(new ResourceServiceHTTP(inputStreamFactory)),
-                dataset -> CacheUtil.cacheFor(
-                        dataset.getNamespace(),
-                        "target/datasets",
-                        new ResourceServiceLocalAndRemote(inputStreamFactory), new ResourceServiceLocal(inputStreamFactory)
-                ));
+                dataset -> CacheUtil.cacheFor(dataset.getNamespace(), "target/datasets", inputStreamFactory));
         DatasetImporter importer = getTemplateImporter(datasetRegistry, "globalbioticinteractions/template-dataset");
         DatasetImporterForTSV importerTSV = (DatasetImporterForTSV) importer;
         assertThat(importerTSV.getSourceCitation(), containsString("doi.org"));
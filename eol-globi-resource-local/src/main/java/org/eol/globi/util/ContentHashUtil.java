@@ -0,0 +1,62 @@
+package org.eol.globi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Calculates and formats the sha256 hashes that content is addressed by (e.g., in caches and compiled mappings).
+ */
+
+public final class ContentHashUtil {
+
+    private static final int TRANSFER_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer> TRANSFER_BUFFER
+            = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE));
+
+    public static String toHexString(MessageDigest md) {
+        return String.format("%064x", new BigInteger(1, md.digest()));
+    }
+
+    public static String sha256(InputStream content) throws IOException {
+        return sha256(content, null);
+    }
+
+    /**
+     * Calculates the sha256 hash of content, and copies the content in the same pass.
+     *
+     * @param copy channel to copy the content into, or null to only calculate the hash
+     */
+
+    public static String sha256(InputStream content, WritableByteChannel copy) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("failed to access hash/digest algorithm", e);
+        }
+        ByteBuffer buffer = TRANSFER_BUFFER.get();
+        buffer.clear();
+        ReadableByteChannel source = Channels.newChannel(content);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            buffer.mark();
+            md.update(buffer);
+            if (copy != null) {
+                buffer.reset();
+                while (buffer.hasRemaining()) {
+                    copy.write(buffer);
+                }
+            }
+            buffer.clear();
+        }
+        return toHexString(md);
+    }
+
+}
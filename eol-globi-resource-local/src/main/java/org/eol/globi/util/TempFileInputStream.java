@@ -0,0 +1,78 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a temporary file that holds a local copy of remote content, and removes the file once closed.
+ * <p>
+ * Consumers that want to keep the content (e.g., a content addressed cache) may take ownership of
+ * the file by moving it elsewhere before closing the stream.
+ */
+
+public class TempFileInputStream extends FileInputStream {
+
+    private final File file;
+    private final String sha256;
+
+    public TempFileInputStream(File file) throws FileNotFoundException {
+        this(file, null);
+    }
+
+    public TempFileInputStream(File file, String sha256) throws FileNotFoundException {
+        super(file);
+        this.file = file;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Copies content into a temporary file in provided directory, and calculates its sha256 hash in the same pass.
+     *
+     * @param spoolDir directory to keep the temporary file in, or null to use the default temporary directory
+     */
+
+    public static TempFileInputStream spool(InputStream content, File spoolDir) throws IOException {
+        File tempFile;
+        if (spoolDir == null) {
+            tempFile = File.createTempFile("globiRemote", "tmp");
+            tempFile.deleteOnExit();
+        } else {
+            FileUtils.forceMkdir(spoolDir);
+            tempFile = File.createTempFile("globiRemote", "tmp", spoolDir);
+        }
+        try (FileChannel destination = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            return new TempFileInputStream(tempFile, ContentHashUtil.sha256(content, destination));
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(tempFile);
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return sha256 hash of the file content if calculated while spooling, or null otherwise
+     */
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+}
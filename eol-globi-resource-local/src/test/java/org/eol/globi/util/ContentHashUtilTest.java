@@ -0,0 +1,44 @@
+package org.eol.globi.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ContentHashUtilTest {
+
+    @Test
+    public void hexStringWithLeadingZeros() throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update("286".getBytes(StandardCharsets.UTF_8));
+        assertThat(ContentHashUtil.toHexString(md), is("00328ce57bbc14b33bd6695bc8eb32cdf2fb5f3a7d89ec14a42825e15d39df60"));
+    }
+
+    @Test
+    public void sha256OfCopiedContent() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        String sha256 = ContentHashUtil.sha256(new ByteArrayInputStream(content), Channels.newChannel(copy));
+
+        assertThat(sha256, is(ContentHashUtil.sha256(new ByteArrayInputStream(content))));
+        assertThat(copy.toByteArray(), is(content));
+    }
+
+    @Test
+    public void sha256() throws IOException {
+        assertThat(ContentHashUtil.sha256(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8))),
+                is("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824"));
+    }
+
+}
@@ -1,23 +1,23 @@
 package org.eol.globi.util;
 
-import org.apache.commons.io.IOUtils;
 import org.eol.globi.service.ResourceService;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 public abstract class ResourceServiceCaching implements ResourceService {
 
     protected static InputStream cacheAndOpenStream(InputStream is, InputStreamFactory factory) throws IOException {
-        File tempFile = File.createTempFile("globiRemote", "tmp");
-        tempFile.deleteOnExit();
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            IOUtils.copy(factory.create(is), fos);
-            fos.flush();
-        }
-        return new FileInputStream(tempFile);
+        return cacheAndOpenStream(is, factory, null);
+    }
+
+    /**
+     * @param spoolDir directory to keep the local copy in, preferably on the same file store as the content cache
+     *                 so that the copy can be renamed into the cache, or null to use the default temporary directory.
+     */
+
+    protected static InputStream cacheAndOpenStream(InputStream is, InputStreamFactory factory, File spoolDir) throws IOException {
+        return TempFileInputStream.spool(factory.create(is), spoolDir);
     }
 }
@@ -4,15 +4,22 @@ import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
 import org.eol.globi.service.ResourceService;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 
 public class ResourceServiceFTP extends ResourceServiceCaching {
     private final InputStreamFactory factory;
+    private final File spoolDir;
 
     public ResourceServiceFTP(InputStreamFactory factory) {
+        this(factory, null);
+    }
+
+    public ResourceServiceFTP(InputStreamFactory factory, File spoolDir) {
         this.factory = factory;
+        this.spoolDir = spoolDir;
     }
 
     @Override
@@ -26,7 +33,7 @@ public class ResourceServiceFTP extends ResourceServiceCaching {
             ftpClient.setFileTransferMode(FTP.BINARY_FILE_TYPE);
 
             return ftpClient.isConnected()
-                    ? cacheAndOpenStream(ftpClient.retrieveFileStream(resource.getPath()), factory)
+                    ? cacheAndOpenStream(ftpClient.retrieveFileStream(resource.getPath()), factory, spoolDir)
                     : null;
         } finally {
             if (ftpClient.isConnected()) {
@@ -3,23 +3,32 @@ package org.eol.globi.util;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.service.ResourceService;
 
+import java.io.File;
 import java.net.URI;
 
 public class ResourceServiceFactoryRemote implements ResourceServiceFactory {
 
     private final InputStreamFactory factory;
+    private final File spoolDir;
 
     public ResourceServiceFactoryRemote(InputStreamFactory factory) {
+        this(factory, null);
+    }
+
+    public ResourceServiceFactoryRemote(InputStreamFactory factory, File spoolDir) {
         this.factory = factory;
+        this.spoolDir = spoolDir;
     }
 
     @Override
     public ResourceService serviceForResource(URI resource) {
         ResourceService service = null;
         if (isHttpURI(resource)) {
-            service = new ResourceServiceHTTP(factory);
+            service = spoolDir == null
+                    ? new ResourceServiceHTTP(factory)
+                    : new ResourceServiceHTTPResumable(factory, spoolDir);
         } else if (StringUtils.startsWith(resource.getScheme(), "ftp")) {
-            service = new ResourceServiceFTP(factory);
+            service = new ResourceServiceFTP(factory, spoolDir);
         }
         return service == null
                 ? null
@@ -0,0 +1,159 @@
+package org.eol.globi.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.eol.globi.service.ResourceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Downloads http(s) resources into a partial file that survives interrupted downloads,
+ * so that a later attempt for the same resource continues where the previous one stopped.
+ * <p>
+ * The partial file holds the raw bytes of the resource: the stream factory is applied only once the download is
+ * complete, and its output is spooled into the download dir (see {@link TempFileInputStream}).
+ */
+
+public class ResourceServiceHTTPResumable implements ResourceService {
+    private final static Logger LOG = LoggerFactory.getLogger(ResourceServiceHTTPResumable.class);
+
+    public static final String PARTIAL_DOWNLOAD_SUFFIX = ".part";
+
+    // downloads of the same resource share a partial file, so they are serialized on a (fixed) set of striped locks
+    private static final Object[] PARTIAL_DOWNLOAD_LOCKS = new Object[256];
+
+    static {
+        for (int i = 0; i < PARTIAL_DOWNLOAD_LOCKS.length; i++) {
+            PARTIAL_DOWNLOAD_LOCKS[i] = new Object();
+        }
+    }
+
+    private final InputStreamFactory factory;
+    private final File partialDownloadDir;
+
+    public ResourceServiceHTTPResumable(InputStreamFactory factory, File partialDownloadDir) {
+        this.factory = factory;
+        this.partialDownloadDir = partialDownloadDir;
+    }
+
+    public static File partialDownloadFileFor(URI resource, File partialDownloadDir) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(resource.toString().getBytes(StandardCharsets.UTF_8));
+            String name = ContentHashUtil.toHexString(md);
+            return new File(partialDownloadDir, name + PARTIAL_DOWNLOAD_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("failed to access hash/digest algorithm", e);
+        }
+    }
+
+    @Override
+    public InputStream retrieve(URI resource) throws IOException {
+        FileUtils.forceMkdir(partialDownloadDir);
+        File partialDownload = partialDownloadFileFor(resource, partialDownloadDir);
+        Object lock = PARTIAL_DOWNLOAD_LOCKS[Math.floorMod(partialDownload.getAbsolutePath().hashCode(), PARTIAL_DOWNLOAD_LOCKS.length)];
+        synchronized (lock) {
+            if (!downloadCompleted(resource, partialDownload)) {
+                // partial download does not match the remote resource, so start over
+                FileUtils.deleteQuietly(partialDownload);
+                if (!downloadCompleted(resource, partialDownload)) {
+                    throw new IOException("failed to download [" + resource + "]: server did not provide the complete resource");
+                }
+            }
+            try (InputStream downloaded = new FileInputStream(partialDownload)) {
+                return TempFileInputStream.spool(factory.create(downloaded), partialDownloadDir);
+            } finally {
+                FileUtils.deleteQuietly(partialDownload);
+            }
+        }
+    }
+
+    private static boolean downloadCompleted(URI resource, File partialDownload) throws IOException {
+        long offset = partialDownload.exists() ? partialDownload.length() : 0L;
+        HttpGet request = new HttpGet(resource);
+        // ranges refer to the bytes as sent by the server
+        request.setHeader("Accept-Encoding", "identity");
+        if (offset > 0) {
+            LOG.info("resuming download of [" + resource + "] at byte [" + offset + "]");
+            request.setHeader("Range", "bytes=" + offset + "-");
+        }
+        try {
+            HttpResponse response = HttpUtil.getHttpClient().execute(request);
+            StatusLine statusLine = response.getStatusLine();
+            int statusCode = statusLine.getStatusCode();
+            if (offset > 0 && statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                // partial download may already hold the complete resource
+                return offset == totalLengthOf(response.getFirstHeader("Content-Range"));
+            } else if (statusCode >= 300) {
+                throw new HttpResponseException(statusCode, statusLine.getReasonPhrase());
+            }
+
+            boolean append = offset > 0 && statusCode == HttpStatus.SC_PARTIAL_CONTENT;
+            if (append && offset != firstBytePositionOf(response.getFirstHeader("Content-Range"))) {
+                return false;
+            }
+            long contentLength = response.getEntity().getContentLength();
+            long expectedLength = contentLength < 0 ? -1L : (append ? offset : 0L) + contentLength;
+            try (InputStream content = response.getEntity().getContent()) {
+                download(content, partialDownload, append);
+            }
+            if (expectedLength >= 0 && partialDownload.length() != expectedLength) {
+                throw new IOException("failed to download [" + resource + "]: expected [" + expectedLength + "] bytes, but got [" + partialDownload.length() + "]");
+            }
+            return true;
+        } finally {
+            request.releaseConnection();
+        }
+    }
+
+    private static long firstBytePositionOf(Header contentRange) {
+        // e.g., Content-Range: bytes 5-10/11
+        String first = contentRange == null ? null : StringUtils.substringBetween(contentRange.getValue(), "bytes ", "-");
+        return parseLength(first);
+    }
+
+    private static long totalLengthOf(Header contentRange) {
+        // e.g., Content-Range: bytes */11
+        String total = contentRange == null ? null : StringUtils.substringAfterLast(contentRange.getValue(), "/");
+        return parseLength(total);
+    }
+
+    private static long parseLength(String value) {
+        String trimmed = StringUtils.trim(value);
+        return StringUtils.isNumeric(trimmed) ? Long.parseLong(trimmed) : -1L;
+    }
+
+    private static void download(InputStream content, File partialDownload, boolean append) throws IOException {
+        try (ReadableByteChannel source = Channels.newChannel(content);
+             FileChannel destination = FileChannel.open(partialDownload.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (!append) {
+                destination.truncate(0);
+            }
+            long position = destination.size();
+            long transferred;
+            while ((transferred = destination.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+                position += transferred;
+            }
+        }
+    }
+
+}
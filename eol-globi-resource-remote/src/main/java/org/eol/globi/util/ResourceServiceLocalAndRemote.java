@@ -3,6 +3,7 @@ package org.eol.globi.util;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.service.ResourceService;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -11,15 +12,26 @@ import java.util.zip.GZIPInputStream;
 public class ResourceServiceLocalAndRemote implements ResourceService {
 
     private final InputStreamFactory factory;
+    private final File spoolDir;
 
     public ResourceServiceLocalAndRemote(InputStreamFactory factory) {
+        this(factory, null);
+    }
+
+    /**
+     * @param spoolDir directory to keep local copies of remote content in, or null to use the default temporary directory.
+     *                 Interrupted http(s) downloads into this directory are resumed by later attempts.
+     */
+
+    public ResourceServiceLocalAndRemote(InputStreamFactory factory, File spoolDir) {
         this.factory = factory;
+        this.spoolDir = spoolDir;
     }
 
     @Override
     public InputStream retrieve(URI resource) throws IOException {
         InputStream is;
-        ResourceService resourceService = new ResourceServiceFactoryRemote(factory)
+        ResourceService resourceService = new ResourceServiceFactoryRemote(factory, spoolDir)
                 .serviceForResource(resource);
 
         if (resourceService != null) {
@@ -2,6 +2,7 @@ package org.eol.globi.util;
 
 import org.eol.globi.service.ResourceService;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -9,9 +10,19 @@ import java.net.URI;
 public class ResourceServiceRemote implements ResourceService {
 
     private final InputStreamFactory factory;
+    private final File spoolDir;
 
     public ResourceServiceRemote(InputStreamFactory factory) {
+        this(factory, null);
+    }
+
+    /**
+     * @param spoolDir directory to keep local copies of remote content in, or null to use the default temporary directory
+     */
+
+    public ResourceServiceRemote(InputStreamFactory factory, File spoolDir) {
         this.factory = factory;
+        this.spoolDir = spoolDir;
     }
 
     @Override
@@ -19,7 +30,7 @@ public class ResourceServiceRemote implements ResourceService {
         InputStream is = null;
 
         if (resourceName != null) {
-            ResourceService resourceService = new ResourceServiceFactoryRemote(factory)
+            ResourceService resourceService = new ResourceServiceFactoryRemote(factory, spoolDir)
                     .serviceForResource(resourceName);
             if (resourceService == null) {
                 throw new IOException("cannot retrieve content of unsupported resource identifier [" + resourceName.toString() + "]");
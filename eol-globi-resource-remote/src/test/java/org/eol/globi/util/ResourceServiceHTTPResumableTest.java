@@ -0,0 +1,197 @@
+package org.eol.globi.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.fail;
+
+public class ResourceServiceHTTPResumableTest {
+
+    private static final byte[] CONTENT = "hello world".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private File partialDownloadDir;
+    private final List<String> rangeRequests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        partialDownloadDir = new File("target/resumable-test" + UUID.randomUUID());
+        FileUtils.forceMkdir(partialDownloadDir);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/content.txt", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            rangeRequests.add(range);
+            int offset = range == null ? 0 : Integer.parseInt(StringUtils.substringBetween(range, "bytes=", "-"));
+            if (offset >= CONTENT.length) {
+                exchange.getResponseHeaders().add("Content-Range", "bytes */" + CONTENT.length);
+                exchange.sendResponseHeaders(416, -1);
+            } else {
+                if (range != null) {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes " + offset + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+                }
+                exchange.sendResponseHeaders(range == null ? 200 : 206, CONTENT.length - offset);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(CONTENT, offset, CONTENT.length - offset);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext("/interrupted.txt", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            rangeRequests.add(range);
+            if (range == null) {
+                // announce all bytes, but only send the first five
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(CONTENT, 0, 5);
+                os.flush();
+            } else {
+                int offset = Integer.parseInt(StringUtils.substringBetween(range, "bytes=", "-"));
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + offset + "-" + (CONTENT.length - 1) + "/" + CONTENT.length);
+                exchange.sendResponseHeaders(206, CONTENT.length - offset);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(CONTENT, offset, CONTENT.length - offset);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.stop(0);
+        FileUtils.deleteDirectory(partialDownloadDir);
+    }
+
+    private URI contentURI() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/content.txt");
+    }
+
+    @Test
+    public void download() throws IOException {
+        InputStream is = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir).retrieve(contentURI());
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello world"));
+        assertThat(rangeRequests, contains(nullValue()));
+    }
+
+    @Test
+    public void resumePartialDownload() throws IOException {
+        File partialDownload = ResourceServiceHTTPResumable.partialDownloadFileFor(contentURI(), partialDownloadDir);
+        FileUtils.writeStringToFile(partialDownload, "hello", StandardCharsets.UTF_8);
+
+        InputStream is = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir).retrieve(contentURI());
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello world"));
+        assertThat(rangeRequests, contains("bytes=5-"));
+    }
+
+    @Test
+    public void completedPartialDownload() throws IOException {
+        File partialDownload = ResourceServiceHTTPResumable.partialDownloadFileFor(contentURI(), partialDownloadDir);
+        FileUtils.writeByteArrayToFile(partialDownload, CONTENT);
+
+        InputStream is = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir).retrieve(contentURI());
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello world"));
+        assertThat(rangeRequests, contains("bytes=11-"));
+    }
+
+    @Test
+    public void applyFactoryToCompletedDownload() throws IOException {
+        File partialDownload = ResourceServiceHTTPResumable.partialDownloadFileFor(contentURI(), partialDownloadDir);
+        FileUtils.writeStringToFile(partialDownload, "hello", StandardCharsets.UTF_8);
+
+        InputStreamFactory upperCase = in -> IOUtils.toInputStream(IOUtils.toString(in, StandardCharsets.UTF_8).toUpperCase(), StandardCharsets.UTF_8);
+        InputStream is = new ResourceServiceHTTPResumable(upperCase, partialDownloadDir).retrieve(contentURI());
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("HELLO WORLD"));
+        assertThat(rangeRequests, contains("bytes=5-"));
+        assertThat(partialDownload.exists(), is(false));
+    }
+
+    @Test
+    public void resumeInterruptedDownload() throws IOException {
+        URI resource = URI.create("http://localhost:" + server.getAddress().getPort() + "/interrupted.txt");
+        ResourceServiceHTTPResumable service = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir);
+        try {
+            service.retrieve(resource);
+            fail("expected interrupted download");
+        } catch (IOException e) {
+            // expected
+        }
+        File partialDownload = ResourceServiceHTTPResumable.partialDownloadFileFor(resource, partialDownloadDir);
+        assertThat(FileUtils.readFileToString(partialDownload, StandardCharsets.UTF_8), is("hello"));
+
+        InputStream is = service.retrieve(resource);
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello world"));
+        assertThat(rangeRequests, contains(nullValue(), is("bytes=5-")));
+    }
+
+    @Test
+    public void concurrentDownloadsOfSameResource() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> downloads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                downloads.add(executor.submit(() -> {
+                    try (InputStream is = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir).retrieve(contentURI())) {
+                        return IOUtils.toString(is, StandardCharsets.UTF_8);
+                    }
+                }));
+            }
+            for (Future<String> download : downloads) {
+                assertThat(download.get(), is("hello world"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resumeWhenSpooledIntoDir() throws IOException {
+        File partialDownload = ResourceServiceHTTPResumable.partialDownloadFileFor(contentURI(), partialDownloadDir);
+        FileUtils.writeStringToFile(partialDownload, "hello", StandardCharsets.UTF_8);
+
+        InputStream is = new ResourceServiceLocalAndRemote(in -> in, partialDownloadDir).retrieve(contentURI());
+
+        assertThat(IOUtils.toString(is, StandardCharsets.UTF_8), is("hello world"));
+        assertThat(rangeRequests, contains("bytes=5-"));
+    }
+
+    @Test
+    public void removeDownloadOnClose() throws IOException {
+        InputStream is = new ResourceServiceHTTPResumable(in -> in, partialDownloadDir).retrieve(contentURI());
+        is.close();
+
+        assertThat(ResourceServiceHTTPResumable.partialDownloadFileFor(contentURI(), partialDownloadDir).exists(), is(false));
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.eol.globi.taxon;
 
 import com.Ostermiller.util.CSVParse;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eol.globi.domain.PropertyAndValueDictionary;
@@ -10,15 +11,20 @@ import org.eol.globi.service.ResourceService;
 import org.eol.globi.service.TermLookupService;
 import org.eol.globi.service.TermLookupServiceException;
 import org.eol.globi.util.CSVTSVUtil;
+import org.eol.globi.util.ContentHashUtil;
 import org.eol.globi.util.InteractUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +33,8 @@ public abstract class TermLookupServiceImpl implements TermLookupService {
     private static final Logger LOG = LoggerFactory.getLogger(TermLookupServiceImpl.class);
 
     private Map<String, List<Term>> mapping = null;
+    private TermMappingIndex mappingIndex = null;
+    private File indexDir = null;
     private final ResourceService resourceService;
 
     protected abstract List<URI> getMappingURIList();
@@ -39,13 +47,17 @@ public abstract class TermLookupServiceImpl implements TermLookupService {
 
     @Override
     public List<Term> lookupTermByName(final String name) throws TermLookupServiceException {
-        if (mapping == null) {
-            buildMapping(getMappingURIList());
+        if (mapping == null && mappingIndex == null) {
+            if (indexDir == null) {
+                mapping = buildMapping(getMappingURIList(), Collections.emptyMap());
+            } else {
+                mappingIndex = openOrCompileIndex(getMappingURIList());
+            }
         }
-        List<Term> terms = mapping.get(normalize(name));
+        List<Term> terms = lookup(normalize(name));
         if (terms == null || terms.size() == 0) {
             // attempt mapping denormalized name/id
-            terms = mapping.get(StringUtils.trim(name));
+            terms = lookup(StringUtils.trim(name));
         }
 
         return terms == null ? new ArrayList<Term>() {{
@@ -53,17 +65,88 @@ public abstract class TermLookupServiceImpl implements TermLookupService {
         }} : terms;
     }
 
+    private List<Term> lookup(String name) {
+        return mappingIndex == null
+                ? mapping.get(name)
+                : mappingIndex.lookup(name);
+    }
+
+    /**
+     * @param indexDir directory to keep compiled mappings in, mappings are compiled from the mapping resources
+     *                 on every first lookup if null
+     */
+
+    public void setIndexDir(File indexDir) {
+        this.indexDir = indexDir;
+    }
+
+    private TermMappingIndex openOrCompileIndex(List<URI> uriList) throws TermLookupServiceException {
+        // content retrieved to calculate the index key is kept, so that it is retrieved once if the index is compiled
+        Map<URI, String> retrieved = new HashMap<>();
+        File indexFile = new File(indexDir, indexKeyFor(uriList, retrieved) + ".bin");
+        if (indexFile.exists()) {
+            try {
+                return TermMappingIndex.open(indexFile);
+            } catch (IOException e) {
+                LOG.warn("failed to open compiled mapping of [" + uriList + "], recompiling...", e);
+            }
+        }
+        Map<String, List<Term>> mapping = buildMapping(uriList, retrieved);
+        try {
+            FileUtils.forceMkdir(indexDir);
+            TermMappingIndex.compile(mapping, indexFile);
+            LOG.info("compiled mapping of [" + uriList + "] into [" + indexFile.getAbsolutePath() + "]");
+            return TermMappingIndex.open(indexFile);
+        } catch (IOException e) {
+            throw new TermLookupServiceException("failed to compile mapping of [" + uriList + "]", e);
+        }
+    }
+
+    // local mapping resources are keyed by the size and modification time of the file (or jar) they are in,
+    // and others (e.g., remote ones) by their content.
+    private String indexKeyFor(List<URI> uriList, Map<URI, String> retrieved) throws TermLookupServiceException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update((getDelimiter() + "|" + hasHeader()).getBytes(StandardCharsets.UTF_8));
+            for (URI uri : uriList) {
+                md.update(uri.toString().getBytes(StandardCharsets.UTF_8));
+                File file = StringUtils.equalsAny(uri.getScheme(), "file", "jar") ? fileOf(uri) : null;
+                if (file != null && file.isFile()) {
+                    md.update((file.length() + "|" + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    String content = retrieve(uri);
+                    retrieved.put(uri, content);
+                    md.update(content.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return ContentHashUtil.toHexString(md);
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new TermLookupServiceException("failed to calculate content hash of [" + uriList + "]", e);
+        }
+    }
+
+    private static File fileOf(URI uri) {
+        String fileURI = StringUtils.equals(uri.getScheme(), "jar")
+                ? StringUtils.substringBetween(uri.toString(), "jar:", "!/")
+                : uri.toString();
+        try {
+            return fileURI == null ? null : new File(URI.create(fileURI));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
     private String normalize(String name) {
         return InteractUtil
                 .removeQuotesAndBackslashes(StringUtils.lowerCase(name));
     }
 
-    private void buildMapping(List<URI> uriList) throws TermLookupServiceException {
-        mapping = new HashMap<>();
+    private Map<String, List<Term>> buildMapping(List<URI> uriList, Map<URI, String> retrieved) throws TermLookupServiceException {
+        Map<String, List<Term>> mapping = new HashMap<>();
 
         for (URI uri : uriList) {
             try {
-                String response = IOUtils.toString(resourceService.retrieve(uri), StandardCharsets.UTF_8);
+                String response = retrieved.containsKey(uri) ? retrieved.get(uri) : retrieve(uri);
                 CSVParse parser = CSVTSVUtil.createExcelCSVParse(new StringReader(response));
                 parser.changeDelimiter(getDelimiter());
 
@@ -91,6 +174,11 @@ public abstract class TermLookupServiceImpl implements TermLookupService {
                 throw new TermLookupServiceException("failed to retrieve mapping from [" + uriList + "]", e);
             }
         }
+        return mapping;
+    }
+
+    private String retrieve(URI uri) throws IOException {
+        return IOUtils.toString(resourceService.retrieve(uri), StandardCharsets.UTF_8);
     }
 
     protected abstract boolean hasHeader();
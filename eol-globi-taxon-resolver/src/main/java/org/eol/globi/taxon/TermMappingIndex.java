@@ -0,0 +1,188 @@
+package org.eol.globi.taxon;
+
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only, memory-mapped index of term mappings compiled from mapping resources.
+ * <p>
+ * The index file starts with a header (magic number, version, checksum of the entries, number of entries),
+ * followed by the offsets of the entries, and the entries sorted by name. Each entry consists of a name
+ * and its terms (id, name).
+ */
+
+public class TermMappingIndex {
+
+    private static final int MAGIC = 0x474c4f54;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4;
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int entriesStart;
+
+    private TermMappingIndex(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_LENGTH
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported term mapping index");
+        }
+        long checksum = buffer.getLong(8);
+        this.entryCount = buffer.getInt(16);
+        this.entriesStart = HEADER_LENGTH + entryCount * 4;
+        if (entryCount < 0 || entriesStart > buffer.limit()) {
+            throw new IOException("invalid number of entries [" + entryCount + "]");
+        }
+        if (checksum != checksumOf(buffer, HEADER_LENGTH, buffer.limit())) {
+            throw new IOException("checksum mismatch");
+        }
+        this.buffer = buffer;
+    }
+
+    public static TermMappingIndex open(File indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return new TermMappingIndex(mapped);
+            } catch (IOException ex) {
+                throw new IOException("failed to open term mapping index [" + indexFile.getAbsolutePath() + "]", ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the mapping to a temporary file first, so that concurrent readers see either no index, or a complete one.
+     */
+
+    public static void compile(Map<String, List<Term>> mapping, File indexFile) throws IOException {
+        SortedMap<String, List<Term>> sorted = new TreeMap<>(mapping);
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        List<Integer> offsets = new ArrayList<>(sorted.size());
+        try (DataOutputStream out = new DataOutputStream(entries)) {
+            for (Map.Entry<String, List<Term>> entry : sorted.entrySet()) {
+                offsets.add(out.size());
+                writeString(out, entry.getKey());
+                if (entry.getValue().size() > 0xFFFF) {
+                    throw new IOException("failed to index [" + entry.getValue().size() + "] terms of [" + entry.getKey() + "]");
+                }
+                out.writeShort(entry.getValue().size());
+                for (Term term : entry.getValue()) {
+                    writeString(out, term.getId());
+                    writeString(out, term.getName());
+                }
+            }
+        }
+
+        ByteBuffer offsetsAndEntries = ByteBuffer.allocate(offsets.size() * 4 + entries.size());
+        for (Integer offset : offsets) {
+            offsetsAndEntries.putInt(offset);
+        }
+        offsetsAndEntries.put(entries.toByteArray());
+
+        File tmpFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksumOf(offsetsAndEntries, 0, offsetsAndEntries.capacity()));
+                out.writeInt(offsets.size());
+                out.write(offsetsAndEntries.array());
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * @return terms of the given name, or null if none are indexed
+     */
+
+    public List<Term> lookup(String name) {
+        if (name == null) {
+            return null;
+        }
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = entriesStart + buffer.getInt(HEADER_LENGTH + middle * 4);
+            int comparison = readString(offset).compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return readTerms(offset);
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    private List<Term> readTerms(int entryOffset) {
+        int offset = entryOffset + 2 + (buffer.getShort(entryOffset) & 0xFFFF);
+        int termCount = buffer.getShort(offset) & 0xFFFF;
+        offset += 2;
+        List<Term> terms = new ArrayList<>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            String id = readString(offset);
+            offset += 2 + (buffer.getShort(offset) & 0xFFFF);
+            String name = readString(offset);
+            offset += 2 + (buffer.getShort(offset) & 0xFFFF);
+            terms.add(new TermImpl(id, name));
+        }
+        return terms;
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 2);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("failed to index value of [" + bytes.length + "] bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static long checksumOf(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.limit(to);
+        crc.update(view);
+        return crc.getValue();
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.IOUtils;
+import org.eol.globi.domain.Term;
+import org.eol.globi.service.ResourceService;
+import org.eol.globi.service.TermLookupServiceException;
+import org.eol.globi.util.ResourceServiceLocal;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TermLookupServiceImplTest {
+
+    private static final List<String> NAMES = Arrays.asList(
+            "forest", "Forest", " FOREST ", "rocky shore", "Rocky Shore", "kelp bed", "desert", "", "SPIRE:2"
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // serves a local fixture for the (remote) mapping resource
+    private static final ResourceService FIXTURE = resource -> TermLookupServiceImplTest.class.getResourceAsStream("term-mapping-fixture.tsv");
+
+    @Test
+    public void compiledMappingSameAsBuilt() throws TermLookupServiceException {
+        ResourceService resourceService = FIXTURE;
+        TermLookupServiceImpl lookupService = new TermLookupServiceRemoteFixture(resourceService);
+
+        TermLookupServiceImpl compiledLookupService = new TermLookupServiceRemoteFixture(resourceService);
+        compiledLookupService.setIndexDir(folder.getRoot());
+
+        assertThat(lookupAll(compiledLookupService), is(lookupAll(lookupService)));
+        assertThat(lookupAll(compiledLookupService).get(0), is("ENVO:01000174|forest biome,ENVO:00000111|forested area"));
+    }
+
+    @Test
+    public void remoteMappingsKeyedByContent() throws IOException, TermLookupServiceException {
+        File indexDir = folder.newFolder();
+        AtomicInteger retrieved = new AtomicInteger(0);
+        ResourceService resourceService = resource -> {
+            retrieved.incrementAndGet();
+            return FIXTURE.retrieve(resource);
+        };
+
+        TermLookupServiceImpl lookupService = new TermLookupServiceRemoteFixture(resourceService);
+        lookupService.setIndexDir(indexDir);
+        List<String> terms = lookupAll(lookupService);
+        assertThat(retrieved.get(), is(1));
+
+        TermLookupServiceImpl anotherLookupService = new TermLookupServiceRemoteFixture(resourceService);
+        anotherLookupService.setIndexDir(indexDir);
+        assertThat(lookupAll(anotherLookupService), is(terms));
+        assertThat(retrieved.get(), is(2));
+        assertThat(indexDir.list().length, is(1));
+
+        TermLookupServiceImpl changedLookupService = new TermLookupServiceRemoteFixture(resource -> IOUtils.toInputStream("SPIRE:9\tforest\tENVO:123\tsome forest", StandardCharsets.UTF_8));
+        changedLookupService.setIndexDir(indexDir);
+        assertThat(changedLookupService.lookupTermByName("forest").get(0).getId(), is("ENVO:123"));
+        assertThat(indexDir.list().length, is(2));
+    }
+
+    @Test
+    public void localMappingsKeyedByContent() throws IOException, TermLookupServiceException {
+        File indexDir = folder.newFolder();
+        UberonLookupService lookupService = new UberonLookupService(new ResourceServiceLocal(is -> is));
+        lookupService.setIndexDir(indexDir);
+        lookupService.lookupTermByName("scales");
+
+        TermLookupServiceWithResource otherLookupService = new TermLookupServiceWithResource("life-stage-mapping.csv", new ResourceServiceLocal(is -> is));
+        otherLookupService.setIndexDir(indexDir);
+        otherLookupService.lookupTermByName("scales");
+
+        File[] compiled = indexDir.listFiles();
+        assertThat(compiled == null ? 0 : compiled.length, is(2));
+    }
+
+    private static List<String> lookupAll(TermLookupServiceImpl lookupService) throws TermLookupServiceException {
+        List<String> results = new ArrayList<>();
+        for (String name : NAMES) {
+            List<String> terms = new ArrayList<>();
+            for (Term term : lookupService.lookupTermByName(name)) {
+                terms.add(term.getId() + "|" + term.getName());
+            }
+            results.add(String.join(",", terms));
+        }
+        return results;
+    }
+
+    private static class TermLookupServiceRemoteFixture extends TermLookupServiceImpl {
+
+        TermLookupServiceRemoteFixture(ResourceService resourceService) {
+            super(resourceService);
+        }
+
+        @Override
+        protected List<URI> getMappingURIList() {
+            return Collections.singletonList(URI.create("http://example.org/term-mapping-fixture.tsv"));
+        }
+
+        @Override
+        protected char getDelimiter() {
+            return '\t';
+        }
+
+        @Override
+        protected boolean hasHeader() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.eol.globi.taxon;
+
+import org.apache.commons.io.FileUtils;
+import org.eol.globi.domain.Term;
+import org.eol.globi.domain.TermImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class TermMappingIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compileAndLookup() throws IOException {
+        Map<String, List<Term>> mapping = new HashMap<>();
+        mapping.put("forest", Arrays.asList(new TermImpl("ENVO:01000174", "forest biome"), new TermImpl("ENVO:00000111", "forested area")));
+        mapping.put("rocky shore", Collections.singletonList(new TermImpl("ENVO:00000304", "rocky shore")));
+        mapping.put("zoë", Collections.singletonList(new TermImpl("some:id", "some näme")));
+
+        File indexFile = new File(folder.getRoot(), "mapping.bin");
+        TermMappingIndex.compile(mapping, indexFile);
+
+        TermMappingIndex index = TermMappingIndex.open(indexFile);
+        assertThat(index.size(), is(3));
+
+        List<Term> forest = index.lookup("forest");
+        assertThat(forest.size(), is(2));
+        assertThat(forest.get(0).getId(), is("ENVO:01000174"));
+        assertThat(forest.get(0).getName(), is("forest biome"));
+        assertThat(forest.get(1).getId(), is("ENVO:00000111"));
+        assertThat(forest.get(1).getName(), is("forested area"));
+
+        assertThat(index.lookup("rocky shore").get(0).getId(), is("ENVO:00000304"));
+        assertThat(index.lookup("zoë").get(0).getName(), is("some näme"));
+        assertThat(index.lookup("desert"), is(nullValue()));
+        assertThat(index.lookup(""), is(nullValue()));
+        assertThat(index.lookup(null), is(nullValue()));
+    }
+
+    @Test
+    public void compileEmpty() throws IOException {
+        File indexFile = new File(folder.getRoot(), "mapping.bin");
+        TermMappingIndex.compile(Collections.emptyMap(), indexFile);
+
+        TermMappingIndex index = TermMappingIndex.open(indexFile);
+        assertThat(index.size(), is(0));
+        assertThat(index.lookup("forest"), is(nullValue()));
+    }
+
+    @Test(expected = IOException.class)
+    public void openCorrupted() throws IOException {
+        File indexFile = new File(folder.getRoot(), "mapping.bin");
+        TermMappingIndex.compile(Collections.singletonMap("forest", Collections.singletonList(new TermImpl("ENVO:01000174", "forest biome"))), indexFile);
+
+        byte[] bytes = FileUtils.readFileToByteArray(indexFile);
+        bytes[bytes.length - 1] = (byte) (bytes[bytes.length - 1] + 1);
+        FileUtils.writeByteArrayToFile(indexFile, bytes);
+
+        TermMappingIndex.open(indexFile);
+    }
+
+}